@@ -27,6 +27,7 @@ import static org.hamcrest.Matchers.not;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
@@ -39,12 +40,14 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.function.UnaryOperator;
 import java.util.regex.Matcher;
@@ -347,6 +350,36 @@ class RegistryIT {
             assertEquals(registryKey.path(), exception.path());
         }
 
+        @Test
+        @DisplayName("watch")
+        void testWatch() throws InterruptedException {
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\windows-registry\\watch");
+            registryKey.createIfNotExists();
+
+            try (RegistryWatchService watchService = RegistryWatchService.create()) {
+                RegistryWatchService.Registration registration = watchService.register(registryKey,
+                        EnumSet.of(RegistryWatchService.Kind.SUB_KEYS, RegistryWatchService.Kind.VALUES));
+
+                registryKey.setValue(StringValue.of("string", "test"));
+
+                RegistryWatchService.WatchEvent event = watchService.poll(10, TimeUnit.SECONDS);
+                assertNotNull(event);
+                assertEquals(registryKey, event.registryKey());
+                assertEquals(RegistryWatchService.Kind.VALUES, event.kind());
+
+                registryKey.resolve("subKey").create();
+
+                event = watchService.poll(10, TimeUnit.SECONDS);
+                assertNotNull(event);
+                assertEquals(RegistryWatchService.Kind.SUB_KEYS, event.kind());
+
+                registryKey.resolve("subKey").delete();
+                registryKey.delete();
+
+                await().atMost(Duration.ofSeconds(10)).until(() -> !registration.isValid());
+            }
+        }
+
         @Nested
         @DisplayName("invalid handle states")
         class InvalidHandleStates {
@@ -0,0 +1,92 @@
+/*
+ * EnumerationBenchmark.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@SuppressWarnings({ "javadoc", "nls" })
+public class EnumerationBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    private int count;
+
+    private RegistryKey registryKey;
+    private RegistryKey.Handle handle;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        registryKey = Registry.inMemory().HKEY_CURRENT_USER.resolve("benchmark");
+        registryKey.create();
+
+        try (RegistryKey.Handle h = registryKey.handle(RegistryKey.HandleOption.MANAGE_VALUES)) {
+            for (int i = 0; i < count; i++) {
+                registryKey.resolve("subKey" + i).create();
+                h.setValue(DWordValue.of("value" + i, i));
+            }
+        }
+
+        handle = registryKey.handle();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        handle.close();
+    }
+
+    @Benchmark
+    public void subKeys(Blackhole blackhole) {
+        try (Stream<RegistryKey> stream = handle.subKeys()) {
+            stream.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void values(Blackhole blackhole) {
+        try (Stream<RegistryValue> stream = handle.values()) {
+            stream.forEach(blackhole::consume);
+        }
+    }
+
+    @Benchmark
+    public void traverse(Blackhole blackhole) {
+        try (Stream<RegistryKey> stream = registryKey.traverse()) {
+            stream.forEach(blackhole::consume);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * ValueBenchmark.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@SuppressWarnings({ "javadoc", "nls" })
+public class ValueBenchmark {
+
+    private static final String VALUE_NAME = "value";
+
+    @Param({ "STRING", "EXPAND_STRING", "MULTI_STRING", "DWORD", "QWORD", "BINARY" })
+    private String valueType;
+
+    private RegistryKey.Handle handle;
+
+    private Arena arena;
+    private int type;
+    private MemorySegment data;
+    private long dataLength;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        SettableRegistryValue value = createValue(valueType);
+
+        RegistryKey registryKey = Registry.inMemory().HKEY_CURRENT_USER.resolve("benchmark");
+        registryKey.create();
+        registryKey.setValue(value);
+
+        handle = registryKey.handle();
+
+        arena = Arena.ofConfined();
+        type = value.type();
+        data = value.rawData(arena);
+        dataLength = data.byteSize();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        handle.close();
+        arena.close();
+    }
+
+    private static SettableRegistryValue createValue(String valueType) {
+        return switch (valueType) {
+            case "STRING" -> StringValue.of(VALUE_NAME, "a string value of moderate length");
+            case "EXPAND_STRING" -> StringValue.expandableOf(VALUE_NAME, "%SystemRoot%\\System32");
+            case "MULTI_STRING" -> MultiStringValue.of(VALUE_NAME, "value1", "value2", "value3");
+            case "DWORD" -> DWordValue.of(VALUE_NAME, 13);
+            case "QWORD" -> QWordValue.of(VALUE_NAME, 481);
+            case "BINARY" -> BinaryValue.of(VALUE_NAME, new byte[128]);
+            default -> throw new IllegalArgumentException(valueType);
+        };
+    }
+
+    @Benchmark
+    public RegistryValue getValue() {
+        return handle.getValue(VALUE_NAME, RegistryValue.class);
+    }
+
+    @Benchmark
+    public RegistryValue registryValueOf() {
+        return RegistryValue.of(VALUE_NAME, type, data, dataLength);
+    }
+}
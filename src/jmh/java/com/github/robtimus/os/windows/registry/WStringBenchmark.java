@@ -0,0 +1,89 @@
+/*
+ * WStringBenchmark.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+@SuppressWarnings({ "javadoc", "nls" })
+public class WStringBenchmark {
+
+    @Param({ "8", "256" })
+    private int length;
+
+    private String string;
+    private List<String> strings;
+
+    private Arena arena;
+    private MemorySegment stringSegment;
+    private MemorySegment stringListSegment;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        string = "x".repeat(length);
+        strings = Collections.nCopies(4, string);
+
+        arena = Arena.ofConfined();
+        stringSegment = WString.allocate(arena, string);
+        stringListSegment = WString.allocate(arena, strings);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        arena.close();
+    }
+
+    @Benchmark
+    public String getString() {
+        return WString.getString(stringSegment);
+    }
+
+    @Benchmark
+    public List<String> getStringList() {
+        return WString.getStringList(stringListSegment);
+    }
+
+    @Benchmark
+    public long allocate() {
+        try (Arena allocator = Arena.ofConfined()) {
+            return WString.allocate(allocator, string).byteSize();
+        }
+    }
+}
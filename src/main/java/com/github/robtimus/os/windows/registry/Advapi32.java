@@ -30,16 +30,20 @@ final class Advapi32 extends WindowsApi {
 
     private static final MethodHandle REG_CLOSE_KEY;
     private static final MethodHandle REG_CONNECT_REGISTRY;
+    private static final Optional<MethodHandle> REG_COPY_TREE;
     private static final MethodHandle REG_CREATE_KEY_EX;
     private static final Optional<MethodHandle> REG_CREATE_KEY_TRANSACTED;
     private static final MethodHandle REG_DELETE_KEY_EX;
     private static final Optional<MethodHandle> REG_DELETE_KEY_TRANSACTED;
+    private static final Optional<MethodHandle> REG_DELETE_TREE;
     private static final MethodHandle REG_DELETE_VALUE;
     private static final MethodHandle REG_ENUM_KEY_EX;
     private static final MethodHandle REG_ENUM_VALUE;
+    private static final MethodHandle REG_NOTIFY_CHANGE_KEY_VALUE;
     private static final MethodHandle REG_OPEN_KEY_EX;
     private static final Optional<MethodHandle> REG_OPEN_KEY_TRANSACTED;
     private static final MethodHandle REG_QUERY_INFO_KEY;
+    private static final MethodHandle REG_QUERY_MULTIPLE_VALUES;
     private static final MethodHandle REG_QUERY_VALUE_EX;
     private static final Optional<MethodHandle> REG_RENAME_KEY;
     private static final MethodHandle REG_SET_VALUE_EX;
@@ -57,6 +61,14 @@ final class Advapi32 extends WindowsApi {
                 ValueLayout.ADDRESS, // hKey
                 ValueLayout.ADDRESS)); // phkResult
 
+        // RegCopyTreeW does not work before Windows Vista / Windows Server 2008
+        REG_COPY_TREE = advapi32.find("RegCopyTreeW")
+                .map(address -> linker.downcallHandle(address, FunctionDescriptor.of(
+                        ValueLayout.JAVA_INT,
+                        ValueLayout.ADDRESS, // hKeySrc
+                        ValueLayout.ADDRESS, // lpSubKey
+                        ValueLayout.ADDRESS))); // hKeyDest
+
         REG_CREATE_KEY_EX = linker.downcallHandle(advapi32.findOrThrow("RegCreateKeyExW"), FunctionDescriptor.of(
                 ValueLayout.JAVA_INT,
                 ValueLayout.ADDRESS, // hKey
@@ -85,6 +97,13 @@ final class Advapi32 extends WindowsApi {
                         ValueLayout.ADDRESS, // hTransaction
                         ValueLayout.ADDRESS))); // pExtendedParemeter
 
+        // RegDeleteTreeW does not work before Windows Vista / Windows Server 2008
+        REG_DELETE_TREE = advapi32.find("RegDeleteTreeW")
+                .map(address -> linker.downcallHandle(address, FunctionDescriptor.of(
+                        ValueLayout.JAVA_INT,
+                        ValueLayout.ADDRESS, // hKey
+                        ValueLayout.ADDRESS))); // lpSubKey
+
         REG_DELETE_KEY_EX = linker.downcallHandle(advapi32.findOrThrow("RegDeleteKeyExW"), FunctionDescriptor.of(
                 ValueLayout.JAVA_INT,
                 ValueLayout.ADDRESS, // hKey
@@ -127,6 +146,14 @@ final class Advapi32 extends WindowsApi {
                 ValueLayout.ADDRESS, // lpData
                 ValueLayout.ADDRESS)); // lpcbData
 
+        REG_NOTIFY_CHANGE_KEY_VALUE = linker.downcallHandle(advapi32.findOrThrow("RegNotifyChangeKeyValue"), FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS, // hKey
+                ValueLayout.JAVA_INT, // bWatchSubtree
+                ValueLayout.JAVA_INT, // dwNotifyFilter
+                ValueLayout.ADDRESS, // hEvent
+                ValueLayout.JAVA_INT)); // fAsynchronous
+
         REG_OPEN_KEY_EX = linker.downcallHandle(advapi32.findOrThrow("RegOpenKeyExW"), FunctionDescriptor.of(ValueLayout.JAVA_INT,
                 ValueLayout.ADDRESS, // hKey
                 ValueLayout.ADDRESS, // lpSubKey
@@ -160,6 +187,14 @@ final class Advapi32 extends WindowsApi {
                 ValueLayout.ADDRESS, // lpcbSecurityDescriptor
                 ValueLayout.ADDRESS)); // lpftLastWriteTime
 
+        REG_QUERY_MULTIPLE_VALUES = linker.downcallHandle(advapi32.findOrThrow("RegQueryMultipleValuesW"), FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,
+                ValueLayout.ADDRESS, // hKey
+                ValueLayout.ADDRESS, // val_list
+                ValueLayout.JAVA_INT, // num_vals
+                ValueLayout.ADDRESS, // lpValueBuf
+                ValueLayout.ADDRESS)); // ldwTotsize
+
         REG_QUERY_VALUE_EX = linker.downcallHandle(advapi32.findOrThrow("RegQueryValueExW"), FunctionDescriptor.of(ValueLayout.JAVA_INT,
                 ValueLayout.ADDRESS, // hKey
                 ValueLayout.ADDRESS, // lpValueName
@@ -231,6 +266,34 @@ final class Advapi32 extends WindowsApi {
         }
     }
 
+    /*
+     * LSTATUS RegCopyTreeW(
+     *   [in]           HKEY    hKeySrc,
+     *   [in, optional] LPCWSTR lpSubKey,
+     *   [in]           HKEY    hKeyDest
+     * )
+     */
+    @SuppressWarnings({ "checkstyle:MethodName", "squid:S100" })
+    static int RegCopyTree(
+            MemorySegment hKeySrc,
+            MemorySegment lpSubKey,
+            MemorySegment hKeyDest) {
+
+        MethodHandle regCopyTreeHandle = REG_COPY_TREE.orElseThrow(UnsupportedOperationException::new);
+        try {
+            return (int) regCopyTreeHandle.invokeExact(
+                    hKeySrc,
+                    lpSubKey,
+                    hKeyDest);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static boolean isRegCopyTreeEnabled() {
+        return REG_COPY_TREE.isPresent();
+    }
+
     /*
      * LSTATUS RegCreateKeyExW(
      *   [in]            HKEY                        hKey,
@@ -391,6 +454,31 @@ final class Advapi32 extends WindowsApi {
         return REG_DELETE_KEY_TRANSACTED.isPresent();
     }
 
+    /*
+     * LSTATUS RegDeleteTreeW(
+     *   [in]           HKEY    hKey,
+     *   [in, optional] LPCWSTR lpSubKey
+     * )
+     */
+    @SuppressWarnings({ "checkstyle:MethodName", "squid:S100" })
+    static int RegDeleteTree(
+            MemorySegment hKey,
+            MemorySegment lpSubKey) {
+
+        MethodHandle regDeleteTreeHandle = REG_DELETE_TREE.orElseThrow(UnsupportedOperationException::new);
+        try {
+            return (int) regDeleteTreeHandle.invokeExact(
+                    hKey,
+                    lpSubKey);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static boolean isRegDeleteTreeEnabled() {
+        return REG_DELETE_TREE.isPresent();
+    }
+
     /*
      * LSTATUS RegDeleteValueW(
      *   [in]           HKEY    hKey,
@@ -487,6 +575,35 @@ final class Advapi32 extends WindowsApi {
         }
     }
 
+    /*
+     * LSTATUS RegNotifyChangeKeyValue(
+     *   [in]           HKEY   hKey,
+     *   [in]           BOOL   bWatchSubtree,
+     *   [in]           DWORD  dwNotifyFilter,
+     *   [in, optional] HANDLE hEvent,
+     *   [in]           BOOL   fAsynchronous
+     * )
+     */
+    @SuppressWarnings({ "checkstyle:MethodName", "squid:S100" })
+    static int RegNotifyChangeKeyValue(
+            MemorySegment hKey,
+            int bWatchSubtree,
+            int dwNotifyFilter,
+            MemorySegment hEvent,
+            int fAsynchronous) {
+
+        try {
+            return (int) REG_NOTIFY_CHANGE_KEY_VALUE.invokeExact(
+                    hKey,
+                    bWatchSubtree,
+                    dwNotifyFilter,
+                    hEvent,
+                    fAsynchronous);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /*
      * LSTATUS RegOpenKeyExW(
      *   [in]           HKEY    hKey,
@@ -606,6 +723,37 @@ final class Advapi32 extends WindowsApi {
         }
     }
 
+    /*
+     * LSTATUS RegQueryMultipleValuesW(
+     *   [in]                HKEY     hKey,
+     *   [out]               PVALENTW val_list,
+     *   [in]                DWORD    num_vals,
+     *   [out, optional]     LPWSTR   lpValueBuf,
+     *   [in, out, optional] LPDWORD  ldwTotsize
+     * )
+     */
+    @SuppressWarnings({ "checkstyle:MethodName", "squid:S100" })
+    static int RegQueryMultipleValues(
+            MemorySegment hKey,
+            @SuppressWarnings({ "checkstyle:ParameterName", "squid:S117" })
+            MemorySegment val_list,
+            @SuppressWarnings({ "checkstyle:ParameterName", "squid:S117" })
+            int num_vals,
+            MemorySegment lpValueBuf,
+            MemorySegment ldwTotsize) {
+
+        try {
+            return (int) REG_QUERY_MULTIPLE_VALUES.invokeExact(
+                    hKey,
+                    val_list,
+                    num_vals,
+                    lpValueBuf,
+                    ldwTotsize);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
     /*
      * LSTATUS RegQueryValueExW(
      *   [in]                HKEY    hKey,
@@ -0,0 +1,301 @@
+/*
+ * AsyncRegistryKey.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * An asynchronous view of a {@link RegistryKey}. Each operation is performed on an executor, and returns a {@link CompletableFuture} that completes
+ * with the result of the operation. If the operation fails, the future completes exceptionally with the exception that the matching
+ * {@link RegistryKey} method would throw.
+ * <p>
+ * Operations are performed using the transactional state of the thread that starts them. That means that operations that are started inside a
+ * {@link TransactionalState#required(TransactionOption...) transaction} are performed in that same transaction, even though they are performed
+ * on another thread. The transaction should therefore not be committed or rolled back before these operations have completed.
+ * Likewise, operations that are started while a {@link HandleCache} is active use that handle cache.
+ * <p>
+ * Instances can be retrieved using {@link RegistryKey#async()} or {@link RegistryKey#async(Executor)}.
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+public final class AsyncRegistryKey {
+
+    static final Executor DEFAULT_EXECUTOR = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+            .name("registry-async-", 0) //$NON-NLS-1$
+            .factory());
+
+    private final RegistryKey key;
+    private final Executor executor;
+
+    AsyncRegistryKey(RegistryKey key, Executor executor) {
+        this.key = key;
+        this.executor = executor;
+    }
+
+    /**
+     * Returns the registry key this is a view of.
+     *
+     * @return The registry key this is a view of.
+     */
+    public RegistryKey key() {
+        return key;
+    }
+
+    /**
+     * Performs an action on the registry key this is a view of.
+     * This method can be used for operations that do not have an asynchronous counterpart.
+     *
+     * @param <R> The type of result of the action.
+     * @param action The action to perform.
+     * @return A future that completes with the result of the action.
+     * @throws NullPointerException If the given action is {@code null}.
+     */
+    public <R> CompletableFuture<R> callAsync(Function<? super RegistryKey, ? extends R> action) {
+        Objects.requireNonNull(action);
+
+        Registry.Context context = Registry.currentContext();
+        HandleCache handleCache = HandleCache.current().orElse(null);
+        return CompletableFuture.supplyAsync(() -> Registry.callWithContext(context, () -> handleCache != null
+                ? handleCache.call(() -> action.apply(key))
+                : action.apply(key)), executor);
+    }
+
+    private CompletableFuture<Void> runAsync(Consumer<? super RegistryKey> action) {
+        return callAsync(k -> {
+            action.accept(k);
+            return null;
+        });
+    }
+
+    // informational
+
+    /**
+     * Asynchronously returns the attributes of the registry key.
+     *
+     * @return A future that completes with the attributes of the registry key.
+     * @see RegistryKey#attributes()
+     */
+    public CompletableFuture<RegistryKey.Attributes> attributesAsync() {
+        return callAsync(RegistryKey::attributes);
+    }
+
+    // traversal
+
+    /**
+     * Asynchronously returns the direct sub keys of the registry key.
+     *
+     * @return A future that completes with the direct sub keys of the registry key.
+     * @see RegistryKey#subKeys()
+     */
+    public CompletableFuture<List<RegistryKey>> subKeysAsync() {
+        return callAsync(k -> {
+            try (Stream<RegistryKey> subKeys = k.subKeys()) {
+                return subKeys.toList();
+            }
+        });
+    }
+
+    // values
+
+    /**
+     * Asynchronously returns the values of the registry key.
+     *
+     * @return A future that completes with the values of the registry key.
+     * @see RegistryKey#values()
+     */
+    public CompletableFuture<List<RegistryValue>> valuesAsync() {
+        return callAsync(k -> {
+            try (Stream<RegistryValue> values = k.values()) {
+                return values.toList();
+            }
+        });
+    }
+
+    /**
+     * Asynchronously returns the values of the registry key that match a filter.
+     *
+     * @param filter A filter that determines which values to return.
+     * @return A future that completes with the values of the registry key that match the given filter.
+     * @throws NullPointerException If the given filter is {@code null}.
+     * @see RegistryKey#values(RegistryValue.Filter)
+     */
+    public CompletableFuture<List<RegistryValue>> valuesAsync(RegistryValue.Filter filter) {
+        Objects.requireNonNull(filter);
+        return callAsync(k -> {
+            try (Stream<RegistryValue> values = k.values(filter)) {
+                return values.toList();
+            }
+        });
+    }
+
+    /**
+     * Asynchronously returns a registry value.
+     *
+     * @param <V> The type of registry value to return.
+     * @param name The name of the registry value to return.
+     * @param valueType The type of registry value to return.
+     * @return A future that completes with the registry value with the given name.
+     * @throws NullPointerException If the given name or value type is {@code null}.
+     * @see RegistryKey#getValue(String, Class)
+     */
+    public <V extends RegistryValue> CompletableFuture<V> getValueAsync(String name, Class<V> valueType) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(valueType);
+        return callAsync(k -> k.getValue(name, valueType));
+    }
+
+    /**
+     * Asynchronously tries to return a registry value.
+     *
+     * @param <V> The type of registry value to return.
+     * @param name The name of the registry value to return.
+     * @param valueType The type of registry value to return.
+     * @return A future that completes with an {@link Optional} describing the registry value with the given name,
+     *         or {@link Optional#empty()} if there is no such registry value.
+     * @throws NullPointerException If the given name or value type is {@code null}.
+     * @see RegistryKey#findValue(String, Class)
+     */
+    public <V extends RegistryValue> CompletableFuture<Optional<V>> findValueAsync(String name, Class<V> valueType) {
+        Objects.requireNonNull(name);
+        Objects.requireNonNull(valueType);
+        return callAsync(k -> k.findValue(name, valueType));
+    }
+
+    /**
+     * Asynchronously returns several registry values.
+     *
+     * @param names The names of the registry values to return.
+     * @return A future that completes with a map containing the registry values that exist, with the names of the registry values as keys.
+     * @throws NullPointerException If any of the given names is {@code null}.
+     * @see RegistryKey#getValues(String...)
+     */
+    public CompletableFuture<Map<String, RegistryValue>> getValuesAsync(String... names) {
+        String[] nameCopy = names.clone();
+        for (String name : nameCopy) {
+            Objects.requireNonNull(name);
+        }
+        return callAsync(k -> k.getValues(nameCopy));
+    }
+
+    /**
+     * Asynchronously sets a registry value.
+     *
+     * @param value The registry value to set.
+     * @return A future that completes when the registry value has been set.
+     * @throws NullPointerException If the given registry value is {@code null}.
+     * @see RegistryKey#setValue(SettableRegistryValue)
+     */
+    public CompletableFuture<Void> setValueAsync(SettableRegistryValue value) {
+        Objects.requireNonNull(value);
+        return runAsync(k -> k.setValue(value));
+    }
+
+    /**
+     * Asynchronously deletes a registry value.
+     *
+     * @param name The name of the registry value to delete.
+     * @return A future that completes when the registry value has been deleted.
+     * @throws NullPointerException If the given name is {@code null}.
+     * @see RegistryKey#deleteValue(String)
+     */
+    public CompletableFuture<Void> deleteValueAsync(String name) {
+        Objects.requireNonNull(name);
+        return runAsync(k -> k.deleteValue(name));
+    }
+
+    /**
+     * Asynchronously deletes a registry value if it exists.
+     *
+     * @param name The name of the registry value to delete.
+     * @return A future that completes with {@code true} if the registry value existed and has been deleted, or {@code false} otherwise.
+     * @throws NullPointerException If the given name is {@code null}.
+     * @see RegistryKey#deleteValueIfExists(String)
+     */
+    public CompletableFuture<Boolean> deleteValueIfExistsAsync(String name) {
+        Objects.requireNonNull(name);
+        return callAsync(k -> k.deleteValueIfExists(name));
+    }
+
+    // other
+
+    /**
+     * Asynchronously tests whether or not the registry key exists.
+     *
+     * @return A future that completes with {@code true} if the registry key exists, or {@code false} otherwise.
+     * @see RegistryKey#exists()
+     */
+    public CompletableFuture<Boolean> existsAsync() {
+        return callAsync(RegistryKey::exists);
+    }
+
+    /**
+     * Asynchronously creates the registry key.
+     *
+     * @return A future that completes when the registry key has been created.
+     * @see RegistryKey#create()
+     */
+    public CompletableFuture<Void> createAsync() {
+        return runAsync(RegistryKey::create);
+    }
+
+    /**
+     * Asynchronously creates the registry key if it does not exist yet.
+     *
+     * @return A future that completes with {@code true} if the registry key was created, or {@code false} if it already existed.
+     * @see RegistryKey#createIfNotExists()
+     */
+    public CompletableFuture<Boolean> createIfNotExistsAsync() {
+        return callAsync(RegistryKey::createIfNotExists);
+    }
+
+    /**
+     * Asynchronously deletes the registry key.
+     *
+     * @return A future that completes when the registry key has been deleted.
+     * @see RegistryKey#delete()
+     */
+    public CompletableFuture<Void> deleteAsync() {
+        return runAsync(RegistryKey::delete);
+    }
+
+    /**
+     * Asynchronously deletes the registry key if it exists.
+     *
+     * @return A future that completes with {@code true} if the registry key existed and has been deleted, or {@code false} otherwise.
+     * @see RegistryKey#deleteIfExists()
+     */
+    public CompletableFuture<Boolean> deleteIfExistsAsync() {
+        return callAsync(RegistryKey::deleteIfExists);
+    }
+
+    @Override
+    @SuppressWarnings("nls")
+    public String toString() {
+        return "AsyncRegistryKey[key=" + key + "]";
+    }
+}
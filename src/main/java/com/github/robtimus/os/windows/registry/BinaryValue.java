@@ -128,6 +128,11 @@ public final class BinaryValue extends SettableRegistryValue {
         return of(name(), data);
     }
 
+    @Override
+    long dataSize() {
+        return data.length;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
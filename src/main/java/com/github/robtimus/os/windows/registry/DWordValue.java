@@ -89,6 +89,14 @@ public final class DWordValue extends SettableRegistryValue {
         return new DWordValue(name, REG_DWORD_BIG_ENDIAN, value, LAYOUT_BIG_ENDIAN);
     }
 
+    static boolean isDWordType(int type) {
+        return type == REG_DWORD_LITTLE_ENDIAN || type == REG_DWORD_BIG_ENDIAN;
+    }
+
+    static int readValue(int type, MemorySegment data) {
+        return data.get(getLayout(type), 0);
+    }
+
     private static ValueLayout.OfInt getLayout(int type) {
         switch (type) {
             case REG_DWORD_BIG_ENDIAN:
@@ -167,6 +175,11 @@ public final class DWordValue extends SettableRegistryValue {
         return bigEndianOf(name(), value);
     }
 
+    @Override
+    long dataSize() {
+        return Integer.BYTES;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,177 @@
+/*
+ * EnumerationBuffer.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_MORE_DATA;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NO_MORE_ITEMS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.List;
+import com.github.robtimus.os.windows.registry.RegistryKey.Handle;
+
+/*
+ * Reusable buffers for walking registry keys with RegEnumKeyEx and RegEnumValue, without collecting sub keys or values first. It is not thread safe.
+ *
+ * There is one sub key name buffer per depth level, because enumerating the sub keys of a registry key continues after its sub keys have been
+ * processed. Values must be processed before any sub keys, so one value buffer is enough.
+ */
+final class EnumerationBuffer {
+
+    // Registry key names are limited to 255 characters
+    static final int MAX_KEY_NAME_LENGTH = 255;
+
+    private final List<MemorySegment> subKeyNames;
+    private final MemorySegment lpcName;
+
+    private final MemorySegment lpcchValueName;
+    private final MemorySegment lpType;
+    private final MemorySegment lpcbData;
+    private MemorySegment lpValueName;
+    private MemorySegment lpData;
+
+    EnumerationBuffer() {
+        // Use a separate automatic arena for each segment, so segments that are replaced can be freed independently
+        subKeyNames = new ArrayList<>();
+        lpcName = Arena.ofAuto().allocate(ValueLayout.JAVA_INT);
+
+        lpcchValueName = Arena.ofAuto().allocate(ValueLayout.JAVA_INT);
+        lpType = Arena.ofAuto().allocate(ValueLayout.JAVA_INT);
+        lpcbData = Arena.ofAuto().allocate(ValueLayout.JAVA_INT);
+        lpValueName = WString.allocate(Arena.ofAuto(), ValueBuffer.INITIAL_NAME_LENGTH);
+        lpData = Arena.ofAuto().allocate(ValueBuffer.INITIAL_DATA_SIZE);
+    }
+
+    // sub keys
+
+    // Returns the name of the sub key with the given index, or null if there are no more sub keys
+    String subKey(RegistryKey registryKey, Handle handle, int index, int depth) {
+        MemorySegment lpName = subKeyName(depth);
+        lpcName.set(ValueLayout.JAVA_INT, 0, Math.toIntExact(lpName.byteSize() / WString.CHAR_SIZE));
+
+        int code = registryKey.backend().enumKey(handle.hKey, index, lpName, lpcName);
+        if (code == ERROR_NO_MORE_ITEMS) {
+            return null;
+        }
+        if (code != ERROR_SUCCESS) {
+            throw RegistryException.forKey(code, registryKey.path(), registryKey.machineName());
+        }
+
+        // lpcName contains the number of characters excluding the terminating character
+        return WString.getString(lpName, lpcName.get(ValueLayout.JAVA_INT, 0));
+    }
+
+    private MemorySegment subKeyName(int depth) {
+        while (depth >= subKeyNames.size()) {
+            subKeyNames.add(WString.allocate(Arena.ofAuto(), MAX_KEY_NAME_LENGTH));
+        }
+        return subKeyNames.get(depth);
+    }
+
+    // values
+
+    // Reads the value with the given index into this buffer, and returns false if there are no more values
+    boolean value(RegistryKey registryKey, Handle handle, int index) {
+        if (index == 0) {
+            ensureValueCapacity(registryKey, handle);
+        }
+
+        int code = enumValue(registryKey, handle, index);
+        for (int attempt = 1; code == ERROR_MORE_DATA && attempt < ValueBuffer.MAX_ATTEMPTS; attempt++) {
+            // A value was added or changed since the buffers were sized
+            if (!ensureValueCapacity(registryKey, handle)) {
+                // The reported maximum sizes are not larger than the buffers; grow geometrically so the next call can make progress
+                lpValueName = WString.allocate(Arena.ofAuto(), Math.toIntExact(lpValueName.byteSize() / WString.CHAR_SIZE * 2));
+                lpData = Arena.ofAuto().allocate(lpData.byteSize() * 2);
+            }
+            code = enumValue(registryKey, handle, index);
+        }
+        if (code == ERROR_NO_MORE_ITEMS) {
+            return false;
+        }
+        if (code != ERROR_SUCCESS) {
+            throw RegistryException.forKey(code, registryKey.path(), registryKey.machineName());
+        }
+        return true;
+    }
+
+    private int enumValue(RegistryKey registryKey, Handle handle, int index) {
+        lpcchValueName.set(ValueLayout.JAVA_INT, 0, Math.toIntExact(lpValueName.byteSize() / WString.CHAR_SIZE));
+        lpcbData.set(ValueLayout.JAVA_INT, 0, Math.toIntExact(lpData.byteSize()));
+
+        return registryKey.backend().enumValue(handle.hKey, index, lpValueName, lpcchValueName, lpType, lpData, lpcbData);
+    }
+
+    // Returns true if any of the buffers was replaced
+    private boolean ensureValueCapacity(RegistryKey registryKey, Handle handle) {
+        try (Arena allocator = Arena.ofConfined()) {
+            MemorySegment lpcMaxValueNameLen = allocator.allocate(ValueLayout.JAVA_INT);
+            MemorySegment lpcMaxValueLen = allocator.allocate(ValueLayout.JAVA_INT);
+
+            int code = registryKey.backend().queryInfoKey(
+                    handle.hKey,
+                    MemorySegment.NULL,
+                    MemorySegment.NULL,
+                    MemorySegment.NULL,
+                    lpcMaxValueNameLen,
+                    lpcMaxValueLen,
+                    MemorySegment.NULL);
+            if (code != ERROR_SUCCESS) {
+                throw RegistryException.forKey(code, registryKey.path(), registryKey.machineName());
+            }
+
+            boolean grown = false;
+            int maxValueNameLen = lpcMaxValueNameLen.get(ValueLayout.JAVA_INT, 0);
+            if (lpValueName.byteSize() < (maxValueNameLen + 1L) * WString.CHAR_SIZE) {
+                lpValueName = WString.allocate(Arena.ofAuto(), maxValueNameLen);
+                grown = true;
+            }
+            long maxValueLen = Integer.toUnsignedLong(lpcMaxValueLen.get(ValueLayout.JAVA_INT, 0));
+            if (lpData.byteSize() < maxValueLen) {
+                lpData = Arena.ofAuto().allocate(maxValueLen);
+                grown = true;
+            }
+            return grown;
+        }
+    }
+
+    // The returned segment is null-terminated, and only valid until the next call to value
+    MemorySegment lpValueName() {
+        return lpValueName;
+    }
+
+    // The number of characters of the value name, excluding the terminating character
+    int valueNameLength() {
+        return lpcchValueName.get(ValueLayout.JAVA_INT, 0);
+    }
+
+    int type() {
+        return lpType.get(ValueLayout.JAVA_INT, 0);
+    }
+
+    // The returned segment is only valid until the next call to value
+    MemorySegment lpData() {
+        return lpData;
+    }
+
+    int dataLength() {
+        return lpcbData.get(ValueLayout.JAVA_INT, 0);
+    }
+}
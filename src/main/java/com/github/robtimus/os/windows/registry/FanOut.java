@@ -0,0 +1,202 @@
+/*
+ * FanOut.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+ * Queries the registries of several remote machines concurrently, and reports the results in the order in which they complete.
+ *
+ * A single virtual thread dispatches the remote machines, waiting for a permit before each one. Each remote machine is then connected to and
+ * queried on its own platform thread; connecting and querying block in native code, which would pin the carrier threads of virtual threads.
+ * Permits are released when these threads end, not when they time out. That way, the number of threads that are blocked in native code never
+ * exceeds the maximum concurrency, even if remote machines do not respond.
+ */
+final class FanOut<R> {
+
+    private final List<String> machineNames;
+    private final Function<? super String, ? extends RemoteRegistry> connector;
+    private final Function<? super RemoteRegistry, ? extends R> query;
+    private final Duration timeout;
+
+    private final Semaphore permits;
+    private final BlockingQueue<HostResult<R>> results;
+    private final Set<Thread> workers;
+    private final ThreadFactory workerFactory;
+
+    private Thread dispatcher;
+    private volatile boolean closed;
+
+    FanOut(List<String> machineNames, Function<? super String, ? extends RemoteRegistry> connector,
+            Function<? super RemoteRegistry, ? extends R> query, FanOutOptions options) {
+
+        this(machineNames, connector, query, options, Thread.ofPlatform()
+                .name("registry-fan-out-", 0) //$NON-NLS-1$
+                .daemon()
+                .factory());
+    }
+
+    FanOut(List<String> machineNames, Function<? super String, ? extends RemoteRegistry> connector,
+            Function<? super RemoteRegistry, ? extends R> query, FanOutOptions options, ThreadFactory workerFactory) {
+
+        this.machineNames = machineNames;
+        this.connector = connector;
+        this.query = query;
+        this.timeout = options.timeout();
+
+        this.permits = new Semaphore(options.maxConcurrency());
+        this.results = new LinkedBlockingQueue<>();
+        this.workers = ConcurrentHashMap.newKeySet();
+        this.workerFactory = workerFactory;
+
+        this.closed = false;
+    }
+
+    Stream<HostResult<R>> start() {
+        dispatcher = Thread.ofVirtual()
+                .name("registry-fan-out-dispatcher") //$NON-NLS-1$
+                .start(this::dispatch);
+
+        return StreamSupport.stream(new ResultSpliterator(), false)
+                .onClose(this::close);
+    }
+
+    private void dispatch() {
+        int dispatched = 0;
+        try {
+            for (String machineName : machineNames) {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException _) {
+                    // The stream was closed
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                if (closed) {
+                    permits.release();
+                    return;
+                }
+                try {
+                    startWorker(machineName);
+                } catch (Throwable e) {
+                    // The worker was not started, so it will not release its permit
+                    permits.release();
+                    throw e;
+                }
+                dispatched++;
+            }
+        } catch (Throwable e) {
+            // Report the remote machines that were not dispatched, otherwise the stream waits for their results forever
+            for (String machineName : machineNames.subList(dispatched, machineNames.size())) {
+                results.add(HostResult.failure(machineName, e));
+            }
+        }
+    }
+
+    // Only throws if the worker has not been started
+    private void startWorker(String machineName) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        Thread worker = workerFactory.newThread(() -> {
+            try (RemoteRegistry registry = connector.apply(machineName)) {
+                future.complete(query.apply(registry));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                workers.remove(Thread.currentThread());
+                permits.release();
+            }
+        });
+        // Add the worker before it's started, so close() cannot miss it
+        workers.add(worker);
+
+        try {
+            future.whenComplete((result, failure) -> {
+                if (failure instanceof TimeoutException) {
+                    // Native calls cannot be interrupted, but the query itself may respond to it
+                    worker.interrupt();
+                    results.add(HostResult.timeout(machineName));
+                } else if (failure != null) {
+                    results.add(HostResult.failure(machineName, failure));
+                } else {
+                    results.add(HostResult.success(machineName, result));
+                }
+            });
+            worker.start();
+        } catch (Throwable e) {
+            workers.remove(worker);
+            throw e;
+        }
+
+        // Only start the timeout once the worker has been started, so a worker that could not be started is never reported twice
+        if (!timeout.isZero()) {
+            future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void close() {
+        closed = true;
+        dispatcher.interrupt();
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+    }
+
+    private final class ResultSpliterator extends Spliterators.AbstractSpliterator<HostResult<R>> {
+
+        private int remaining;
+
+        private ResultSpliterator() {
+            // Not SIZED, as closing the stream ends it early
+            super(machineNames.size(), Spliterator.NONNULL);
+            this.remaining = machineNames.size();
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super HostResult<R>> action) {
+            if (remaining == 0 || closed) {
+                return false;
+            }
+            HostResult<R> result;
+            try {
+                result = results.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+            remaining--;
+            action.accept(result);
+            return true;
+        }
+    }
+}
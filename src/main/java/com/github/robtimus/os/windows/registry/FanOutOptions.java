@@ -0,0 +1,94 @@
+/*
+ * FanOutOptions.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.time.Duration;
+
+/**
+ * Options for {@link Registry#fanOut(java.util.Collection, java.util.function.Function, FanOutOptions)}.
+ * Instances of this class are immutable; methods that change an option return a new instance.
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+public final class FanOutOptions {
+
+    private static final int DEFAULT_MAX_CONCURRENCY = 16;
+
+    private static final FanOutOptions DEFAULTS = new FanOutOptions(DEFAULT_MAX_CONCURRENCY, Duration.ZERO);
+
+    private final int maxConcurrency;
+    private final Duration timeout;
+
+    private FanOutOptions(int maxConcurrency, Duration timeout) {
+        this.maxConcurrency = maxConcurrency;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the default options. These allow up to 16 remote machines to be queried at the same time, without a timeout.
+     *
+     * @return The default options.
+     */
+    public static FanOutOptions defaults() {
+        return DEFAULTS;
+    }
+
+    /**
+     * Returns options with a different maximum number of remote machines that are queried at the same time.
+     *
+     * @param maxConcurrency The maximum number of remote machines that are queried at the same time.
+     * @return Options with the given maximum number of remote machines that are queried at the same time, and all other options unchanged.
+     * @throws IllegalArgumentException If the given maximum number of remote machines is not positive.
+     */
+    public FanOutOptions maxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException(maxConcurrency + " <= 0"); //$NON-NLS-1$
+        }
+        return new FanOutOptions(maxConcurrency, timeout);
+    }
+
+    /**
+     * Returns options with a different timeout per remote machine. The timeout includes both connecting to and querying the remote registry.
+     *
+     * @param timeout The timeout per remote machine. Use a zero value for an infinite timeout.
+     * @return Options with the given timeout per remote machine, and all other options unchanged.
+     * @throws NullPointerException If the given timeout is {@code null}.
+     * @throws IllegalArgumentException If the given timeout is negative.
+     */
+    public FanOutOptions timeout(Duration timeout) {
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException(timeout + " < 0"); //$NON-NLS-1$
+        }
+        return new FanOutOptions(maxConcurrency, timeout);
+    }
+
+    int maxConcurrency() {
+        return maxConcurrency;
+    }
+
+    Duration timeout() {
+        return timeout;
+    }
+
+    @Override
+    @SuppressWarnings("nls")
+    public String toString() {
+        return "FanOutOptions[maxConcurrency=" + maxConcurrency + ",timeout=" + timeout + "]";
+    }
+}
@@ -0,0 +1,405 @@
+/*
+ * HandleCache.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.lang.foreign.MemorySegment;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A cache for handles to registry keys. Reading from a registry key normally opens a new link to the Windows registry for every operation.
+ * While a handle cache is active, these links are reused instead.
+ * <p>
+ * Handle caches are opt-in. A handle cache is only used by code that is run through its {@link #run(TransactionalState.Action)} or
+ * {@link #call(TransactionalState.Callable)} method. The same handle cache can be used by several threads at the same time.
+ * Handles are not cached for root keys, which are never closed, or while a {@link Transaction} is active.
+ * <p>
+ * A handle cache contains at most a configurable number of handles. If more handles are needed, the least recently used handles are evicted.
+ * Handles that have not been used for a configurable amount of time are evicted as well.
+ * <p>
+ * Registry keys that are deleted or renamed through {@link RegistryKey#delete()}, {@link RegistryKey#deleteIfExists()},
+ * {@link RegistryKey#deleteTree()}, {@link RegistryKey#deleteTreeIfExists()} or {@link RegistryKey#renameTo(String)} while a handle cache is
+ * active are removed from that handle cache automatically, including their nested keys. If registry keys are deleted or renamed in another way,
+ * use {@link #invalidate(RegistryKey)} or {@link #invalidateAll()}. Otherwise cached handles keep referring to the original registry keys until
+ * they are evicted.
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+public final class HandleCache implements AutoCloseable {
+
+    private static final ScopedValue<HandleCache> CURRENT = ScopedValue.newInstance();
+
+    private final int maxSize;
+    private final long maxIdleTime;
+
+    private final Map<Key, Entry> entries;
+
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+    private final LongAdder evictionCount;
+
+    private boolean closed;
+
+    private HandleCache(int maxSize, Duration maxIdleTime) {
+        this.maxSize = maxSize;
+        this.maxIdleTime = maxIdleTime.toNanos();
+
+        this.entries = new LinkedHashMap<>(16, 0.75F, true);
+
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+        this.evictionCount = new LongAdder();
+
+        this.closed = false;
+    }
+
+    /**
+     * Creates a new handle cache.
+     *
+     * @param maxSize The maximum number of handles to cache.
+     * @param maxIdleTime The maximum time that a cached handle can remain unused before it is evicted.
+     * @return The created handle cache.
+     * @throws NullPointerException If the given maximum idle time is {@code null}.
+     * @throws IllegalArgumentException If the given maximum size is not positive, or if the given maximum idle time is negative.
+     */
+    public static HandleCache create(int maxSize, Duration maxIdleTime) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException(maxSize + " <= 0"); //$NON-NLS-1$
+        }
+        if (maxIdleTime.isNegative()) {
+            throw new IllegalArgumentException(maxIdleTime + " < 0"); //$NON-NLS-1$
+        }
+        return new HandleCache(maxSize, maxIdleTime);
+    }
+
+    static Optional<HandleCache> current() {
+        return CURRENT.isBound()
+                ? Optional.of(CURRENT.get())
+                : Optional.empty();
+    }
+
+    /**
+     * Runs an action with this handle cache active.
+     *
+     * @param <X> The type of exception thrown by the action.
+     * @param action The action to run.
+     * @throws NullPointerException If the given action is {@code null}.
+     * @throws X If the action completes with an exception.
+     */
+    public <X extends Throwable> void run(TransactionalState.Action<X> action) throws X {
+        Objects.requireNonNull(action);
+        call(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Runs an action with this handle cache active.
+     *
+     * @param <R> The action's result type.
+     * @param <X> The type of exception thrown by the action.
+     * @param action The action to run.
+     * @return The result of the action.
+     * @throws NullPointerException If the given action is {@code null}.
+     * @throws X If the action completes with an exception.
+     */
+    public <R, X extends Throwable> R call(TransactionalState.Callable<? extends R, X> action) throws X {
+        Objects.requireNonNull(action);
+        return ScopedValue.where(CURRENT, this).call(action::call);
+    }
+
+    Entry lease(RegistryKey registryKey, int samDesired, Supplier<MemorySegment> hKeySupplier) {
+        Key key = new Key(registryKey.root(), registryKey.path(), samDesired);
+        long now = System.nanoTime();
+
+        List<Entry> entriesToClose = new ArrayList<>();
+        try {
+            synchronized (this) {
+                evictIdle(now, entriesToClose);
+
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    hitCount.increment();
+                    entry.leaseCount++;
+                    return entry;
+                }
+            }
+
+            missCount.increment();
+
+            MemorySegment hKey = hKeySupplier.get();
+            if (hKey == null) {
+                return null;
+            }
+
+            Entry entry = new Entry(key, hKey, registryKey.machineName());
+            synchronized (this) {
+                Entry existing = entries.get(key);
+                if (existing != null) {
+                    // Another thread has cached a handle in the mean time; use that one instead
+                    existing.leaseCount++;
+                    entriesToClose.add(entry);
+                    return existing;
+                }
+                entry.leaseCount++;
+                if (closed) {
+                    // Don't add it to the cache, but let it be closed when it's released
+                    entry.removed = true;
+                } else {
+                    entries.put(key, entry);
+                    evictEldest(entriesToClose);
+                }
+                return entry;
+            }
+        } finally {
+            closeAll(entriesToClose);
+        }
+    }
+
+    void release(Entry entry) {
+        boolean close;
+        synchronized (this) {
+            entry.leaseCount--;
+            entry.lastAccessTime = System.nanoTime();
+            close = entry.removed && entry.leaseCount == 0;
+        }
+        if (close) {
+            entry.close();
+        }
+    }
+
+    private void evictIdle(long now, List<Entry> entriesToClose) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.leaseCount == 0) {
+                if (now - entry.lastAccessTime <= maxIdleTime) {
+                    // Entries are ordered by when they were last leased, so any following entries are most likely not idle either
+                    return;
+                }
+                iterator.remove();
+                evictionCount.increment();
+                remove(entry, entriesToClose);
+            }
+        }
+    }
+
+    private void evictEldest(List<Entry> entriesToClose) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxSize && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            evictionCount.increment();
+            remove(entry, entriesToClose);
+        }
+    }
+
+    private void remove(Entry entry, List<Entry> entriesToClose) {
+        entry.removed = true;
+        if (entry.leaseCount == 0) {
+            entriesToClose.add(entry);
+        }
+        // else it will be closed when released
+    }
+
+    private void closeAll(List<Entry> entriesToClose) {
+        for (Entry entry : entriesToClose) {
+            entry.close();
+        }
+    }
+
+    /**
+     * Removes all cached handles for a registry key and its nested keys from this handle cache.
+     * This method should be called if the registry key has been deleted or renamed outside of this handle cache's control.
+     *
+     * @param registryKey The registry key to remove cached handles for.
+     * @throws NullPointerException If the given registry key is {@code null}.
+     */
+    public void invalidate(RegistryKey registryKey) {
+        RegistryKey root = registryKey.root();
+        String path = registryKey.path();
+
+        List<Entry> entriesToClose = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                if (entry.key.root.equals(root) && isSameOrNested(entry.key.path, path)) {
+                    iterator.remove();
+                    remove(entry, entriesToClose);
+                }
+            }
+        }
+        closeAll(entriesToClose);
+    }
+
+    private static boolean isSameOrNested(String path, String parentPath) {
+        // Registry keys are case insensitive
+        int parentLength = parentPath.length();
+        return path.regionMatches(true, 0, parentPath, 0, parentLength)
+                && (path.length() == parentLength || path.startsWith(RegistryKey.SEPARATOR, parentLength));
+    }
+
+    /**
+     * Removes all cached handles from this handle cache.
+     */
+    public void invalidateAll() {
+        List<Entry> entriesToClose = new ArrayList<>();
+        synchronized (this) {
+            for (Entry entry : entries.values()) {
+                remove(entry, entriesToClose);
+            }
+            entries.clear();
+        }
+        closeAll(entriesToClose);
+    }
+
+    /**
+     * Returns the number of handles that are currently cached.
+     *
+     * @return The number of handles that are currently cached.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns statistics for this handle cache.
+     *
+     * @return An object containing the current statistics for this handle cache.
+     */
+    public Statistics statistics() {
+        return new Statistics(hitCount.sum(), missCount.sum(), evictionCount.sum());
+    }
+
+    /**
+     * Closes this handle cache. This will close all cached handles that are not in use; handles that are in use will be closed once they are
+     * no longer in use. Afterwards, this handle cache can still be used, but it will no longer cache handles.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        invalidateAll();
+    }
+
+    private record Key(RegistryKey root, String path, int samDesired) {
+        // samDesired includes the registry view
+    }
+
+    static final class Entry {
+
+        private final Key key;
+        private final MemorySegment hKey;
+        private final String machineName;
+
+        // The following fields are guarded by the handle cache
+
+        private int leaseCount;
+        private long lastAccessTime;
+        private boolean removed;
+
+        private Entry(Key key, MemorySegment hKey, String machineName) {
+            this.key = key;
+            this.hKey = hKey;
+            this.machineName = machineName;
+
+            this.leaseCount = 0;
+            this.lastAccessTime = System.nanoTime();
+            this.removed = false;
+        }
+
+        MemorySegment hKey() {
+            return hKey;
+        }
+
+        private void close() {
+            try {
+                RegistryKey.closeKey(key.root.backend(), hKey, key.path, machineName);
+            } catch (RegistryException e) {
+                // There is nobody to report this to
+                System.getLogger("windows-registry").log(System.Logger.Level.WARNING, e.getMessage(), e); //$NON-NLS-1$
+            }
+        }
+    }
+
+    /**
+     * Statistics for a {@link HandleCache}.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    public static final class Statistics {
+
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+
+        private Statistics(long hitCount, long missCount, long evictionCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+        }
+
+        /**
+         * Returns the number of times a cached handle could be reused.
+         *
+         * @return The number of times a cached handle could be reused.
+         */
+        public long hitCount() {
+            return hitCount;
+        }
+
+        /**
+         * Returns the number of times a new handle needed to be opened.
+         *
+         * @return The number of times a new handle needed to be opened.
+         */
+        public long missCount() {
+            return missCount;
+        }
+
+        /**
+         * Returns the number of handles that have been evicted because of the maximum size or maximum idle time.
+         * Handles that have been removed using {@link HandleCache#invalidate(RegistryKey)} or {@link HandleCache#invalidateAll()} are not
+         * included.
+         *
+         * @return The number of handles that have been evicted.
+         */
+        public long evictionCount() {
+            return evictionCount;
+        }
+
+        @Override
+        @SuppressWarnings("nls")
+        public String toString() {
+            return "Statistics[hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount + "]";
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * HiveRegistry.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A registry that is read from a registry hive file, like the files created using {@code reg save}, or copies of files like
+ * {@code NTUSER.DAT}. It has a single {@link #rootKey() root key}, which corresponds to the registry key that was saved.
+ * <p>
+ * Hive files are read directly, without needing any native code; they can therefore be read on operating systems other than Windows.
+ * Hive files are mapped into memory, and only those parts that are needed are read. Opening a hive file is therefore fast, regardless of its size.
+ * <p>
+ * Hive registries are read-only; any attempt to create, change or delete registry keys or values will fail with a
+ * {@link RegistryAccessDeniedException}. There are some more limitations:
+ * <ul>
+ *   <li>Registry keys are not affected by {@link Transaction transactions}.</li>
+ *   <li>{@link StringValue#expandedValue() Expanding} string values still requires Windows.</li>
+ *   <li>Registry keys cannot be watched using a {@link RegistryWatchService}.</li>
+ *   <li>Transaction log files ({@code .LOG1} and {@code .LOG2}) are not applied, so changes that were not yet written to the hive file itself are
+ *       not visible.</li>
+ * </ul>
+ * <p>
+ * Hive registries must be {@link #close() closed} when they are no longer needed. Afterwards, their registry keys must no longer be used.
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+@SuppressWarnings("squid:S6548")
+public final class HiveRegistry extends Registry implements AutoCloseable {
+
+    private final Arena arena;
+    private final RegistryKey rootKey;
+
+    private boolean closed;
+
+    private HiveRegistry(Arena arena, MemorySegment hive, String rootKeyName) {
+        this.arena = arena;
+
+        RegistryBackend backend = new HiveRegistryBackend(hive);
+        this.rootKey = new LocalRootKey(ReadOnlyRegistryBackend.ROOT_HKEY, rootKeyName, backend);
+
+        this.closed = false;
+    }
+
+    static HiveRegistry open(Path file) throws IOException {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment hive = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            if (!HiveRegistryBackend.isHive(hive)) {
+                throw new IOException(Messages.HiveRegistry.notAHive(file));
+            }
+            return new HiveRegistry(arena, hive, file.getFileName().toString());
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the root key of this registry. Its name is the name of the hive file.
+     *
+     * @return The root key of this registry.
+     */
+    public RegistryKey rootKey() {
+        return rootKey;
+    }
+
+    /**
+     * Closes this registry. This will release the hive file.
+     */
+    @Override
+    public synchronized void close() {
+        if (!closed) {
+            closed = true;
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,533 @@
+/*
+ * HiveRegistryBackend.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.InMemoryRegistryBackend.copyName;
+import static com.github.robtimus.os.windows.registry.InMemoryRegistryBackend.pathParts;
+import static com.github.robtimus.os.windows.registry.InMemoryRegistryBackend.setInt;
+import static com.github.robtimus.os.windows.registry.InMemoryRegistryBackend.valueName;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_BADDB;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_MORE_DATA;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NO_MORE_ITEMS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.function.ToIntFunction;
+import com.github.robtimus.os.windows.registry.WindowsTypes.FILETIME;
+import com.github.robtimus.os.windows.registry.WindowsTypes.HKEY;
+import com.github.robtimus.os.windows.registry.WindowsTypes.VALENT;
+
+/*
+ * A read-only registry backend that reads registry keys and values directly from a registry hive file (regf format), for instance one created
+ * using "reg save". It does not need any native code.
+ *
+ * The hive file is not parsed up-front. Instead, every operation navigates the cells it needs, starting from the key node (nk) cell of the
+ * registry key it is called for. Handles are mapped to the offsets of these key node cells.
+ *
+ * Hive files store all numbers in little endian byte order. Cell offsets are relative to the start of the first hive bin, which directly
+ * follows the base block. Each cell starts with its size, which is negative for allocated cells.
+ * If the hive file is corrupt, operations return ERROR_BADDB. That includes index roots (ri) that contain anything but leaves (li, lf, lh); Windows
+ * never nests index roots, and not allowing it means that a corrupt hive file cannot cause endless recursion.
+ * Transaction log files are not applied.
+ */
+final class HiveRegistryBackend extends ReadOnlyRegistryBackend<Integer> {
+
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    // Base block
+
+    private static final int REGF_SIGNATURE = 0x66_67_65_72; // regf
+    private static final long MAJOR_VERSION_OFFSET = 20;
+    private static final long ROOT_CELL_OFFSET = 36;
+    private static final int SUPPORTED_MAJOR_VERSION = 1;
+    private static final long BASE_BLOCK_SIZE = 4096;
+
+    // Cells
+
+    private static final int NO_CELL = -1;
+    private static final long CELL_SIZE_SIZE = 4;
+
+    private static final short NK_SIGNATURE = 0x6B_6E; // nk
+    private static final short VK_SIGNATURE = 0x6B_76; // vk
+    private static final short LF_SIGNATURE = 0x66_6C; // lf
+    private static final short LH_SIGNATURE = 0x68_6C; // lh
+    private static final short LI_SIGNATURE = 0x69_6C; // li
+    private static final short RI_SIGNATURE = 0x69_72; // ri
+    private static final short DB_SIGNATURE = 0x62_64; // db
+
+    // Key node cells
+
+    private static final long NK_FLAGS = 2;
+    private static final long NK_LAST_WRITTEN = 4;
+    private static final long NK_SUB_KEY_COUNT = 20;
+    private static final long NK_SUB_KEY_LIST = 28;
+    private static final long NK_VALUE_COUNT = 36;
+    private static final long NK_VALUE_LIST = 40;
+    private static final long NK_NAME_LENGTH = 72;
+    private static final long NK_NAME = 76;
+    private static final int NK_COMP_NAME = 0x0020;
+
+    // Value key cells
+
+    private static final long VK_NAME_LENGTH = 2;
+    private static final long VK_DATA_SIZE = 4;
+    private static final long VK_DATA_OFFSET = 8;
+    private static final long VK_TYPE = 12;
+    private static final long VK_FLAGS = 16;
+    private static final long VK_NAME = 20;
+    private static final int VK_COMP_NAME = 0x0001;
+    // If this bit is set in the data size, the data is stored in the data offset field
+    private static final int VK_DATA_INLINE = 0x8000_0000;
+
+    // Index cells (lf, lh, li, ri) and big data cells (db)
+
+    private static final long LIST_COUNT = 2;
+    private static final long LIST_ELEMENTS = 4;
+    private static final long HASH_LEAF_ELEMENT_SIZE = 8;
+    private static final long DB_SEGMENT_LIST = 4;
+    private static final int DB_SEGMENT_SIZE = 16344;
+
+    private static final int LH_HASH_MULTIPLIER = 37;
+
+    private final MemorySegment hive;
+
+    HiveRegistryBackend(MemorySegment hive) {
+        super(hive.get(INT, ROOT_CELL_OFFSET));
+        this.hive = hive;
+    }
+
+    static boolean isHive(MemorySegment hive) {
+        if (hive.byteSize() < BASE_BLOCK_SIZE
+                || hive.get(INT, 0) != REGF_SIGNATURE
+                || hive.get(INT, MAJOR_VERSION_OFFSET) != SUPPORTED_MAJOR_VERSION) {
+
+            return false;
+        }
+        long rootCell = cell(hive.get(INT, ROOT_CELL_OFFSET));
+        return rootCell + NK_NAME <= hive.byteSize()
+                && hive.get(SHORT, rootCell) == NK_SIGNATURE;
+    }
+
+    @Override
+    public int enumKey(
+            MemorySegment hKey,
+            int dwIndex,
+            MemorySegment lpName,
+            MemorySegment lpcchName) {
+
+        return read(hKey, nk -> {
+            int subKey = dwIndex >= 0 && dwIndex < subKeyCount(nk)
+                    ? subKeyAt(hive.get(INT, cell(nk) + NK_SUB_KEY_LIST), dwIndex)
+                    : NO_CELL;
+            return subKey != NO_CELL
+                    ? copyName(keyName(subKey), lpName, lpcchName)
+                    : ERROR_NO_MORE_ITEMS;
+        });
+    }
+
+    @Override
+    public int enumValue(
+            MemorySegment hKey,
+            int dwIndex,
+            MemorySegment lpValueName,
+            MemorySegment lpcchValueName,
+            MemorySegment lpType,
+            MemorySegment lpData,
+            MemorySegment lpcbData) {
+
+        return read(hKey, nk -> {
+            if (dwIndex < 0 || dwIndex >= valueCount(nk)) {
+                return ERROR_NO_MORE_ITEMS;
+            }
+            int vk = valueAt(nk, dwIndex);
+            int code = copyName(valueKeyName(vk), lpValueName, lpcchValueName);
+            return code == ERROR_SUCCESS
+                    ? copyData(vk, lpType, lpData, lpcbData)
+                    : code;
+        });
+    }
+
+    @Override
+    public int openKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int ulOptions,
+            int samDesired,
+            MemorySegment phkResult) {
+
+        return read(hKey, nk -> {
+            int result = nk;
+            for (String name : pathParts(lpSubKey)) {
+                result = findSubKey(result, name);
+                if (result == NO_CELL) {
+                    return ERROR_FILE_NOT_FOUND;
+                }
+            }
+            HKEY.target(phkResult, open(result));
+            return ERROR_SUCCESS;
+        });
+    }
+
+    @Override
+    public int queryInfoKey(
+            MemorySegment hKey,
+            MemorySegment lpcSubKeys,
+            MemorySegment lpcbMaxSubKeyLen,
+            MemorySegment lpcValues,
+            MemorySegment lpcbMaxValueNameLen,
+            MemorySegment lpcbMaxValueLen,
+            MemorySegment lpftLastWriteTime) {
+
+        return read(hKey, nk -> {
+            int subKeyCount = subKeyCount(nk);
+            int valueCount = valueCount(nk);
+
+            // The maximum lengths that are stored in the key node cell are not guaranteed to be accurate, so calculate them instead
+            int maxSubKeyLen = 0;
+            if (!MemorySegment.NULL.equals(lpcbMaxSubKeyLen)) {
+                int subKeyList = hive.get(INT, cell(nk) + NK_SUB_KEY_LIST);
+                for (int i = 0; i < subKeyCount; i++) {
+                    maxSubKeyLen = Math.max(maxSubKeyLen, nameLength(subKeyAt(subKeyList, i), NK_NAME_LENGTH, NK_FLAGS, NK_COMP_NAME));
+                }
+            }
+            int maxValueNameLen = 0;
+            int maxValueLen = 0;
+            if (!MemorySegment.NULL.equals(lpcbMaxValueNameLen) || !MemorySegment.NULL.equals(lpcbMaxValueLen)) {
+                for (int i = 0; i < valueCount; i++) {
+                    int vk = valueAt(nk, i);
+                    maxValueNameLen = Math.max(maxValueNameLen, nameLength(vk, VK_NAME_LENGTH, VK_FLAGS, VK_COMP_NAME));
+                    maxValueLen = Math.max(maxValueLen, dataSize(vk));
+                }
+            }
+
+            setInt(lpcSubKeys, subKeyCount);
+            setInt(lpcbMaxSubKeyLen, maxSubKeyLen);
+            setInt(lpcValues, valueCount);
+            setInt(lpcbMaxValueNameLen, maxValueNameLen);
+            setInt(lpcbMaxValueLen, maxValueLen);
+            if (!MemorySegment.NULL.equals(lpftLastWriteTime)) {
+                long lastWriteTime = hive.get(LONG, cell(nk) + NK_LAST_WRITTEN);
+                FILETIME.dwLowDateTime(lpftLastWriteTime, (int) lastWriteTime);
+                FILETIME.dwHighDateTime(lpftLastWriteTime, (int) (lastWriteTime >>> 32));
+            }
+            return ERROR_SUCCESS;
+        });
+    }
+
+    @Override
+    public int queryMultipleValues(
+            MemorySegment hKey,
+            MemorySegment valList,
+            int numVals,
+            MemorySegment lpValueBuf,
+            MemorySegment ldwTotsize) {
+
+        return read(hKey, nk -> {
+            int[] vks = new int[numVals];
+            long totalSize = 0;
+            for (int i = 0; i < numVals; i++) {
+                vks[i] = findValue(nk, valueName(VALENT.ve_valuename(VALENT.element(valList, i))));
+                if (vks[i] == NO_CELL) {
+                    return ERROR_FILE_NOT_FOUND;
+                }
+                totalSize += dataSize(vks[i]);
+            }
+
+            int availableSize = ldwTotsize.get(ValueLayout.JAVA_INT, 0);
+            ldwTotsize.set(ValueLayout.JAVA_INT, 0, Math.toIntExact(totalSize));
+            if (MemorySegment.NULL.equals(lpValueBuf)) {
+                return ERROR_SUCCESS;
+            }
+            if (Integer.toUnsignedLong(availableSize) < totalSize) {
+                return ERROR_MORE_DATA;
+            }
+
+            long offset = 0;
+            for (int i = 0; i < numVals; i++) {
+                MemorySegment valent = VALENT.element(valList, i);
+                int dataSize = copyData(vks[i], lpValueBuf, offset);
+                VALENT.ve_valuelen(valent, dataSize);
+                VALENT.ve_valueptr(valent, lpValueBuf.asSlice(offset));
+                VALENT.ve_type(valent, hive.get(INT, cell(vks[i]) + VK_TYPE));
+                offset += dataSize;
+            }
+            return ERROR_SUCCESS;
+        });
+    }
+
+    @Override
+    public int queryValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName,
+            MemorySegment lpType,
+            MemorySegment lpData,
+            MemorySegment lpcbData) {
+
+        return read(hKey, nk -> {
+            int vk = findValue(nk, valueName(lpValueName));
+            return vk != NO_CELL
+                    ? copyData(vk, lpType, lpData, lpcbData)
+                    : ERROR_FILE_NOT_FOUND;
+        });
+    }
+
+    @Override
+    int apply(ToIntFunction<Integer> operation, Integer nk) {
+        try {
+            return operation.applyAsInt(nk);
+        } catch (IndexOutOfBoundsException | CorruptHiveException e) {
+            return ERROR_BADDB;
+        }
+    }
+
+    private static long cell(int offset) {
+        // Skip the cell size
+        return BASE_BLOCK_SIZE + Integer.toUnsignedLong(offset) + CELL_SIZE_SIZE;
+    }
+
+    private long cell(int offset, short signature) {
+        long cell = cell(offset);
+        if (hive.get(SHORT, cell) != signature) {
+            throw new CorruptHiveException();
+        }
+        return cell;
+    }
+
+    // sub keys
+
+    private int subKeyCount(int nk) {
+        return hive.get(INT, cell(nk, NK_SIGNATURE) + NK_SUB_KEY_COUNT);
+    }
+
+    private int subKeyAt(int list, int index) {
+        long cell = cell(list);
+        if (hive.get(SHORT, cell) != RI_SIGNATURE) {
+            return leafSubKeyAt(cell, index);
+        }
+        // An index root contains leaves; skip as many of these as needed
+        int count = Short.toUnsignedInt(hive.get(SHORT, cell + LIST_COUNT));
+        int remaining = index;
+        for (int i = 0; i < count; i++) {
+            long leaf = cell(hive.get(INT, cell + LIST_ELEMENTS + i * Integer.BYTES));
+            int leafCount = Short.toUnsignedInt(hive.get(SHORT, leaf + LIST_COUNT));
+            if (remaining < leafCount) {
+                return leafSubKeyAt(leaf, remaining);
+            }
+            remaining -= leafCount;
+        }
+        return NO_CELL;
+    }
+
+    private int leafSubKeyAt(long cell, int index) {
+        int count = Short.toUnsignedInt(hive.get(SHORT, cell + LIST_COUNT));
+        switch (hive.get(SHORT, cell)) {
+            case LF_SIGNATURE, LH_SIGNATURE:
+                return index < count ? hive.get(INT, cell + LIST_ELEMENTS + index * HASH_LEAF_ELEMENT_SIZE) : NO_CELL;
+            case LI_SIGNATURE:
+                return index < count ? hive.get(INT, cell + LIST_ELEMENTS + index * Integer.BYTES) : NO_CELL;
+            default:
+                // Index roots only contain leaves; a nested index root could otherwise point back to itself
+                throw new CorruptHiveException();
+        }
+    }
+
+    private int findSubKey(int nk, String name) {
+        return subKeyCount(nk) > 0
+                ? findSubKey(hive.get(INT, cell(nk) + NK_SUB_KEY_LIST), name, hash(name))
+                : NO_CELL;
+    }
+
+    private int findSubKey(int list, String name, long hash) {
+        long cell = cell(list);
+        if (hive.get(SHORT, cell) != RI_SIGNATURE) {
+            return findLeafSubKey(cell, name, hash);
+        }
+        int count = Short.toUnsignedInt(hive.get(SHORT, cell + LIST_COUNT));
+        for (int i = 0; i < count; i++) {
+            int subKey = findLeafSubKey(cell(hive.get(INT, cell + LIST_ELEMENTS + i * Integer.BYTES)), name, hash);
+            if (subKey != NO_CELL) {
+                return subKey;
+            }
+        }
+        return NO_CELL;
+    }
+
+    private int findLeafSubKey(long cell, String name, long hash) {
+        int count = Short.toUnsignedInt(hive.get(SHORT, cell + LIST_COUNT));
+        switch (hive.get(SHORT, cell)) {
+            case LH_SIGNATURE:
+                for (int i = 0; i < count; i++) {
+                    long element = cell + LIST_ELEMENTS + i * HASH_LEAF_ELEMENT_SIZE;
+                    // Only read the key node if the hash matches, to prevent reading from all over the hive file
+                    if (hash == -1 || hive.get(INT, element + Integer.BYTES) == (int) hash) {
+                        int subKey = hive.get(INT, element);
+                        if (keyName(subKey).equalsIgnoreCase(name)) {
+                            return subKey;
+                        }
+                    }
+                }
+                return NO_CELL;
+            case LF_SIGNATURE:
+                for (int i = 0; i < count; i++) {
+                    int subKey = hive.get(INT, cell + LIST_ELEMENTS + i * HASH_LEAF_ELEMENT_SIZE);
+                    if (keyName(subKey).equalsIgnoreCase(name)) {
+                        return subKey;
+                    }
+                }
+                return NO_CELL;
+            case LI_SIGNATURE:
+                for (int i = 0; i < count; i++) {
+                    int subKey = hive.get(INT, cell + LIST_ELEMENTS + i * Integer.BYTES);
+                    if (keyName(subKey).equalsIgnoreCase(name)) {
+                        return subKey;
+                    }
+                }
+                return NO_CELL;
+            default:
+                // Index roots only contain leaves; a nested index root could otherwise point back to itself
+                throw new CorruptHiveException();
+        }
+    }
+
+    private static long hash(String name) {
+        // The hash in hash leaves (lh) uses the upper case name. Windows may upper case non-ASCII characters differently, so don't use the hash
+        // for those names. The result is an unsigned int, or -1 if the hash should not be used.
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 0x80) {
+                return -1;
+            }
+            hash = hash * LH_HASH_MULTIPLIER + (c >= 'a' && c <= 'z' ? c - 'a' + 'A' : c);
+        }
+        return Integer.toUnsignedLong(hash);
+    }
+
+    private String keyName(int nk) {
+        return name(cell(nk, NK_SIGNATURE), NK_NAME_LENGTH, NK_FLAGS, NK_COMP_NAME, NK_NAME);
+    }
+
+    // values
+
+    private int valueCount(int nk) {
+        return hive.get(INT, cell(nk, NK_SIGNATURE) + NK_VALUE_COUNT);
+    }
+
+    private int valueAt(int nk, int index) {
+        long list = cell(hive.get(INT, cell(nk) + NK_VALUE_LIST));
+        return hive.get(INT, list + index * Integer.BYTES);
+    }
+
+    private int findValue(int nk, String name) {
+        int count = valueCount(nk);
+        for (int i = 0; i < count; i++) {
+            int vk = valueAt(nk, i);
+            if (valueKeyName(vk).equalsIgnoreCase(name)) {
+                return vk;
+            }
+        }
+        return NO_CELL;
+    }
+
+    private String valueKeyName(int vk) {
+        // The default value has an empty name
+        return name(cell(vk, VK_SIGNATURE), VK_NAME_LENGTH, VK_FLAGS, VK_COMP_NAME, VK_NAME);
+    }
+
+    private int dataSize(int vk) {
+        return hive.get(INT, cell(vk, VK_SIGNATURE) + VK_DATA_SIZE) & ~VK_DATA_INLINE;
+    }
+
+    private int copyData(int vk, MemorySegment lpType, MemorySegment lpData, MemorySegment lpcbData) {
+        setInt(lpType, hive.get(INT, cell(vk, VK_SIGNATURE) + VK_TYPE));
+        if (MemorySegment.NULL.equals(lpcbData)) {
+            return ERROR_SUCCESS;
+        }
+        int dataSize = dataSize(vk);
+        int available = lpcbData.get(ValueLayout.JAVA_INT, 0);
+        lpcbData.set(ValueLayout.JAVA_INT, 0, dataSize);
+        if (MemorySegment.NULL.equals(lpData)) {
+            return ERROR_SUCCESS;
+        }
+        if (Integer.toUnsignedLong(available) < dataSize) {
+            return ERROR_MORE_DATA;
+        }
+        copyData(vk, lpData, 0);
+        return ERROR_SUCCESS;
+    }
+
+    private int copyData(int vk, MemorySegment target, long targetOffset) {
+        long cell = cell(vk, VK_SIGNATURE);
+        int rawDataSize = hive.get(INT, cell + VK_DATA_SIZE);
+        int dataSize = rawDataSize & ~VK_DATA_INLINE;
+        if ((rawDataSize & VK_DATA_INLINE) != 0) {
+            MemorySegment.copy(hive, cell + VK_DATA_OFFSET, target, targetOffset, dataSize);
+            return dataSize;
+        }
+
+        long data = cell(hive.get(INT, cell + VK_DATA_OFFSET));
+        if (dataSize > DB_SEGMENT_SIZE && hive.get(SHORT, data) == DB_SIGNATURE) {
+            // The data is split over several segments
+            int segmentCount = Short.toUnsignedInt(hive.get(SHORT, data + LIST_COUNT));
+            long segmentList = cell(hive.get(INT, data + DB_SEGMENT_LIST));
+            long offset = 0;
+            for (int i = 0; i < segmentCount && offset < dataSize; i++) {
+                long segment = cell(hive.get(INT, segmentList + i * Integer.BYTES));
+                long segmentSize = Math.min(DB_SEGMENT_SIZE, dataSize - offset);
+                MemorySegment.copy(hive, segment, target, targetOffset + offset, segmentSize);
+                offset += segmentSize;
+            }
+        } else {
+            MemorySegment.copy(hive, data, target, targetOffset, dataSize);
+        }
+        return dataSize;
+    }
+
+    // names
+
+    private int nameLength(int offset, long lengthOffset, long flagsOffset, int compressedFlag) {
+        long cell = cell(offset);
+        int length = Short.toUnsignedInt(hive.get(SHORT, cell + lengthOffset));
+        // Compressed names use one byte per character
+        return (hive.get(SHORT, cell + flagsOffset) & compressedFlag) != 0
+                ? length
+                : length / Character.BYTES;
+    }
+
+    private String name(long cell, long lengthOffset, long flagsOffset, int compressedFlag, long nameOffset) {
+        int length = Short.toUnsignedInt(hive.get(SHORT, cell + lengthOffset));
+        byte[] bytes = hive.asSlice(cell + nameOffset, length).toArray(ValueLayout.JAVA_BYTE);
+        return (hive.get(SHORT, cell + flagsOffset) & compressedFlag) != 0
+                ? new String(bytes, StandardCharsets.ISO_8859_1)
+                : new String(bytes, StandardCharsets.UTF_16LE);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class CorruptHiveException extends RuntimeException {
+
+        private CorruptHiveException() {
+            // Only used to abort operations, so there is no need for a stack trace
+            super(null, null, false, false);
+        }
+    }
+}
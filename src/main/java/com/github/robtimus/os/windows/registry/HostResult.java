@@ -0,0 +1,126 @@
+/*
+ * HostResult.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+/**
+ * The result of querying the registry of a single remote machine using
+ * {@link Registry#fanOut(java.util.Collection, java.util.function.Function, FanOutOptions)}.
+ *
+ * @author Rob Spoor
+ * @param <R> The type of query result.
+ * @since 2.1
+ */
+public final class HostResult<R> {
+
+    private final String machineName;
+    private final Status status;
+    private final R result;
+    private final Throwable failure;
+
+    private HostResult(String machineName, Status status, R result, Throwable failure) {
+        this.machineName = machineName;
+        this.status = status;
+        this.result = result;
+        this.failure = failure;
+    }
+
+    static <R> HostResult<R> success(String machineName, R result) {
+        return new HostResult<>(machineName, Status.SUCCESS, result, null);
+    }
+
+    static <R> HostResult<R> failure(String machineName, Throwable failure) {
+        return new HostResult<>(machineName, Status.FAILURE, null, failure);
+    }
+
+    static <R> HostResult<R> timeout(String machineName) {
+        return new HostResult<>(machineName, Status.TIMEOUT, null, null);
+    }
+
+    /**
+     * Returns the name of the remote machine.
+     *
+     * @return The name of the remote machine.
+     */
+    public String machineName() {
+        return machineName;
+    }
+
+    /**
+     * Returns the status of querying the registry of the remote machine.
+     *
+     * @return The status of querying the registry of the remote machine.
+     */
+    public Status status() {
+        return status;
+    }
+
+    /**
+     * Returns whether or not the registry of the remote machine was queried successfully.
+     *
+     * @return {@code true} if the status is {@link Status#SUCCESS}, or {@code false} otherwise.
+     */
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    /**
+     * Returns the query result.
+     *
+     * @return The query result, or {@code null} if the registry of the remote machine was not queried successfully.
+     */
+    public R result() {
+        return result;
+    }
+
+    /**
+     * Returns the error that occurred while connecting to or querying the registry of the remote machine.
+     * This is usually a {@link RegistryException}, but it can also be any exception thrown by the query.
+     *
+     * @return The error that occurred, or {@code null} if the status is not {@link Status#FAILURE}.
+     */
+    public Throwable failure() {
+        return failure;
+    }
+
+    @Override
+    @SuppressWarnings("nls")
+    public String toString() {
+        return switch (status) {
+            case SUCCESS -> "HostResult[machineName=" + machineName + ",status=" + status + ",result=" + result + "]";
+            case FAILURE -> "HostResult[machineName=" + machineName + ",status=" + status + ",failure=" + failure + "]";
+            case TIMEOUT -> "HostResult[machineName=" + machineName + ",status=" + status + "]";
+        };
+    }
+
+    /**
+     * The possible statuses of querying the registry of a remote machine.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    public enum Status {
+        /** The registry of the remote machine was queried successfully. */
+        SUCCESS,
+
+        /** Connecting to or querying the registry of the remote machine failed. */
+        FAILURE,
+
+        /** Connecting to and querying the registry of the remote machine did not complete before the timeout. */
+        TIMEOUT,
+    }
+}
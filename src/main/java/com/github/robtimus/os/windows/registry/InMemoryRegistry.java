@@ -0,0 +1,79 @@
+/*
+ * InMemoryRegistry.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.util.List;
+
+/**
+ * A registry that is kept entirely in memory. It has the same root keys as the {@link LocalRegistry local Windows registry}, but these are
+ * initially empty. Registry keys and values behave like those of the Windows registry, but they are not persisted, and are not shared with any
+ * other in-memory registry.
+ * <p>
+ * In-memory registries do not need any native code, and can therefore be used on operating systems other than Windows, for instance for testing.
+ * There are some limitations:
+ * <ul>
+ *   <li>Registry keys cannot be used with {@link Transaction transactions}. Operations on sub keys that are performed while a transaction is
+ *       active fail with a {@link RegistryException}, as changes could not be rolled back.</li>
+ *   <li>{@link StringValue#expandedValue() Expanding} string values still requires Windows.</li>
+ *   <li>Registry keys cannot be watched using a {@link RegistryWatchService}.</li>
+ * </ul>
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+@SuppressWarnings("squid:S6548")
+public final class InMemoryRegistry extends Registry {
+
+    /** The HKEY_CLASSES_ROOT root key. */
+    @SuppressWarnings({ "checkstyle:MemberName", "squid:S116", "squid:S1170" })
+    public final RegistryKey HKEY_CLASSES_ROOT;
+
+    /** The HKEY_CURRENT_USER root key. */
+    @SuppressWarnings({ "checkstyle:MemberName", "squid:S116", "squid:S1170" })
+    public final RegistryKey HKEY_CURRENT_USER;
+
+    /** The HKEY_LOCAL_MACHINE root key. */
+    @SuppressWarnings({ "checkstyle:MemberName", "squid:S116", "squid:S1170" })
+    public final RegistryKey HKEY_LOCAL_MACHINE;
+
+    /** The HKEY_USERS root key. */
+    @SuppressWarnings({ "checkstyle:MemberName", "squid:S116", "squid:S1170" })
+    public final RegistryKey HKEY_USERS;
+
+    /** The HKEY_CURRENT_CONFIG root key. */
+    @SuppressWarnings({ "checkstyle:MemberName", "squid:S116", "squid:S1170" })
+    public final RegistryKey HKEY_CURRENT_CONFIG;
+
+    // CHECKSTYLE:ON: MemberName
+
+    InMemoryRegistry() {
+        // Use the same handles for the root keys as the local registry; these are only meaningful to the backend
+        RegistryBackend backend = new InMemoryRegistryBackend(List.of(
+                WindowsConstants.HKEY_CLASSES_ROOT,
+                WindowsConstants.HKEY_CURRENT_USER,
+                WindowsConstants.HKEY_LOCAL_MACHINE,
+                WindowsConstants.HKEY_USERS,
+                WindowsConstants.HKEY_CURRENT_CONFIG));
+
+        HKEY_CLASSES_ROOT = new LocalRootKey(WindowsConstants.HKEY_CLASSES_ROOT, LocalRootKey.HKEY_CLASSES_ROOT.name(), backend);
+        HKEY_CURRENT_USER = new LocalRootKey(WindowsConstants.HKEY_CURRENT_USER, LocalRootKey.HKEY_CURRENT_USER.name(), backend);
+        HKEY_LOCAL_MACHINE = new LocalRootKey(WindowsConstants.HKEY_LOCAL_MACHINE, LocalRootKey.HKEY_LOCAL_MACHINE.name(), backend);
+        HKEY_USERS = new LocalRootKey(WindowsConstants.HKEY_USERS, LocalRootKey.HKEY_USERS.name(), backend);
+        HKEY_CURRENT_CONFIG = new LocalRootKey(WindowsConstants.HKEY_CURRENT_CONFIG, LocalRootKey.HKEY_CURRENT_CONFIG.name(), backend);
+    }
+}
@@ -0,0 +1,795 @@
+/*
+ * InMemoryRegistryBackend.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_INVALID_HANDLE;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_KEY_DELETED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_MORE_DATA;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NOT_SUPPORTED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NO_MORE_ITEMS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_SET_VALUE;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_CREATED_NEW_KEY;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_OPENED_EXISTING_KEY;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import com.github.robtimus.os.windows.registry.WindowsTypes.FILETIME;
+import com.github.robtimus.os.windows.registry.WindowsTypes.HKEY;
+import com.github.robtimus.os.windows.registry.WindowsTypes.VALENT;
+
+/*
+ * A registry backend that keeps all registry keys and values in memory, and does not need any native code.
+ * It behaves like the Advapi32 functions it replaces, including the returned error codes.
+ *
+ * Each registry key has its own lock, so operations on different registry keys do not block each other.
+ * Transactions are not supported; transacted operations return ERROR_NOT_SUPPORTED instead of being applied immediately, as they could not be
+ * rolled back.
+ */
+final class InMemoryRegistryBackend implements RegistryBackend {
+
+    // Windows uses multiples of 4 for handles; start outside of the 32-bit range so handles never clash with predefined keys
+    static final long FIRST_HANDLE = 0x1_0000_0000L;
+    static final long HANDLE_INCREMENT = 4;
+
+    // Predefined keys can be used for all operations
+    private static final int ALL_ACCESS = -1;
+
+    private static final long FILETIME_INTERVALS_PER_SECOND = 10_000_000L;
+    private static final long NANOS_PER_FILETIME_INTERVAL = 100L;
+
+    private final Map<Long, OpenKey> openKeys;
+    private final AtomicLong nextHandle;
+
+    InMemoryRegistryBackend(List<MemorySegment> predefinedKeys) {
+        openKeys = new ConcurrentHashMap<>();
+        for (MemorySegment predefinedKey : predefinedKeys) {
+            openKeys.put(predefinedKey.address(), new OpenKey(new Node(null, null), ALL_ACCESS, true));
+        }
+        nextHandle = new AtomicLong(FIRST_HANDLE);
+    }
+
+    @Override
+    public int closeKey(
+            MemorySegment hKey) {
+
+        OpenKey openKey = openKeys.get(hKey.address());
+        if (openKey == null) {
+            return ERROR_INVALID_HANDLE;
+        }
+        if (!openKey.predefined) {
+            openKeys.remove(hKey.address());
+        }
+        return ERROR_SUCCESS;
+    }
+
+    @Override
+    public int copyTree(
+            MemorySegment hKeySrc,
+            MemorySegment lpSubKey,
+            MemorySegment hKeyDest) {
+
+        // Copying is left to callers, so they don't need to lock entire trees
+        return openKeys.containsKey(hKeySrc.address()) && openKeys.containsKey(hKeyDest.address())
+                ? ERROR_NOT_SUPPORTED
+                : ERROR_INVALID_HANDLE;
+    }
+
+    @Override
+    public int createKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int dwOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment lpdwDisposition) {
+
+        OpenKey openKey = openKeys.get(hKey.address());
+        if (openKey == null) {
+            return ERROR_INVALID_HANDLE;
+        }
+
+        Node node = openKey.node;
+        boolean created = false;
+        for (String name : pathParts(lpSubKey)) {
+            Node child = node.findSubKey(name);
+            if (child == null) {
+                Lock lock = node.lock.writeLock();
+                lock.lock();
+                try {
+                    if (node.deleted) {
+                        return ERROR_KEY_DELETED;
+                    }
+                    child = node.subKeys.get(name);
+                    created = child == null;
+                    if (created) {
+                        child = new Node(node, name);
+                        node.subKeys.put(name, child);
+                        node.subKeysChanged();
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            } else if (child == Node.DELETED) {
+                return ERROR_KEY_DELETED;
+            } else {
+                created = false;
+            }
+            node = child;
+        }
+
+        HKEY.target(phkResult, open(node, samDesired));
+        if (!MemorySegment.NULL.equals(lpdwDisposition)) {
+            lpdwDisposition.set(ValueLayout.JAVA_INT, 0, created ? REG_CREATED_NEW_KEY : REG_OPENED_EXISTING_KEY);
+        }
+        return ERROR_SUCCESS;
+    }
+
+    @Override
+    public int createKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int dwOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment lpdwDisposition,
+            MemorySegment hTransaction) {
+
+        return transactionsNotSupported(hKey);
+    }
+
+    @Override
+    public int deleteKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int samDesired) {
+
+        Lookup lookup = lookup(hKey, lpSubKey);
+        if (lookup.code != ERROR_SUCCESS) {
+            return lookup.code;
+        }
+
+        Node node = lookup.node;
+        Node parent = node.parent;
+        if (parent == null) {
+            return ERROR_ACCESS_DENIED;
+        }
+
+        // Always lock the parent before the child
+        Lock parentLock = parent.lock.writeLock();
+        parentLock.lock();
+        try {
+            Lock lock = node.lock.writeLock();
+            lock.lock();
+            try {
+                if (node.deleted) {
+                    return ERROR_FILE_NOT_FOUND;
+                }
+                if (!node.subKeys.isEmpty()) {
+                    // Like RegDeleteKeyEx, only registry keys without sub keys can be deleted
+                    return ERROR_ACCESS_DENIED;
+                }
+                node.deleted = true;
+                parent.subKeys.remove(node.name);
+                parent.subKeysChanged();
+                return ERROR_SUCCESS;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            parentLock.unlock();
+        }
+    }
+
+    @Override
+    public int deleteKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int samDesired,
+            MemorySegment hTransaction) {
+
+        return transactionsNotSupported(hKey);
+    }
+
+    @Override
+    public int deleteTree(
+            MemorySegment hKey,
+            MemorySegment lpSubKey) {
+
+        // Deleting nested keys is left to callers, so they don't need to lock entire trees
+        return openKeys.containsKey(hKey.address())
+                ? ERROR_NOT_SUPPORTED
+                : ERROR_INVALID_HANDLE;
+    }
+
+    @Override
+    public int deleteValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName) {
+
+        OpenKey openKey = openKeys.get(hKey.address());
+        if (openKey == null) {
+            return ERROR_INVALID_HANDLE;
+        }
+        if (!openKey.canSetValues()) {
+            return ERROR_ACCESS_DENIED;
+        }
+
+        Node node = openKey.node;
+        Lock lock = node.lock.writeLock();
+        lock.lock();
+        try {
+            if (node.deleted) {
+                return ERROR_KEY_DELETED;
+            }
+            if (node.values.remove(valueName(lpValueName)) == null) {
+                return ERROR_FILE_NOT_FOUND;
+            }
+            node.valuesChanged();
+            return ERROR_SUCCESS;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int enumKey(
+            MemorySegment hKey,
+            int dwIndex,
+            MemorySegment lpName,
+            MemorySegment lpcchName) {
+
+        OpenKey openKey = openKeys.get(hKey.address());
+        if (openKey == null) {
+            return ERROR_INVALID_HANDLE;
+        }
+
+        Node node = openKey.node;
+        Lock lock = node.lock.readLock();
+        lock.lock();
+        try {
+            if (node.deleted) {
+                return ERROR_KEY_DELETED;
+            }
+            Node[] subKeys = node.subKeyArray();
+            if (dwIndex < 0 || dwIndex >= subKeys.length) {
+                return ERROR_NO_MORE_ITEMS;
+            }
+            return copyName(subKeys[dwIndex].name, lpName, lpcchName);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int enumValue(
+            MemorySegment hKey,
+            int dwIndex,
+            MemorySegment lpValueName,
+            MemorySegment lpcchValueName,
+            MemorySegment lpType,
+            MemorySegment lpData,
+            MemorySegment lpcbData) {
+
+        OpenKey openKey = openKeys.get(hKey.address());
+        if (openKey == null) {
+            return ERROR_INVALID_HANDLE;
+        }
+
+        Node node = openKey.node;
+        Lock lock = node.lock.readLock();
+        lock.lock();
+        try {
+            if (node.deleted) {
+                return ERROR_KEY_DELETED;
+            }
+            Value[] values = node.valueArray();
+            if (dwIndex < 0 || dwIndex >= values.length) {
+                return ERROR_NO_MORE_ITEMS;
+            }
+            Value value = values[dwIndex];
+            int code = copyName(value.name, lpValueName, lpcchValueName);
+            return code == ERROR_SUCCESS
+                    ? copyData(value, lpType, lpData, lpcbData)
+                    : code;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int notifyChangeKeyValue(
+            MemorySegment hKey,
+            int bWatchSubtree,
+            int dwNotifyFilter,
+            MemorySegment hEvent) {
+
+        // Change notifications use Windows events, which are not available without native code
+        return openKeys.containsKey(hKey.address())
+                ? ERROR_NOT_SUPPORTED
+                : ERROR_INVALID_HANDLE;
+    }
+
+    @Override
+    public int openKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int ulOptions,
+            int samDesired,
+            MemorySegment phkResult) {
+
+        Lookup lookup = lookup(hKey, lpSubKey);
+        if (lookup.code == ERROR_SUCCESS) {
+            HKEY.target(phkResult, open(lookup.node, samDesired));
+        }
+        return lookup.code;
+    }
+
+    @Override
+    public int openKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int ulOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment hTransaction) {
+
+        return transactionsNotSupported(hKey);
+    }
+
+    @Override
+    public int queryInfoKey(
+            MemorySegment hKey,
+            MemorySegment lpcSubKeys,
+            MemorySegment lpcbMaxSubKeyLen,
+            MemorySegment lpcValues,
+            MemorySegment lpcbMaxValueNameLen,
+            MemorySegment lpcbMaxValueLen,
+            MemorySegment lpftLastWriteTime) {
+
+        OpenKey openKey = openKeys.get(hKey.address());
+        if (openKey == null) {
+            return ERROR_INVALID_HANDLE;
+        }
+
+        Node node = openKey.node;
+        Lock lock = node.lock.readLock();
+        lock.lock();
+        try {
+            if (node.deleted) {
+                return ERROR_KEY_DELETED;
+            }
+
+            int maxSubKeyLen = 0;
+            for (String name : node.subKeys.keySet()) {
+                maxSubKeyLen = Math.max(maxSubKeyLen, name.length());
+            }
+            int maxValueNameLen = 0;
+            int maxValueLen = 0;
+            for (Value value : node.values.values()) {
+                maxValueNameLen = Math.max(maxValueNameLen, value.name.length());
+                maxValueLen = Math.max(maxValueLen, value.data.length);
+            }
+
+            setInt(lpcSubKeys, node.subKeys.size());
+            setInt(lpcbMaxSubKeyLen, maxSubKeyLen);
+            setInt(lpcValues, node.values.size());
+            setInt(lpcbMaxValueNameLen, maxValueNameLen);
+            setInt(lpcbMaxValueLen, maxValueLen);
+            if (!MemorySegment.NULL.equals(lpftLastWriteTime)) {
+                FILETIME.dwLowDateTime(lpftLastWriteTime, (int) node.lastWriteTime);
+                FILETIME.dwHighDateTime(lpftLastWriteTime, (int) (node.lastWriteTime >>> 32));
+            }
+            return ERROR_SUCCESS;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int queryMultipleValues(
+            MemorySegment hKey,
+            MemorySegment valList,
+            int numVals,
+            MemorySegment lpValueBuf,
+            MemorySegment ldwTotsize) {
+
+        OpenKey openKey = openKeys.get(hKey.address());
+        if (openKey == null) {
+            return ERROR_INVALID_HANDLE;
+        }
+
+        Node node = openKey.node;
+        Lock lock = node.lock.readLock();
+        lock.lock();
+        try {
+            if (node.deleted) {
+                return ERROR_KEY_DELETED;
+            }
+
+            Value[] values = new Value[numVals];
+            long totalSize = 0;
+            for (int i = 0; i < numVals; i++) {
+                values[i] = node.values.get(valueName(VALENT.ve_valuename(VALENT.element(valList, i))));
+                if (values[i] == null) {
+                    return ERROR_FILE_NOT_FOUND;
+                }
+                totalSize += values[i].data.length;
+            }
+
+            int availableSize = ldwTotsize.get(ValueLayout.JAVA_INT, 0);
+            ldwTotsize.set(ValueLayout.JAVA_INT, 0, Math.toIntExact(totalSize));
+            if (MemorySegment.NULL.equals(lpValueBuf)) {
+                return ERROR_SUCCESS;
+            }
+            if (Integer.toUnsignedLong(availableSize) < totalSize) {
+                return ERROR_MORE_DATA;
+            }
+
+            long offset = 0;
+            for (int i = 0; i < numVals; i++) {
+                MemorySegment valent = VALENT.element(valList, i);
+                byte[] data = values[i].data;
+                MemorySegment.copy(data, 0, lpValueBuf, ValueLayout.JAVA_BYTE, offset, data.length);
+                VALENT.ve_valuelen(valent, data.length);
+                VALENT.ve_valueptr(valent, lpValueBuf.asSlice(offset));
+                VALENT.ve_type(valent, values[i].type);
+                offset += data.length;
+            }
+            return ERROR_SUCCESS;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int queryValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName,
+            MemorySegment lpType,
+            MemorySegment lpData,
+            MemorySegment lpcbData) {
+
+        OpenKey openKey = openKeys.get(hKey.address());
+        if (openKey == null) {
+            return ERROR_INVALID_HANDLE;
+        }
+
+        Node node = openKey.node;
+        Lock lock = node.lock.readLock();
+        lock.lock();
+        try {
+            if (node.deleted) {
+                return ERROR_KEY_DELETED;
+            }
+            Value value = node.values.get(valueName(lpValueName));
+            return value != null
+                    ? copyData(value, lpType, lpData, lpcbData)
+                    : ERROR_FILE_NOT_FOUND;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int renameKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKeyName,
+            MemorySegment lpNewKeyName) {
+
+        Lookup lookup = lookup(hKey, lpSubKeyName);
+        if (lookup.code != ERROR_SUCCESS) {
+            return lookup.code;
+        }
+
+        Node node = lookup.node;
+        Node parent = node.parent;
+        if (parent == null) {
+            return ERROR_ACCESS_DENIED;
+        }
+
+        String newName = getString(lpNewKeyName);
+
+        Lock lock = parent.lock.writeLock();
+        lock.lock();
+        try {
+            if (node.deleted) {
+                return ERROR_FILE_NOT_FOUND;
+            }
+            Node existing = parent.subKeys.get(newName);
+            if (existing != null && existing != node) {
+                return ERROR_ACCESS_DENIED;
+            }
+            parent.subKeys.remove(node.name);
+            // The name of a node is guarded by the lock of its parent
+            node.name = newName;
+            parent.subKeys.put(newName, node);
+            parent.subKeysChanged();
+            return ERROR_SUCCESS;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int setValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName,
+            int dwType,
+            MemorySegment lpData,
+            int cbData) {
+
+        OpenKey openKey = openKeys.get(hKey.address());
+        if (openKey == null) {
+            return ERROR_INVALID_HANDLE;
+        }
+        if (!openKey.canSetValues()) {
+            return ERROR_ACCESS_DENIED;
+        }
+
+        String name = valueName(lpValueName);
+        byte[] data = cbData == 0 ? new byte[0] : lpData.asSlice(0, Integer.toUnsignedLong(cbData)).toArray(ValueLayout.JAVA_BYTE);
+        Value value = new Value(name, dwType, data);
+
+        Node node = openKey.node;
+        Lock lock = node.lock.writeLock();
+        lock.lock();
+        try {
+            if (node.deleted) {
+                return ERROR_KEY_DELETED;
+            }
+            node.values.put(name, value);
+            node.valuesChanged();
+            return ERROR_SUCCESS;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean supportsChangeNotifications() {
+        return false;
+    }
+
+    private int transactionsNotSupported(MemorySegment hKey) {
+        // Changes are always applied immediately, so they could not be rolled back
+        return openKeys.containsKey(hKey.address())
+                ? ERROR_NOT_SUPPORTED
+                : ERROR_INVALID_HANDLE;
+    }
+
+    private MemorySegment open(Node node, int samDesired) {
+        long handle = nextHandle.getAndAdd(HANDLE_INCREMENT);
+        openKeys.put(handle, new OpenKey(node, samDesired, false));
+        return MemorySegment.ofAddress(handle);
+    }
+
+    private Lookup lookup(MemorySegment hKey, MemorySegment lpSubKey) {
+        OpenKey openKey = openKeys.get(hKey.address());
+        if (openKey == null) {
+            return new Lookup(ERROR_INVALID_HANDLE, null);
+        }
+
+        Node node = openKey.node;
+        if (node.isDeleted()) {
+            return new Lookup(ERROR_KEY_DELETED, null);
+        }
+        for (String name : pathParts(lpSubKey)) {
+            node = node.findSubKey(name);
+            if (node == null || node == Node.DELETED) {
+                return new Lookup(ERROR_FILE_NOT_FOUND, null);
+            }
+        }
+        return new Lookup(ERROR_SUCCESS, node);
+    }
+
+    // The following helper methods are shared with HiveRegistryBackend
+
+    static List<String> pathParts(MemorySegment lpSubKey) {
+        String subKey = getString(lpSubKey);
+        List<String> result = new ArrayList<>();
+        if (subKey != null) {
+            int start = 0;
+            while (start <= subKey.length()) {
+                int end = subKey.indexOf(RegistryKey.SEPARATOR, start);
+                if (end == -1) {
+                    end = subKey.length();
+                }
+                if (end > start) {
+                    result.add(subKey.substring(start, end));
+                }
+                start = end + 1;
+            }
+        }
+        return result;
+    }
+
+    static String valueName(MemorySegment lpValueName) {
+        // A NULL or empty value name is used for the default value
+        String name = getString(lpValueName);
+        return name != null ? name : ""; //$NON-NLS-1$
+    }
+
+    static String getString(MemorySegment segment) {
+        if (MemorySegment.NULL.equals(segment)) {
+            return null;
+        }
+        // Segments that were read from structs, like VALENT, have no size, so read until the terminating character
+        MemorySegment string = segment.byteSize() == 0 ? segment.reinterpret(Long.MAX_VALUE) : segment;
+        StringBuilder sb = new StringBuilder();
+        for (long offset = 0; offset < string.byteSize(); offset += WString.CHAR_SIZE) {
+            char c = string.get(ValueLayout.JAVA_CHAR_UNALIGNED, offset);
+            if (c == '\0') {
+                break;
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    static int copyName(String name, MemorySegment lpName, MemorySegment lpcchName) {
+        // The size is in characters, and includes the terminating character
+        long capacity = Math.min(Integer.toUnsignedLong(lpcchName.get(ValueLayout.JAVA_INT, 0)), lpName.byteSize() / WString.CHAR_SIZE);
+        if (name.length() + 1L > capacity) {
+            return ERROR_MORE_DATA;
+        }
+        WString.copy(name, lpName, 0);
+        lpName.set(ValueLayout.JAVA_CHAR, name.length() * WString.CHAR_SIZE, '\0');
+        // The returned size excludes the terminating character
+        lpcchName.set(ValueLayout.JAVA_INT, 0, name.length());
+        return ERROR_SUCCESS;
+    }
+
+    private static int copyData(Value value, MemorySegment lpType, MemorySegment lpData, MemorySegment lpcbData) {
+        setInt(lpType, value.type);
+        if (MemorySegment.NULL.equals(lpcbData)) {
+            return ERROR_SUCCESS;
+        }
+        byte[] data = value.data;
+        int available = lpcbData.get(ValueLayout.JAVA_INT, 0);
+        lpcbData.set(ValueLayout.JAVA_INT, 0, data.length);
+        if (MemorySegment.NULL.equals(lpData)) {
+            return ERROR_SUCCESS;
+        }
+        if (Integer.toUnsignedLong(available) < data.length) {
+            return ERROR_MORE_DATA;
+        }
+        MemorySegment.copy(data, 0, lpData, ValueLayout.JAVA_BYTE, 0, data.length);
+        return ERROR_SUCCESS;
+    }
+
+    static void setInt(MemorySegment segment, int value) {
+        if (!MemorySegment.NULL.equals(segment)) {
+            segment.set(ValueLayout.JAVA_INT, 0, value);
+        }
+    }
+
+    private static long currentFileTime() {
+        Duration sinceBase = Duration.between(RegistryKey.FILETIME_BASE, Instant.now());
+        return sinceBase.getSeconds() * FILETIME_INTERVALS_PER_SECOND + sinceBase.getNano() / NANOS_PER_FILETIME_INTERVAL;
+    }
+
+    private record OpenKey(Node node, int samDesired, boolean predefined) {
+
+        private boolean canSetValues() {
+            return (samDesired & KEY_SET_VALUE) != 0;
+        }
+    }
+
+    private record Lookup(int code, Node node) {
+    }
+
+    private record Value(String name, int type, byte[] data) {
+    }
+
+    private static final class Node {
+
+        // Returned by findSubKey if the node itself has been deleted
+        private static final Node DELETED = new Node(null, null);
+
+        private final ReadWriteLock lock;
+        private final Node parent;
+
+        // The following fields are guarded by lock, except name which is guarded by the parent's lock
+
+        private String name;
+        private final NavigableMap<String, Node> subKeys;
+        private final NavigableMap<String, Value> values;
+        private long lastWriteTime;
+        private boolean deleted;
+
+        // Snapshots for enumerating by index; these are reset when sub keys or values change, and lazily recreated
+        private volatile Node[] subKeyArray;
+        private volatile Value[] valueArray;
+
+        private Node(Node parent, String name) {
+            this.lock = new ReentrantReadWriteLock();
+            this.parent = parent;
+            this.name = name;
+            // Registry keys and values are case insensitive
+            this.subKeys = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            this.values = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            this.lastWriteTime = currentFileTime();
+        }
+
+        private boolean isDeleted() {
+            Lock readLock = lock.readLock();
+            readLock.lock();
+            try {
+                return deleted;
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        private Node findSubKey(String subKeyName) {
+            Lock readLock = lock.readLock();
+            readLock.lock();
+            try {
+                return deleted ? DELETED : subKeys.get(subKeyName);
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        // Must be called while holding the read lock
+        private Node[] subKeyArray() {
+            Node[] result = subKeyArray;
+            if (result == null) {
+                result = subKeys.values().toArray(Node[]::new);
+                subKeyArray = result;
+            }
+            return result;
+        }
+
+        // Must be called while holding the read lock
+        private Value[] valueArray() {
+            Value[] result = valueArray;
+            if (result == null) {
+                result = values.values().toArray(Value[]::new);
+                valueArray = result;
+            }
+            return result;
+        }
+
+        // Must be called while holding the write lock
+        private void subKeysChanged() {
+            subKeyArray = null;
+            lastWriteTime = currentFileTime();
+        }
+
+        // Must be called while holding the write lock
+        private void valuesChanged() {
+            valueArray = null;
+            lastWriteTime = currentFileTime();
+        }
+    }
+}
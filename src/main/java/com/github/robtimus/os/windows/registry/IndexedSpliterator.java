@@ -0,0 +1,90 @@
+/*
+ * IndexedSpliterator.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/*
+ * A spliterator over indexed elements, for enumerating sub keys and values.
+ *
+ * The fence is only an estimate, taken when the enumeration starts. Elements can be added or removed while enumerating, so the last part does not
+ * stop at the fence, but continues until there are no more elements. Other parts stop at their fence, or earlier if there are no more elements.
+ */
+abstract class IndexedSpliterator<T> implements Spliterator<T> {
+
+    private int index;
+    private int fence;
+    private boolean last;
+    private final int characteristics;
+
+    IndexedSpliterator(int origin, int fence, boolean last, int characteristics) {
+        this.index = origin;
+        this.fence = fence;
+        this.last = last;
+        this.characteristics = characteristics;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        Objects.requireNonNull(action);
+        while (index < fence || last) {
+            T element = element(index++);
+            if (element != null) {
+                action.accept(element);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int origin = index;
+        int mid = (origin + fence) >>> 1;
+        if (origin >= mid) {
+            return null;
+        }
+        index = mid;
+        // The prefix is never the last part
+        return split(origin, mid, false);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Math.max((long) fence - index, 0);
+    }
+
+    @Override
+    public int characteristics() {
+        return characteristics;
+    }
+
+    // Stops the iteration, because there are no more elements
+    protected final void stop() {
+        fence = index;
+        last = false;
+    }
+
+    // Returns null if the element should be skipped, or stop() has been called
+    protected abstract T element(int index);
+
+    // Returns a new instance that covers the given range, and does not share any state with this instance
+    protected abstract IndexedSpliterator<T> split(int origin, int fence, boolean last);
+}
@@ -32,6 +32,9 @@ final class Kernel32 extends WindowsApi {
     private static final MethodHandle FORMAT_MESSAGE;
     private static final MethodHandle LOCAL_FREE;
     private static final MethodHandle CLOSE_HANDLE;
+    private static final MethodHandle CREATE_EVENT;
+    private static final MethodHandle SET_EVENT;
+    private static final MethodHandle WAIT_FOR_MULTIPLE_OBJECTS;
 
     static {
         Linker linker = Linker.nativeLinker();
@@ -64,6 +67,27 @@ final class Kernel32 extends WindowsApi {
                 ValueLayout.JAVA_BOOLEAN,
                 ValueLayout.ADDRESS), // hObject
                 CaptureState.LINKER_OPTION);
+
+        CREATE_EVENT = linker.downcallHandle(kernel32.findOrThrow("CreateEventW"), FunctionDescriptor.of(
+                ValueLayout.ADDRESS,
+                ValueLayout.ADDRESS, // lpEventAttributes
+                ValueLayout.JAVA_INT, // bManualReset
+                ValueLayout.JAVA_INT, // bInitialState
+                ValueLayout.ADDRESS), // lpName
+                CaptureState.LINKER_OPTION);
+
+        SET_EVENT = linker.downcallHandle(kernel32.findOrThrow("SetEvent"), FunctionDescriptor.of(
+                ValueLayout.JAVA_BOOLEAN,
+                ValueLayout.ADDRESS), // hEvent
+                CaptureState.LINKER_OPTION);
+
+        WAIT_FOR_MULTIPLE_OBJECTS = linker.downcallHandle(kernel32.findOrThrow("WaitForMultipleObjects"), FunctionDescriptor.of(
+                ValueLayout.JAVA_INT,
+                ValueLayout.JAVA_INT, // nCount
+                ValueLayout.ADDRESS, // lpHandles
+                ValueLayout.JAVA_INT, // bWaitAll
+                ValueLayout.JAVA_INT), // dwMilliseconds
+                CaptureState.LINKER_OPTION);
     }
 
     private static final int FORMAT_MESSAGE_ALLOCATE_BUFFER = 0x100;
@@ -249,4 +273,79 @@ final class Kernel32 extends WindowsApi {
             throw new IllegalStateException(e);
         }
     }
+
+    /*
+     * HANDLE CreateEventW(
+     *   [in, optional] LPSECURITY_ATTRIBUTES lpEventAttributes,
+     *   [in]           BOOL                  bManualReset,
+     *   [in]           BOOL                  bInitialState,
+     *   [in, optional] LPCWSTR               lpName
+     * )
+     */
+    @SuppressWarnings({ "checkstyle:MethodName", "squid:S100" })
+    static MemorySegment CreateEvent(
+            MemorySegment lpEventAttributes,
+            int bManualReset,
+            int bInitialState,
+            MemorySegment lpName,
+            MemorySegment captureState) {
+
+        try {
+            return (MemorySegment) CREATE_EVENT.invokeExact(
+                    captureState,
+                    lpEventAttributes,
+                    bManualReset,
+                    bInitialState,
+                    lpName);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * BOOL SetEvent(
+     *   [in] HANDLE hEvent
+     * )
+     */
+    @SuppressWarnings({ "checkstyle:MethodName", "squid:S100" })
+    static boolean SetEvent(
+            MemorySegment hEvent,
+            MemorySegment captureState) {
+
+        try {
+            return (boolean) SET_EVENT.invokeExact(
+                    captureState,
+                    hEvent);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * DWORD WaitForMultipleObjects(
+     *   [in] DWORD        nCount,
+     *   [in] const HANDLE *lpHandles,
+     *   [in] BOOL         bWaitAll,
+     *   [in] DWORD        dwMilliseconds
+     * )
+     */
+    @SuppressWarnings({ "checkstyle:MethodName", "squid:S100" })
+    static int WaitForMultipleObjects(
+            int nCount,
+            MemorySegment lpHandles,
+            int bWaitAll,
+            int dwMilliseconds,
+            MemorySegment captureState) {
+
+        try {
+            return (int) WAIT_FOR_MULTIPLE_OBJECTS.invokeExact(
+                    captureState,
+                    nCount,
+                    lpHandles,
+                    bWaitAll,
+                    dwMilliseconds);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
@@ -42,11 +42,17 @@ final class LocalRootKey extends RegistryKey {
 
     private final MemorySegment hKey;
     private final String name;
+    private final RegistryBackend backend;
     private final Handle handle;
 
     LocalRootKey(MemorySegment hKey, String name) {
+        this(hKey, name, NativeRegistryBackend.INSTANCE);
+    }
+
+    LocalRootKey(MemorySegment hKey, String name, RegistryBackend backend) {
         this.hKey = hKey;
         this.name = name;
+        this.backend = backend;
         this.handle = new Handle();
     }
 
@@ -71,6 +77,11 @@ final class LocalRootKey extends RegistryKey {
         return null;
     }
 
+    @Override
+    RegistryBackend backend() {
+        return backend;
+    }
+
     // traversal
 
     @Override
@@ -113,11 +124,11 @@ final class LocalRootKey extends RegistryKey {
     }
 
     @Override
-    RegistryKey resolveChild(String name) {
+    LocalSubKey resolveChild(String name) {
         return resolveChild(name, Collections.emptyList());
     }
 
-    RegistryKey resolveChild(String name, Collection<String> pathParts) {
+    LocalSubKey resolveChild(String name, Collection<String> pathParts) {
         Deque<String> newPathParts = new ArrayDeque<>(pathParts.size() + 1);
         newPathParts.addAll(pathParts);
         newPathParts.add(name);
@@ -162,6 +173,16 @@ final class LocalRootKey extends RegistryKey {
         throw new UnsupportedOperationException(Messages.RegistryKey.cannotDeleteRoot(path()));
     }
 
+    @Override
+    public void deleteTree() {
+        throw new UnsupportedOperationException(Messages.RegistryKey.cannotDeleteRoot(path()));
+    }
+
+    @Override
+    public boolean deleteTreeIfExists() {
+        throw new UnsupportedOperationException(Messages.RegistryKey.cannotDeleteRoot(path()));
+    }
+
     // handles
 
     @Override
@@ -17,9 +17,10 @@
 
 package com.github.robtimus.os.windows.registry;
 
-import static com.github.robtimus.os.windows.registry.Advapi32.RegRenameKey;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NOT_SUPPORTED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NO_MORE_ITEMS;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_READ;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_CREATED_NEW_KEY;
@@ -37,7 +38,7 @@ import java.util.Optional;
 import java.util.function.IntPredicate;
 import com.github.robtimus.os.windows.registry.WindowsTypes.HKEY;
 
-final class LocalSubKey extends RegistryKey {
+final class LocalSubKey extends SubKey {
 
     /*
      * Possible values:
@@ -75,6 +76,11 @@ final class LocalSubKey extends RegistryKey {
         return null;
     }
 
+    @Override
+    RegistryBackend backend() {
+        return root.backend();
+    }
+
     // traversal
 
     @Override
@@ -112,7 +118,7 @@ final class LocalSubKey extends RegistryKey {
     }
 
     @Override
-    RegistryKey resolveChild(String name) {
+    LocalSubKey resolveChild(String name) {
         return root.resolveChild(name, pathParts);
     }
 
@@ -159,13 +165,14 @@ final class LocalSubKey extends RegistryKey {
         MemorySegment phkResult = HKEY.allocateRef(allocator);
 
         int code = Registry.currentContext().openKey(
+                root.backend(),
                 rootHKey,
                 lpSubKey,
                 0,
                 KEY_READ | SAM_DESIRED_REGISTRY_VIEW,
                 phkResult);
         if (code == ERROR_SUCCESS) {
-            closeKey(HKEY.target(phkResult), path(), machineName);
+            closeKey(root.backend(), HKEY.target(phkResult), path(), machineName);
         }
         return code;
     }
@@ -200,6 +207,7 @@ final class LocalSubKey extends RegistryKey {
         MemorySegment lpdwDisposition = allocator.allocate(ValueLayout.JAVA_INT);
 
         int code = Registry.currentContext().createKey(
+                root.backend(),
                 rootHKey,
                 lpSubKey,
                 REG_OPTION_NON_VOLATILE,
@@ -207,7 +215,7 @@ final class LocalSubKey extends RegistryKey {
                 phkResult,
                 lpdwDisposition);
         if (code == ERROR_SUCCESS) {
-            closeKey(HKEY.target(phkResult), path(), machineName);
+            closeKey(root.backend(), HKEY.target(phkResult), path(), machineName);
             return lpdwDisposition.get(ValueLayout.JAVA_INT, 0);
         }
         throw RegistryException.forKey(code, path(), machineName);
@@ -217,6 +225,8 @@ final class LocalSubKey extends RegistryKey {
     public RegistryKey renameTo(String newName) {
         try (Arena allocator = Arena.ofConfined()) {
             return renameTo(root.hKey(), newName, allocator, machineName());
+        } finally {
+            invalidateCachedHandles(this);
         }
     }
 
@@ -233,7 +243,7 @@ final class LocalSubKey extends RegistryKey {
         MemorySegment lpSubKeyName = WString.allocate(allocator, path);
         MemorySegment lpNewKeyName = WString.allocate(allocator, newName);
 
-        int code = RegRenameKey(rootHKey, lpSubKeyName, lpNewKeyName);
+        int code = root.backend().renameKey(rootHKey, lpSubKeyName, lpNewKeyName);
         if (code == ERROR_SUCCESS) {
             return renamed;
         }
@@ -247,6 +257,8 @@ final class LocalSubKey extends RegistryKey {
     public void delete() {
         try (Arena allocator = Arena.ofConfined()) {
             delete(root.hKey(), allocator, machineName());
+        } finally {
+            invalidateCachedHandles(this);
         }
     }
 
@@ -254,6 +266,7 @@ final class LocalSubKey extends RegistryKey {
         MemorySegment lpSubKey = WString.allocate(allocator, path);
 
         int code = Registry.currentContext().deleteKey(
+                root.backend(),
                 rootHKey,
                 lpSubKey,
                 SAM_DESIRED_REGISTRY_VIEW);
@@ -266,6 +279,8 @@ final class LocalSubKey extends RegistryKey {
     public boolean deleteIfExists() {
         try (Arena allocator = Arena.ofConfined()) {
             return deleteIfExists(root.hKey(), allocator, machineName());
+        } finally {
+            invalidateCachedHandles(this);
         }
     }
 
@@ -273,6 +288,7 @@ final class LocalSubKey extends RegistryKey {
         MemorySegment lpSubKey = WString.allocate(allocator, path);
 
         int code = Registry.currentContext().deleteKey(
+                root.backend(),
                 rootHKey,
                 lpSubKey,
                 SAM_DESIRED_REGISTRY_VIEW);
@@ -285,49 +301,194 @@ final class LocalSubKey extends RegistryKey {
         throw RegistryException.forKey(code, path(), machineName);
     }
 
+    @Override
+    public void deleteTree() {
+        try (Arena allocator = Arena.ofConfined()) {
+            deleteTree(root.hKey(), allocator, machineName());
+        } finally {
+            invalidateCachedHandles(this);
+        }
+    }
+
+    void deleteTree(MemorySegment rootHKey, SegmentAllocator allocator, String machineName) {
+        int code = deleteTreeCode(rootHKey, allocator, machineName);
+        if (code != ERROR_SUCCESS) {
+            throw RegistryException.forKey(code, path(), machineName);
+        }
+    }
+
+    @Override
+    public boolean deleteTreeIfExists() {
+        try (Arena allocator = Arena.ofConfined()) {
+            return deleteTreeIfExists(root.hKey(), allocator, machineName());
+        } finally {
+            invalidateCachedHandles(this);
+        }
+    }
+
+    boolean deleteTreeIfExists(MemorySegment rootHKey, SegmentAllocator allocator, String machineName) {
+        int code = deleteTreeCode(rootHKey, allocator, machineName);
+        if (code == ERROR_SUCCESS) {
+            return true;
+        }
+        if (code == ERROR_FILE_NOT_FOUND) {
+            return false;
+        }
+        throw RegistryException.forKey(code, path(), machineName);
+    }
+
+    private int deleteTreeCode(MemorySegment rootHKey, SegmentAllocator allocator, String machineName) {
+        // RegDeleteTree does not take a transaction, so it can only be used without one
+        if (Registry.currentContext() instanceof Registry.Context.NonTransactional) {
+            MemorySegment lpSubKey = WString.allocate(allocator, path);
+
+            int code = root.backend().deleteTree(rootHKey, lpSubKey);
+            if (code != ERROR_NOT_SUPPORTED) {
+                return code;
+            }
+        }
+
+        MemorySegment lpName = WString.allocate(allocator, EnumerationBuffer.MAX_KEY_NAME_LENGTH);
+        MemorySegment lpcName = allocator.allocate(ValueLayout.JAVA_INT);
+        return deleteTree(rootHKey, path, path(), lpName, lpcName, machineName);
+    }
+
+    /*
+     * Opens the given sub key relative to hKey, deletes all of its nested keys, and then deletes the sub key itself.
+     * The result of opening or deleting the sub key is returned; failures to delete nested keys are thrown.
+     * lpName and lpcName are shared by all levels, as sub key names are converted to strings before any nested key is deleted.
+     */
+    private int deleteTree(
+            MemorySegment hKey,
+            String subKey,
+            String subKeyPath,
+            MemorySegment lpName,
+            MemorySegment lpcName,
+            String machineName) {
+
+        try (Arena allocator = Arena.ofConfined()) {
+            MemorySegment lpSubKey = WString.allocate(allocator, subKey);
+            MemorySegment phkResult = HKEY.allocateRef(allocator);
+
+            int code = Registry.currentContext().openKey(
+                    root.backend(),
+                    hKey,
+                    lpSubKey,
+                    0,
+                    KEY_READ | SAM_DESIRED_REGISTRY_VIEW,
+                    phkResult);
+            if (code != ERROR_SUCCESS) {
+                return code;
+            }
+
+            MemorySegment subKeyHKey = HKEY.target(phkResult);
+            try {
+                deleteSubKeys(subKeyHKey, subKeyPath, lpName, lpcName, machineName);
+            } finally {
+                closeKey(root.backend(), subKeyHKey, subKeyPath, machineName);
+            }
+
+            return Registry.currentContext().deleteKey(
+                    root.backend(),
+                    hKey,
+                    lpSubKey,
+                    SAM_DESIRED_REGISTRY_VIEW);
+        }
+    }
+
+    private void deleteSubKeys(MemorySegment hKey, String keyPath, MemorySegment lpName, MemorySegment lpcName, String machineName) {
+        int lpcNameValue = Math.toIntExact(lpName.byteSize() / WString.CHAR_SIZE);
+        while (true) {
+            // Deleted sub keys are no longer enumerated, so the next sub key to delete is always the first one
+            lpcName.set(ValueLayout.JAVA_INT, 0, lpcNameValue);
+
+            int code = root.backend().enumKey(hKey, 0, lpName, lpcName);
+            if (code == ERROR_NO_MORE_ITEMS) {
+                return;
+            }
+            if (code != ERROR_SUCCESS) {
+                throw RegistryException.forKey(code, keyPath, machineName);
+            }
+
+            // lpcName contains the number of characters excluding the terminating character
+            String name = WString.getString(lpName, lpcName.get(ValueLayout.JAVA_INT, 0));
+            String subKeyPath = keyPath + SEPARATOR + name;
+
+            code = deleteTree(hKey, name, subKeyPath, lpName, lpcName, machineName);
+            if (code != ERROR_SUCCESS) {
+                throw RegistryException.forKey(code, subKeyPath, machineName);
+            }
+        }
+    }
+
     // handles
 
     @Override
     RegistryKey.Handle handle(int samDesired, boolean create) {
-        try (Arena allocator = Arena.ofConfined()) {
-            MemorySegment hKey = hKey(samDesired, create, allocator);
-            return new Handle(hKey);
+        Optional<HandleCache> cache = handleCache();
+        if (cache.isPresent()) {
+            return cachedHandle(cache.get(), samDesired, () -> hKey(samDesired, create));
         }
+        MemorySegment hKey = hKey(samDesired, create);
+        return new Handle(hKey);
     }
 
     @Override
     Optional<RegistryKey.Handle> handle(int samDesired, IntPredicate ignoreError) {
+        Optional<HandleCache> cache = handleCache();
+        if (cache.isPresent()) {
+            return Optional.ofNullable(cachedHandle(cache.get(), samDesired, () -> hKey(samDesired, ignoreError)));
+        }
+        MemorySegment hKey = hKey(samDesired, ignoreError);
+        return Optional.ofNullable(hKey)
+                .map(Handle::new);
+    }
+
+    @Override
+    RegistryKey.Handle handle(MemorySegment parentHKey, int samDesired, boolean create) {
         try (Arena allocator = Arena.ofConfined()) {
-            MemorySegment hKey = hKey(samDesired, ignoreError, allocator);
-            return Optional.ofNullable(hKey)
-                    .map(Handle::new);
+            MemorySegment hKey = hKey(parentHKey, name(), samDesired, create, allocator, machineName());
+            return new Handle(hKey);
         }
     }
 
-    private MemorySegment hKey(int samDesired, boolean create, SegmentAllocator allocator) {
-        return hKey(root.hKey(), samDesired, create, allocator, machineName());
+    private MemorySegment hKey(int samDesired, boolean create) {
+        try (Arena allocator = Arena.ofConfined()) {
+            return hKey(root.hKey(), samDesired, create, allocator, machineName());
+        }
     }
 
-    private MemorySegment hKey(int samDesired, IntPredicate ignoreError, SegmentAllocator allocator) {
-        return hKey(root.hKey(), samDesired, ignoreError, allocator, machineName());
+    private MemorySegment hKey(int samDesired, IntPredicate ignoreError) {
+        try (Arena allocator = Arena.ofConfined()) {
+            return hKey(root.hKey(), samDesired, ignoreError, allocator, machineName());
+        }
     }
 
     MemorySegment hKey(MemorySegment rootHKEY, int samDesired, boolean create, SegmentAllocator allocator, String machineName) {
-        return create
-                ? createOrOpenKey(rootHKEY, samDesired, allocator, machineName)
-                : openKey(rootHKEY, samDesired, _ -> false, allocator, machineName);
+        return hKey(rootHKEY, path, samDesired, create, allocator, machineName);
     }
 
     MemorySegment hKey(MemorySegment rootHKEY, int samDesired, IntPredicate ignoreError, SegmentAllocator allocator, String machineName) {
-        return openKey(rootHKEY, samDesired, ignoreError, allocator, machineName);
+        return openKey(rootHKEY, path, samDesired, ignoreError, allocator, machineName);
     }
 
-    private MemorySegment createOrOpenKey(MemorySegment rootHKey, int samDesired, SegmentAllocator allocator, String machineName) {
-        MemorySegment lpSubKey = WString.allocate(allocator, path);
+    /*
+     * hKey can be either the root key's handle, in which case subKey should be the path, or the handle of the parent key,
+     * in which case subKey should be the name.
+     */
+    MemorySegment hKey(MemorySegment hKey, String subKey, int samDesired, boolean create, SegmentAllocator allocator, String machineName) {
+        return create
+                ? createOrOpenKey(hKey, subKey, samDesired, allocator, machineName)
+                : openKey(hKey, subKey, samDesired, _ -> false, allocator, machineName);
+    }
+
+    private MemorySegment createOrOpenKey(MemorySegment hKey, String subKey, int samDesired, SegmentAllocator allocator, String machineName) {
+        MemorySegment lpSubKey = WString.allocate(allocator, subKey);
         MemorySegment phkResult = HKEY.allocateRef(allocator);
 
         int code = Registry.currentContext().createKey(
-                rootHKey,
+                root.backend(),
+                hKey,
                 lpSubKey,
                 REG_OPTION_NON_VOLATILE,
                 samDesired | SAM_DESIRED_REGISTRY_VIEW,
@@ -339,12 +500,20 @@ final class LocalSubKey extends RegistryKey {
         throw RegistryException.forKey(code, path(), machineName);
     }
 
-    private MemorySegment openKey(MemorySegment rootHKey, int samDesired, IntPredicate ignoreError, SegmentAllocator allocator, String machineName) {
-        MemorySegment lpSubKey = WString.allocate(allocator, path);
+    private MemorySegment openKey(
+            MemorySegment hKey,
+            String subKey,
+            int samDesired,
+            IntPredicate ignoreError,
+            SegmentAllocator allocator,
+            String machineName) {
+
+        MemorySegment lpSubKey = WString.allocate(allocator, subKey);
         MemorySegment phkResult = HKEY.allocateRef(allocator);
 
         int code = Registry.currentContext().openKey(
-                rootHKey,
+                root.backend(),
+                hKey,
                 lpSubKey,
                 0,
                 samDesired | SAM_DESIRED_REGISTRY_VIEW,
@@ -386,7 +555,7 @@ final class LocalSubKey extends RegistryKey {
 
         private Handle(MemorySegment hKey) {
             super(hKey);
-            this.cleanable = closeOnClean(this, hKey, path(), machineName());
+            this.cleanable = closeOnClean(this, root.backend(), hKey, path(), machineName());
         }
 
         @Override
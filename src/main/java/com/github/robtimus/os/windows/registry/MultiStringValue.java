@@ -126,6 +126,16 @@ public final class MultiStringValue extends SettableRegistryValue {
         return of(name(), values);
     }
 
+    @Override
+    long dataSize() {
+        // Include the terminating null character of each string, and the additional terminating null character
+        long charCount = 1;
+        for (String value : values) {
+            charCount += value.length() + 1L;
+        }
+        return charCount * WString.CHAR_SIZE;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
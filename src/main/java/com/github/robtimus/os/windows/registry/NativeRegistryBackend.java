@@ -0,0 +1,311 @@
+/*
+ * NativeRegistryBackend.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCopyTree;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCreateKeyEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCreateKeyTransacted;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteKeyEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteKeyTransacted;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteTree;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteValue;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumKeyEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumValue;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegNotifyChangeKeyValue;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegOpenKeyEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegOpenKeyTransacted;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryInfoKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryMultipleValues;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryValueEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegRenameKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegSetValueEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.isRegCopyTreeEnabled;
+import static com.github.robtimus.os.windows.registry.Advapi32.isRegDeleteTreeEnabled;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NOT_SUPPORTED;
+import java.lang.foreign.MemorySegment;
+
+// Advapi32 is only loaded when one of these methods is called, so this class can be used on systems where Advapi32 is not available
+final class NativeRegistryBackend implements RegistryBackend {
+
+    static final NativeRegistryBackend INSTANCE = new NativeRegistryBackend();
+
+    private NativeRegistryBackend() {
+    }
+
+    @Override
+    public int closeKey(
+            MemorySegment hKey) {
+
+        return RegCloseKey(hKey);
+    }
+
+    @Override
+    public int copyTree(
+            MemorySegment hKeySrc,
+            MemorySegment lpSubKey,
+            MemorySegment hKeyDest) {
+
+        return isRegCopyTreeEnabled()
+                ? RegCopyTree(hKeySrc, lpSubKey, hKeyDest)
+                : ERROR_NOT_SUPPORTED;
+    }
+
+    @Override
+    public int createKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int dwOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment lpdwDisposition) {
+
+        return RegCreateKeyEx(
+                hKey,
+                lpSubKey,
+                0,
+                MemorySegment.NULL,
+                dwOptions,
+                samDesired,
+                MemorySegment.NULL,
+                phkResult,
+                lpdwDisposition);
+    }
+
+    @Override
+    public int createKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int dwOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment lpdwDisposition,
+            MemorySegment hTransaction) {
+
+        return RegCreateKeyTransacted(
+                hKey,
+                lpSubKey,
+                0,
+                MemorySegment.NULL,
+                dwOptions,
+                samDesired,
+                MemorySegment.NULL,
+                phkResult,
+                lpdwDisposition,
+                hTransaction,
+                MemorySegment.NULL);
+    }
+
+    @Override
+    public int deleteKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int samDesired) {
+
+        return RegDeleteKeyEx(
+                hKey,
+                lpSubKey,
+                samDesired,
+                0);
+    }
+
+    @Override
+    public int deleteKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int samDesired,
+            MemorySegment hTransaction) {
+
+        return RegDeleteKeyTransacted(
+                hKey,
+                lpSubKey,
+                samDesired,
+                0,
+                hTransaction,
+                MemorySegment.NULL);
+    }
+
+    @Override
+    public int deleteTree(
+            MemorySegment hKey,
+            MemorySegment lpSubKey) {
+
+        return isRegDeleteTreeEnabled()
+                ? RegDeleteTree(hKey, lpSubKey)
+                : ERROR_NOT_SUPPORTED;
+    }
+
+    @Override
+    public int deleteValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName) {
+
+        return RegDeleteValue(hKey, lpValueName);
+    }
+
+    @Override
+    public int enumKey(
+            MemorySegment hKey,
+            int dwIndex,
+            MemorySegment lpName,
+            MemorySegment lpcchName) {
+
+        return RegEnumKeyEx(
+                hKey,
+                dwIndex,
+                lpName,
+                lpcchName,
+                MemorySegment.NULL,
+                MemorySegment.NULL,
+                MemorySegment.NULL,
+                MemorySegment.NULL);
+    }
+
+    @Override
+    public int enumValue(
+            MemorySegment hKey,
+            int dwIndex,
+            MemorySegment lpValueName,
+            MemorySegment lpcchValueName,
+            MemorySegment lpType,
+            MemorySegment lpData,
+            MemorySegment lpcbData) {
+
+        return RegEnumValue(
+                hKey,
+                dwIndex,
+                lpValueName,
+                lpcchValueName,
+                MemorySegment.NULL,
+                lpType,
+                lpData,
+                lpcbData);
+    }
+
+    @Override
+    public int notifyChangeKeyValue(
+            MemorySegment hKey,
+            int bWatchSubtree,
+            int dwNotifyFilter,
+            MemorySegment hEvent) {
+
+        return RegNotifyChangeKeyValue(hKey, bWatchSubtree, dwNotifyFilter, hEvent, 1);
+    }
+
+    @Override
+    public int openKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int ulOptions,
+            int samDesired,
+            MemorySegment phkResult) {
+
+        return RegOpenKeyEx(hKey, lpSubKey, ulOptions, samDesired, phkResult);
+    }
+
+    @Override
+    public int openKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int ulOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment hTransaction) {
+
+        return RegOpenKeyTransacted(
+                hKey,
+                lpSubKey,
+                ulOptions,
+                samDesired,
+                phkResult,
+                hTransaction,
+                MemorySegment.NULL);
+    }
+
+    @Override
+    public int queryInfoKey(
+            MemorySegment hKey,
+            MemorySegment lpcSubKeys,
+            MemorySegment lpcbMaxSubKeyLen,
+            MemorySegment lpcValues,
+            MemorySegment lpcbMaxValueNameLen,
+            MemorySegment lpcbMaxValueLen,
+            MemorySegment lpftLastWriteTime) {
+
+        return RegQueryInfoKey(
+                hKey,
+                MemorySegment.NULL,
+                MemorySegment.NULL,
+                MemorySegment.NULL,
+                lpcSubKeys,
+                lpcbMaxSubKeyLen,
+                MemorySegment.NULL,
+                lpcValues,
+                lpcbMaxValueNameLen,
+                lpcbMaxValueLen,
+                MemorySegment.NULL,
+                lpftLastWriteTime);
+    }
+
+    @Override
+    public int queryMultipleValues(
+            MemorySegment hKey,
+            MemorySegment valList,
+            int numVals,
+            MemorySegment lpValueBuf,
+            MemorySegment ldwTotsize) {
+
+        return RegQueryMultipleValues(hKey, valList, numVals, lpValueBuf, ldwTotsize);
+    }
+
+    @Override
+    public int queryValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName,
+            MemorySegment lpType,
+            MemorySegment lpData,
+            MemorySegment lpcbData) {
+
+        return RegQueryValueEx(hKey, lpValueName, MemorySegment.NULL, lpType, lpData, lpcbData);
+    }
+
+    @Override
+    public int renameKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKeyName,
+            MemorySegment lpNewKeyName) {
+
+        return RegRenameKey(hKey, lpSubKeyName, lpNewKeyName);
+    }
+
+    @Override
+    public int setValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName,
+            int dwType,
+            MemorySegment lpData,
+            int cbData) {
+
+        return RegSetValueEx(hKey, lpValueName, 0, dwType, lpData, cbData);
+    }
+
+    @Override
+    public boolean supportsChangeNotifications() {
+        return true;
+    }
+}
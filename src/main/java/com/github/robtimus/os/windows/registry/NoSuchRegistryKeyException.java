@@ -21,6 +21,9 @@ import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FIL
 
 /**
  * Thrown when an attempt is made to access a registry key that does not exist.
+ * <p>
+ * If system property {@code com.github.robtimus.os.windows.registry.omitNotFoundStackTraces} is set to {@code true}, instances of this class will
+ * not have a stack trace. This makes them cheaper to create, which can help if they are frequently thrown and caught.
  *
  * @author Rob Spoor
  */
@@ -51,4 +54,9 @@ public class NoSuchRegistryKeyException extends RegistryException {
     NoSuchRegistryKeyException(int errorCode, String path, String machineName) {
         super(errorCode, path, machineName);
     }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return OMIT_NOT_FOUND_STACK_TRACES ? this : super.fillInStackTrace();
+    }
 }
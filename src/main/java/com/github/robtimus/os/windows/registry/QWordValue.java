@@ -38,7 +38,7 @@ public final class QWordValue extends SettableRegistryValue {
     QWordValue(String name, MemorySegment data) {
         super(name, REG_QWORD_LITTLE_ENDIAN);
 
-        this.value = data.get(LAYOUT, 0);
+        this.value = readValue(data);
     }
 
     private QWordValue(String name, long value) {
@@ -46,6 +46,14 @@ public final class QWordValue extends SettableRegistryValue {
         this.value = value;
     }
 
+    static boolean isQWordType(int type) {
+        return type == REG_QWORD_LITTLE_ENDIAN;
+    }
+
+    static long readValue(MemorySegment data) {
+        return data.get(LAYOUT, 0);
+    }
+
     /**
      * Creates a new QWORD registry value.
      *
@@ -87,6 +95,11 @@ public final class QWordValue extends SettableRegistryValue {
         return of(name(), value);
     }
 
+    @Override
+    long dataSize() {
+        return Long.BYTES;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
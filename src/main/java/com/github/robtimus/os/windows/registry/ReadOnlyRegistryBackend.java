@@ -0,0 +1,206 @@
+/*
+ * ReadOnlyRegistryBackend.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.InMemoryRegistryBackend.FIRST_HANDLE;
+import static com.github.robtimus.os.windows.registry.InMemoryRegistryBackend.HANDLE_INCREMENT;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_INVALID_HANDLE;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NOT_SUPPORTED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import java.lang.foreign.MemorySegment;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/*
+ * A base class for registry backends that cannot be changed, and that have a single root key. Handles are mapped to keys of type K.
+ *
+ * All operations that would change the registry return ERROR_ACCESS_DENIED, and watching for changes is not supported.
+ */
+abstract class ReadOnlyRegistryBackend<K> implements RegistryBackend {
+
+    // Use the same handle for the root key as the local HKEY_LOCAL_MACHINE; it is only meaningful to the backend
+    static final MemorySegment ROOT_HKEY = WindowsConstants.HKEY_LOCAL_MACHINE;
+
+    private final K root;
+
+    private final Map<Long, K> openKeys;
+    private final AtomicLong nextHandle;
+
+    ReadOnlyRegistryBackend(K root) {
+        this.root = root;
+
+        this.openKeys = new ConcurrentHashMap<>();
+        this.nextHandle = new AtomicLong(FIRST_HANDLE);
+    }
+
+    @Override
+    public int closeKey(
+            MemorySegment hKey) {
+
+        long address = hKey.address();
+        if (address == ROOT_HKEY.address()) {
+            return ERROR_SUCCESS;
+        }
+        return openKeys.remove(address) != null
+                ? ERROR_SUCCESS
+                : ERROR_INVALID_HANDLE;
+    }
+
+    @Override
+    public int copyTree(
+            MemorySegment hKeySrc,
+            MemorySegment lpSubKey,
+            MemorySegment hKeyDest) {
+
+        return denyAccess(hKeyDest);
+    }
+
+    @Override
+    public int createKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int dwOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment lpdwDisposition) {
+
+        return denyAccess(hKey);
+    }
+
+    @Override
+    public int createKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int dwOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment lpdwDisposition,
+            MemorySegment hTransaction) {
+
+        return denyAccess(hKey);
+    }
+
+    @Override
+    public int deleteKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int samDesired) {
+
+        return denyAccess(hKey);
+    }
+
+    @Override
+    public int deleteKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int samDesired,
+            MemorySegment hTransaction) {
+
+        return denyAccess(hKey);
+    }
+
+    @Override
+    public int deleteTree(
+            MemorySegment hKey,
+            MemorySegment lpSubKey) {
+
+        return denyAccess(hKey);
+    }
+
+    @Override
+    public int deleteValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName) {
+
+        return denyAccess(hKey);
+    }
+
+    @Override
+    public int notifyChangeKeyValue(
+            MemorySegment hKey,
+            int bWatchSubtree,
+            int dwNotifyFilter,
+            MemorySegment hEvent) {
+
+        // The registry is never changed through this backend
+        return read(hKey, _ -> ERROR_NOT_SUPPORTED);
+    }
+
+    @Override
+    public int openKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int ulOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment hTransaction) {
+
+        return openKey(hKey, lpSubKey, ulOptions, samDesired, phkResult);
+    }
+
+    @Override
+    public int renameKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKeyName,
+            MemorySegment lpNewKeyName) {
+
+        return denyAccess(hKey);
+    }
+
+    @Override
+    public int setValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName,
+            int dwType,
+            MemorySegment lpData,
+            int cbData) {
+
+        return denyAccess(hKey);
+    }
+
+    @Override
+    public boolean supportsChangeNotifications() {
+        return false;
+    }
+
+    int read(MemorySegment hKey, ToIntFunction<K> operation) {
+        long address = hKey.address();
+        K key = address == ROOT_HKEY.address() ? root : openKeys.get(address);
+        return key != null
+                ? apply(operation, key)
+                : ERROR_INVALID_HANDLE;
+    }
+
+    // Sub classes can override this method to turn exceptions into error codes
+    int apply(ToIntFunction<K> operation, K key) {
+        return operation.applyAsInt(key);
+    }
+
+    private int denyAccess(MemorySegment hKey) {
+        return read(hKey, _ -> ERROR_ACCESS_DENIED);
+    }
+
+    MemorySegment open(K key) {
+        long handle = nextHandle.getAndAdd(HANDLE_INCREMENT);
+        openKeys.put(handle, key);
+        return MemorySegment.ofAddress(handle);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * ReconcileResult.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A report of the changes that were made when reconciling the registry values of a registry key.
+ *
+ * @author Rob Spoor
+ * @see RegistryKey#reconcile(java.util.Collection, RegistryKey.ReconcileOption...)
+ * @see RegistryKey.Handle#reconcile(java.util.Collection, RegistryKey.ReconcileOption...)
+ * @since 2.1
+ */
+public final class ReconcileResult {
+
+    private final List<String> addedValues;
+    private final List<String> changedValues;
+    private final List<String> deletedValues;
+    private final List<RegistryException> failures;
+
+    ReconcileResult(List<String> addedValues, List<String> changedValues, List<String> deletedValues, List<RegistryException> failures) {
+        this.addedValues = Collections.unmodifiableList(addedValues);
+        this.changedValues = Collections.unmodifiableList(changedValues);
+        this.deletedValues = Collections.unmodifiableList(deletedValues);
+        this.failures = Collections.unmodifiableList(failures);
+    }
+
+    /**
+     * Returns the names of the registry values that did not exist and were added.
+     *
+     * @return An unmodifiable list with the names of the registry values that were added.
+     */
+    public List<String> addedValues() {
+        return addedValues;
+    }
+
+    /**
+     * Returns the names of the registry values that existed with a different type or data, and were replaced.
+     *
+     * @return An unmodifiable list with the names of the registry values that were replaced.
+     */
+    public List<String> changedValues() {
+        return changedValues;
+    }
+
+    /**
+     * Returns the names of the registry values that were deleted.
+     * This is always empty if {@link RegistryKey.ReconcileOption#DELETE_OTHERS} was not given.
+     *
+     * @return An unmodifiable list with the names of the registry values that were deleted.
+     */
+    public List<String> deletedValues() {
+        return deletedValues;
+    }
+
+    /**
+     * Returns the failures of the registry values that could not be added, replaced or deleted.
+     * The names of these registry values are not included in {@link #addedValues()}, {@link #changedValues()} or {@link #deletedValues()}.
+     *
+     * @return An unmodifiable list with the failures of the registry values that could not be added, replaced or deleted.
+     */
+    public List<RegistryException> failures() {
+        return failures;
+    }
+
+    /**
+     * Returns whether or not any registry value was added, replaced or deleted.
+     *
+     * @return {@code true} if at least one registry value was added, replaced or deleted, or {@code false} otherwise.
+     */
+    public boolean hasChanges() {
+        return !addedValues.isEmpty() || !changedValues.isEmpty() || !deletedValues.isEmpty();
+    }
+
+    /**
+     * Returns whether or not all differences were reconciled successfully.
+     *
+     * @return {@code true} if all differences were reconciled successfully, or {@code false} otherwise.
+     */
+    public boolean isSuccessful() {
+        return failures.isEmpty();
+    }
+
+    @Override
+    @SuppressWarnings("nls")
+    public String toString() {
+        return "ReconcileResult[added=" + addedValues + ",changed=" + changedValues + ",deleted=" + deletedValues + ",failures=" + failures + "]";
+    }
+}
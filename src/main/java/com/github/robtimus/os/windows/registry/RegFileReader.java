@@ -0,0 +1,378 @@
+/*
+ * RegFileReader.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_READ;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_SET_VALUE;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_BINARY;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_DWORD;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_SZ;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import com.github.robtimus.os.windows.registry.RegistryKey.Handle;
+
+/*
+ * Reads files in the .reg file format that is used by the Registry Editor, and applies them to a registry key. It is not thread safe.
+ *
+ * Files are read one line at a time. The handle of the registry key that is currently being imported remains open until the next registry key
+ * is encountered, so all of its values are set without opening the registry key again. Value names and data are parsed directly into buffers
+ * that are reused for all values.
+ */
+final class RegFileReader {
+
+    private static final ValueLayout.OfInt DWORD_LAYOUT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfChar CHAR_LAYOUT = ValueLayout.JAVA_CHAR_UNALIGNED;
+
+    private static final String DWORD_PREFIX = "dword:"; //$NON-NLS-1$
+    private static final String HEX_PREFIX = "hex"; //$NON-NLS-1$
+
+    private final BufferedReader reader;
+    private final RegistryKey registryKey;
+    private final String pathPrefix;
+
+    private int lineNumber;
+    private String pendingKeyLine;
+    private boolean done;
+
+    private RegistryKey currentKey;
+    private Handle currentHandle;
+
+    private MemorySegment lpValueName;
+    private MemorySegment lpData;
+    private int dataLength;
+    private int quotedLength;
+
+    RegFileReader(BufferedReader reader, RegistryKey registryKey) {
+        this.reader = reader;
+        this.registryKey = registryKey;
+        this.pathPrefix = registryKey.path() + RegistryKey.SEPARATOR;
+
+        lineNumber = 0;
+        pendingKeyLine = null;
+        done = false;
+
+        // Use a separate automatic arena for each segment, so segments that are replaced can be freed independently
+        lpValueName = WString.allocate(Arena.ofAuto(), ValueBuffer.INITIAL_NAME_LENGTH);
+        lpData = Arena.ofAuto().allocate(ValueBuffer.INITIAL_DATA_SIZE);
+    }
+
+    void readHeader() throws IOException {
+        String line = nextLine();
+        if (line != null && !line.isEmpty() && line.charAt(0) == RegFileWriter.BYTE_ORDER_MARK) {
+            line = line.substring(1);
+        }
+        if (line == null || !RegFileWriter.HEADER.equals(line.strip())) {
+            throw new IOException(Messages.RegistryImporter.invalidHeader(line));
+        }
+    }
+
+    boolean isDone() {
+        return done;
+    }
+
+    /*
+     * Imports registry keys until the given number of registry keys has been imported or the end of the file has been reached.
+     * The handle of the last imported registry key is always closed before this method returns, so this method can be called for each transaction.
+     */
+    void importKeys(int maxKeyCount) throws IOException {
+        try {
+            int keyCount = 0;
+            String line = nextKeyOrValueLine();
+            while (line != null) {
+                if (line.charAt(0) == '[') {
+                    if (keyCount == maxKeyCount) {
+                        pendingKeyLine = line;
+                        return;
+                    }
+                    startKey(line);
+                    keyCount++;
+                } else {
+                    importValue(line);
+                }
+                line = nextKeyOrValueLine();
+            }
+            done = true;
+        } finally {
+            closeCurrentHandle();
+        }
+    }
+
+    private String nextKeyOrValueLine() throws IOException {
+        if (pendingKeyLine != null) {
+            String line = pendingKeyLine;
+            pendingKeyLine = null;
+            return line;
+        }
+        String line = nextLine();
+        while (line != null) {
+            line = line.strip();
+            // Skip empty lines and comments
+            if (!line.isEmpty() && line.charAt(0) != ';') {
+                return line;
+            }
+            line = nextLine();
+        }
+        return null;
+    }
+
+    private String nextLine() throws IOException {
+        String line = reader.readLine();
+        if (line != null) {
+            lineNumber++;
+        }
+        return line;
+    }
+
+    // keys
+
+    private void startKey(String line) throws IOException {
+        closeCurrentHandle();
+
+        if (!line.endsWith("]")) { //$NON-NLS-1$
+            throw invalidLine(line);
+        }
+        boolean delete = line.length() > 1 && line.charAt(1) == '-';
+        String path = line.substring(delete ? 2 : 1, line.length() - 1);
+        RegistryKey key = resolve(path);
+
+        if (delete) {
+            key.deleteTreeIfExists();
+        } else {
+            currentHandle = key.handle(KEY_READ | KEY_SET_VALUE, true);
+            currentKey = key;
+        }
+    }
+
+    private RegistryKey resolve(String path) throws IOException {
+        if (path.equalsIgnoreCase(registryKey.path())) {
+            return registryKey;
+        }
+        if (path.length() > pathPrefix.length() && path.regionMatches(true, 0, pathPrefix, 0, pathPrefix.length())) {
+            return registryKey.resolve(path.substring(pathPrefix.length()));
+        }
+        throw new IOException(Messages.RegistryImporter.keyNotNested(path, lineNumber, registryKey.path()));
+    }
+
+    private void closeCurrentHandle() {
+        if (currentHandle != null) {
+            currentHandle.close();
+            currentHandle = null;
+            currentKey = null;
+        }
+    }
+
+    // values
+
+    private void importValue(String line) throws IOException {
+        if (currentHandle == null) {
+            throw new IOException(Messages.RegistryImporter.valueWithoutKey(lineNumber));
+        }
+
+        int index = parseValueName(line);
+        if (index >= line.length() || line.charAt(index) != '=') {
+            throw invalidLine(line);
+        }
+        index++;
+
+        String data = line.substring(index).stripLeading();
+        if ("-".equals(data)) { //$NON-NLS-1$
+            currentHandle.deleteValueIfExists(valueName());
+        } else {
+            int type = parseData(line, data);
+            setValue(type);
+        }
+    }
+
+    // Parses the value name into lpValueName, and returns the index directly after it
+    private int parseValueName(String line) throws IOException {
+        if (line.charAt(0) == '@') {
+            ensureNameCapacity(0);
+            lpValueName.set(CHAR_LAYOUT, 0, '\0');
+            return 1;
+        }
+        if (line.charAt(0) == '"') {
+            // A quoted name is never longer than the line itself
+            ensureNameCapacity(line.length());
+            int end = parseQuoted(line, 0, lpValueName);
+            if (end != -1) {
+                return end;
+            }
+        }
+        throw invalidLine(line);
+    }
+
+    /*
+     * Parses a quoted string that starts at the given index into the given segment, including a terminating null character.
+     * Returns the index directly after the closing quote, or -1 if there is no closing quote.
+     */
+    private int parseQuoted(String line, int start, MemorySegment target) {
+        long offset = 0;
+        for (int i = start + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                target.set(CHAR_LAYOUT, offset, '\0');
+                quotedLength = Math.toIntExact(offset + WString.CHAR_SIZE);
+                return i + 1;
+            }
+            if (c == '\\' && i + 1 < line.length()) {
+                i++;
+                c = line.charAt(i);
+            }
+            target.set(CHAR_LAYOUT, offset, c);
+            offset += WString.CHAR_SIZE;
+        }
+        return -1;
+    }
+
+    private String valueName() {
+        return WString.getString(lpValueName);
+    }
+
+    // Parses the value data into lpData, and returns the value type
+    private int parseData(String line, String data) throws IOException {
+        dataLength = 0;
+        if (data.startsWith("\"")) { //$NON-NLS-1$
+            // A quoted string is never longer than the data itself
+            ensureDataCapacity(data.length() * WString.CHAR_SIZE);
+            int end = parseQuoted(data, 0, lpData);
+            if (end != data.length()) {
+                throw invalidLine(line);
+            }
+            dataLength = quotedLength;
+            return REG_SZ;
+        }
+        if (data.startsWith(DWORD_PREFIX)) {
+            lpData.set(DWORD_LAYOUT, 0, parseDWord(line, data.substring(DWORD_PREFIX.length())));
+            dataLength = Integer.BYTES;
+            return REG_DWORD;
+        }
+        if (data.startsWith(HEX_PREFIX)) {
+            int colon = data.indexOf(':');
+            if (colon != -1) {
+                int type = parseHexType(line, data.substring(HEX_PREFIX.length(), colon));
+                parseHex(line, data.substring(colon + 1));
+                return type;
+            }
+        }
+        throw invalidLine(line);
+    }
+
+    private int parseDWord(String line, String value) throws IOException {
+        if (value.isEmpty() || value.length() > 8) {
+            throw invalidLine(line);
+        }
+        try {
+            return Integer.parseUnsignedInt(value, 16);
+        } catch (NumberFormatException e) {
+            throw invalidLine(line);
+        }
+    }
+
+    private int parseHexType(String line, String type) throws IOException {
+        if (type.isEmpty()) {
+            return REG_BINARY;
+        }
+        if (type.length() > 2 && type.charAt(0) == '(' && type.charAt(type.length() - 1) == ')') {
+            try {
+                return Integer.parseUnsignedInt(type, 1, type.length() - 1, 16);
+            } catch (NumberFormatException e) {
+                // fall through
+            }
+        }
+        throw invalidLine(line);
+    }
+
+    // Parses comma separated hexadecimal bytes, that may continue on the next lines if lines end with a backslash
+    private void parseHex(String line, String data) throws IOException {
+        String current = data.strip();
+        while (true) {
+            boolean continued = current.endsWith("\\"); //$NON-NLS-1$
+            if (continued) {
+                current = current.substring(0, current.length() - 1).strip();
+            }
+            parseHexLine(line, current);
+
+            if (!continued) {
+                return;
+            }
+            current = nextLine();
+            if (current == null) {
+                throw invalidLine(line);
+            }
+            current = current.strip();
+        }
+    }
+
+    private void parseHexLine(String line, String data) throws IOException {
+        if (data.isEmpty()) {
+            return;
+        }
+        String[] bytes = data.split(",", -1); //$NON-NLS-1$
+        for (int i = 0; i < bytes.length; i++) {
+            String hex = bytes[i].strip();
+            // Lines that are continued end with a comma
+            if (!hex.isEmpty() || i == 0 || i < bytes.length - 1) {
+                appendByte(line, hex);
+            }
+        }
+    }
+
+    private void appendByte(String line, String hex) throws IOException {
+        if (hex.length() > 2) {
+            throw invalidLine(line);
+        }
+        try {
+            int b = Integer.parseUnsignedInt(hex, 16);
+            ensureDataCapacity(dataLength + 1L);
+            lpData.set(ValueLayout.JAVA_BYTE, dataLength, (byte) b);
+            dataLength++;
+        } catch (NumberFormatException e) {
+            throw invalidLine(line);
+        }
+    }
+
+    private void setValue(int type) {
+        int code = registryKey.backend().setValue(currentHandle.hKey, lpValueName, type, lpData, dataLength);
+        if (code != ERROR_SUCCESS) {
+            throw RegistryException.forValue(code, currentKey.path(), currentKey.machineName(), valueName());
+        }
+    }
+
+    private void ensureNameCapacity(int length) {
+        if (lpValueName.byteSize() < (length + 1L) * WString.CHAR_SIZE) {
+            lpValueName = WString.allocate(Arena.ofAuto(), length);
+        }
+    }
+
+    private void ensureDataCapacity(long size) {
+        if (lpData.byteSize() < size) {
+            MemorySegment newData = Arena.ofAuto().allocate(Math.max(size, lpData.byteSize() * 2));
+            newData.copyFrom(lpData.asSlice(0, dataLength));
+            lpData = newData;
+        }
+    }
+
+    private IOException invalidLine(String line) {
+        return new IOException(Messages.RegistryImporter.invalidLine(lineNumber, line));
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * RegFileWriter.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_READ;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_BINARY;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_DWORD;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_SZ;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.HexFormat;
+import com.github.robtimus.os.windows.registry.RegistryKey.Handle;
+
+/*
+ * Writes registry keys in the .reg file format that is used by the Registry Editor. It is not thread safe.
+ *
+ * Registry keys are written one at a time, and sub keys and values are enumerated directly into an EnumerationBuffer instead of being collected
+ * first. Values are always written before any sub keys.
+ */
+final class RegFileWriter {
+
+    static final String HEADER = "Windows Registry Editor Version 5.00"; //$NON-NLS-1$
+    static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    // The Registry Editor uses Windows line separators, regardless of the platform
+    private static final String LINE_SEPARATOR = "\r\n"; //$NON-NLS-1$
+
+    // Hexadecimal data is continued on the next line if lines would become longer than this
+    private static final int MAX_LINE_LENGTH = 80;
+    private static final String CONTINUATION_INDENT = "  "; //$NON-NLS-1$
+
+    private static final HexFormat HEX_FORMAT = HexFormat.of();
+
+    private static final ValueLayout.OfInt DWORD_LAYOUT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Writer writer;
+    private final EnumerationBuffer buffer;
+
+    private int column;
+
+    RegFileWriter(Writer writer) {
+        this.writer = writer;
+        this.buffer = new EnumerationBuffer();
+
+        column = 0;
+    }
+
+    void write(RegistryKey registryKey, Handle handle) throws IOException {
+        write(HEADER);
+        newLine();
+        newLine();
+
+        writeKey(registryKey, handle, 0);
+
+        writer.flush();
+    }
+
+    private void writeKey(RegistryKey registryKey, Handle handle, int depth) throws IOException {
+        String path = registryKey.path();
+        if (path.indexOf('\r') != -1 || path.indexOf('\n') != -1) {
+            throw new IOException(Messages.RegistryKey.keyNameContainsLineBreak(path));
+        }
+
+        write('[');
+        write(path);
+        write(']');
+        newLine();
+
+        writeValues(registryKey, handle);
+        newLine();
+
+        writeSubKeys(registryKey, handle, depth);
+    }
+
+    // sub keys
+
+    private void writeSubKeys(RegistryKey registryKey, Handle handle, int depth) throws IOException {
+        for (int index = 0; ; index++) {
+            String name = buffer.subKey(registryKey, handle, index, depth);
+            if (name == null) {
+                return;
+            }
+            writeSubKey(registryKey.resolveChild(name), handle, depth + 1);
+        }
+    }
+
+    private void writeSubKey(SubKey subKey, Handle parentHandle, int depth) throws IOException {
+        Handle handle;
+        try {
+            handle = subKey.handle(parentHandle.hKey, KEY_READ, false);
+        } catch (NoSuchRegistryKeyException e) {
+            // The registry key was removed after it was enumerated
+            return;
+        }
+        try (handle) {
+            writeKey(subKey, handle, depth);
+        }
+    }
+
+    // values
+
+    private void writeValues(RegistryKey registryKey, Handle handle) throws IOException {
+        for (int index = 0; buffer.value(registryKey, handle, index); index++) {
+            writeValue(registryKey);
+        }
+    }
+
+    private void writeValue(RegistryKey registryKey) throws IOException {
+        int nameLength = buffer.valueNameLength();
+        if (nameLength == 0) {
+            write('@');
+        } else {
+            MemorySegment lpValueName = buffer.lpValueName();
+            if (containsLineBreak(lpValueName, nameLength)) {
+                // Unlike string data, names cannot be written as hexadecimal data
+                String name = WString.getString(lpValueName, nameLength);
+                throw new IOException(Messages.RegistryKey.valueNameContainsLineBreak(registryKey.path(), name));
+            }
+            writeQuoted(lpValueName, nameLength);
+        }
+        write('=');
+
+        int type = buffer.type();
+        long dataLength = Integer.toUnsignedLong(buffer.dataLength());
+        MemorySegment lpData = buffer.lpData();
+
+        if (type == REG_SZ && isPlainString(lpData, dataLength)) {
+            // Don't include the terminating null character
+            writeQuoted(lpData, Math.toIntExact(dataLength / WString.CHAR_SIZE - 1));
+        } else if (type == REG_DWORD && dataLength == Integer.BYTES) {
+            write("dword:"); //$NON-NLS-1$
+            write(HEX_FORMAT.toHexDigits(lpData.get(DWORD_LAYOUT, 0)));
+        } else {
+            writeHex(type, lpData, dataLength);
+        }
+        newLine();
+    }
+
+    /*
+     * The Registry Editor writes strings as-is, except for backslashes and double quotes. Strings that would not survive that, like strings that
+     * contain line breaks or that are not null-terminated, are written as hexadecimal data instead.
+     */
+    private static boolean isPlainString(MemorySegment lpData, long dataLength) {
+        if (dataLength < WString.CHAR_SIZE || dataLength % WString.CHAR_SIZE != 0) {
+            return false;
+        }
+        long charCount = dataLength / WString.CHAR_SIZE;
+        if (lpData.getAtIndex(ValueLayout.JAVA_CHAR_UNALIGNED, charCount - 1) != '\0') {
+            return false;
+        }
+        for (long i = 0; i < charCount - 1; i++) {
+            char c = lpData.getAtIndex(ValueLayout.JAVA_CHAR_UNALIGNED, i);
+            if (c == '\0' || c == '\r' || c == '\n') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean containsLineBreak(MemorySegment chars, int length) {
+        for (int i = 0; i < length; i++) {
+            char c = chars.getAtIndex(ValueLayout.JAVA_CHAR_UNALIGNED, i);
+            if (c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // writing
+
+    private void writeQuoted(MemorySegment chars, int length) throws IOException {
+        write('"');
+        for (int i = 0; i < length; i++) {
+            char c = chars.getAtIndex(ValueLayout.JAVA_CHAR_UNALIGNED, i);
+            if (c == '\\' || c == '"') {
+                write('\\');
+            }
+            write(c);
+        }
+        write('"');
+    }
+
+    private void writeHex(int type, MemorySegment lpData, long dataLength) throws IOException {
+        if (type == REG_BINARY) {
+            write("hex:"); //$NON-NLS-1$
+        } else {
+            write("hex("); //$NON-NLS-1$
+            write(Integer.toHexString(type));
+            write("):"); //$NON-NLS-1$
+        }
+        for (long i = 0; i < dataLength; i++) {
+            if (i > 0) {
+                write(',');
+                // Leave room for the next byte, a comma and the line continuation character
+                if (column + 4 > MAX_LINE_LENGTH) {
+                    write('\\');
+                    newLine();
+                    write(CONTINUATION_INDENT);
+                }
+            }
+            write(HEX_FORMAT.toHexDigits(lpData.get(ValueLayout.JAVA_BYTE, i)));
+        }
+    }
+
+    private void write(char c) throws IOException {
+        writer.write(c);
+        column++;
+    }
+
+    private void write(String s) throws IOException {
+        writer.write(s);
+        column += s.length();
+    }
+
+    private void newLine() throws IOException {
+        writer.write(LINE_SEPARATOR);
+        column = 0;
+    }
+}
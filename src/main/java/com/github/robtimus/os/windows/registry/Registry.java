@@ -17,21 +17,22 @@
 
 package com.github.robtimus.os.windows.registry;
 
-import static com.github.robtimus.os.windows.registry.Advapi32.RegCreateKeyEx;
-import static com.github.robtimus.os.windows.registry.Advapi32.RegCreateKeyTransacted;
-import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteKeyEx;
-import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteKeyTransacted;
-import static com.github.robtimus.os.windows.registry.Advapi32.RegOpenKeyEx;
-import static com.github.robtimus.os.windows.registry.Advapi32.RegOpenKeyTransacted;
+import java.io.IOException;
 import java.lang.foreign.MemorySegment;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
- * A representation of a local or remote Windows registry.
+ * A representation of a local or remote Windows registry, of an in-memory registry, of a registry hive file, or of a snapshot of a registry key.
  *
  * @author Rob Spoor
  * @since 2.0
  */
-public abstract sealed class Registry permits LocalRegistry, RemoteRegistry {
+public abstract sealed class Registry permits LocalRegistry, RemoteRegistry, InMemoryRegistry, HiveRegistry, RegistrySnapshot {
 
     private static final ScopedValue<Context> CONTEXT = ScopedValue.newInstance();
 
@@ -60,6 +61,60 @@ public abstract sealed class Registry permits LocalRegistry, RemoteRegistry {
         return new RemoteRegistry.Connector(machineName);
     }
 
+    /**
+     * Queries the registries of several remote machines concurrently.
+     * Each remote machine is connected to, queried using the given query, and disconnected from again.
+     * <p>
+     * The results are returned in the order in which the remote machines complete, not in the order of the given machine names.
+     * The query is called once for each remote machine, and should not share any mutable state without proper synchronization.
+     * The returned stream should be closed if it's not fully consumed, preferably using try-with-resources. That way, remote machines that
+     * have not been queried yet will be skipped.
+     *
+     * @param <R> The type of query result.
+     * @param machineNames The names of the remote machines to query. These cannot be IP addresses but must be resolvable host names.
+     * @param query The query to perform on the registry of each remote machine.
+     * @param options The options that determine how the remote machines are queried.
+     * @return A stream with the result of each remote machine.
+     * @throws NullPointerException If any of the given arguments is {@code null}, or if any of the machine names is {@code null}.
+     * @since 2.1
+     */
+    public static <R> Stream<HostResult<R>> fanOut(Collection<String> machineNames, Function<? super RemoteRegistry, ? extends R> query,
+            FanOutOptions options) {
+
+        List<String> names = List.copyOf(machineNames);
+        Objects.requireNonNull(query);
+        Objects.requireNonNull(options);
+
+        FanOut<R> fanOut = new FanOut<>(names, machineName -> at(machineName).connect(), query, options);
+        return fanOut.start();
+    }
+
+    /**
+     * Returns a new registry that is kept entirely in memory. The returned registry is initially empty, and is not shared with any other
+     * registry.
+     *
+     * @return A new registry that is kept entirely in memory.
+     * @see InMemoryRegistry
+     * @since 2.1
+     */
+    public static InMemoryRegistry inMemory() {
+        return new InMemoryRegistry();
+    }
+
+    /**
+     * Opens a registry hive file. The returned registry is read-only, and must be closed when it is no longer needed.
+     *
+     * @param file The registry hive file to open.
+     * @return A registry for the given registry hive file.
+     * @throws NullPointerException If the given file is {@code null}.
+     * @throws IOException If the given file could not be opened, or if it is not a registry hive file.
+     * @see HiveRegistry
+     * @since 2.1
+     */
+    public static HiveRegistry openHive(Path file) throws IOException {
+        return HiveRegistry.open(file);
+    }
+
     // transactional support
 
     static Context currentContext() {
@@ -74,13 +129,14 @@ public abstract sealed class Registry permits LocalRegistry, RemoteRegistry {
         return callWithContext(NO_TRANSACTION, action);
     }
 
-    private static <R, X extends Throwable> R callWithContext(Context context, TransactionalState.Callable<R, X> action) throws X {
+    static <R, X extends Throwable> R callWithContext(Context context, TransactionalState.Callable<R, X> action) throws X {
         return ScopedValue.where(CONTEXT, context).call(action::call);
     }
 
     abstract static sealed class Context {
 
         abstract int createKey(
+                RegistryBackend backend,
                 MemorySegment hKey,
                 MemorySegment lpSubKey,
                 int dwOptions,
@@ -89,11 +145,13 @@ public abstract sealed class Registry permits LocalRegistry, RemoteRegistry {
                 MemorySegment lpdwDisposition);
 
         abstract int deleteKey(
+                RegistryBackend backend,
                 MemorySegment hKey,
                 MemorySegment lpSubKey,
                 int samDesired);
 
         abstract int openKey(
+                RegistryBackend backend,
                 MemorySegment hKey,
                 MemorySegment lpSubKey,
                 int ulOptions,
@@ -114,6 +172,7 @@ public abstract sealed class Registry permits LocalRegistry, RemoteRegistry {
 
             @Override
             int createKey(
+                    RegistryBackend backend,
                     MemorySegment hKey,
                     MemorySegment lpSubKey,
                     int dwOptions,
@@ -121,51 +180,46 @@ public abstract sealed class Registry permits LocalRegistry, RemoteRegistry {
                     MemorySegment phkResult,
                     MemorySegment lpdwDisposition) {
 
-                return RegCreateKeyTransacted(
+                return backend.createKeyTransacted(
                         hKey,
                         lpSubKey,
-                        0,
-                        MemorySegment.NULL,
                         dwOptions,
                         samDesired,
-                        MemorySegment.NULL,
                         phkResult,
                         lpdwDisposition,
-                        transaction.handle(),
-                        MemorySegment.NULL);
+                        transaction.handle());
             }
 
             @Override
             int deleteKey(
+                    RegistryBackend backend,
                     MemorySegment hKey,
                     MemorySegment lpSubKey,
                     int samDesired) {
 
-                return RegDeleteKeyTransacted(
+                return backend.deleteKeyTransacted(
                         hKey,
                         lpSubKey,
                         samDesired,
-                        0,
-                        transaction.handle(),
-                        MemorySegment.NULL);
+                        transaction.handle());
             }
 
             @Override
             int openKey(
+                    RegistryBackend backend,
                     MemorySegment hKey,
                     MemorySegment lpSubKey,
                     int ulOptions,
                     int samDesired,
                     MemorySegment phkResult) {
 
-                return RegOpenKeyTransacted(
+                return backend.openKeyTransacted(
                         hKey,
                         lpSubKey,
                         ulOptions,
                         samDesired,
                         phkResult,
-                        transaction.handle(),
-                        MemorySegment.NULL);
+                        transaction.handle());
             }
         }
 
@@ -176,6 +230,7 @@ public abstract sealed class Registry permits LocalRegistry, RemoteRegistry {
 
             @Override
             int createKey(
+                    RegistryBackend backend,
                     MemorySegment hKey,
                     MemorySegment lpSubKey,
                     int dwOptions,
@@ -183,40 +238,38 @@ public abstract sealed class Registry permits LocalRegistry, RemoteRegistry {
                     MemorySegment phkResult,
                     MemorySegment lpdwDisposition) {
 
-                return RegCreateKeyEx(
+                return backend.createKey(
                         hKey,
                         lpSubKey,
-                        0,
-                        MemorySegment.NULL,
                         dwOptions,
                         samDesired,
-                        MemorySegment.NULL,
                         phkResult,
                         lpdwDisposition);
             }
 
             @Override
             int deleteKey(
+                    RegistryBackend backend,
                     MemorySegment hKey,
                     MemorySegment lpSubKey,
                     int samDesired) {
 
-                return RegDeleteKeyEx(
+                return backend.deleteKey(
                         hKey,
                         lpSubKey,
-                        samDesired,
-                        0);
+                        samDesired);
             }
 
             @Override
             int openKey(
+                    RegistryBackend backend,
                     MemorySegment hKey,
                     MemorySegment lpSubKey,
                     int ulOptions,
                     int samDesired,
                     MemorySegment phkResult) {
 
-                return RegOpenKeyEx(hKey, lpSubKey, ulOptions, samDesired, phkResult);
+                return backend.openKey(hKey, lpSubKey, ulOptions, samDesired, phkResult);
             }
         }
     }
@@ -0,0 +1,151 @@
+/*
+ * RegistryBackend.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.lang.foreign.MemorySegment;
+
+/*
+ * The registry functions that are used by registry keys. Each method mirrors the Advapi32 function with the same name (prefixed with Reg),
+ * but without parameters that are reserved or that are always NULL.
+ * All methods return an error code, and use the same memory layouts for their arguments as the Advapi32 functions.
+ */
+interface RegistryBackend {
+
+    int closeKey(
+            MemorySegment hKey);
+
+    // Returns ERROR_NOT_SUPPORTED if registry keys cannot be copied in one call; callers should then copy registry keys themselves
+    int copyTree(
+            MemorySegment hKeySrc,
+            MemorySegment lpSubKey,
+            MemorySegment hKeyDest);
+
+    int createKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int dwOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment lpdwDisposition);
+
+    int createKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int dwOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment lpdwDisposition,
+            MemorySegment hTransaction);
+
+    int deleteKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int samDesired);
+
+    int deleteKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int samDesired,
+            MemorySegment hTransaction);
+
+    // Returns ERROR_NOT_SUPPORTED if registry keys cannot be deleted with all of their nested keys in one call;
+    // callers should then delete nested keys themselves
+    int deleteTree(
+            MemorySegment hKey,
+            MemorySegment lpSubKey);
+
+    int deleteValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName);
+
+    int enumKey(
+            MemorySegment hKey,
+            int dwIndex,
+            MemorySegment lpName,
+            MemorySegment lpcchName);
+
+    int enumValue(
+            MemorySegment hKey,
+            int dwIndex,
+            MemorySegment lpValueName,
+            MemorySegment lpcchValueName,
+            MemorySegment lpType,
+            MemorySegment lpData,
+            MemorySegment lpcbData);
+
+    // Always asynchronous
+    int notifyChangeKeyValue(
+            MemorySegment hKey,
+            int bWatchSubtree,
+            int dwNotifyFilter,
+            MemorySegment hEvent);
+
+    int openKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int ulOptions,
+            int samDesired,
+            MemorySegment phkResult);
+
+    int openKeyTransacted(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int ulOptions,
+            int samDesired,
+            MemorySegment phkResult,
+            MemorySegment hTransaction);
+
+    int queryInfoKey(
+            MemorySegment hKey,
+            MemorySegment lpcSubKeys,
+            MemorySegment lpcbMaxSubKeyLen,
+            MemorySegment lpcValues,
+            MemorySegment lpcbMaxValueNameLen,
+            MemorySegment lpcbMaxValueLen,
+            MemorySegment lpftLastWriteTime);
+
+    int queryMultipleValues(
+            MemorySegment hKey,
+            MemorySegment valList,
+            int numVals,
+            MemorySegment lpValueBuf,
+            MemorySegment ldwTotsize);
+
+    int queryValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName,
+            MemorySegment lpType,
+            MemorySegment lpData,
+            MemorySegment lpcbData);
+
+    int renameKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKeyName,
+            MemorySegment lpNewKeyName);
+
+    int setValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName,
+            int dwType,
+            MemorySegment lpData,
+            int cbData);
+
+    // Returns false if notifyChangeKeyValue always returns ERROR_NOT_SUPPORTED;
+    // callers can then skip creating the events that are needed for change notifications
+    boolean supportsChangeNotifications();
+}
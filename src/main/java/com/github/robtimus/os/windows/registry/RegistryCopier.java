@@ -0,0 +1,111 @@
+/*
+ * RegistryCopier.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NOT_SUPPORTED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_CREATE_SUB_KEY;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_READ;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_SET_VALUE;
+import java.lang.foreign.MemorySegment;
+import java.util.Objects;
+import com.github.robtimus.os.windows.registry.RegistryKey.Handle;
+
+/*
+ * Copies registry keys with all of their values and nested keys. It is not thread safe.
+ *
+ * If both registry keys belong to the same registry, RegCopyTree is used to copy everything in one call. Otherwise, or if that is not possible,
+ * registry keys are copied one at a time. The handles of a source key and its target key are kept open while the values and sub keys of the source
+ * key are copied, and sub keys are opened or created relative to these handles. Sub keys and values are enumerated directly into an
+ * EnumerationBuffer, and values are written from that same buffer, so no values are ever converted into RegistryValue objects.
+ */
+final class RegistryCopier {
+
+    static final int TARGET_SAM_DESIRED = KEY_READ | KEY_SET_VALUE | KEY_CREATE_SUB_KEY;
+
+    private final EnumerationBuffer buffer;
+
+    RegistryCopier() {
+        buffer = new EnumerationBuffer();
+    }
+
+    void copy(RegistryKey source, Handle sourceHandle, RegistryKey target, Handle targetHandle) {
+        // RegCopyTree does not take a transaction, so it can only be used without one
+        if (isSameRegistry(source, target) && Registry.currentContext() instanceof Registry.Context.NonTransactional) {
+            int code = source.backend().copyTree(sourceHandle.hKey, MemorySegment.NULL, targetHandle.hKey);
+            if (code == ERROR_SUCCESS) {
+                return;
+            }
+            if (code != ERROR_NOT_SUPPORTED) {
+                throw RegistryException.forKey(code, source.path(), source.machineName());
+            }
+        }
+        copyKey(source, sourceHandle, target, targetHandle, 0);
+    }
+
+    static boolean isSameRegistry(RegistryKey key1, RegistryKey key2) {
+        return key1.backend() == key2.backend() && Objects.equals(key1.machineName(), key2.machineName());
+    }
+
+    private void copyKey(RegistryKey source, Handle sourceHandle, RegistryKey target, Handle targetHandle, int depth) {
+        copyValues(source, sourceHandle, target, targetHandle);
+        copySubKeys(source, sourceHandle, target, targetHandle, depth);
+    }
+
+    // sub keys
+
+    private void copySubKeys(RegistryKey source, Handle sourceHandle, RegistryKey target, Handle targetHandle, int depth) {
+        for (int index = 0; ; index++) {
+            String name = buffer.subKey(source, sourceHandle, index, depth);
+            if (name == null) {
+                return;
+            }
+            copySubKey(source.resolveChild(name), sourceHandle, target.resolveChild(name), targetHandle, depth + 1);
+        }
+    }
+
+    private void copySubKey(SubKey source, Handle sourceParentHandle, SubKey target, Handle targetParentHandle, int depth) {
+        Handle sourceHandle;
+        try {
+            sourceHandle = source.handle(sourceParentHandle.hKey, KEY_READ, false);
+        } catch (NoSuchRegistryKeyException e) {
+            // The registry key was removed after it was enumerated
+            return;
+        }
+        try (sourceHandle; Handle targetHandle = target.handle(targetParentHandle.hKey, TARGET_SAM_DESIRED, true)) {
+            copyKey(source, sourceHandle, target, targetHandle, depth);
+        }
+    }
+
+    // values
+
+    private void copyValues(RegistryKey source, Handle sourceHandle, RegistryKey target, Handle targetHandle) {
+        for (int index = 0; buffer.value(source, sourceHandle, index); index++) {
+            int code = target.backend().setValue(
+                    targetHandle.hKey,
+                    buffer.lpValueName(),
+                    buffer.type(),
+                    buffer.lpData(),
+                    buffer.dataLength());
+            if (code != ERROR_SUCCESS) {
+                String name = WString.getString(buffer.lpValueName(), buffer.valueNameLength());
+                throw RegistryException.forValue(code, target.path(), target.machineName(), name);
+            }
+        }
+    }
+}
@@ -21,19 +21,35 @@ import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACC
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_INVALID_HANDLE;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_KEY_DELETED;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Thrown when an error occurred while trying to access or modify the Windows registry.
+ * <p>
+ * The message of registry exceptions is only created when it's first requested. This makes creating registry exceptions cheap, which matters if
+ * they are caught and handled without ever looking at the message.
  *
  * @author Rob Spoor
  */
 @SuppressWarnings("serial")
 public class RegistryException extends RuntimeException {
 
+    static final String OMIT_NOT_FOUND_STACK_TRACES_PROPERTY = "com.github.robtimus.os.windows.registry.omitNotFoundStackTraces"; //$NON-NLS-1$
+
+    static final boolean OMIT_NOT_FOUND_STACK_TRACES = Boolean.getBoolean(OMIT_NOT_FOUND_STACK_TRACES_PROPERTY);
+
+    // Only a limited number of error codes is expected, but unexpected error codes should not let the cache grow indefinitely
+    private static final int MAX_CACHED_SYSTEM_MESSAGES = 64;
+
+    private static final Map<Integer, String> SYSTEM_MESSAGES = new ConcurrentHashMap<>();
+
     private final int errorCode;
     private final String path;
     private final String machineName;
 
+    private String message;
+
     /**
      * Creates a new exception.
      *
@@ -53,12 +69,22 @@ public class RegistryException extends RuntimeException {
      * @since 1.1
      */
     public RegistryException(int errorCode, String path, String machineName) {
-        super(createMessage(errorCode, path, machineName));
         this.errorCode = errorCode;
         this.path = path;
         this.machineName = machineName;
     }
 
+    @Override
+    public String getMessage() {
+        // Creating the message twice is harmless, as it will be the same
+        String result = message;
+        if (result == null) {
+            result = createMessage(errorCode, path, machineName);
+            message = result;
+        }
+        return result;
+    }
+
     @SuppressWarnings("nls")
     private static String createMessage(int errorCode, String path, String machineName) {
         StringBuilder sb = new StringBuilder();
@@ -67,10 +93,30 @@ public class RegistryException extends RuntimeException {
             sb.append('@').append(machineName);
         }
         sb.append(": ");
-        sb.append(Kernel32.formatMessage(errorCode));
+        sb.append(formatMessage(errorCode));
         return sb.toString();
     }
 
+    private static String formatMessage(int errorCode) {
+        String message = SYSTEM_MESSAGES.get(errorCode);
+        if (message == null) {
+            message = formatSystemMessage(errorCode);
+            if (message != null && SYSTEM_MESSAGES.size() < MAX_CACHED_SYSTEM_MESSAGES) {
+                SYSTEM_MESSAGES.putIfAbsent(errorCode, message);
+            }
+        }
+        return message;
+    }
+
+    private static String formatSystemMessage(int errorCode) {
+        try {
+            return Kernel32.formatMessage(errorCode);
+        } catch (LinkageError e) {
+            // Kernel32 is not available, which can happen when an in-memory registry is used on an operating system other than Windows
+            return Messages.RegistryException.errorCode(errorCode);
+        }
+    }
+
     /**
      * Returns the error code that was returned from the Windows API.
      *
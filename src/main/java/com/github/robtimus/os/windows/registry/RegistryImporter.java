@@ -0,0 +1,155 @@
+/*
+ * RegistryImporter.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * An importer for files in the {@code .reg} file format that is used by the Registry Editor, like the files that are created using
+ * {@link RegistryKey#exportTo(Path)}.
+ * <p>
+ * Files are read and applied one line at a time, so the amount of memory that is needed does not depend on the size of the file.
+ * The handle of each registry key remains open while its values are imported, so the registry key is not opened again for each value.
+ * <p>
+ * Registry keys in the file are created if they do not exist yet. Registry keys with a leading {@code -} are deleted with all of their nested keys,
+ * and values with data {@code -} are deleted. The paths of all registry keys in the file must be equal to the path of the registry key that is
+ * imported into, or start with it. This allows files to be imported into registry keys of other registries with the same root keys, like
+ * {@link Registry#inMemory() in-memory registries}.
+ * <p>
+ * Instances of this class are not thread safe while they are being configured, but once configured they can be used to perform several imports
+ * at the same time.
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+public final class RegistryImporter {
+
+    private int keysPerTransaction;
+
+    private RegistryImporter() {
+        keysPerTransaction = 0;
+    }
+
+    /**
+     * Creates a new registry importer. By default it does not use transactions.
+     *
+     * @return The created registry importer.
+     */
+    public static RegistryImporter create() {
+        return new RegistryImporter();
+    }
+
+    /**
+     * Sets the number of registry keys to import per transaction.
+     * If this is positive, registry keys are imported in chunks of the given size, and each chunk is imported using
+     * {@link TransactionalState#required()}. If the import fails, the chunk that was being imported is rolled back.
+     * If there already is a current transaction when the import is started, all chunks are part of that transaction, so a failed import rolls
+     * back the entire import unless the current transaction is committed anyway.
+     * <p>
+     * Note that registries that do not support transactions, like in-memory registries, cannot be imported into using transactions.
+     *
+     * @param keysPerTransaction The number of registry keys to import per transaction, or 0 to not use transactions.
+     * @return This registry importer.
+     * @throws IllegalArgumentException If the given number of registry keys is negative.
+     * @see RegistryFeature#TRANSACTIONS
+     */
+    public RegistryImporter keysPerTransaction(int keysPerTransaction) {
+        if (keysPerTransaction < 0) {
+            throw new IllegalArgumentException(keysPerTransaction + " < 0"); //$NON-NLS-1$
+        }
+        this.keysPerTransaction = keysPerTransaction;
+        return this;
+    }
+
+    /**
+     * Imports the contents of a reader into a registry key.
+     *
+     * @param reader The reader to import from. It will not be closed.
+     * @param registryKey The registry key to import into.
+     * @throws NullPointerException If the given reader or registry key is {@code null}.
+     * @throws IOException If an I/O error occurs while reading from the given reader,
+     *                         or if its contents are not in the {@code .reg} file format.
+     * @throws RegistryException If a registry key or value cannot be imported.
+     * @throws UnsupportedOperationException If transactions are used, and the current Windows version does not support transactions.
+     * @throws TransactionException If transactions are used, and a transaction could not be created.
+     */
+    public void importFrom(Reader reader, RegistryKey registryKey) throws IOException {
+        Objects.requireNonNull(reader);
+        Objects.requireNonNull(registryKey);
+
+        BufferedReader bufferedReader = reader instanceof BufferedReader br ? br : new BufferedReader(reader);
+        importFrom(new RegFileReader(bufferedReader, registryKey));
+    }
+
+    /**
+     * Imports the contents of a file into a registry key.
+     * The file can be encoded using UTF-16 with a byte order mark, like the files created by the Registry Editor, or UTF-8.
+     *
+     * @param file The file to import.
+     * @param registryKey The registry key to import into.
+     * @throws NullPointerException If the given file or registry key is {@code null}.
+     * @throws IOException If an I/O error occurs while reading from the given file, or if it is not in the {@code .reg} file format.
+     * @throws RegistryException If a registry key or value cannot be imported.
+     * @throws UnsupportedOperationException If transactions are used, and the current Windows version does not support transactions.
+     * @throws TransactionException If transactions are used, and a transaction could not be created.
+     */
+    public void importFrom(Path file, RegistryKey registryKey) throws IOException {
+        Objects.requireNonNull(file);
+        Objects.requireNonNull(registryKey);
+
+        try (PushbackInputStream input = new PushbackInputStream(Files.newInputStream(file), 2);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(input, detectCharset(input)))) {
+
+            importFrom(new RegFileReader(reader, registryKey));
+        }
+    }
+
+    private static Charset detectCharset(PushbackInputStream input) throws IOException {
+        byte[] bytes = input.readNBytes(2);
+        input.unread(bytes);
+        // The byte order mark itself is skipped when reading the header
+        if (bytes.length == 2 && bytes[0] == (byte) 0xFF && bytes[1] == (byte) 0xFE) {
+            return StandardCharsets.UTF_16LE;
+        }
+        if (bytes.length == 2 && bytes[0] == (byte) 0xFE && bytes[1] == (byte) 0xFF) {
+            return StandardCharsets.UTF_16BE;
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    private void importFrom(RegFileReader reader) throws IOException {
+        reader.readHeader();
+        if (keysPerTransaction == 0) {
+            reader.importKeys(Integer.MAX_VALUE);
+        } else {
+            TransactionalState transactionalState = TransactionalState.required();
+            while (!reader.isDone()) {
+                transactionalState.run(() -> reader.importKeys(keysPerTransaction));
+            }
+        }
+    }
+}
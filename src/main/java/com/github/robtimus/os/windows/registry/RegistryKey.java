@@ -17,57 +17,66 @@
 
 package com.github.robtimus.os.windows.registry;
 
-import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
-import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteValue;
-import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumKeyEx;
-import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumValue;
-import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryInfoKey;
-import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryValueEx;
-import static com.github.robtimus.os.windows.registry.Advapi32.RegSetValueEx;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_MORE_DATA;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NO_MORE_ITEMS;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_TRANSFER_TOO_LONG;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_READ;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_SET_VALUE;
 import static java.lang.Math.toIntExact;
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.SegmentAllocator;
 import java.lang.foreign.ValueLayout;
 import java.lang.ref.Cleaner;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.Set;
 import java.util.Spliterator;
-import java.util.Spliterators;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.IntPredicate;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import com.github.robtimus.os.windows.registry.WindowsTypes.FILETIME;
+import com.github.robtimus.os.windows.registry.WindowsTypes.VALENT;
 
 /**
  * A representation of registry keys.
  *
  * @author Rob Spoor
  */
-public abstract sealed class RegistryKey implements Comparable<RegistryKey> permits LocalRootKey, LocalSubKey, RemoteRootKey, RemoteSubKey {
+public abstract sealed class RegistryKey implements Comparable<RegistryKey> permits LocalRootKey, RemoteRootKey, SubKey {
 
     static final String SEPARATOR = "\\"; //$NON-NLS-1$
 
     private static final Cleaner CLEANER = Cleaner.create();
 
+    // The initial number of bytes per value to reserve when reading several values at once
+    private static final int INITIAL_VALUE_SIZE = 64;
+
+    private static final int DEFAULT_PUBLISHER_BATCH_SIZE = 64;
+
     static final Instant FILETIME_BASE = ZonedDateTime.of(1601, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toInstant();
 
     RegistryKey() {
@@ -91,6 +100,8 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
 
     abstract String machineName();
 
+    abstract RegistryBackend backend();
+
     // informational
 
     /**
@@ -169,7 +180,7 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
      */
     public abstract RegistryKey resolve(String relativePath);
 
-    abstract RegistryKey resolveChild(String name);
+    abstract SubKey resolveChild(String name);
 
     /**
      * Returns all direct sub keys of this registry key. This stream should be closed afterwards.
@@ -226,21 +237,44 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
         Set<TraverseOption> optionSet = EnumSet.noneOf(TraverseOption.class);
         Collections.addAll(optionSet, options);
 
-        return optionSet.contains(TraverseOption.SUB_KEYS_FIRST)
-                ? traverseWithSubKeysFirst(maxDepth)
-                : traverseWithSubKeysLast(maxDepth);
+        return traverse(maxDepth, optionSet.contains(TraverseOption.SUB_KEYS_FIRST));
     }
 
-    private Stream<RegistryKey> traverseWithSubKeysFirst(int maxDepth) {
-        return maxDepth == 0
-                ? Stream.of(this)
-                : Stream.concat(subKeys().flatMap(k -> k.traverseWithSubKeysFirst(maxDepth - 1)), Stream.of(this));
+    @SuppressWarnings("resource")
+    private Stream<RegistryKey> traverse(int maxDepth, boolean subKeysFirst) {
+        if (maxDepth == 0) {
+            return Stream.of(this);
+        }
+        Handle handle = handle(KEY_READ);
+        return traverse(handle, maxDepth, subKeysFirst);
     }
 
-    private Stream<RegistryKey> traverseWithSubKeysLast(int maxDepth) {
-        return maxDepth == 0
-                ? Stream.of(this)
-                : Stream.concat(Stream.of(this), subKeys().flatMap(k -> k.traverseWithSubKeysLast(maxDepth - 1)));
+    /*
+     * Sub keys are opened relative to the handle of their parent key. That means that the Windows registry doesn't need to resolve the entire path
+     * from the root key for each registry key that's visited.
+     */
+    @SuppressWarnings("resource")
+    private Stream<RegistryKey> traverse(Handle handle, int maxDepth, boolean subKeysFirst) {
+        try {
+            Stream<RegistryKey> subKeys = handle.childKeys()
+                    .flatMap(k -> traverseFromParent(k, handle, maxDepth - 1, subKeysFirst))
+                    .onClose(handle::close);
+            return subKeysFirst
+                    ? Stream.concat(subKeys, Stream.of(this))
+                    : Stream.concat(Stream.of(this), subKeys);
+        } catch (RuntimeException e) {
+            handle.close(e);
+            throw e;
+        }
+    }
+
+    private static Stream<RegistryKey> traverseFromParent(SubKey subKey, Handle parentHandle, int maxDepth, boolean subKeysFirst) {
+        if (maxDepth == 0) {
+            return Stream.of(subKey);
+        }
+        RegistryKey registryKey = subKey;
+        Handle handle = subKey.handle(parentHandle.hKey, KEY_READ, false);
+        return registryKey.traverse(handle, maxDepth, subKeysFirst);
     }
 
     /**
@@ -346,6 +380,28 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
         }
     }
 
+    /**
+     * Returns several registry values at once.
+     * This is more efficient than calling {@link #findValue(String, Class)} for each name separately, especially for remote registries.
+     *
+     * @param names The names of the registry values to return.
+     * @return A map with the registry values with the given names, in the order of the names. Names for which there is no registry value are
+     *         not included. The map is unmodifiable.
+     * @throws NullPointerException If any of the given names is {@code null}.
+     * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+     * @throws RegistryException If the values cannot be returned for another reason.
+     * @since 2.1
+     */
+    public Map<String, RegistryValue> getValues(String... names) {
+        for (String name : names) {
+            Objects.requireNonNull(name);
+        }
+
+        try (Handle handle = handle(KEY_READ)) {
+            return handle.getValues(names);
+        }
+    }
+
     /**
      * Returns a registry value as a string.
      * This method is shorthand for calling {@code getValue(name, StringValue.class).value()}.
@@ -397,7 +453,11 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
      * @see DWordValue#value()
      */
     public int getDWordValue(String name) {
-        return getValue(name, DWordValue.class).value();
+        Objects.requireNonNull(name);
+
+        try (Handle handle = handle(KEY_READ)) {
+            return handle.getDWordValue(name);
+        }
     }
 
     /**
@@ -416,8 +476,33 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
      * @see DWordValue#value()
      */
     public OptionalInt findDWordValue(String name) {
-        Optional<DWordValue> value = findValue(name, DWordValue.class);
-        return value.isPresent() ? OptionalInt.of(value.get().value()) : OptionalInt.empty();
+        Objects.requireNonNull(name);
+
+        try (Handle handle = handle(KEY_READ)) {
+            return handle.findDWordValue(name);
+        }
+    }
+
+    /**
+     * Returns a registry value as a DWORD, or a default value if there is no such registry value.
+     * This method is like {@link #findDWordValue(String)}, but without the need to unwrap the result.
+     *
+     * @param name The name of the registry value to return.
+     * @param defaultValue The value to return if there is no registry value with the given name.
+     * @return The registry value with the given name as a DWORD, or the given default value if there is no such registry value.
+     * @throws NullPointerException If the given name is {@code null}.
+     * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+     * @throws RegistryException If the value cannot be returned for another reason.
+     * @throws ClassCastException If the registry value with the given name is not a DWORD.
+     * @see #findDWordValue(String)
+     * @since 2.1
+     */
+    public int getDWordValue(String name, int defaultValue) {
+        Objects.requireNonNull(name);
+
+        try (Handle handle = handle(KEY_READ)) {
+            return handle.getDWordValue(name, defaultValue);
+        }
     }
 
     /**
@@ -435,7 +520,11 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
      * @see QWordValue#value()
      */
     public long getQWordValue(String name) {
-        return getValue(name, QWordValue.class).value();
+        Objects.requireNonNull(name);
+
+        try (Handle handle = handle(KEY_READ)) {
+            return handle.getQWordValue(name);
+        }
     }
 
     /**
@@ -454,8 +543,33 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
      * @see QWordValue#value()
      */
     public OptionalLong findQWordValue(String name) {
-        Optional<QWordValue> value = findValue(name, QWordValue.class);
-        return value.isPresent() ? OptionalLong.of(value.get().value()) : OptionalLong.empty();
+        Objects.requireNonNull(name);
+
+        try (Handle handle = handle(KEY_READ)) {
+            return handle.findQWordValue(name);
+        }
+    }
+
+    /**
+     * Returns a registry value as a QWORD, or a default value if there is no such registry value.
+     * This method is like {@link #findQWordValue(String)}, but without the need to unwrap the result.
+     *
+     * @param name The name of the registry value to return.
+     * @param defaultValue The value to return if there is no registry value with the given name.
+     * @return The registry value with the given name as a QWORD, or the given default value if there is no such registry value.
+     * @throws NullPointerException If the given name is {@code null}.
+     * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+     * @throws RegistryException If the value cannot be returned for another reason.
+     * @throws ClassCastException If the registry value with the given name is not a QWORD.
+     * @see #findQWordValue(String)
+     * @since 2.1
+     */
+    public long getQWordValue(String name, long defaultValue) {
+        Objects.requireNonNull(name);
+
+        try (Handle handle = handle(KEY_READ)) {
+            return handle.getQWordValue(name, defaultValue);
+        }
     }
 
     // Purposefully omitted:
@@ -514,6 +628,345 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
         }
     }
 
+    /**
+     * Sets and deletes several registry values at once.
+     * The given action is given a {@link ValueBatch} to add changes to; these are applied using one handle once the action has finished.
+     * Changes that fail do not prevent other changes from being applied.
+     *
+     * @param action The action that adds changes to the batch.
+     * @return The result of applying the changes, including the failures of the changes that could not be applied.
+     * @throws NullPointerException If the given action is {@code null}.
+     * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+     * @throws RegistryException If no handle could be opened for this registry key for another reason.
+     * @since 2.1
+     */
+    public ValueBatch.Result updateValues(Consumer<? super ValueBatch> action) {
+        Objects.requireNonNull(action);
+
+        ValueBatch batch = new ValueBatch();
+        action.accept(batch);
+
+        try (Handle handle = handle(KEY_READ | KEY_SET_VALUE)) {
+            return batch.apply(this, handle);
+        }
+    }
+
+    /**
+     * Reconciles the registry values of this registry key with a collection of desired registry values.
+     * <p>
+     * The current registry values are read once, and compared to the desired registry values by type and raw data. Only registry values that do not
+     * exist yet or that have a different type or data are written; registry values that are already up-to-date are left untouched.
+     * If {@link ReconcileOption#DELETE_OTHERS} is given, registry values that are not in the given collection are deleted.
+     * Registry value names are compared case insensitively. If the given collection contains several registry values with the same name,
+     * the last one is used.
+     * <p>
+     * Registry values that cannot be written or deleted do not prevent other registry values from being written or deleted;
+     * their failures are included in the returned result instead.
+     *
+     * @param values The desired registry values.
+     * @param options The options that define how to reconcile the registry values.
+     * @return A report of the changes that were made.
+     * @throws NullPointerException If the given collection or any of its registry values is {@code null}.
+     * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+     * @throws RegistryException If the current registry values cannot be read for another reason.
+     * @since 2.1
+     */
+    public ReconcileResult reconcile(Collection<? extends SettableRegistryValue> values, ReconcileOption... options) {
+        values.forEach(Objects::requireNonNull);
+
+        try (Handle handle = handle(KEY_READ | KEY_SET_VALUE)) {
+            return handle.reconcile(values, options);
+        }
+    }
+
+    /**
+     * An enumeration over the possible options for reconciling the registry values of a registry key.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    public enum ReconcileOption {
+        /**
+         * Indicates that registry values that are not in the collection of desired registry values should be deleted.
+         */
+        DELETE_OTHERS,
+    }
+
+    // copy
+
+    /**
+     * Copies this registry key with all of its values and nested keys to another registry key.
+     * <p>
+     * If both registry keys belong to the same registry, the entire copy is performed with a single call to the Windows registry if possible.
+     * Otherwise, registry keys are copied one at a time, and their sub keys and values are not collected in memory first. The target registry key
+     * can therefore belong to a different registry, like a {@link RemoteRegistry remote registry} or an {@link Registry#inMemory() in-memory registry}.
+     * <p>
+     * If there is a current {@link Transaction}, the target registry key and all of its nested keys and values are created as part of it.
+     * It's unspecified what happens if registry keys or values are added or removed during the copy.
+     *
+     * @param target The registry key to copy to. It will be created if it does not exist yet, including any missing parent keys.
+     * @param options The options that define how to copy this registry key.
+     * @throws NullPointerException If the given target is {@code null}.
+     * @throws IllegalArgumentException If the given target is this registry key or one of its nested keys.
+     * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+     * @throws RegistryKeyAlreadyExistsException If the given target already {@link #exists() exists}, and {@link CopyOption#MERGE} is not given.
+     * @throws RegistryException If a registry key or value cannot be copied for another reason.
+     * @since 2.1
+     */
+    public void copyTo(RegistryKey target, CopyOption... options) {
+        Objects.requireNonNull(target);
+
+        Set<CopyOption> optionSet = EnumSet.noneOf(CopyOption.class);
+        Collections.addAll(optionSet, options);
+
+        if (RegistryCopier.isSameRegistry(this, target) && isSameOrNested(target)) {
+            throw new IllegalArgumentException(Messages.RegistryKey.copyToNested(this, target));
+        }
+
+        // Create the source handle first, so the target isn't created if this registry key does not exist
+        try (Handle handle = handle(KEY_READ)) {
+            if (!optionSet.contains(CopyOption.MERGE)) {
+                target.create();
+            }
+            try (Handle targetHandle = target.handle(RegistryCopier.TARGET_SAM_DESIRED, true)) {
+                new RegistryCopier().copy(this, handle, target, targetHandle);
+            }
+        }
+    }
+
+    private boolean isSameOrNested(RegistryKey key) {
+        String path = path();
+        String otherPath = key.path();
+        return otherPath.equalsIgnoreCase(path)
+                || otherPath.length() > path.length()
+                        && otherPath.regionMatches(true, 0, path, 0, path.length())
+                        && otherPath.startsWith(SEPARATOR, path.length());
+    }
+
+    /**
+     * An enumeration over the possible options for copying a registry key.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    public enum CopyOption {
+        /**
+         * Indicates that the target registry key may already exist. Values and sub keys are then copied into it, replacing values with the same name.
+         * Any other values and sub keys of the target registry key are kept.
+         */
+        MERGE,
+    }
+
+    // export
+
+    /**
+     * Exports this registry key and all of its nested keys in the {@code .reg} file format that is used by the Registry Editor.
+     * <p>
+     * Registry keys are exported one at a time, and their sub keys and values are not collected in memory first. That means that the amount of memory
+     * that is needed does not depend on the number of registry keys or values that are exported.
+     * <p>
+     * String values that cannot be represented as-is, like string values that contain line breaks, are exported as hexadecimal data.
+     * It's unspecified what happens if registry keys or values are added or removed during the export.
+     *
+     * @param writer The writer to export to. It will be flushed but not closed.
+     * @throws NullPointerException If the given writer is {@code null}.
+     * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+     * @throws RegistryException If a registry key or value cannot be exported for another reason.
+     * @throws IOException If an I/O error occurs while writing to the given writer.
+     *             An {@link IOException} is also thrown if the name of a registry key or value contains a line break,
+     *             as such names cannot be represented in {@code .reg} files.
+     * @since 2.1
+     */
+    public void exportTo(Writer writer) throws IOException {
+        Objects.requireNonNull(writer);
+
+        try (Handle handle = handle(KEY_READ)) {
+            new RegFileWriter(writer).write(this, handle);
+        }
+    }
+
+    /**
+     * Exports this registry key and all of its nested keys to a {@code .reg} file.
+     * Like the Registry Editor, the file will be encoded using UTF-16 little endian, with a byte order mark.
+     * <p>
+     * Registry keys are exported one at a time, and their sub keys and values are not collected in memory first. That means that the amount of memory
+     * that is needed does not depend on the number of registry keys or values that are exported.
+     * <p>
+     * String values that cannot be represented as-is, like string values that contain line breaks, are exported as hexadecimal data.
+     * It's unspecified what happens if registry keys or values are added or removed during the export.
+     *
+     * @param file The file to export to. If it already exists it will be overwritten.
+     * @throws NullPointerException If the given file is {@code null}.
+     * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+     * @throws RegistryException If a registry key or value cannot be exported for another reason.
+     * @throws IOException If an I/O error occurs while writing to the given file.
+     *             An {@link IOException} is also thrown if the name of a registry key or value contains a line break,
+     *             as such names cannot be represented in {@code .reg} files.
+     * @since 2.1
+     */
+    public void exportTo(Path file) throws IOException {
+        Objects.requireNonNull(file);
+
+        // Create the handle first, so the file isn't created if this registry key does not exist
+        try (Handle handle = handle(KEY_READ);
+                Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_16LE)) {
+
+            writer.write(RegFileWriter.BYTE_ORDER_MARK);
+            new RegFileWriter(writer).write(this, handle);
+        }
+    }
+
+    // snapshot
+
+    /**
+     * Takes a snapshot of this registry key and all of its nested keys and values.
+     * <p>
+     * Registry keys are read one at a time, and the snapshot stores the names and raw data of all registry values in a compact form.
+     * It's unspecified what happens if registry keys or values are added or removed while the snapshot is being taken.
+     *
+     * @return A snapshot of this registry key and all of its nested keys and values.
+     * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+     * @throws RegistryException If a registry key or value cannot be read for another reason.
+     * @since 2.1
+     */
+    public RegistrySnapshot snapshot() {
+        return snapshot(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Takes a snapshot of this registry key and its nested keys and values, up to a maximum depth.
+     * <p>
+     * Registry keys are read one at a time, and the snapshot stores the names and raw data of all registry values in a compact form.
+     * It's unspecified what happens if registry keys or values are added or removed while the snapshot is being taken.
+     *
+     * @param maxDepth The maximum number of registry key levels to include. A value of 0 indicates that only this registry key and its values should
+     *                     be included; a value of 1 indicates that only this registry key and its direct {@link #subKeys() sub keys} should be
+     *                     included.
+     * @return A snapshot of this registry key and its nested keys and values, up to the given maximum depth.
+     * @throws IllegalArgumentException If the given maximum depth is negative.
+     * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+     * @throws RegistryException If a registry key or value cannot be read for another reason.
+     * @since 2.1
+     */
+    public RegistrySnapshot snapshot(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException(maxDepth + " < 0"); //$NON-NLS-1$
+        }
+
+        try (Handle handle = handle(KEY_READ)) {
+            return RegistrySnapshot.capture(this, handle, maxDepth);
+        }
+    }
+
+    // asynchronous
+
+    /**
+     * Returns an asynchronous view of this registry key. Operations on the returned view are performed using virtual threads.
+     * <p>
+     * Note that native calls pin the carrier threads of virtual threads. For remote registry keys that may be slow to respond, consider using
+     * {@link #async(Executor)} with an executor that uses platform threads instead.
+     *
+     * @return An asynchronous view of this registry key.
+     * @since 2.1
+     */
+    public AsyncRegistryKey async() {
+        return new AsyncRegistryKey(this, AsyncRegistryKey.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Returns an asynchronous view of this registry key.
+     *
+     * @param executor The executor to use for performing operations on the returned view.
+     * @return An asynchronous view of this registry key that uses the given executor.
+     * @throws NullPointerException If the given executor is {@code null}.
+     * @since 2.1
+     */
+    public AsyncRegistryKey async(Executor executor) {
+        return new AsyncRegistryKey(this, Objects.requireNonNull(executor));
+    }
+
+    // publishers
+
+    /**
+     * Returns a {@link Flow.Publisher} for the direct sub keys of this registry key.
+     * This method is like {@link #subKeyPublisher(int, Executor)}, with a batch size of 64, using virtual threads.
+     *
+     * @return A publisher for the direct sub keys of this registry key.
+     * @since 2.1
+     */
+    public Flow.Publisher<RegistryKey> subKeyPublisher() {
+        return subKeyPublisher(DEFAULT_PUBLISHER_BATCH_SIZE, AsyncRegistryKey.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Returns a {@link Flow.Publisher} for the direct sub keys of this registry key.
+     * <p>
+     * Each subscription opens its own handle when sub keys are first requested. Sub keys are only retrieved when they have been requested, and the
+     * handle is closed when all sub keys have been published, when an error occurs, or when the subscription is cancelled.
+     * Sub keys are published using the given executor, at most the given batch size at a time before the next batch is scheduled.
+     * The handle is opened using the transactional state and the active {@link HandleCache} of the thread that calls this method.
+     * <p>
+     * Note that nothing can be said about the order of sub keys. It's also unspecified what happens if sub keys are removed while they are being
+     * published.
+     *
+     * @param batchSize The maximum number of sub keys to publish in one executor task.
+     * @param executor The executor to use for publishing sub keys.
+     * @return A publisher for the direct sub keys of this registry key.
+     * @throws IllegalArgumentException If the given batch size is not positive.
+     * @throws NullPointerException If the given executor is {@code null}.
+     * @since 2.1
+     */
+    public Flow.Publisher<RegistryKey> subKeyPublisher(int batchSize, Executor executor) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(batchSize + " <= 0"); //$NON-NLS-1$
+        }
+        Objects.requireNonNull(executor);
+
+        return new RegistryPublisher<>(this::subKeys, batchSize, executor);
+    }
+
+    /**
+     * Returns a {@link Flow.Publisher} for the values of this registry key.
+     * This method is like {@link #valuePublisher(RegistryValue.Filter, int, Executor)}, with a batch size of 64, using virtual threads.
+     *
+     * @param filter A filter that can be used to limit which registry values are published.
+     * @return A publisher for the values of this registry key.
+     * @throws NullPointerException If the given filter is {@code null}.
+     * @since 2.1
+     */
+    public Flow.Publisher<RegistryValue> valuePublisher(RegistryValue.Filter filter) {
+        return valuePublisher(filter, DEFAULT_PUBLISHER_BATCH_SIZE, AsyncRegistryKey.DEFAULT_EXECUTOR);
+    }
+
+    /**
+     * Returns a {@link Flow.Publisher} for the values of this registry key.
+     * <p>
+     * Each subscription opens its own handle when values are first requested. Values are only retrieved when they have been requested, and the
+     * handle is closed when all values have been published, when an error occurs, or when the subscription is cancelled.
+     * Values are published using the given executor, at most the given batch size at a time before the next batch is scheduled.
+     * The handle is opened using the transactional state and the active {@link HandleCache} of the thread that calls this method.
+     * <p>
+     * Note that nothing can be said about the order of values. It's also unspecified what happens if values are removed while they are being
+     * published.
+     *
+     * @param filter A filter that can be used to limit which registry values are published.
+     * @param batchSize The maximum number of values to publish in one executor task.
+     * @param executor The executor to use for publishing values.
+     * @return A publisher for the values of this registry key.
+     * @throws NullPointerException If the given filter or executor is {@code null}.
+     * @throws IllegalArgumentException If the given batch size is not positive.
+     * @since 2.1
+     */
+    public Flow.Publisher<RegistryValue> valuePublisher(RegistryValue.Filter filter, int batchSize, Executor executor) {
+        Objects.requireNonNull(filter);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException(batchSize + " <= 0"); //$NON-NLS-1$
+        }
+        Objects.requireNonNull(executor);
+
+        return new RegistryPublisher<>(() -> values(filter), batchSize, executor);
+    }
+
     // other
 
     /**
@@ -702,6 +1155,40 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
      */
     public abstract boolean deleteIfExists();
 
+    /**
+     * Deletes this registry key and all of its values and nested keys.
+     * <p>
+     * Without a current {@link Transaction}, this registry key and all of its nested keys are deleted with a single call to the Windows registry
+     * if possible. Otherwise, nested keys are deleted one at a time, starting with the most deeply nested keys. Each nested key is opened and deleted
+     * relative to its parent key, so the Windows registry doesn't need to resolve the entire path of each nested key.
+     * <p>
+     * If deleting a nested key fails, any other nested keys that were already deleted are not restored, unless there is a current transaction
+     * that is rolled back.
+     *
+     * @throws UnsupportedOperationException If trying to delete one of the root keys.
+     * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+     * @throws RegistryException If the registry key or one of its nested keys cannot be deleted for another reason.
+     * @since 2.1
+     */
+    public abstract void deleteTree();
+
+    /**
+     * Deletes this registry key and all of its values and nested keys if it exists.
+     * <p>
+     * Without a current {@link Transaction}, this registry key and all of its nested keys are deleted with a single call to the Windows registry
+     * if possible. Otherwise, nested keys are deleted one at a time, starting with the most deeply nested keys. Each nested key is opened and deleted
+     * relative to its parent key, so the Windows registry doesn't need to resolve the entire path of each nested key.
+     * <p>
+     * If deleting a nested key fails, any other nested keys that were already deleted are not restored, unless there is a current transaction
+     * that is rolled back.
+     *
+     * @return {@code true} if this registry key existed and has been removed, or {@code false} if it didn't {@link #exists() exist}.
+     * @throws UnsupportedOperationException If trying to delete one of the root keys.
+     * @throws RegistryException If the registry key or one of its nested keys cannot be deleted for another reason.
+     * @since 2.1
+     */
+    public abstract boolean deleteTreeIfExists();
+
     // handles
 
     /**
@@ -752,6 +1239,35 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
      */
     abstract Optional<Handle> handle(int samDesired, IntPredicate ignoreError);
 
+    /*
+     * Returns the current handle cache, if any. Handles are not cached while a transaction is active.
+     */
+    static Optional<HandleCache> handleCache() {
+        return Registry.currentContext() instanceof Registry.Context.NonTransactional
+                ? HandleCache.current()
+                : Optional.empty();
+    }
+
+    /*
+     * Returns a handle that uses a cached HKEY, or opens and caches a new HKEY using the given supplier.
+     * If the supplier returns null, so will this method.
+     */
+    Handle cachedHandle(HandleCache cache, int samDesired, Supplier<MemorySegment> hKeySupplier) {
+        HandleCache.Entry entry = cache.lease(this, samDesired, hKeySupplier);
+        return entry != null
+                ? new CachedHandle(cache, entry)
+                : null;
+    }
+
+    /*
+     * Removes cached handles for a registry key that has been deleted or renamed.
+     * This must be called after the operation, even if it failed; handles that are cached while the operation is in progress would otherwise remain.
+     */
+    static void invalidateCachedHandles(RegistryKey registryKey) {
+        // Use HandleCache.current() and not handleCache(), as cached handles must be invalidated even if a transaction is active
+        HandleCache.current().ifPresent(cache -> cache.invalidate(registryKey));
+    }
+
     private int samDesired(Set<HandleOption> options) {
         int samDesired = KEY_READ;
         for (HandleOption option : options) {
@@ -780,17 +1296,17 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
 
     // utility
 
-    static void closeKey(MemorySegment hKey, String path, String machineName) {
-        int code = RegCloseKey(hKey);
+    static void closeKey(RegistryBackend backend, MemorySegment hKey, String path, String machineName) {
+        int code = backend.closeKey(hKey);
         if (code != ERROR_SUCCESS) {
             throw RegistryException.forKey(code, path, machineName);
         }
     }
 
-    static Cleaner.Cleanable closeOnClean(Object object, MemorySegment hKey, String path, String machineName) {
+    static Cleaner.Cleanable closeOnClean(Object object, RegistryBackend backend, MemorySegment hKey, String path, String machineName) {
         // Since this method is static, using a lambda does not capture any state except what's used inside it,
         // and therefore it's safe to use as action
-        return CLEANER.register(object, () -> closeKey(hKey, path, machineName));
+        return CLEANER.register(object, () -> closeKey(backend, hKey, path, machineName));
     }
 
     static Cleaner.Cleanable runOnClean(Object object, Runnable action) {
@@ -874,18 +1390,13 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
         public Instant lastWriteTime() {
             try (Arena allocator = Arena.ofConfined()) {
                 MemorySegment lpftLastWriteTime = FILETIME.allocate(allocator);
-                int code = RegQueryInfoKey(
+                int code = backend().queryInfoKey(
                         hKey,
                         MemorySegment.NULL,
                         MemorySegment.NULL,
                         MemorySegment.NULL,
                         MemorySegment.NULL,
                         MemorySegment.NULL,
-                        MemorySegment.NULL,
-                        MemorySegment.NULL,
-                        MemorySegment.NULL,
-                        MemorySegment.NULL,
-                        MemorySegment.NULL,
                         lpftLastWriteTime);
                 if (code != ERROR_SUCCESS) {
                     throw RegistryException.forKey(code, path(), machineName());
@@ -905,18 +1416,13 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
                 MemorySegment lpcSubKeys = allocator.allocate(ValueLayout.JAVA_INT);
                 MemorySegment lpcValues = allocator.allocate(ValueLayout.JAVA_INT);
                 MemorySegment lpftLastWriteTime = FILETIME.allocate(allocator);
-                int code = RegQueryInfoKey(
+                int code = backend().queryInfoKey(
                         hKey,
-                        MemorySegment.NULL,
-                        MemorySegment.NULL,
-                        MemorySegment.NULL,
                         lpcSubKeys,
                         MemorySegment.NULL,
-                        MemorySegment.NULL,
                         lpcValues,
                         MemorySegment.NULL,
                         MemorySegment.NULL,
-                        MemorySegment.NULL,
                         lpftLastWriteTime);
                 if (code != ERROR_SUCCESS) {
                     throw RegistryException.forKey(code, path(), machineName());
@@ -947,21 +1453,31 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
          * <p>
          * Note that nothing can be said about the order of sub keys in the stream. It's also unspecified what happens if sub keys are removed while
          * consuming the stream.
+         * <p>
+         * The stream can be {@link Stream#parallel() parallel}; the sub keys are then retrieved concurrently.
          *
          * @return A stream with all direct sub keys of the registry key from which this handle was retrieved.
          * @throws InvalidRegistryHandleException If this handle is no longer valid.
          * @throws NoSuchRegistryKeyException If the registry key from which this handle was retrieved no longer {@link RegistryKey#exists() exists}.
          * @throws RegistryException If the sub keys cannot be queried for another reason.
          */
-        @SuppressWarnings("resource")
         public Stream<RegistryKey> subKeys() {
+            return subKeys(RegistryKey.this::resolveChild);
+        }
+
+        // Unlike subKeys(), the sub keys can be opened relative to this handle
+        Stream<SubKey> childKeys() {
+            return subKeys(RegistryKey.this::resolveChild);
+        }
+
+        @SuppressWarnings("resource")
+        private <K extends RegistryKey> Stream<K> subKeys(Function<String, K> mapper) {
             Arena allocator = Arena.ofShared();
             try {
-                Iterator<String> iterator = subKeyIterator(allocator);
-                Spliterator<String> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL);
+                Spliterator<String> spliterator = subKeySpliterator(allocator);
                 return StreamSupport.stream(spliterator, false)
                         .onClose(allocator::close)
-                        .map(RegistryKey.this::resolveChild);
+                        .map(mapper);
             } catch (RuntimeException e) {
                 try (allocator) {
                     throw e;
@@ -969,58 +1485,104 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
             }
         }
 
-        private Iterator<String> subKeyIterator(SegmentAllocator allocator) {
+        private Spliterator<String> subKeySpliterator(SegmentAllocator allocator) {
+            MemorySegment lpcSubKeys = allocator.allocate(ValueLayout.JAVA_INT);
             MemorySegment lpcMaxSubKeyLen = allocator.allocate(ValueLayout.JAVA_INT);
 
-            int code = RegQueryInfoKey(
+            int code = backend().queryInfoKey(
                     hKey,
-                    MemorySegment.NULL,
-                    MemorySegment.NULL,
-                    MemorySegment.NULL,
-                    MemorySegment.NULL,
+                    lpcSubKeys,
                     lpcMaxSubKeyLen,
                     MemorySegment.NULL,
                     MemorySegment.NULL,
                     MemorySegment.NULL,
-                    MemorySegment.NULL,
-                    MemorySegment.NULL,
                     MemorySegment.NULL);
             if (code != ERROR_SUCCESS) {
                 throw RegistryException.forKey(code, path(), machineName());
             }
 
-            MemorySegment lpName = WString.allocate(allocator, lpcMaxSubKeyLen.get(ValueLayout.JAVA_INT, 0));
-            int lpcNameValue = toIntExact(lpName.byteSize());
-            MemorySegment lpcName = allocator.allocateFrom(ValueLayout.JAVA_INT, lpcNameValue);
+            return new SubKeySpliterator(0, lpcSubKeys.get(ValueLayout.JAVA_INT, 0), true, lpcMaxSubKeyLen.get(ValueLayout.JAVA_INT, 0), allocator);
+        }
 
-            return new LookaheadIterator<>() {
+        // The allocator must be thread safe, as it's used when the spliterator is split
+        private final class SubKeySpliterator extends IndexedSpliterator<String> {
 
-                private int index = 0;
+            private final int maxSubKeyLen;
+            private final SegmentAllocator allocator;
 
-                @Override
-                protected String nextElement() {
-                    lpcName.set(ValueLayout.JAVA_INT, 0, lpcNameValue);
+            private final MemorySegment lpName;
+            private final int lpcNameValue;
+            private final MemorySegment lpcName;
 
-                    int code = RegEnumKeyEx(
-                            hKey,
-                            index,
-                            lpName,
-                            lpcName,
-                            MemorySegment.NULL,
-                            MemorySegment.NULL,
-                            MemorySegment.NULL,
-                            MemorySegment.NULL);
-                    if (code == ERROR_SUCCESS) {
-                        index++;
-                        // lpcName contains the number of characters excluding the terminating character
-                        return WString.getString(lpName, lpcName.get(ValueLayout.JAVA_INT, 0));
-                    }
-                    if (code == ERROR_NO_MORE_ITEMS) {
-                        return null;
-                    }
-                    throw RegistryException.forKey(code, path(), machineName());
+            private SubKeySpliterator(int origin, int fence, boolean last, int maxSubKeyLen, SegmentAllocator allocator) {
+                // The number of sub keys is only an estimate, as sub keys can be added or removed while enumerating
+                super(origin, fence, last, Spliterator.NONNULL);
+
+                this.maxSubKeyLen = maxSubKeyLen;
+                this.allocator = allocator;
+
+                // Each instance needs its own memory, as instances can be used concurrently
+                lpName = WString.allocate(allocator, maxSubKeyLen);
+                lpcNameValue = toIntExact(lpName.byteSize());
+                lpcName = allocator.allocateFrom(ValueLayout.JAVA_INT, lpcNameValue);
+            }
+
+            @Override
+            protected String element(int index) {
+                lpcName.set(ValueLayout.JAVA_INT, 0, lpcNameValue);
+
+                int code = backend().enumKey(
+                        hKey,
+                        index,
+                        lpName,
+                        lpcName);
+                if (code == ERROR_SUCCESS) {
+                    // lpcName contains the number of characters excluding the terminating character
+                    return WString.getString(lpName, lpcName.get(ValueLayout.JAVA_INT, 0));
+                }
+                if (code == ERROR_NO_MORE_ITEMS) {
+                    // There are no more sub keys
+                    stop();
+                    return null;
                 }
-            };
+                throw RegistryException.forKey(code, path(), machineName());
+            }
+
+            @Override
+            protected SubKeySpliterator split(int origin, int fence, boolean last) {
+                return new SubKeySpliterator(origin, fence, last, maxSubKeyLen, allocator);
+            }
+        }
+
+        /**
+         * Creates a handle to a direct sub key of the registry key from which this handle was retrieved.
+         * Unlike {@link RegistryKey#handle(HandleOption...)}, the sub key is opened relative to this handle, which means the Windows registry does
+         * not need to resolve the entire path from the root key. The returned handle should be closed when it is no longer needed.
+         * It remains valid after this handle has been closed.
+         *
+         * @param name The name of the sub key.
+         * @param options The options that define how the handle is created.
+         * @return The created handle.
+         * @throws NullPointerException If the given name is {@code null}.
+         * @throws IllegalArgumentException If the given name contains a backslash.
+         * @throws InvalidRegistryHandleException If this handle is no longer valid.
+         * @throws NoSuchRegistryKeyException If the sub key does not {@link RegistryKey#exists() exist},
+         *                                        and {@link HandleOption#CREATE} is not one of the given options.
+         * @throws RegistryException If the handle could not be created for another reason.
+         * @since 2.1
+         */
+        public Handle openSubKey(String name, HandleOption... options) {
+            if (name.contains(SEPARATOR)) {
+                throw new IllegalArgumentException(Messages.RegistryKey.nameContainsBackslash(name));
+            }
+
+            Set<HandleOption> optionSet = EnumSet.noneOf(HandleOption.class);
+            Collections.addAll(optionSet, options);
+
+            int samDesired = samDesired(optionSet);
+            boolean create = optionSet.contains(HandleOption.CREATE);
+
+            return resolveChild(name).handle(hKey, samDesired, create);
         }
 
         // values
@@ -1031,6 +1593,8 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
          * <p>
          * Note that nothing can be said about the order of values in the stream. It's also unspecified what happens if values are removed while
          * consuming the stream.
+         * <p>
+         * The stream can be {@link Stream#parallel() parallel}; the values are then retrieved concurrently.
          *
          * @return A stream with all values of the registry key from which this handle was retrieved.
          * @throws InvalidRegistryHandleException If this handle is no longer valid.
@@ -1050,6 +1614,8 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
          * <p>
          * Note that nothing can be said about the order of values in the stream. It's also unspecified what happens if values are removed while
          * consuming the stream.
+         * <p>
+         * The stream can be {@link Stream#parallel() parallel}; the values are then retrieved concurrently.
          *
          * @param filter A filter that can be used to limit which registry values are returned.
          * @return A stream with all values of the registry key from which this handle was retrieved.
@@ -1061,8 +1627,7 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
         public Stream<RegistryValue> values(RegistryValue.Filter filter) {
             Arena allocator = Arena.ofShared();
             try {
-                Iterator<RegistryValue> iterator = valueIterator(filter, allocator);
-                Spliterator<RegistryValue> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.NONNULL);
+                Spliterator<RegistryValue> spliterator = valueSpliterator(filter, allocator);
                 return StreamSupport.stream(spliterator, false)
                         .onClose(allocator::close);
             } catch (RuntimeException e) {
@@ -1072,77 +1637,106 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
             }
         }
 
-        private Iterator<RegistryValue> valueIterator(RegistryValue.Filter filter, SegmentAllocator allocator) {
+        private Spliterator<RegistryValue> valueSpliterator(RegistryValue.Filter filter, SegmentAllocator allocator) {
+            MemorySegment lpcValues = allocator.allocate(ValueLayout.JAVA_INT);
             MemorySegment lpcMaxValueNameLen = allocator.allocate(ValueLayout.JAVA_INT);
             MemorySegment lpcMaxValueLen = allocator.allocate(ValueLayout.JAVA_INT);
 
-            int code = RegQueryInfoKey(
+            int code = backend().queryInfoKey(
                     hKey,
                     MemorySegment.NULL,
                     MemorySegment.NULL,
-                    MemorySegment.NULL,
-                    MemorySegment.NULL,
-                    MemorySegment.NULL,
-                    MemorySegment.NULL,
-                    MemorySegment.NULL,
+                    lpcValues,
                     lpcMaxValueNameLen,
                     lpcMaxValueLen,
-                    MemorySegment.NULL,
                     MemorySegment.NULL);
             if (code != ERROR_SUCCESS) {
                 throw RegistryException.forKey(code, path(), machineName());
             }
 
-            MemorySegment lpValueName = WString.allocate(allocator, lpcMaxValueNameLen.get(ValueLayout.JAVA_INT, 0));
-            int lpcchValueNameValue = toIntExact(lpValueName.byteSize());
-            MemorySegment lpcchValueName = allocator.allocateFrom(ValueLayout.JAVA_INT, lpcchValueNameValue);
-
-            MemorySegment lpType = allocator.allocate(ValueLayout.JAVA_INT);
-
-            // lpcMaxValueLen does not include the terminating null character so add one extra
-            MemorySegment lpData = allocator.allocate(ValueLayout.JAVA_BYTE, lpcMaxValueLen.get(ValueLayout.JAVA_INT, 0) + WString.CHAR_SIZE);
-            int lpcbDataValue = toIntExact(lpData.byteSize());
-            MemorySegment lpcbData = allocator.allocateFrom(ValueLayout.JAVA_INT, lpcbDataValue);
-
-            return new LookaheadIterator<>() {
-
-                private int index = 0;
-
-                @Override
-                protected RegistryValue nextElement() {
-                    while (true) {
-                        lpValueName.fill((byte) 0);
-                        lpcchValueName.set(ValueLayout.JAVA_INT, 0, lpcchValueNameValue);
-                        lpType.set(ValueLayout.JAVA_INT, 0, 0);
-                        lpData.fill((byte) 0);
-                        lpcbData.set(ValueLayout.JAVA_INT, 0, lpcbDataValue);
-
-                        int code = RegEnumValue(
-                                hKey,
-                                index,
-                                lpValueName,
-                                lpcchValueName,
-                                MemorySegment.NULL,
-                                lpType,
-                                lpData,
-                                lpcbData);
-                        if (code == ERROR_SUCCESS) {
-                            index++;
-                            // lpcchValueName contains the number of characters excluding the terminating character
-                            String valueName = WString.getString(lpValueName, lpcchValueName.get(ValueLayout.JAVA_INT, 0));
-                            int valueType = lpType.get(ValueLayout.JAVA_INT, 0);
-                            if (filter == null || filter.matches(valueName, valueType)) {
-                                return RegistryValue.of(valueName, valueType, lpData, lpcbData.get(ValueLayout.JAVA_INT, 0));
-                            }
-                            continue;
-                        }
-                        if (code == ERROR_NO_MORE_ITEMS) {
-                            return null;
-                        }
-                        throw RegistryException.forKey(code, path(), machineName());
-                    }
+            return new ValueSpliterator(0, lpcValues.get(ValueLayout.JAVA_INT, 0), true,
+                    lpcMaxValueNameLen.get(ValueLayout.JAVA_INT, 0), lpcMaxValueLen.get(ValueLayout.JAVA_INT, 0),
+                    filter, allocator);
+        }
+
+        // The allocator must be thread safe, as it's used when the spliterator is split
+        private final class ValueSpliterator extends IndexedSpliterator<RegistryValue> {
+
+            private final int maxValueNameLen;
+            private final int maxValueLen;
+            private final RegistryValue.Filter filter;
+            private final SegmentAllocator allocator;
+
+            private final MemorySegment lpValueName;
+            private final int lpcchValueNameValue;
+            private final MemorySegment lpcchValueName;
+
+            private final MemorySegment lpType;
+
+            private final MemorySegment lpData;
+            private final int lpcbDataValue;
+            private final MemorySegment lpcbData;
+
+            private ValueSpliterator(int origin, int fence, boolean last, int maxValueNameLen, int maxValueLen, RegistryValue.Filter filter,
+                    SegmentAllocator allocator) {
+
+                // The number of values is only an estimate, as values can be added or removed while enumerating, or be filtered out
+                super(origin, fence, last, Spliterator.NONNULL);
+
+                this.maxValueNameLen = maxValueNameLen;
+                this.maxValueLen = maxValueLen;
+                this.filter = filter;
+                this.allocator = allocator;
+
+                // Each instance needs its own memory, as instances can be used concurrently
+                lpValueName = WString.allocate(allocator, maxValueNameLen);
+                lpcchValueNameValue = toIntExact(lpValueName.byteSize());
+                lpcchValueName = allocator.allocateFrom(ValueLayout.JAVA_INT, lpcchValueNameValue);
+
+                lpType = allocator.allocate(ValueLayout.JAVA_INT);
+
+                // lpcMaxValueLen does not include the terminating null character so add one extra
+                lpData = allocator.allocate(ValueLayout.JAVA_BYTE, maxValueLen + WString.CHAR_SIZE);
+                lpcbDataValue = toIntExact(lpData.byteSize());
+                lpcbData = allocator.allocateFrom(ValueLayout.JAVA_INT, lpcbDataValue);
+            }
+
+            @Override
+            protected RegistryValue element(int index) {
+                lpValueName.fill((byte) 0);
+                lpcchValueName.set(ValueLayout.JAVA_INT, 0, lpcchValueNameValue);
+                lpType.set(ValueLayout.JAVA_INT, 0, 0);
+                lpData.fill((byte) 0);
+                lpcbData.set(ValueLayout.JAVA_INT, 0, lpcbDataValue);
+
+                int code = backend().enumValue(
+                        hKey,
+                        index,
+                        lpValueName,
+                        lpcchValueName,
+                        lpType,
+                        lpData,
+                        lpcbData);
+                if (code == ERROR_SUCCESS) {
+                    // lpcchValueName contains the number of characters excluding the terminating character
+                    String valueName = WString.getString(lpValueName, lpcchValueName.get(ValueLayout.JAVA_INT, 0));
+                    int valueType = lpType.get(ValueLayout.JAVA_INT, 0);
+                    return filter == null || filter.matches(valueName, valueType)
+                            ? RegistryValue.of(valueName, valueType, lpData, lpcbData.get(ValueLayout.JAVA_INT, 0))
+                            : null;
                 }
-            };
+                if (code == ERROR_NO_MORE_ITEMS) {
+                    // There are no more values
+                    stop();
+                    return null;
+                }
+                throw RegistryException.forKey(code, path(), machineName());
+            }
+
+            @Override
+            protected ValueSpliterator split(int origin, int fence, boolean last) {
+                return new ValueSpliterator(origin, fence, last, maxValueNameLen, maxValueLen, filter, allocator);
+            }
         }
 
         /**
@@ -1163,41 +1757,15 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
             Objects.requireNonNull(name);
             Objects.requireNonNull(valueType);
 
-            try (Arena allocator = Arena.ofConfined()) {
-                MemorySegment lpValueName = WString.allocate(allocator, name);
-                MemorySegment lpType = allocator.allocate(ValueLayout.JAVA_INT);
-                MemorySegment lpcbData = allocator.allocate(ValueLayout.JAVA_INT);
-
-                int code = RegQueryValueEx(
-                        hKey,
-                        lpValueName,
-                        MemorySegment.NULL,
-                        lpType,
-                        MemorySegment.NULL,
-                        lpcbData);
-                if (code == ERROR_SUCCESS || code == ERROR_MORE_DATA) {
-                    // lpcbData includes the terminating null characters unless the data was stored without them
-                    // Add not one but two chars, so for REG_MULTI_SZ both terminating null characters will be added
-                    MemorySegment lpData = allocator.allocate(ValueLayout.JAVA_BYTE, lpcbData.get(ValueLayout.JAVA_INT, 0) + 2 * WString.CHAR_SIZE);
-                    lpData.fill((byte) 0);
-                    lpcbData.set(ValueLayout.JAVA_INT, 0, toIntExact(lpData.byteSize()));
-
-                    code = RegQueryValueEx(
-                            hKey,
-                            lpValueName,
-                            MemorySegment.NULL,
-                            MemorySegment.NULL,
-                            lpData,
-                            lpcbData);
-                    if (code == ERROR_SUCCESS) {
-                        return valueType.cast(RegistryValue.of(
-                                name,
-                                lpType.get(ValueLayout.JAVA_INT, 0),
-                                lpData,
-                                lpcbData.get(ValueLayout.JAVA_INT, 0)));
-                    }
+            ValueBuffer buffer = ValueBuffer.acquire();
+            try {
+                int code = queryValue(buffer, name);
+                if (code == ERROR_SUCCESS) {
+                    return valueType.cast(RegistryValue.of(name, buffer.type(), buffer.data(), buffer.dataLength()));
                 }
                 throw RegistryException.forValue(code, path(), machineName(), name);
+            } finally {
+                buffer.release();
             }
         }
 
@@ -1218,47 +1786,110 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
             Objects.requireNonNull(name);
             Objects.requireNonNull(valueType);
 
-            try (Arena allocator = Arena.ofConfined()) {
-                MemorySegment lpValueName = WString.allocate(allocator, name);
-                MemorySegment lpType = allocator.allocate(ValueLayout.JAVA_INT);
-                MemorySegment lpcbData = allocator.allocate(ValueLayout.JAVA_INT);
-
-                int code = RegQueryValueEx(
-                        hKey,
-                        lpValueName,
-                        MemorySegment.NULL,
-                        lpType,
-                        MemorySegment.NULL,
-                        lpcbData);
+            ValueBuffer buffer = ValueBuffer.acquire();
+            try {
+                int code = queryValue(buffer, name);
                 if (code == ERROR_FILE_NOT_FOUND) {
                     return Optional.empty();
                 }
-                if (code == ERROR_SUCCESS || code == ERROR_MORE_DATA) {
-                    // lpcbData includes the terminating null characters unless the data was stored without them
-                    // Add not one but two chars, so for REG_MULTI_SZ both terminating null characters will be added
-                    MemorySegment lpData = allocator.allocate(ValueLayout.JAVA_BYTE, lpcbData.get(ValueLayout.JAVA_INT, 0) + 2 * WString.CHAR_SIZE);
-                    lpData.fill((byte) 0);
-                    lpcbData.set(ValueLayout.JAVA_INT, 0, toIntExact(lpData.byteSize()));
-
-                    code = RegQueryValueEx(
-                            hKey,
-                            lpValueName,
-                            MemorySegment.NULL,
-                            MemorySegment.NULL,
-                            lpData,
-                            lpcbData);
+                if (code == ERROR_SUCCESS) {
+                    return Optional.of(valueType.cast(RegistryValue.of(name, buffer.type(), buffer.data(), buffer.dataLength())));
+                }
+                throw RegistryException.forValue(code, path(), machineName(), name);
+            } finally {
+                buffer.release();
+            }
+        }
+
+        private int queryValue(ValueBuffer buffer, String name) {
+            MemorySegment lpValueName = buffer.valueName(name);
+
+            // Try to read the value in one call; only if the buffer is too small a second call is needed
+            int code = backend().queryValue(hKey, lpValueName, buffer.lpType(), buffer.lpData(), buffer.lpcbData());
+            for (int attempt = 1; code == ERROR_MORE_DATA && attempt < ValueBuffer.MAX_ATTEMPTS; attempt++) {
+                // The value may have grown between calls, hence the loop
+                buffer.grow();
+                code = backend().queryValue(hKey, lpValueName, buffer.lpType(), buffer.lpData(), buffer.lpcbData());
+            }
+            return code;
+        }
+
+        /**
+         * Returns several registry values at once.
+         * This is more efficient than calling {@link #findValue(String, Class)} for each name separately, especially for remote registries.
+         *
+         * @param names The names of the registry values to return.
+         * @return A map with the registry values with the given names, in the order of the names. Names for which there is no registry value are
+         *         not included. The map is unmodifiable.
+         * @throws NullPointerException If any of the given names is {@code null}.
+         * @throws InvalidRegistryHandleException If this handle is no longer valid.
+         * @throws NoSuchRegistryKeyException If the registry key from which this handle was retrieved no longer {@link RegistryKey#exists() exists}.
+         * @throws RegistryException If the values cannot be returned for another reason.
+         * @since 2.1
+         */
+        public Map<String, RegistryValue> getValues(String... names) {
+            for (String name : names) {
+                Objects.requireNonNull(name);
+            }
+
+            if (names.length == 0) {
+                return Collections.emptyMap();
+            }
+
+            try (Arena allocator = Arena.ofConfined()) {
+                MemorySegment valList = VALENT.allocateArray(allocator, names.length);
+                for (int i = 0; i < names.length; i++) {
+                    VALENT.ve_valuename(VALENT.element(valList, i), WString.allocate(allocator, names[i]));
+                }
+                MemorySegment ldwTotsize = allocator.allocate(ValueLayout.JAVA_INT);
+
+                int bufferSize = names.length * INITIAL_VALUE_SIZE;
+                for (int attempt = 1; ; attempt++) {
+                    // Add some extra bytes so DWORD and QWORD values that were stored with too little data can still be read
+                    MemorySegment lpValueBuf = allocator.allocate(ValueLayout.JAVA_BYTE, bufferSize + (long) ValueLayout.JAVA_LONG.byteSize());
+                    lpValueBuf.fill((byte) 0);
+                    ldwTotsize.set(ValueLayout.JAVA_INT, 0, bufferSize);
+
+                    int code = backend().queryMultipleValues(hKey, valList, names.length, lpValueBuf, ldwTotsize);
                     if (code == ERROR_SUCCESS) {
-                        return Optional.of(valueType.cast(RegistryValue.of(
-                                name,
-                                lpType.get(ValueLayout.JAVA_INT, 0),
-                                lpData,
-                                lpcbData.get(ValueLayout.JAVA_INT, 0))));
+                        return readValues(names, valList, lpValueBuf);
+                    }
+                    if (code == ERROR_MORE_DATA && attempt < ValueBuffer.MAX_ATTEMPTS) {
+                        // ldwTotsize contains the required size; if it isn't larger, grow geometrically so the next call can make progress
+                        int requiredSize = ldwTotsize.get(ValueLayout.JAVA_INT, 0);
+                        bufferSize = requiredSize > bufferSize ? requiredSize : Math.multiplyExact(bufferSize, 2);
+                    } else if (code == ERROR_FILE_NOT_FOUND || code == ERROR_TRANSFER_TOO_LONG) {
+                        // At least one of the values does not exist, or the total size is too large; read the values one by one
+                        return findValues(names);
+                    } else {
+                        throw RegistryException.forKey(code, path(), machineName());
                     }
                 }
-                throw RegistryException.forValue(code, path(), machineName(), name);
             }
         }
 
+        private Map<String, RegistryValue> readValues(String[] names, MemorySegment valList, MemorySegment lpValueBuf) {
+            Map<String, RegistryValue> result = LinkedHashMap.newLinkedHashMap(names.length);
+            for (int i = 0; i < names.length; i++) {
+                MemorySegment valent = VALENT.element(valList, i);
+                long offset = VALENT.ve_valueptr(valent).address() - lpValueBuf.address();
+                result.put(names[i], RegistryValue.of(
+                        names[i],
+                        VALENT.ve_type(valent),
+                        lpValueBuf.asSlice(offset),
+                        Integer.toUnsignedLong(VALENT.ve_valuelen(valent))));
+            }
+            return Collections.unmodifiableMap(result);
+        }
+
+        private Map<String, RegistryValue> findValues(String[] names) {
+            Map<String, RegistryValue> result = LinkedHashMap.newLinkedHashMap(names.length);
+            for (String name : names) {
+                findValue(name, RegistryValue.class).ifPresent(value -> result.put(name, value));
+            }
+            return Collections.unmodifiableMap(result);
+        }
+
         /**
          * Returns a registry value as a string.
          * This method is shorthand for calling {@code getValue(name, StringValue.class).value()}.
@@ -1313,7 +1944,18 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
          * @see DWordValue#value()
          */
         public int getDWordValue(String name) {
-            return getValue(name, DWordValue.class).value();
+            Objects.requireNonNull(name);
+
+            ValueBuffer buffer = ValueBuffer.acquire();
+            try {
+                int code = queryValue(buffer, name);
+                if (code == ERROR_SUCCESS) {
+                    return dwordValue(name, buffer);
+                }
+                throw RegistryException.forValue(code, path(), machineName(), name);
+            } finally {
+                buffer.release();
+            }
         }
 
         /**
@@ -1333,8 +1975,64 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
          * @see DWordValue#value()
          */
         public OptionalInt findDWordValue(String name) {
-            Optional<DWordValue> value = findValue(name, DWordValue.class);
-            return value.isPresent() ? OptionalInt.of(value.get().value()) : OptionalInt.empty();
+            Objects.requireNonNull(name);
+
+            ValueBuffer buffer = ValueBuffer.acquire();
+            try {
+                int code = queryValue(buffer, name);
+                if (code == ERROR_FILE_NOT_FOUND) {
+                    return OptionalInt.empty();
+                }
+                if (code == ERROR_SUCCESS) {
+                    return OptionalInt.of(dwordValue(name, buffer));
+                }
+                throw RegistryException.forValue(code, path(), machineName(), name);
+            } finally {
+                buffer.release();
+            }
+        }
+
+        /**
+         * Returns a registry value as a DWORD, or a default value if there is no such registry value.
+         * This method is like {@link #findDWordValue(String)}, but without the need to unwrap the result.
+         *
+         * @param name The name of the registry value to return.
+         * @param defaultValue The value to return if there is no registry value with the given name.
+         * @return The registry value with the given name as a DWORD, or the given default value if there is no such registry value.
+         * @throws NullPointerException If the given name is {@code null}.
+         * @throws InvalidRegistryHandleException If this handle is no longer valid.
+         * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+         * @throws RegistryException If the value cannot be returned for another reason.
+         * @throws ClassCastException If the registry value with the given name is not a DWORD.
+         * @see #findDWordValue(String)
+         * @since 2.1
+         */
+        public int getDWordValue(String name, int defaultValue) {
+            Objects.requireNonNull(name);
+
+            ValueBuffer buffer = ValueBuffer.acquire();
+            try {
+                int code = queryValue(buffer, name);
+                if (code == ERROR_FILE_NOT_FOUND) {
+                    return defaultValue;
+                }
+                if (code == ERROR_SUCCESS) {
+                    return dwordValue(name, buffer);
+                }
+                throw RegistryException.forValue(code, path(), machineName(), name);
+            } finally {
+                buffer.release();
+            }
+        }
+
+        private int dwordValue(String name, ValueBuffer buffer) {
+            int type = buffer.type();
+            if (DWordValue.isDWordType(type)) {
+                // Read the data directly, without creating a DWordValue
+                return DWordValue.readValue(type, buffer.data());
+            }
+            // Let the cast fail just like it does for getValue and findValue
+            return DWordValue.class.cast(RegistryValue.of(name, type, buffer.data(), buffer.dataLength())).value();
         }
 
         /**
@@ -1353,7 +2051,18 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
          * @see QWordValue#value()
          */
         public long getQWordValue(String name) {
-            return getValue(name, QWordValue.class).value();
+            Objects.requireNonNull(name);
+
+            ValueBuffer buffer = ValueBuffer.acquire();
+            try {
+                int code = queryValue(buffer, name);
+                if (code == ERROR_SUCCESS) {
+                    return qwordValue(name, buffer);
+                }
+                throw RegistryException.forValue(code, path(), machineName(), name);
+            } finally {
+                buffer.release();
+            }
         }
 
         /**
@@ -1373,8 +2082,64 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
          * @see QWordValue#value()
          */
         public OptionalLong findQWordValue(String name) {
-            Optional<QWordValue> value = findValue(name, QWordValue.class);
-            return value.isPresent() ? OptionalLong.of(value.get().value()) : OptionalLong.empty();
+            Objects.requireNonNull(name);
+
+            ValueBuffer buffer = ValueBuffer.acquire();
+            try {
+                int code = queryValue(buffer, name);
+                if (code == ERROR_FILE_NOT_FOUND) {
+                    return OptionalLong.empty();
+                }
+                if (code == ERROR_SUCCESS) {
+                    return OptionalLong.of(qwordValue(name, buffer));
+                }
+                throw RegistryException.forValue(code, path(), machineName(), name);
+            } finally {
+                buffer.release();
+            }
+        }
+
+        /**
+         * Returns a registry value as a QWORD, or a default value if there is no such registry value.
+         * This method is like {@link #findQWordValue(String)}, but without the need to unwrap the result.
+         *
+         * @param name The name of the registry value to return.
+         * @param defaultValue The value to return if there is no registry value with the given name.
+         * @return The registry value with the given name as a QWORD, or the given default value if there is no such registry value.
+         * @throws NullPointerException If the given name is {@code null}.
+         * @throws InvalidRegistryHandleException If this handle is no longer valid.
+         * @throws NoSuchRegistryKeyException If this registry key does not {@link #exists() exist}.
+         * @throws RegistryException If the value cannot be returned for another reason.
+         * @throws ClassCastException If the registry value with the given name is not a QWORD.
+         * @see #findQWordValue(String)
+         * @since 2.1
+         */
+        public long getQWordValue(String name, long defaultValue) {
+            Objects.requireNonNull(name);
+
+            ValueBuffer buffer = ValueBuffer.acquire();
+            try {
+                int code = queryValue(buffer, name);
+                if (code == ERROR_FILE_NOT_FOUND) {
+                    return defaultValue;
+                }
+                if (code == ERROR_SUCCESS) {
+                    return qwordValue(name, buffer);
+                }
+                throw RegistryException.forValue(code, path(), machineName(), name);
+            } finally {
+                buffer.release();
+            }
+        }
+
+        private long qwordValue(String name, ValueBuffer buffer) {
+            int type = buffer.type();
+            if (QWordValue.isQWordType(type)) {
+                // Read the data directly, without creating a QWordValue
+                return QWordValue.readValue(buffer.data());
+            }
+            // Let the cast fail just like it does for getValue and findValue
+            return QWordValue.class.cast(RegistryValue.of(name, type, buffer.data(), buffer.dataLength())).value();
         }
 
         // Purposefully omitted:
@@ -1399,10 +2164,9 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
                 MemorySegment lpValueName = WString.allocate(allocator, value.name());
                 MemorySegment lpData = value.rawData(allocator);
 
-                int code = RegSetValueEx(
+                int code = backend().setValue(
                         hKey,
                         lpValueName,
-                        0,
                         value.type(),
                         lpData,
                         toIntExact(lpData.byteSize()));
@@ -1428,7 +2192,7 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
             try (Arena allocator = Arena.ofConfined()) {
                 MemorySegment lpValueName = WString.allocate(allocator, name);
 
-                int code = RegDeleteValue(hKey, lpValueName);
+                int code = backend().deleteValue(hKey, lpValueName);
                 if (code != ERROR_SUCCESS) {
                     throw RegistryException.forValue(code, path(), machineName(), name);
                 }
@@ -1451,7 +2215,7 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
             try (Arena allocator = Arena.ofConfined()) {
                 MemorySegment lpValueName = WString.allocate(allocator, name);
 
-                int code = RegDeleteValue(hKey, lpValueName);
+                int code = backend().deleteValue(hKey, lpValueName);
                 if (code == ERROR_SUCCESS) {
                     return true;
                 }
@@ -1462,6 +2226,47 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
             }
         }
 
+        /**
+         * Sets and deletes several registry values at once.
+         * The given action is given a {@link ValueBatch} to add changes to; these are applied using this handle once the action has finished.
+         * Changes that fail do not prevent other changes from being applied.
+         *
+         * @param action The action that adds changes to the batch.
+         * @return The result of applying the changes, including the failures of the changes that could not be applied.
+         * @throws NullPointerException If the given action is {@code null}.
+         * @since 2.1
+         */
+        public ValueBatch.Result updateValues(Consumer<? super ValueBatch> action) {
+            Objects.requireNonNull(action);
+
+            ValueBatch batch = new ValueBatch();
+            action.accept(batch);
+
+            return batch.apply(RegistryKey.this, this);
+        }
+
+        /**
+         * Reconciles the registry values of the registry key from which this handle was retrieved with a collection of desired registry values.
+         * See {@link RegistryKey#reconcile(Collection, ReconcileOption...)} for more information.
+         *
+         * @param values The desired registry values.
+         * @param options The options that define how to reconcile the registry values.
+         * @return A report of the changes that were made.
+         * @throws NullPointerException If the given collection or any of its registry values is {@code null}.
+         * @throws InvalidRegistryHandleException If this handle is no longer valid.
+         * @throws NoSuchRegistryKeyException If the registry key from which this handle was retrieved no longer {@link RegistryKey#exists() exists}.
+         * @throws RegistryException If the current registry values cannot be read for another reason.
+         * @since 2.1
+         */
+        public ReconcileResult reconcile(Collection<? extends SettableRegistryValue> values, ReconcileOption... options) {
+            values.forEach(Objects::requireNonNull);
+
+            Set<ReconcileOption> optionSet = EnumSet.noneOf(ReconcileOption.class);
+            Collections.addAll(optionSet, options);
+
+            return ValueReconciler.reconcile(RegistryKey.this, this, values, optionSet.contains(ReconcileOption.DELETE_OTHERS));
+        }
+
         // other
 
         /**
@@ -1475,6 +2280,28 @@ public abstract sealed class RegistryKey implements Comparable<RegistryKey> perm
         abstract void close(RuntimeException exception);
     }
 
+    private final class CachedHandle extends Handle {
+
+        private final Cleaner.Cleanable cleanable;
+
+        private CachedHandle(HandleCache cache, HandleCache.Entry entry) {
+            super(entry.hKey());
+            // Instead of closing the HKEY, return it to the cache
+            this.cleanable = runOnClean(this, () -> cache.release(entry));
+        }
+
+        @Override
+        public void close() {
+            cleanable.clean();
+        }
+
+        @Override
+        void close(RuntimeException exception) {
+            // Releasing does not throw any exceptions
+            cleanable.clean();
+        }
+    }
+
     /**
      * An enumeration over the possible options for opening Windows registry handles.
      *
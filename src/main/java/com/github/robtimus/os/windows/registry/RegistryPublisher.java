@@ -0,0 +1,252 @@
+/*
+ * RegistryPublisher.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/*
+ * A publisher for the elements of a stream that is bound to a registry handle, like the streams returned by RegistryKey.subKeys() and
+ * RegistryKey.values(Filter).
+ *
+ * Each subscription gets its own stream, which is created when elements are first requested, and closed when the subscription completes, fails
+ * or is cancelled. Elements are retrieved one at a time using the stream's iterator, which means that the Windows registry is only queried for
+ * elements that have been requested.
+ *
+ * Elements are emitted on the executor. Only one task per subscription runs at any time, which means that the stream is never used concurrently,
+ * and never closed while it's being used. A task emits at most batchSize elements before it reschedules itself, so a single subscription with
+ * unbounded demand does not occupy a thread for the entire enumeration.
+ */
+final class RegistryPublisher<T> implements Flow.Publisher<T> {
+
+    private final Supplier<Stream<T>> streamFactory;
+    private final int batchSize;
+    private final Executor executor;
+    private final Registry.Context context;
+    private final HandleCache handleCache;
+
+    RegistryPublisher(Supplier<Stream<T>> streamFactory, int batchSize, Executor executor) {
+        this.streamFactory = streamFactory;
+        this.batchSize = batchSize;
+        this.executor = executor;
+        // Capture the context and handle cache when the publisher is created, as subscriptions may be made from other threads
+        this.context = Registry.currentContext();
+        this.handleCache = HandleCache.current().orElse(null);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber);
+
+        RegistrySubscription subscription = new RegistrySubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private final class RegistrySubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        private final AtomicLong demand;
+        private final AtomicInteger pending;
+        private volatile boolean cancelled;
+        private volatile IllegalArgumentException invalidRequest;
+
+        // Only accessed from run, which is never called concurrently
+        private Stream<T> stream;
+        private Iterator<T> iterator;
+        private boolean done;
+
+        private RegistrySubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+
+            this.demand = new AtomicLong();
+            this.pending = new AtomicInteger();
+            this.cancelled = false;
+            this.invalidRequest = null;
+
+            this.done = false;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException(n + " <= 0"); //$NON-NLS-1$
+            } else {
+                demand.getAndUpdate(d -> Long.MAX_VALUE - d < n ? Long.MAX_VALUE : d + n);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                execute();
+            }
+        }
+
+        private void execute() {
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // No task is running, so it's safe to close the stream from this thread
+                fail(e);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                if (emitBatch()) {
+                    // There is more demand; continue in a new task, which inherits ownership
+                    execute();
+                    return;
+                }
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        // Returns true if a full batch was emitted and there is more demand
+        private boolean emitBatch() {
+            if (done) {
+                return false;
+            }
+            if (cancelled) {
+                cancelStream();
+                return false;
+            }
+            if (invalidRequest != null) {
+                fail(invalidRequest);
+                return false;
+            }
+
+            if (iterator == null) {
+                try {
+                    stream = Registry.callWithContext(context, () -> handleCache != null
+                            ? handleCache.call(streamFactory::get)
+                            : streamFactory.get());
+                    iterator = stream.iterator();
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return false;
+                }
+            }
+
+            long requested = demand.get();
+            int emitted = 0;
+            while (requested > 0 && emitted < batchSize) {
+                if (cancelled) {
+                    cancelStream();
+                    return false;
+                }
+                T next;
+                try {
+                    // Sub keys and values are never null, so null can be used to indicate the end of the stream
+                    next = iterator.hasNext() ? iterator.next() : null;
+                } catch (RuntimeException e) {
+                    fail(e);
+                    return false;
+                }
+                if (next == null) {
+                    complete();
+                    return false;
+                }
+                try {
+                    subscriber.onNext(next);
+                } catch (RuntimeException e) {
+                    cancelled = true;
+                    cancelStream();
+                    subscriberFailed(e);
+                    return false;
+                }
+                emitted++;
+                requested = demand.decrementAndGet();
+            }
+            return requested > 0 && !cancelled;
+        }
+
+        private void complete() {
+            done = true;
+            try {
+                closeStream();
+            } catch (RuntimeException e) {
+                signalError(e);
+                return;
+            }
+            try {
+                subscriber.onComplete();
+            } catch (RuntimeException e) {
+                subscriberFailed(e);
+            }
+        }
+
+        private void fail(Throwable error) {
+            done = true;
+            try {
+                closeStream();
+            } catch (RuntimeException e) {
+                error.addSuppressed(e);
+            }
+            signalError(error);
+        }
+
+        private void signalError(Throwable error) {
+            try {
+                subscriber.onError(error);
+            } catch (RuntimeException e) {
+                subscriberFailed(e);
+            }
+        }
+
+        private void subscriberFailed(RuntimeException e) {
+            // The subscription is considered cancelled, and the subscriber must not receive any more signals (rule 2.13)
+            System.getLogger("windows-registry").log(System.Logger.Level.WARNING, e.getMessage(), e); //$NON-NLS-1$
+        }
+
+        private void cancelStream() {
+            done = true;
+            try {
+                closeStream();
+            } catch (RuntimeException e) {
+                // There is no subscriber to report the error to anymore
+                System.getLogger("windows-registry").log(System.Logger.Level.WARNING, e.getMessage(), e); //$NON-NLS-1$
+            }
+        }
+
+        private void closeStream() {
+            Stream<T> current = stream;
+            stream = null;
+            iterator = null;
+            if (current != null) {
+                current.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * RegistrySnapshot.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.util.function.IntFunction;
+import com.github.robtimus.os.windows.registry.RegistryKey.Handle;
+
+/**
+ * An immutable point-in-time copy of a registry key and its nested keys and values, as created by {@link RegistryKey#snapshot()}.
+ * It has a single {@link #rootKey() root key}, which corresponds to the registry key that the snapshot was taken of.
+ * The registry keys of a snapshot can be navigated and read like those of any other registry.
+ * <p>
+ * Snapshots are compact: the names of all registry keys and values are stored only once, and the data of the registry values of each registry key
+ * is stored in raw form, in a single byte array. Registry values are only converted into {@link RegistryValue} objects when they are read.
+ * <p>
+ * Snapshots are read-only; any attempt to create, change or delete registry keys or values will fail with a
+ * {@link RegistryAccessDeniedException}. Registry keys of snapshots are not affected by {@link Transaction transactions}, and cannot be watched
+ * using a {@link RegistryWatchService}.
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+@SuppressWarnings("squid:S6548")
+public final class RegistrySnapshot extends Registry {
+
+    private final RegistryKey source;
+    private final int maxDepth;
+
+    private final String[] names;
+    private final Node root;
+
+    private final RegistryKey rootKey;
+
+    private RegistrySnapshot(RegistryKey source, int maxDepth, String[] names, Node root) {
+        this.source = source;
+        this.maxDepth = maxDepth;
+
+        this.names = names;
+        this.root = root;
+
+        RegistryBackend backend = new SnapshotRegistryBackend(names, root);
+        this.rootKey = new LocalRootKey(ReadOnlyRegistryBackend.ROOT_HKEY, source.path(), backend);
+    }
+
+    static RegistrySnapshot capture(RegistryKey source, Handle handle, int maxDepth) {
+        SnapshotCapture capture = new SnapshotCapture();
+        Node root = capture.capture(source, handle, maxDepth);
+        return new RegistrySnapshot(source, maxDepth, capture.names(), root);
+    }
+
+    /**
+     * Returns the root key of this snapshot. Its name is the full path of the registry key that this snapshot was taken of,
+     * so the paths of all registry keys of this snapshot are the same as those of the registry keys they are copies of.
+     * <p>
+     * If this snapshot was taken with a maximum depth, registry keys at that depth have no sub keys.
+     *
+     * @return The root key of this snapshot.
+     */
+    public RegistryKey rootKey() {
+        return rootKey;
+    }
+
+    /**
+     * Returns the registry key that this snapshot was taken of.
+     *
+     * @return The registry key that this snapshot was taken of.
+     */
+    public RegistryKey source() {
+        return source;
+    }
+
+    /**
+     * Takes a new snapshot of the registry key that this snapshot was taken of, with the same maximum depth as this snapshot.
+     * <p>
+     * Only registry keys with a different last write time, number of sub keys or number of registry values are read again. The returned snapshot
+     * shares all other registry keys with this snapshot. This makes refreshing a large snapshot with only a few changes a lot cheaper than taking a
+     * new snapshot, although each registry key is still queried once. This snapshot itself is not changed; if no registry key has changed, this
+     * snapshot is returned.
+     * <p>
+     * Windows updates the last write time of a registry key when its registry values change or when direct sub keys are added, deleted or renamed.
+     * Changes that are not reflected in the last write time, for instance because the last write time was explicitly reset afterwards, are not
+     * detected.
+     *
+     * @return A new snapshot of the registry key that this snapshot was taken of.
+     * @throws NoSuchRegistryKeyException If the registry key that this snapshot was taken of no longer {@link RegistryKey#exists() exists}.
+     * @throws RegistryException If a registry key or value cannot be read for another reason.
+     */
+    public RegistrySnapshot refresh() {
+        try (Handle handle = source.handle()) {
+            SnapshotCapture capture = new SnapshotCapture(names);
+            Node refreshedRoot = capture.refresh(source, handle, root, maxDepth);
+            return refreshedRoot == root
+                    ? this
+                    : new RegistrySnapshot(source, maxDepth, capture.names(), refreshedRoot);
+        }
+    }
+
+    int maxDepth() {
+        return maxDepth;
+    }
+
+    String[] names() {
+        return names;
+    }
+
+    Node root() {
+        return root;
+    }
+
+    /*
+     * A single registry key of a snapshot. Names are indexes in the string table of the snapshot. Sub keys are sorted by name, case insensitively.
+     * The data of all values is stored in one byte array; the data of value i starts at dataOffsets[i] and ends at dataOffsets[i + 1].
+     * Nodes are immutable, so they can be shared.
+     */
+    static final class Node {
+
+        private static final Node[] NO_SUB_KEYS = {};
+        private static final int[] NO_INTS = {};
+        private static final int[] NO_DATA_OFFSETS = { 0 };
+        private static final byte[] NO_DATA = {};
+
+        final int name;
+        final long lastWriteTime;
+        final Node[] subKeys;
+        final int[] valueNames;
+        final int[] valueTypes;
+        final int[] dataOffsets;
+        final byte[] data;
+
+        Node(int name, long lastWriteTime, Node[] subKeys, int[] valueNames, int[] valueTypes, int[] dataOffsets, byte[] data) {
+            this.name = name;
+            this.lastWriteTime = lastWriteTime;
+            this.subKeys = subKeys.length == 0 ? NO_SUB_KEYS : subKeys;
+            this.valueNames = valueNames.length == 0 ? NO_INTS : valueNames;
+            this.valueTypes = valueTypes.length == 0 ? NO_INTS : valueTypes;
+            this.dataOffsets = valueNames.length == 0 ? NO_DATA_OFFSETS : dataOffsets;
+            this.data = data.length == 0 ? NO_DATA : data;
+        }
+
+        int valueCount() {
+            return valueNames.length;
+        }
+
+        int dataLength(int index) {
+            return dataOffsets[index + 1] - dataOffsets[index];
+        }
+
+        Node findSubKey(String subKeyName, IntFunction<String> names) {
+            int low = 0;
+            int high = subKeys.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int comparison = names.apply(subKeys[mid].name).compareToIgnoreCase(subKeyName);
+                if (comparison < 0) {
+                    low = mid + 1;
+                } else if (comparison > 0) {
+                    high = mid - 1;
+                } else {
+                    return subKeys[mid];
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -68,6 +68,11 @@ public abstract sealed class RegistryValue
         return type;
     }
 
+    /*
+     * Returns the size of the registry value's data in bytes, as it is stored in the registry.
+     */
+    abstract long dataSize();
+
     @Override
     public boolean equals(Object o) {
         if (o == null || o.getClass() != getClass()) {
@@ -0,0 +1,537 @@
+/*
+ * RegistryValueCache.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import com.github.robtimus.os.windows.registry.RegistryWatchService.Registration;
+import com.github.robtimus.os.windows.registry.RegistryWatchService.WatchEvent;
+
+/**
+ * A read-through cache for registry values. Reading a registry value normally opens a link to the Windows registry and decodes the value's
+ * data every time. A registry value cache instead returns previously read registry values for as long as their registry keys do not change.
+ * <p>
+ * Registry value caches are opt-in; only registry values that are read using {@link #getValue(RegistryKey, String, Class)} or
+ * {@link #findValue(RegistryKey, String, Class)} are cached. The same registry value cache can be used by several threads at the same time.
+ * Registry values are not cached while a {@link Transaction} is active.
+ * <p>
+ * Registry keys are watched for changes using a {@link RegistryWatchService}. When a registry key changes, all cached registry values of that
+ * registry key are removed. Registry values of registry keys that cannot be watched, like those of {@link InMemoryRegistry in-memory registries},
+ * are never cached.
+ * <p>
+ * A registry value cache contains at most a configurable number of registry values, with a configurable maximum total weight. The weight of
+ * a registry value is the size of its data in bytes. If either limit is exceeded, the least recently used registry values are evicted.
+ * Registry values are evicted as well once they have been cached for a configurable amount of time.
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+public final class RegistryValueCache implements AutoCloseable {
+
+    private final int maxSize;
+    private final long maxWeight;
+    private final long timeToLive;
+
+    private final RegistryWatchService watchService;
+
+    private final Map<Key, Entry> entries;
+    private final Map<RegistryKey, Watch> watches;
+    private long weight;
+
+    private final LongAdder hitCount;
+    private final LongAdder missCount;
+    private final LongAdder evictionCount;
+    private final LongAdder invalidationCount;
+
+    private boolean closed;
+
+    RegistryValueCache(int maxSize, long maxWeight, Duration timeToLive, RegistryWatchService watchService) {
+        this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.timeToLive = timeToLive.toNanos();
+
+        this.watchService = watchService;
+
+        this.entries = new LinkedHashMap<>(16, 0.75F, true);
+        this.watches = new HashMap<>();
+        this.weight = 0;
+
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+        this.evictionCount = new LongAdder();
+        this.invalidationCount = new LongAdder();
+
+        this.closed = false;
+    }
+
+    /**
+     * Creates a new registry value cache.
+     *
+     * @param maxSize The maximum number of registry values to cache.
+     * @param maxWeight The maximum total weight of all cached registry values.
+     * @param timeToLive The maximum time that a registry value can remain cached.
+     * @return The created registry value cache.
+     * @throws NullPointerException If the given time to live is {@code null}.
+     * @throws IllegalArgumentException If the given maximum size or maximum weight is not positive, or if the given time to live is negative.
+     */
+    public static RegistryValueCache create(int maxSize, long maxWeight, Duration timeToLive) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException(maxSize + " <= 0"); //$NON-NLS-1$
+        }
+        if (maxWeight <= 0) {
+            throw new IllegalArgumentException(maxWeight + " <= 0"); //$NON-NLS-1$
+        }
+        if (timeToLive.isNegative()) {
+            throw new IllegalArgumentException(timeToLive + " < 0"); //$NON-NLS-1$
+        }
+        return new RegistryValueCache(maxSize, maxWeight, timeToLive, RegistryWatchService.create());
+    }
+
+    /**
+     * Returns a registry value, from this registry value cache if possible.
+     *
+     * @param <V> The type of registry value to return.
+     * @param registryKey The registry key to return the registry value of.
+     * @param name The name of the registry value to return.
+     * @param valueType The type of registry value to return.
+     * @return The registry value with the given name.
+     * @throws NullPointerException If the given registry key, name or value type is {@code null}.
+     * @throws NoSuchRegistryKeyException If the given registry key does not {@link RegistryKey#exists() exist}.
+     * @throws NoSuchRegistryValueException If there is no such registry value.
+     * @throws RegistryException If the value cannot be returned for another reason.
+     * @throws ClassCastException If the registry value with the given name cannot be cast to the given value type.
+     * @see RegistryKey#getValue(String, Class)
+     */
+    public <V extends RegistryValue> V getValue(RegistryKey registryKey, String name, Class<V> valueType) {
+        Objects.requireNonNull(valueType);
+
+        RegistryValue value = lookup(registryKey, name)
+                .orElseThrow(() -> new NoSuchRegistryValueException(registryKey.path(), registryKey.machineName(), name));
+        return valueType.cast(value);
+    }
+
+    /**
+     * Tries to return a registry value, from this registry value cache if possible.
+     * If a registry value does not exist, that is cached as well.
+     *
+     * @param <V> The type of registry value to return.
+     * @param registryKey The registry key to return the registry value of.
+     * @param name The name of the registry value to return.
+     * @param valueType The type of registry value to return.
+     * @return An {@link Optional} with the registry value with the given name, or {@link Optional#empty()} if there is no such registry value.
+     * @throws NullPointerException If the given registry key, name or value type is {@code null}.
+     * @throws NoSuchRegistryKeyException If the given registry key does not {@link RegistryKey#exists() exist}.
+     * @throws RegistryException If the value cannot be returned for another reason.
+     * @throws ClassCastException If the registry value with the given name cannot be cast to the given value type.
+     * @see RegistryKey#findValue(String, Class)
+     */
+    public <V extends RegistryValue> Optional<V> findValue(RegistryKey registryKey, String name, Class<V> valueType) {
+        Objects.requireNonNull(valueType);
+
+        return lookup(registryKey, name).map(valueType::cast);
+    }
+
+    private Optional<RegistryValue> lookup(RegistryKey registryKey, String name) {
+        Key key = new Key(Objects.requireNonNull(registryKey), Objects.requireNonNull(name));
+
+        if (!(Registry.currentContext() instanceof Registry.Context.NonTransactional)) {
+            // Values that are read as part of a transaction may not be visible to anyone else
+            return registryKey.findValue(name, RegistryValue.class);
+        }
+
+        long now = System.nanoTime();
+
+        List<Registration> registrationsToCancel = new ArrayList<>();
+        try {
+            synchronized (this) {
+                processWatchEvents(registrationsToCancel);
+
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    if (now - entry.createTime <= timeToLive) {
+                        hitCount.increment();
+                        return entry.value;
+                    }
+                    evictionCount.increment();
+                    remove(entry, registrationsToCancel);
+                }
+            }
+        } finally {
+            cancelAll(registrationsToCancel);
+        }
+
+        missCount.increment();
+
+        // Watch the registry key before reading the value, so any change after reading the value will cause it to be invalidated
+        Watch watch = watch(registryKey);
+        Optional<RegistryValue> value;
+        try {
+            value = registryKey.findValue(name, RegistryValue.class);
+        } catch (RuntimeException e) {
+            if (watch != null) {
+                unwatchIfUnused(registryKey, watch);
+            }
+            throw e;
+        }
+        if (watch != null) {
+            add(key, watch, value, now);
+        }
+        return value;
+    }
+
+    private void processWatchEvents(List<Registration> registrationsToCancel) {
+        if (closed) {
+            return;
+        }
+        WatchEvent event;
+        while ((event = watchService.poll()) != null) {
+            Watch watch = watches.get(event.registryKey());
+            if (watch != null && watch.registration == event.registration()) {
+                invalidationCount.add(watch.keys.size());
+                remove(watch, registrationsToCancel);
+            }
+        }
+    }
+
+    private Watch watch(RegistryKey registryKey) {
+        if (!registryKey.backend().supportsChangeNotifications()) {
+            // Don't even try to register the registry key; that opens a handle that is closed again immediately
+            return null;
+        }
+        synchronized (this) {
+            if (closed) {
+                return null;
+            }
+            Watch watch = watches.get(registryKey);
+            if (watch != null) {
+                return watch;
+            }
+        }
+
+        Registration registration;
+        try {
+            registration = watchService.register(registryKey, EnumSet.of(RegistryWatchService.Kind.VALUES));
+        } catch (RegistryException e) {
+            // The registry key cannot be watched; the registry key does not exist or it does not support watching
+            return null;
+        }
+
+        Registration registrationToCancel = registration;
+        try {
+            synchronized (this) {
+                if (closed) {
+                    return null;
+                }
+                Watch watch = watches.get(registryKey);
+                if (watch == null) {
+                    watch = new Watch(registration);
+                    watches.put(registryKey, watch);
+                    registrationToCancel = null;
+                }
+                // else another thread has started watching the registry key in the mean time; use that watch instead
+                return watch;
+            }
+        } finally {
+            if (registrationToCancel != null) {
+                registrationToCancel.cancel();
+            }
+        }
+    }
+
+    private void unwatchIfUnused(RegistryKey registryKey, Watch watch) {
+        List<Registration> registrationsToCancel = new ArrayList<>();
+        try {
+            synchronized (this) {
+                if (watches.get(registryKey) == watch && watch.keys.isEmpty()) {
+                    // The watch was started for a value that could not be read; there is no need to keep watching the registry key
+                    watches.remove(registryKey);
+                    registrationsToCancel.add(watch.registration);
+                }
+            }
+        } finally {
+            cancelAll(registrationsToCancel);
+        }
+    }
+
+    private void add(Key key, Watch watch, Optional<RegistryValue> value, long createTime) {
+        List<Registration> registrationsToCancel = new ArrayList<>();
+        try {
+            synchronized (this) {
+                if (watches.get(key.registryKey) != watch) {
+                    // The registry key has changed or this registry value cache has been closed since the value was read
+                    return;
+                }
+                Entry entry = new Entry(key, value, createTime);
+                Entry existing = entries.put(key, entry);
+                if (existing != null) {
+                    weight -= existing.weight;
+                }
+                weight += entry.weight;
+                watch.keys.add(key);
+
+                evictEldest(registrationsToCancel);
+            }
+        } finally {
+            cancelAll(registrationsToCancel);
+        }
+    }
+
+    private void evictEldest(List<Registration> registrationsToCancel) {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while ((entries.size() > maxSize || weight > maxWeight) && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            evictionCount.increment();
+            removed(entry, registrationsToCancel);
+        }
+    }
+
+    private void remove(Entry entry, List<Registration> registrationsToCancel) {
+        entries.remove(entry.key);
+        removed(entry, registrationsToCancel);
+    }
+
+    private void removed(Entry entry, List<Registration> registrationsToCancel) {
+        weight -= entry.weight;
+
+        Watch watch = watches.get(entry.key.registryKey);
+        watch.keys.remove(entry.key);
+        if (watch.keys.isEmpty()) {
+            // There is no need to keep watching a registry key without any cached values
+            watches.remove(entry.key.registryKey);
+            registrationsToCancel.add(watch.registration);
+        }
+    }
+
+    private void remove(Watch watch, List<Registration> registrationsToCancel) {
+        for (Key key : watch.keys) {
+            Entry entry = entries.remove(key);
+            weight -= entry.weight;
+        }
+        watches.remove(watch.registration.registryKey());
+        registrationsToCancel.add(watch.registration);
+    }
+
+    private void cancelAll(List<Registration> registrationsToCancel) {
+        for (Registration registration : registrationsToCancel) {
+            registration.cancel();
+        }
+    }
+
+    /**
+     * Removes all cached registry values of a registry key from this registry value cache.
+     * Registry values are removed automatically when their registry keys change, so this method normally does not need to be called.
+     *
+     * @param registryKey The registry key to remove cached registry values for.
+     * @throws NullPointerException If the given registry key is {@code null}.
+     */
+    public void invalidate(RegistryKey registryKey) {
+        Objects.requireNonNull(registryKey);
+
+        List<Registration> registrationsToCancel = new ArrayList<>();
+        try {
+            synchronized (this) {
+                Watch watch = watches.get(registryKey);
+                if (watch != null) {
+                    remove(watch, registrationsToCancel);
+                }
+            }
+        } finally {
+            cancelAll(registrationsToCancel);
+        }
+    }
+
+    /**
+     * Removes all cached registry values from this registry value cache.
+     */
+    public void invalidateAll() {
+        List<Registration> registrationsToCancel = new ArrayList<>();
+        try {
+            synchronized (this) {
+                for (Watch watch : watches.values()) {
+                    registrationsToCancel.add(watch.registration);
+                }
+                watches.clear();
+                entries.clear();
+                weight = 0;
+            }
+        } finally {
+            cancelAll(registrationsToCancel);
+        }
+    }
+
+    /**
+     * Returns the number of registry values that are currently cached.
+     *
+     * @return The number of registry values that are currently cached.
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns the total weight of the registry values that are currently cached.
+     *
+     * @return The total weight of the registry values that are currently cached.
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    /**
+     * Returns statistics for this registry value cache.
+     *
+     * @return An object containing the current statistics for this registry value cache.
+     */
+    public Statistics statistics() {
+        return new Statistics(hitCount.sum(), missCount.sum(), evictionCount.sum(), invalidationCount.sum());
+    }
+
+    /**
+     * Closes this registry value cache. This will remove all cached registry values, and stop watching registry keys for changes.
+     * Afterwards, this registry value cache can still be used, but it will no longer cache registry values.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        invalidateAll();
+        watchService.close();
+    }
+
+    private record Key(RegistryKey registryKey, String name) {
+        // Registry value names are case insensitive, but the returned registry value has the given name
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+        private final Optional<RegistryValue> value;
+        private final long weight;
+        private final long createTime;
+
+        private Entry(Key key, Optional<RegistryValue> value, long createTime) {
+            this.key = key;
+            this.value = value;
+            this.weight = value.map(RegistryValue::dataSize).orElse(0L);
+            this.createTime = createTime;
+        }
+    }
+
+    private static final class Watch {
+
+        private final Registration registration;
+
+        // Guarded by the registry value cache
+        private final Set<Key> keys;
+
+        private Watch(Registration registration) {
+            this.registration = registration;
+            this.keys = new HashSet<>();
+        }
+    }
+
+    /**
+     * Statistics for a {@link RegistryValueCache}.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    public static final class Statistics {
+
+        private final long hitCount;
+        private final long missCount;
+        private final long evictionCount;
+        private final long invalidationCount;
+
+        private Statistics(long hitCount, long missCount, long evictionCount, long invalidationCount) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.evictionCount = evictionCount;
+            this.invalidationCount = invalidationCount;
+        }
+
+        /**
+         * Returns the number of times a cached registry value could be returned.
+         *
+         * @return The number of times a cached registry value could be returned.
+         */
+        public long hitCount() {
+            return hitCount;
+        }
+
+        /**
+         * Returns the number of times a registry value needed to be read from the registry.
+         *
+         * @return The number of times a registry value needed to be read from the registry.
+         */
+        public long missCount() {
+            return missCount;
+        }
+
+        /**
+         * Returns the ratio of registry value requests that could be returned from the cache.
+         * If no registry values have been requested yet, this method returns {@code 1.0}.
+         *
+         * @return The ratio of registry value requests that could be returned from the cache, between {@code 0.0} and {@code 1.0}.
+         */
+        public double hitRatio() {
+            long requestCount = hitCount + missCount;
+            return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+        }
+
+        /**
+         * Returns the number of registry values that have been evicted because of the maximum size, maximum weight or time to live.
+         *
+         * @return The number of registry values that have been evicted.
+         */
+        public long evictionCount() {
+            return evictionCount;
+        }
+
+        /**
+         * Returns the number of registry values that have been removed because their registry keys changed.
+         * Registry values that have been removed using {@link RegistryValueCache#invalidate(RegistryKey)} or
+         * {@link RegistryValueCache#invalidateAll()} are not included.
+         *
+         * @return The number of registry values that have been removed because their registry keys changed.
+         */
+        public long invalidationCount() {
+            return invalidationCount;
+        }
+
+        @Override
+        @SuppressWarnings("nls")
+        public String toString() {
+            return "Statistics[hitCount=" + hitCount + ", missCount=" + missCount + ", evictionCount=" + evictionCount
+                    + ", invalidationCount=" + invalidationCount + "]";
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * RegistryWalker.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_READ;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+import com.github.robtimus.os.windows.registry.RegistryKey.Handle;
+import com.github.robtimus.os.windows.registry.RegistryKey.TraverseOption;
+
+/**
+ * A walker for registry keys and all of their nested keys. Unlike {@link RegistryKey#traverse(TraverseOption...)}, a registry walker can visit
+ * registry keys in parallel, and provides each visited registry key's handle, so that handle does not need to be created again.
+ * <p>
+ * Sub keys are opened relative to the handle of their parent key, which remains open until all of its sub keys have been visited.
+ * Sub keys that are removed before they can be visited are skipped.
+ * <p>
+ * If the walk is started while a {@link Transaction} or a {@link HandleCache} is active, it is used for all visited registry keys,
+ * including those that are visited from other threads.
+ * <p>
+ * Instances of this class are not thread safe while they are being configured, but once configured they can be used to perform several walks
+ * at the same time.
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+public final class RegistryWalker {
+
+    private int parallelism;
+    private int maxDepth;
+    private boolean subKeysFirst;
+
+    private RegistryWalker() {
+        parallelism = Runtime.getRuntime().availableProcessors();
+        maxDepth = Integer.MAX_VALUE;
+        subKeysFirst = false;
+    }
+
+    /**
+     * Creates a new registry walker. By default it has a parallelism equal to the number of available processors, no maximum depth, and no options.
+     *
+     * @return The created registry walker.
+     */
+    public static RegistryWalker create() {
+        return new RegistryWalker();
+    }
+
+    /**
+     * Sets the maximum number of threads to use for visiting registry keys.
+     * With a parallelism of 1, all registry keys are visited in the thread that calls {@link #walk(RegistryKey, Visitor)}.
+     *
+     * @param parallelism The maximum number of threads to use.
+     * @return This registry walker.
+     * @throws IllegalArgumentException If the given parallelism is not positive.
+     */
+    public RegistryWalker parallelism(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException(parallelism + " <= 0"); //$NON-NLS-1$
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of registry key levels to visit.
+     *
+     * @param maxDepth The maximum number of registry key levels to visit. A value of 0 indicates that only the registry key to walk should be
+     *                     visited; a value of 1 indicates that only that registry key and its direct sub keys should be visited.
+     * @return This registry walker.
+     * @throws IllegalArgumentException If the given maximum depth is negative.
+     */
+    public RegistryWalker maxDepth(int maxDepth) {
+        if (maxDepth < 0) {
+            throw new IllegalArgumentException(maxDepth + " < 0"); //$NON-NLS-1$
+        }
+        this.maxDepth = maxDepth;
+        return this;
+    }
+
+    /**
+     * Sets the options to configure the walk. These replace any previously set options.
+     * <p>
+     * If {@link TraverseOption#SUB_KEYS_FIRST} is given, a registry key is visited after all of its sub keys have been visited.
+     * Otherwise, a registry key is visited before any of its sub keys is visited.
+     *
+     * @param options The options to configure the walk.
+     * @return This registry walker.
+     * @throws NullPointerException If any of the given options is {@code null}.
+     */
+    public RegistryWalker options(TraverseOption... options) {
+        Set<TraverseOption> optionSet = EnumSet.noneOf(TraverseOption.class);
+        Collections.addAll(optionSet, options);
+
+        this.subKeysFirst = optionSet.contains(TraverseOption.SUB_KEYS_FIRST);
+        return this;
+    }
+
+    /**
+     * Walks through a registry key and all of its nested keys.
+     * This method returns once all registry keys have been visited.
+     *
+     * @param registryKey The registry key to walk through.
+     * @param visitor The visitor to call for each registry key. If the parallelism is larger than 1 it must be thread safe.
+     * @throws NullPointerException If the given registry key or visitor is {@code null}.
+     * @throws NoSuchRegistryKeyException If the given registry key does not {@link RegistryKey#exists() exist}.
+     * @throws RegistryException If a registry key cannot be visited for another reason.
+     */
+    public void walk(RegistryKey registryKey, Visitor visitor) {
+        Objects.requireNonNull(registryKey);
+        Objects.requireNonNull(visitor);
+
+        try (Handle handle = registryKey.handle()) {
+            if (parallelism == 1) {
+                walk(registryKey, handle, 0, visitor, null);
+            } else {
+                // The pool's threads do not see the current context and handle cache, so pass them along explicitly
+                WalkContext context = new WalkContext(visitor, Registry.currentContext(), HandleCache.current().orElse(null));
+                try (ForkJoinPool pool = new ForkJoinPool(parallelism)) {
+                    pool.invoke(ForkJoinTask.adapt(() -> runInContext(context, () -> walk(registryKey, handle, 0, visitor, context))));
+                }
+            }
+        }
+    }
+
+    private void walk(RegistryKey registryKey, Handle handle, int depth, Visitor visitor, WalkContext context) {
+        if (!subKeysFirst) {
+            visitor.visit(registryKey, handle);
+        }
+        if (depth < maxDepth) {
+            List<SubKey> subKeys = subKeys(handle, depth);
+            if (context == null) {
+                for (SubKey subKey : subKeys) {
+                    walkSubKey(subKey, handle, depth + 1, visitor, null);
+                }
+            } else {
+                List<WalkSubKeyTask> tasks = new ArrayList<>(subKeys.size());
+                for (SubKey subKey : subKeys) {
+                    tasks.add(new WalkSubKeyTask(subKey, handle, depth + 1, context));
+                }
+                ForkJoinTask.invokeAll(tasks);
+            }
+        }
+        if (subKeysFirst) {
+            visitor.visit(registryKey, handle);
+        }
+    }
+
+    private List<SubKey> subKeys(Handle handle, int depth) {
+        try (Stream<SubKey> stream = handle.childKeys()) {
+            return stream.toList();
+        } catch (NoSuchRegistryKeyException e) {
+            if (depth == 0) {
+                throw e;
+            }
+            // The registry key was removed after its handle was created
+            return Collections.emptyList();
+        }
+    }
+
+    private void walkSubKey(SubKey subKey, Handle parentHandle, int depth, Visitor visitor, WalkContext context) {
+        Optional<Handle> handle = openSubKey(subKey, parentHandle);
+        if (handle.isPresent()) {
+            try (Handle h = handle.get()) {
+                walk(subKey, h, depth, visitor, context);
+            }
+        }
+    }
+
+    private Optional<Handle> openSubKey(SubKey subKey, Handle parentHandle) {
+        try {
+            return Optional.of(subKey.handle(parentHandle.hKey, KEY_READ, false));
+        } catch (NoSuchRegistryKeyException e) {
+            // The registry key was removed after its parent's sub keys were retrieved
+            return Optional.empty();
+        }
+    }
+
+    private static void runInContext(WalkContext context, Runnable action) {
+        Registry.callWithContext(context.registryContext(), () -> {
+            if (context.handleCache() != null) {
+                context.handleCache().run(action::run);
+            } else {
+                action.run();
+            }
+            return null;
+        });
+    }
+
+    private record WalkContext(Visitor visitor, Registry.Context registryContext, HandleCache handleCache) {
+    }
+
+    @SuppressWarnings("serial")
+    private final class WalkSubKeyTask extends RecursiveAction {
+
+        private final SubKey subKey;
+        private final Handle parentHandle;
+        private final int depth;
+        private final WalkContext context;
+
+        private WalkSubKeyTask(SubKey subKey, Handle parentHandle, int depth, WalkContext context) {
+            this.subKey = subKey;
+            this.parentHandle = parentHandle;
+            this.depth = depth;
+            this.context = context;
+        }
+
+        @Override
+        protected void compute() {
+            runInContext(context, () -> walkSubKey(subKey, parentHandle, depth, context.visitor(), context));
+        }
+    }
+
+    /**
+     * A visitor for registry keys.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * Visits a registry key.
+         *
+         * @param registryKey The registry key to visit.
+         * @param handle A handle to the registry key. It can only be used for reading,
+         *                   and is only valid until this method returns.
+         */
+        void visit(RegistryKey registryKey, Handle handle);
+    }
+}
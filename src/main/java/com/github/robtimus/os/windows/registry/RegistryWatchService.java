@@ -0,0 +1,649 @@
+/*
+ * RegistryWatchService.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.Kernel32.CloseHandle;
+import static com.github.robtimus.os.windows.registry.Kernel32.CreateEvent;
+import static com.github.robtimus.os.windows.registry.Kernel32.SetEvent;
+import static com.github.robtimus.os.windows.registry.Kernel32.WaitForMultipleObjects;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NOT_SUPPORTED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.INFINITE;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_NOTIFY;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.MAXIMUM_WAIT_OBJECTS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_NOTIFY_CHANGE_ATTRIBUTES;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_NOTIFY_CHANGE_LAST_SET;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_NOTIFY_CHANGE_NAME;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_NOTIFY_CHANGE_SECURITY;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_NOTIFY_THREAD_AGNOSTIC;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.WAIT_FAILED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.WAIT_OBJECT_0;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A service that watches registry keys for changes. It is modelled after {@link java.nio.file.WatchService}: registry keys are
+ * {@link #register(RegistryKey, Set, WatchOption...) registered} for one or more {@link Kind kinds} of changes, and changes are reported as
+ * {@link WatchEvent watch events} that can be retrieved using {@link #poll()}, {@link #poll(long, TimeUnit)} or {@link #take()}.
+ * <p>
+ * Changes are detected by the Windows registry itself, so registry keys do not need to be polled. Registered registry keys are watched by
+ * background threads, each of which can watch up to 63 combinations of registry key and kind of change. Additional threads are started when
+ * needed.
+ * <p>
+ * The Windows registry does not report which sub keys or registry values have changed; watch events only report the registered registry key
+ * and the kind of change. If a registry key changes several times before its watch event has been retrieved, only one watch event is reported.
+ * <p>
+ * A watch service should be closed when it is no longer needed. This cancels all registrations and stops all background threads.
+ * Watch services can be used by several threads at the same time.
+ * <p>
+ * Registry keys of {@link InMemoryRegistry in-memory registries} cannot be watched.
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+public final class RegistryWatchService implements AutoCloseable {
+
+    // One of the objects each worker waits for is used to wake up the worker
+    static final int MAX_WATCHES_PER_WORKER = MAXIMUM_WAIT_OBJECTS - 1;
+
+    private static final WatchEvent CLOSED = new WatchEvent(null);
+
+    private final ThreadFactory threadFactory;
+
+    private final BlockingQueue<WatchEvent> events;
+
+    // The following fields are guarded by this watch service
+
+    private final Set<Registration> registrations;
+    private final List<Worker> workers;
+
+    private volatile boolean closed;
+
+    RegistryWatchService(ThreadFactory threadFactory) {
+        this.threadFactory = threadFactory;
+
+        this.events = new LinkedBlockingQueue<>();
+
+        this.registrations = new LinkedHashSet<>();
+        this.workers = new ArrayList<>();
+
+        this.closed = false;
+    }
+
+    /**
+     * Creates a new watch service.
+     *
+     * @return The created watch service.
+     */
+    public static RegistryWatchService create() {
+        // Waiting for changes blocks the thread in native code, so use platform threads instead of virtual threads
+        ThreadFactory threadFactory = Thread.ofPlatform()
+                .name("registry-watcher-", 0) //$NON-NLS-1$
+                .daemon()
+                .factory();
+        return new RegistryWatchService(threadFactory);
+    }
+
+    /**
+     * Registers a registry key with this watch service.
+     *
+     * @param registryKey The registry key to register.
+     * @param kinds The kinds of changes to watch for.
+     * @param options The options that define how the registry key is watched.
+     * @return A registration that can be used to stop watching the registry key.
+     * @throws NullPointerException If the given registry key or set of kinds is {@code null}, or if any of the given kinds or options is
+     *                                  {@code null}.
+     * @throws IllegalArgumentException If the given set of kinds is empty.
+     * @throws IllegalStateException If this watch service is closed.
+     * @throws NoSuchRegistryKeyException If the given registry key does not {@link RegistryKey#exists() exist}.
+     * @throws RegistryException If the registry key could not be registered for another reason.
+     */
+    public Registration register(RegistryKey registryKey, Set<Kind> kinds, WatchOption... options) {
+        Objects.requireNonNull(registryKey);
+        if (kinds.isEmpty()) {
+            throw new IllegalArgumentException(Messages.RegistryWatchService.noKinds());
+        }
+        Set<Kind> kindSet = EnumSet.copyOf(kinds);
+        Set<WatchOption> optionSet = EnumSet.noneOf(WatchOption.class);
+        Collections.addAll(optionSet, options);
+
+        boolean watchSubtree = optionSet.contains(WatchOption.WATCH_SUBTREE);
+
+        synchronized (this) {
+            checkNotClosed();
+
+            RegistryKey.Handle handle = registryKey.handle(KEY_NOTIFY, false);
+            Registration registration = new Registration(registryKey, handle, kindSet, watchSubtree);
+            try {
+                if (!registryKey.backend().supportsChangeNotifications()) {
+                    // Fail before any events are created; creating events requires native code
+                    throw RegistryException.forKey(ERROR_NOT_SUPPORTED, registryKey.path(), registryKey.machineName());
+                }
+                for (Kind kind : kindSet) {
+                    Watch watch = new Watch(registration, kind);
+                    registration.watches.add(watch);
+                    watch.arm(true);
+                    availableWorker().add(watch);
+                }
+            } catch (RuntimeException e) {
+                registration.cancel();
+                throw e;
+            }
+            registrations.add(registration);
+            return registration;
+        }
+    }
+
+    private Worker availableWorker() {
+        for (Worker worker : workers) {
+            if (worker.watchCount < MAX_WATCHES_PER_WORKER) {
+                return worker;
+            }
+        }
+        Worker worker = new Worker();
+        workers.add(worker);
+        threadFactory.newThread(worker).start();
+        return worker;
+    }
+
+    /**
+     * Retrieves and removes the next watch event, if one is available.
+     *
+     * @return The next watch event, or {@code null} if no watch event is available.
+     * @throws IllegalStateException If this watch service is closed.
+     */
+    public WatchEvent poll() {
+        checkNotClosed();
+        return retrieved(events.poll());
+    }
+
+    /**
+     * Retrieves and removes the next watch event, waiting if necessary up to the specified wait time if none are available yet.
+     *
+     * @param timeout How long to wait before giving up, in units of {@code unit}.
+     * @param unit A {@link TimeUnit} determining how to interpret the {@code timeout} parameter.
+     * @return The next watch event, or {@code null} if no watch event became available before the specified wait time elapsed.
+     * @throws NullPointerException If the given time unit is {@code null}.
+     * @throws IllegalStateException If this watch service is closed, or is closed while waiting for the next watch event.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public WatchEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(unit);
+        checkNotClosed();
+        return retrieved(events.poll(timeout, unit));
+    }
+
+    /**
+     * Retrieves and removes the next watch event, waiting if none are available yet.
+     *
+     * @return The next watch event.
+     * @throws IllegalStateException If this watch service is closed, or is closed while waiting for the next watch event.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public WatchEvent take() throws InterruptedException {
+        checkNotClosed();
+        return retrieved(events.take());
+    }
+
+    private WatchEvent retrieved(WatchEvent event) {
+        if (event == CLOSED) {
+            // Add the event back for any other thread that is waiting
+            events.add(CLOSED);
+            throw new IllegalStateException(Messages.RegistryWatchService.closed());
+        }
+        if (event != null) {
+            event.watch.pending.set(false);
+        }
+        return event;
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException(Messages.RegistryWatchService.closed());
+        }
+    }
+
+    private void signaled(Watch watch) {
+        // Only report one event for a registration and kind until it has been retrieved
+        if (watch.pending.compareAndSet(false, true)) {
+            events.add(new WatchEvent(watch));
+        }
+    }
+
+    /**
+     * Closes this watch service. All registrations are cancelled, and all threads that are waiting for watch events are woken up.
+     * If this watch service is already closed, this method does nothing.
+     */
+    @Override
+    public void close() {
+        List<Registration> registrationsToCancel;
+        List<Worker> workersToStop;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+
+            registrationsToCancel = new ArrayList<>(registrations);
+            workersToStop = new ArrayList<>(workers);
+            workers.clear();
+        }
+        registrationsToCancel.forEach(Registration::cancel);
+        workersToStop.forEach(Worker::stop);
+        events.add(CLOSED);
+    }
+
+    private static MemorySegment createEvent() {
+        try (Arena allocator = Arena.ofConfined()) {
+            MemorySegment captureState = CaptureState.allocate(allocator);
+            // Use auto-reset events, so each event is reset as soon as the wait for it returns
+            MemorySegment hEvent = CreateEvent(MemorySegment.NULL, 0, 0, MemorySegment.NULL, captureState);
+            if (hEvent == null || MemorySegment.NULL.equals(hEvent)) {
+                throw new IllegalStateException(Messages.RegistryWatchService.createEventError(CaptureState.getLastError(captureState)));
+            }
+            return hEvent;
+        }
+    }
+
+    private static void setEvent(MemorySegment hEvent) {
+        try (Arena allocator = Arena.ofConfined()) {
+            MemorySegment captureState = CaptureState.allocate(allocator);
+            if (!SetEvent(hEvent, captureState)) {
+                throw new IllegalStateException(Messages.RegistryWatchService.setEventError(CaptureState.getLastError(captureState)));
+            }
+        }
+    }
+
+    private static void closeEvent(MemorySegment hEvent) {
+        try (Arena allocator = Arena.ofConfined()) {
+            MemorySegment captureState = CaptureState.allocate(allocator);
+            if (!CloseHandle(hEvent, captureState)) {
+                System.getLogger("windows-registry").log(System.Logger.Level.WARNING, //$NON-NLS-1$
+                        Messages.RegistryWatchService.closeEventError(CaptureState.getLastError(captureState)));
+            }
+        }
+    }
+
+    /**
+     * A registration of a registry key with a {@link RegistryWatchService}.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    public final class Registration {
+
+        private final RegistryKey registryKey;
+        private final RegistryKey.Handle handle;
+        private final Set<Kind> kinds;
+        private final boolean watchSubtree;
+
+        private final List<Watch> watches;
+
+        private volatile boolean valid;
+
+        private Registration(RegistryKey registryKey, RegistryKey.Handle handle, Set<Kind> kinds, boolean watchSubtree) {
+            this.registryKey = registryKey;
+            this.handle = handle;
+            this.kinds = Collections.unmodifiableSet(kinds);
+            this.watchSubtree = watchSubtree;
+
+            this.watches = new ArrayList<>(kinds.size());
+
+            this.valid = true;
+        }
+
+        /**
+         * Returns the registered registry key.
+         *
+         * @return The registered registry key.
+         */
+        public RegistryKey registryKey() {
+            return registryKey;
+        }
+
+        /**
+         * Returns the kinds of changes that are watched for.
+         *
+         * @return An unmodifiable set with the kinds of changes that are watched for.
+         */
+        public Set<Kind> kinds() {
+            return kinds;
+        }
+
+        /**
+         * Returns whether or not this registration is still valid. A registration is valid until it is cancelled, its watch service is
+         * closed, or its registry key is deleted.
+         *
+         * @return {@code true} if this registration is still valid, or {@code false} otherwise.
+         */
+        public boolean isValid() {
+            return valid;
+        }
+
+        /**
+         * Cancels this registration. Afterwards, no more watch events will be reported for it.
+         * Watch events that have already been reported can still be retrieved.
+         * If this registration is already cancelled, this method does nothing.
+         */
+        public void cancel() {
+            synchronized (RegistryWatchService.this) {
+                if (!valid) {
+                    return;
+                }
+                valid = false;
+                registrations.remove(this);
+                // Let the workers remove the watches and close their events
+                for (Watch watch : watches) {
+                    if (watch.worker != null) {
+                        watch.worker.wake();
+                    } else {
+                        watch.close();
+                    }
+                }
+            }
+            // This will signal the events of any watches that have not been removed yet; these are ignored because this registration is invalid
+            handle.close();
+        }
+    }
+
+    // A combination of a registration and a kind, with its own event
+    private final class Watch {
+
+        private final Registration registration;
+        private final Kind kind;
+        private final MemorySegment hEvent;
+
+        private final AtomicBoolean pending;
+
+        private Worker worker;
+
+        private Watch(Registration registration, Kind kind) {
+            this.registration = registration;
+            this.kind = kind;
+            this.hEvent = createEvent();
+
+            this.pending = new AtomicBoolean(false);
+        }
+
+        private boolean arm(boolean throwOnError) {
+            RegistryKey registryKey = registration.registryKey;
+            // The notification must not end when the thread that requested it ends, because that may be a worker or a short-lived thread
+            int code = registryKey.backend().notifyChangeKeyValue(
+                    registration.handle.hKey,
+                    registration.watchSubtree ? 1 : 0,
+                    kind.notifyFilter | REG_NOTIFY_THREAD_AGNOSTIC,
+                    hEvent);
+            if (code != ERROR_SUCCESS && throwOnError) {
+                throw RegistryException.forKey(code, registryKey.path(), registryKey.machineName());
+            }
+            return code == ERROR_SUCCESS;
+        }
+
+        private void close() {
+            closeEvent(hEvent);
+        }
+    }
+
+    // Workers are only accessed by their own thread, except for the fields that are documented otherwise
+    final class Worker implements Runnable {
+
+        private final MemorySegment wakeEvent;
+
+        private final List<Watch> watches;
+
+        // Watches that have been added but not yet picked up by the worker
+        private final Queue<Watch> addedWatches;
+
+        // Guarded by the watch service; includes watches that have not yet been picked up by the worker
+        private int watchCount;
+
+        private volatile boolean stopped;
+
+        private Worker() {
+            this.wakeEvent = createEvent();
+
+            this.watches = new ArrayList<>(MAX_WATCHES_PER_WORKER);
+            this.addedWatches = new ConcurrentLinkedQueue<>();
+
+            this.watchCount = 0;
+
+            this.stopped = false;
+        }
+
+        private void add(Watch watch) {
+            watch.worker = this;
+            watchCount++;
+            addedWatches.add(watch);
+            wake();
+        }
+
+        private void wake() {
+            setEvent(wakeEvent);
+        }
+
+        private void stop() {
+            stopped = true;
+            wake();
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (processEvents(INFINITE)) {
+                    // process the next events
+                }
+            } catch (RuntimeException e) {
+                System.getLogger("windows-registry").log(System.Logger.Level.WARNING, e.getMessage(), e); //$NON-NLS-1$
+                failed();
+            }
+        }
+
+        /*
+         * Waits for one of the events of this worker, and handles it.
+         * Returns true if this method should be called again, or false if this worker has been stopped.
+         */
+        boolean processEvents(int timeout) {
+            updateWatches();
+            if (stopped) {
+                close();
+                return false;
+            }
+
+            try (Arena allocator = Arena.ofConfined()) {
+                MemorySegment lpHandles = allocator.allocate(ValueLayout.ADDRESS, watches.size() + 1L);
+                lpHandles.setAtIndex(ValueLayout.ADDRESS, 0, wakeEvent);
+                for (int i = 0; i < watches.size(); i++) {
+                    lpHandles.setAtIndex(ValueLayout.ADDRESS, i + 1L, watches.get(i).hEvent);
+                }
+                MemorySegment captureState = CaptureState.allocate(allocator);
+
+                int result = WaitForMultipleObjects(watches.size() + 1, lpHandles, 0, timeout, captureState);
+                if (result == WAIT_FAILED) {
+                    throw new IllegalStateException(Messages.RegistryWatchService.waitError(CaptureState.getLastError(captureState)));
+                }
+
+                // Index 0 is the wake event, which only needs to wake up this worker; WAIT_TIMEOUT falls outside the range of watches
+                int index = result - WAIT_OBJECT_0 - 1;
+                if (index >= 0 && index < watches.size()) {
+                    signaled(watches.get(index));
+                }
+                return true;
+            }
+        }
+
+        private void updateWatches() {
+            Watch watch;
+            while ((watch = addedWatches.poll()) != null) {
+                watches.add(watch);
+            }
+
+            boolean removed = false;
+            for (Iterator<Watch> i = watches.iterator(); i.hasNext(); ) {
+                watch = i.next();
+                if (!watch.registration.isValid()) {
+                    i.remove();
+                    watch.close();
+                    removed = true;
+                }
+            }
+            if (removed) {
+                synchronized (RegistryWatchService.this) {
+                    watchCount = watches.size() + addedWatches.size();
+                }
+            }
+        }
+
+        private void signaled(Watch watch) {
+            Registration registration = watch.registration;
+            if (!registration.isValid()) {
+                // The registration has been cancelled; the watch will be removed during the next call
+                return;
+            }
+            // Request the next notification before reporting this change, so no changes are missed
+            boolean armed = watch.arm(false);
+            RegistryWatchService.this.signaled(watch);
+            if (!armed) {
+                // The registry key has most likely been deleted, which also triggers a notification
+                registration.cancel();
+            }
+        }
+
+        private void failed() {
+            synchronized (RegistryWatchService.this) {
+                workers.remove(this);
+            }
+            // The registrations of this worker can no longer be watched
+            updateWatches();
+            for (Watch watch : new ArrayList<>(watches)) {
+                watch.registration.cancel();
+            }
+            close();
+        }
+
+        private void close() {
+            for (Watch watch : watches) {
+                watch.close();
+            }
+            watches.clear();
+            closeEvent(wakeEvent);
+        }
+    }
+
+    /**
+     * An event that indicates that a registered registry key has changed.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    public static final class WatchEvent {
+
+        private final Watch watch;
+
+        private WatchEvent(Watch watch) {
+            this.watch = watch;
+        }
+
+        /**
+         * Returns the registration for which this watch event was reported.
+         *
+         * @return The registration for which this watch event was reported.
+         */
+        public Registration registration() {
+            return watch.registration;
+        }
+
+        /**
+         * Returns the registry key that has changed. If the registry key was registered with {@link WatchOption#WATCH_SUBTREE}, the change may
+         * have occurred in one of its nested keys instead.
+         *
+         * @return The registry key that has changed.
+         */
+        public RegistryKey registryKey() {
+            return watch.registration.registryKey;
+        }
+
+        /**
+         * Returns the kind of change.
+         *
+         * @return The kind of change.
+         */
+        public Kind kind() {
+            return watch.kind;
+        }
+
+        @Override
+        @SuppressWarnings("nls")
+        public String toString() {
+            return "WatchEvent[registryKey=" + registryKey() + ",kind=" + kind() + "]";
+        }
+    }
+
+    /**
+     * The possible kinds of changes to watch for.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    public enum Kind {
+        /** Indicates that sub keys have been added, deleted or renamed. */
+        SUB_KEYS(REG_NOTIFY_CHANGE_NAME),
+
+        /** Indicates that registry values have been added, changed or deleted. */
+        VALUES(REG_NOTIFY_CHANGE_LAST_SET),
+
+        /** Indicates that attributes of the registry key have changed. */
+        ATTRIBUTES(REG_NOTIFY_CHANGE_ATTRIBUTES),
+
+        /** Indicates that the security descriptor of the registry key has changed. */
+        SECURITY(REG_NOTIFY_CHANGE_SECURITY),
+        ;
+
+        private final int notifyFilter;
+
+        Kind(int notifyFilter) {
+            this.notifyFilter = notifyFilter;
+        }
+    }
+
+    /**
+     * Options that define how registry keys are watched.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    public enum WatchOption {
+        /** Indicates that changes to nested keys of registered registry keys should be reported as well. */
+        WATCH_SUBTREE,
+    }
+}
@@ -85,6 +85,11 @@ public final class RemoteRegistry extends Registry implements AutoCloseable {
         return new RemoteRootKey(machineName, rootKey, HKEY.target(phkResult));
     }
 
+    boolean isConnected() {
+        // This is a cheap call that fails if the connection is broken
+        return ((RemoteRootKey) HKEY_LOCAL_MACHINE).checkHKEY() == ERROR_SUCCESS;
+    }
+
     /**
      * Closes the connection to the remote registry.
      *
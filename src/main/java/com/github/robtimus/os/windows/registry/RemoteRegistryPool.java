@@ -0,0 +1,431 @@
+/*
+ * RemoteRegistryPool.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_INVALID_HANDLE;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.RPC_S_CALL_FAILED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.RPC_S_CALL_FAILED_DNE;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.RPC_S_SERVER_UNAVAILABLE;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * A pool of connections to the registries of remote machines. Connecting to a remote registry is relatively expensive; a pool allows connections
+ * to be reused instead.
+ * <p>
+ * Connections are lent out using {@link #lease(String)}, and returned to the pool by closing the returned {@link Lease}. This makes it possible to
+ * use leases in try-with-resources blocks. The same pool can be used by several threads at the same time, but each lease should only be used by
+ * one thread at a time.
+ * <p>
+ * A pool has a maximum number of connections per remote machine. If all connections to a remote machine are in use, leasing another one blocks
+ * until one is returned. Connections that have not been used for a configurable amount of time are closed.
+ * <p>
+ * Before an idle connection is lent out again, it is checked by querying the remote {@code HKEY_LOCAL_MACHINE} root key. If that fails, a new
+ * connection is made instead. Connections that fail while they are leased can be replaced using {@link Lease#call(Function)} or
+ * {@link Lease#invalidate()}.
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+public final class RemoteRegistryPool implements AutoCloseable {
+
+    private final int maxConnectionsPerHost;
+    private final long maxIdleTime;
+
+    private final ReentrantLock lock;
+    private final Map<String, Host> hosts;
+
+    private boolean closed;
+
+    private RemoteRegistryPool(int maxConnectionsPerHost, Duration maxIdleTime) {
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.maxIdleTime = maxIdleTime.toNanos();
+
+        this.lock = new ReentrantLock();
+        this.hosts = new HashMap<>();
+
+        this.closed = false;
+    }
+
+    /**
+     * Creates a new remote registry pool.
+     *
+     * @param maxConnectionsPerHost The maximum number of connections to the registry of a single remote machine.
+     * @param maxIdleTime The maximum time that a connection can remain unused before it is closed.
+     * @return The created remote registry pool.
+     * @throws NullPointerException If the given maximum idle time is {@code null}.
+     * @throws IllegalArgumentException If the given maximum number of connections per host is not positive,
+     *                                      or if the given maximum idle time is negative.
+     */
+    public static RemoteRegistryPool create(int maxConnectionsPerHost, Duration maxIdleTime) {
+        if (maxConnectionsPerHost <= 0) {
+            throw new IllegalArgumentException(maxConnectionsPerHost + " <= 0"); //$NON-NLS-1$
+        }
+        if (maxIdleTime.isNegative()) {
+            throw new IllegalArgumentException(maxIdleTime + " < 0"); //$NON-NLS-1$
+        }
+        return new RemoteRegistryPool(maxConnectionsPerHost, maxIdleTime);
+    }
+
+    /**
+     * Leases a connection to the registry on a remote machine. If possible an idle connection is reused; otherwise a new connection is made.
+     * If the maximum number of connections to the remote machine are already in use, this method blocks until one is returned.
+     * <p>
+     * The returned lease must be closed when the connection is no longer needed.
+     *
+     * @param machineName The machine name. This cannot be an IP address but must be a resolvable host name.
+     * @return A lease for a connection to the registry on the given remote machine.
+     * @throws NullPointerException If the given machine name is {@code null}.
+     * @throws IllegalStateException If this pool is closed.
+     * @throws InterruptedException If the current thread is interrupted while waiting for a connection.
+     * @throws RegistryException If a new connection is needed but the connection failed.
+     */
+    public Lease lease(String machineName) throws InterruptedException {
+        Objects.requireNonNull(machineName);
+
+        Host host;
+        Connection connection;
+
+        List<Connection> connectionsToClose = new ArrayList<>();
+        lock.lock();
+        try {
+            checkNotClosed();
+            evictIdle(System.nanoTime(), connectionsToClose);
+
+            host = hosts.computeIfAbsent(hostKey(machineName), _ -> new Host(machineName, lock.newCondition()));
+            host.waitingCount++;
+            try {
+                while (host.idle.isEmpty() && host.connectionCount >= maxConnectionsPerHost) {
+                    host.available.await();
+                    checkNotClosed();
+                }
+            } finally {
+                host.waitingCount--;
+            }
+
+            connection = host.idle.pollFirst();
+            if (connection == null) {
+                // Reserve a slot for the new connection
+                host.connectionCount++;
+            }
+        } finally {
+            lock.unlock();
+            closeAll(connectionsToClose);
+        }
+
+        try {
+            if (connection != null && !connection.registry.isConnected()) {
+                // Reuse the slot for a new connection
+                connection.close();
+                connection = null;
+            }
+            if (connection == null) {
+                connection = new Connection(RemoteRegistry.connect(host.machineName));
+            }
+        } catch (RuntimeException e) {
+            release(host, null);
+            throw e;
+        }
+        return new Lease(host, connection);
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException(Messages.RemoteRegistryPool.closed());
+        }
+    }
+
+    private void evictIdle(long now, List<Connection> connectionsToClose) {
+        Iterator<Host> hostIterator = hosts.values().iterator();
+        while (hostIterator.hasNext()) {
+            Host host = hostIterator.next();
+            // Idle connections are ordered from most to least recently returned
+            while (!host.idle.isEmpty() && now - host.idle.peekLast().lastReleaseTime > maxIdleTime) {
+                connectionsToClose.add(host.idle.pollLast());
+                host.connectionCount--;
+            }
+            if (host.isUnused()) {
+                hostIterator.remove();
+            }
+        }
+    }
+
+    // connection is null if the connection is already closed, or if no connection could be made
+    private void release(Host host, Connection connection) {
+        boolean close;
+        lock.lock();
+        try {
+            close = connection != null && closed;
+            if (connection == null || closed) {
+                host.connectionCount--;
+                if (host.isUnused()) {
+                    hosts.remove(hostKey(host.machineName), host);
+                }
+            } else {
+                connection.lastReleaseTime = System.nanoTime();
+                host.idle.addFirst(connection);
+            }
+            host.available.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (close) {
+            connection.close();
+        }
+    }
+
+    private void closeAll(List<Connection> connectionsToClose) {
+        for (Connection connection : connectionsToClose) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Returns the number of connections of this pool, including both idle connections and connections that are in use.
+     *
+     * @return The number of connections of this pool.
+     */
+    public int size() {
+        lock.lock();
+        try {
+            return hosts.values().stream()
+                    .mapToInt(host -> host.connectionCount)
+                    .sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the number of idle connections of this pool.
+     *
+     * @return The number of idle connections of this pool.
+     */
+    public int idleCount() {
+        lock.lock();
+        try {
+            return hosts.values().stream()
+                    .mapToInt(host -> host.idle.size())
+                    .sum();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Closes this pool. This will close all idle connections; connections that are in use will be closed once their leases are closed.
+     * Afterwards, this pool can no longer be used to lease connections.
+     */
+    @Override
+    public void close() {
+        List<Connection> connectionsToClose = new ArrayList<>();
+        lock.lock();
+        try {
+            closed = true;
+            Iterator<Host> hostIterator = hosts.values().iterator();
+            while (hostIterator.hasNext()) {
+                Host host = hostIterator.next();
+                connectionsToClose.addAll(host.idle);
+                host.connectionCount -= host.idle.size();
+                host.idle.clear();
+                // Let any waiting threads fail
+                host.available.signalAll();
+                if (host.isUnused()) {
+                    hostIterator.remove();
+                }
+            }
+        } finally {
+            lock.unlock();
+            closeAll(connectionsToClose);
+        }
+    }
+
+    static boolean isConnectionFailure(RegistryException exception) {
+        return switch (exception.errorCode()) {
+            case ERROR_INVALID_HANDLE, RPC_S_SERVER_UNAVAILABLE, RPC_S_CALL_FAILED, RPC_S_CALL_FAILED_DNE -> true;
+            default -> false;
+        };
+    }
+
+    private static String hostKey(String machineName) {
+        // Machine names are case insensitive
+        return machineName.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * A lease for a connection to the registry on a remote machine. Closing the lease returns the connection to the pool it was leased from.
+     * A lease should only be used by one thread at a time.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final Host host;
+        private Connection connection;
+
+        private Lease(Host host, Connection connection) {
+            this.host = host;
+            this.connection = connection;
+        }
+
+        /**
+         * Returns the machine name of the remote registry of this lease.
+         *
+         * @return The machine name of the remote registry of this lease.
+         */
+        public String machineName() {
+            return host.machineName;
+        }
+
+        /**
+         * Returns the remote registry of this lease. It should not be closed; instead, this lease should be closed.
+         *
+         * @return The remote registry of this lease.
+         * @throws IllegalStateException If this lease is closed or {@link #invalidate() invalidated}.
+         */
+        public RemoteRegistry registry() {
+            checkNotReleased();
+            return connection.registry;
+        }
+
+        /**
+         * Runs an action on the remote registry of this lease.
+         * If the action fails because the connection is broken, a new connection is made, and the action is run again once.
+         * The action should therefore not have any side effects that cannot safely be repeated.
+         *
+         * @param <R> The action's result type.
+         * @param action The action to run.
+         * @return The result of the action.
+         * @throws NullPointerException If the given action is {@code null}.
+         * @throws IllegalStateException If this lease is closed or {@link #invalidate() invalidated}.
+         * @throws RegistryException If the action fails for another reason, or if it fails again after reconnecting, or if reconnecting fails.
+         *                               If reconnecting fails, this lease is {@link #invalidate() invalidated}.
+         */
+        public <R> R call(Function<? super RemoteRegistry, ? extends R> action) {
+            Objects.requireNonNull(action);
+            checkNotReleased();
+
+            try {
+                return action.apply(connection.registry);
+            } catch (RegistryException e) {
+                if (!isConnectionFailure(e)) {
+                    throw e;
+                }
+                reconnect(e);
+                return action.apply(connection.registry);
+            }
+        }
+
+        private void reconnect(RegistryException failure) {
+            connection.close();
+            try {
+                connection = new Connection(RemoteRegistry.connect(host.machineName));
+            } catch (RuntimeException e) {
+                e.addSuppressed(failure);
+                connection = null;
+                release(host, null);
+                throw e;
+            }
+        }
+
+        /**
+         * Closes the connection of this lease instead of returning it to the pool.
+         * This should be called if the connection is known to be broken. Afterwards, this lease can no longer be used.
+         * If this lease is already closed or invalidated, this method does nothing.
+         */
+        public void invalidate() {
+            if (connection != null) {
+                Connection broken = connection;
+                connection = null;
+                broken.close();
+                release(host, null);
+            }
+        }
+
+        private void checkNotReleased() {
+            if (connection == null) {
+                throw new IllegalStateException(Messages.RemoteRegistryPool.leaseClosed());
+            }
+        }
+
+        /**
+         * Returns the connection of this lease to the pool it was leased from. Afterwards, this lease can no longer be used.
+         * If this lease is already closed or invalidated, this method does nothing.
+         */
+        @Override
+        public void close() {
+            if (connection != null) {
+                Connection released = connection;
+                connection = null;
+                release(host, released);
+            }
+        }
+    }
+
+    private static final class Host {
+
+        private final String machineName;
+        private final Deque<Connection> idle;
+        private final Condition available;
+
+        // Includes idle connections, connections that are in use, and connections that are being made
+        private int connectionCount;
+        private int waitingCount;
+
+        private Host(String machineName, Condition available) {
+            this.machineName = machineName;
+            this.idle = new ArrayDeque<>();
+            this.available = available;
+        }
+
+        private boolean isUnused() {
+            return connectionCount == 0 && waitingCount == 0;
+        }
+    }
+
+    private static final class Connection {
+
+        private final RemoteRegistry registry;
+        private long lastReleaseTime;
+
+        private Connection(RemoteRegistry registry) {
+            this.registry = registry;
+        }
+
+        private void close() {
+            try {
+                registry.close();
+            } catch (RegistryException e) {
+                // There is nobody to report this to
+                System.getLogger("windows-registry").log(System.Logger.Level.WARNING, e.getMessage(), e); //$NON-NLS-1$
+            }
+        }
+    }
+}
@@ -17,7 +17,6 @@
 
 package com.github.robtimus.os.windows.registry;
 
-import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryInfoKey;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
@@ -39,7 +38,7 @@ final class RemoteRootKey extends RegistryKey {
         this.local = local;
         this.hKey = hKey;
         this.handle = new Handle();
-        this.cleanable = closeOnClean(this, hKey, local.name(), machineName);
+        this.cleanable = closeOnClean(this, local.backend(), hKey, local.name(), machineName);
     }
 
     MemorySegment hKey() {
@@ -63,6 +62,11 @@ final class RemoteRootKey extends RegistryKey {
         return machineName;
     }
 
+    @Override
+    RegistryBackend backend() {
+        return local.backend();
+    }
+
     // traversal
 
     @Override
@@ -87,9 +91,8 @@ final class RemoteRootKey extends RegistryKey {
     }
 
     @Override
-    RegistryKey resolveChild(String name) {
-        RegistryKey resolved = local.resolveChild(name);
-        return new RemoteSubKey(this, (LocalSubKey) resolved);
+    RemoteSubKey resolveChild(String name) {
+        return new RemoteSubKey(this, local.resolveChild(name));
     }
 
     // other
@@ -145,6 +148,16 @@ final class RemoteRootKey extends RegistryKey {
         throw new UnsupportedOperationException(Messages.RegistryKey.cannotDeleteRoot(path()));
     }
 
+    @Override
+    public void deleteTree() {
+        throw new UnsupportedOperationException(Messages.RegistryKey.cannotDeleteRoot(path()));
+    }
+
+    @Override
+    public boolean deleteTreeIfExists() {
+        throw new UnsupportedOperationException(Messages.RegistryKey.cannotDeleteRoot(path()));
+    }
+
     // handles
 
     @Override
@@ -168,19 +181,14 @@ final class RemoteRootKey extends RegistryKey {
         throw RegistryException.forKey(code, path(), machineName());
     }
 
-    private int checkHKEY() {
-        return RegQueryInfoKey(
+    int checkHKEY() {
+        return backend().queryInfoKey(
                 hKey,
                 MemorySegment.NULL,
                 MemorySegment.NULL,
                 MemorySegment.NULL,
                 MemorySegment.NULL,
                 MemorySegment.NULL,
-                MemorySegment.NULL,
-                MemorySegment.NULL,
-                MemorySegment.NULL,
-                MemorySegment.NULL,
-                MemorySegment.NULL,
                 MemorySegment.NULL);
     }
 
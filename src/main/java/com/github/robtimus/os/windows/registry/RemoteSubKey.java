@@ -19,12 +19,11 @@ package com.github.robtimus.os.windows.registry;
 
 import java.lang.foreign.Arena;
 import java.lang.foreign.MemorySegment;
-import java.lang.foreign.SegmentAllocator;
 import java.lang.ref.Cleaner;
 import java.util.Optional;
 import java.util.function.IntPredicate;
 
-final class RemoteSubKey extends RegistryKey {
+final class RemoteSubKey extends SubKey {
 
     private final RemoteRootKey root;
     private final LocalSubKey local;
@@ -51,6 +50,11 @@ final class RemoteSubKey extends RegistryKey {
         return root.machineName();
     }
 
+    @Override
+    RegistryBackend backend() {
+        return root.backend();
+    }
+
     // traversal
 
     @Override
@@ -76,9 +80,8 @@ final class RemoteSubKey extends RegistryKey {
     }
 
     @Override
-    RegistryKey resolveChild(String name) {
-        RegistryKey resolved = local.resolveChild(name);
-        return new RemoteSubKey(root, (LocalSubKey) resolved);
+    RemoteSubKey resolveChild(String name) {
+        return new RemoteSubKey(root, local.resolveChild(name));
     }
 
     // other
@@ -116,6 +119,8 @@ final class RemoteSubKey extends RegistryKey {
         try (Arena allocator = Arena.ofConfined()) {
             LocalSubKey renamed = local.renameTo(root.hKey(), newName, allocator, machineName());
             return new RemoteSubKey(root, renamed);
+        } finally {
+            invalidateCachedHandles(this);
         }
     }
 
@@ -123,6 +128,8 @@ final class RemoteSubKey extends RegistryKey {
     public void delete() {
         try (Arena allocator = Arena.ofConfined()) {
             local.delete(root.hKey(), allocator, machineName());
+        } finally {
+            invalidateCachedHandles(this);
         }
     }
 
@@ -130,6 +137,26 @@ final class RemoteSubKey extends RegistryKey {
     public boolean deleteIfExists() {
         try (Arena allocator = Arena.ofConfined()) {
             return local.deleteIfExists(root.hKey(), allocator, machineName());
+        } finally {
+            invalidateCachedHandles(this);
+        }
+    }
+
+    @Override
+    public void deleteTree() {
+        try (Arena allocator = Arena.ofConfined()) {
+            local.deleteTree(root.hKey(), allocator, machineName());
+        } finally {
+            invalidateCachedHandles(this);
+        }
+    }
+
+    @Override
+    public boolean deleteTreeIfExists() {
+        try (Arena allocator = Arena.ofConfined()) {
+            return local.deleteTreeIfExists(root.hKey(), allocator, machineName());
+        } finally {
+            invalidateCachedHandles(this);
         }
     }
 
@@ -137,27 +164,43 @@ final class RemoteSubKey extends RegistryKey {
 
     @Override
     RegistryKey.Handle handle(int samDesired, boolean create) {
-        try (Arena allocator = Arena.ofConfined()) {
-            MemorySegment hKey = hKey(samDesired, create, allocator);
-            return new Handle(hKey);
+        Optional<HandleCache> cache = handleCache();
+        if (cache.isPresent()) {
+            return cachedHandle(cache.get(), samDesired, () -> hKey(samDesired, create));
         }
+        MemorySegment hKey = hKey(samDesired, create);
+        return new Handle(hKey);
     }
 
     @Override
     Optional<RegistryKey.Handle> handle(int samDesired, IntPredicate ignoreError) {
+        Optional<HandleCache> cache = handleCache();
+        if (cache.isPresent()) {
+            return Optional.ofNullable(cachedHandle(cache.get(), samDesired, () -> hKey(samDesired, ignoreError)));
+        }
+        MemorySegment hKey = hKey(samDesired, ignoreError);
+        return Optional.ofNullable(hKey)
+                .map(Handle::new);
+    }
+
+    @Override
+    RegistryKey.Handle handle(MemorySegment parentHKey, int samDesired, boolean create) {
         try (Arena allocator = Arena.ofConfined()) {
-            MemorySegment hKey = hKey(samDesired, ignoreError, allocator);
-            return Optional.ofNullable(hKey)
-                    .map(Handle::new);
+            MemorySegment hKey = local.hKey(parentHKey, local.name(), samDesired, create, allocator, machineName());
+            return new Handle(hKey);
         }
     }
 
-    private MemorySegment hKey(int samDesired, boolean create, SegmentAllocator allocator) {
-        return local.hKey(root.hKey(), samDesired, create, allocator, machineName());
+    private MemorySegment hKey(int samDesired, boolean create) {
+        try (Arena allocator = Arena.ofConfined()) {
+            return local.hKey(root.hKey(), samDesired, create, allocator, machineName());
+        }
     }
 
-    private MemorySegment hKey(int samDesired, IntPredicate ignoreError, SegmentAllocator allocator) {
-        return local.hKey(root.hKey(), samDesired, ignoreError, allocator, machineName());
+    private MemorySegment hKey(int samDesired, IntPredicate ignoreError) {
+        try (Arena allocator = Arena.ofConfined()) {
+            return local.hKey(root.hKey(), samDesired, ignoreError, allocator, machineName());
+        }
     }
 
     // Comparable / Object
@@ -194,7 +237,7 @@ final class RemoteSubKey extends RegistryKey {
 
         private Handle(MemorySegment hKey) {
             super(hKey);
-            this.cleanable = closeOnClean(this, hKey, path(), machineName());
+            this.cleanable = closeOnClean(this, backend(), hKey, path(), machineName());
         }
 
         @Override
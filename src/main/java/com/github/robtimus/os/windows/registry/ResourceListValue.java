@@ -37,6 +37,11 @@ public final class ResourceListValue extends RegistryValue {
         this.data = data.asSlice(0, dataLength).toArray(ValueLayout.JAVA_BYTE);
     }
 
+    @Override
+    long dataSize() {
+        return data.length;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,320 @@
+/*
+ * SnapshotCapture.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_READ;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import com.github.robtimus.os.windows.registry.RegistryKey.Handle;
+import com.github.robtimus.os.windows.registry.RegistrySnapshot.Node;
+import com.github.robtimus.os.windows.registry.WindowsTypes.FILETIME;
+
+/*
+ * Captures registry keys into snapshot nodes. It is not thread safe.
+ *
+ * Like RegistryCopier, sub keys are opened relative to the handle of their parent key, and sub keys and values are enumerated directly into an
+ * EnumerationBuffer. The raw data of values is copied into a scratch buffer, which is then trimmed to the exact size for each registry key.
+ * Names are added to a string table, so each distinct name is stored only once.
+ *
+ * When refreshing, the string table starts with the names of the previous snapshot, so the name indexes of its nodes remain valid. These names
+ * are not copied unless new names are added. Names of removed registry keys and values stay in the string table, so if less than half of the
+ * names is still used after refreshing, the string table is compacted. All nodes then need to be copied, as their name indexes change.
+ * A registry key's last write time changes when its values change or when direct sub keys are added or removed, but not when nested keys change.
+ * Every registry key is therefore still queried, but only registry keys with a different last write time, sub key count or value count are read
+ * again. Nodes of which neither the registry key nor any nested key changed are reused as-is.
+ */
+final class SnapshotCapture {
+
+    private static final int INITIAL_DATA_SIZE = 1024;
+
+    private String[] previousNames;
+    private final List<String> addedNames;
+    // Only created when needed, as refreshing often does not add any names
+    private Map<String, Integer> nameIndexes;
+
+    private final EnumerationBuffer buffer;
+    private final MemorySegment lpcSubKeys;
+    private final MemorySegment lpcValues;
+    private final MemorySegment lpftLastWriteTime;
+
+    private byte[] data;
+
+    SnapshotCapture() {
+        this(new String[0]);
+    }
+
+    SnapshotCapture(String[] previousNames) {
+        this.previousNames = previousNames;
+        addedNames = new ArrayList<>();
+        nameIndexes = null;
+
+        buffer = new EnumerationBuffer();
+        Arena allocator = Arena.ofAuto();
+        lpcSubKeys = allocator.allocate(ValueLayout.JAVA_INT);
+        lpcValues = allocator.allocate(ValueLayout.JAVA_INT);
+        lpftLastWriteTime = FILETIME.allocate(allocator);
+
+        data = new byte[INITIAL_DATA_SIZE];
+    }
+
+    Node capture(RegistryKey registryKey, Handle handle, int maxDepth) {
+        return refreshKey(registryKey, handle, null, nameIndex(registryKey.name()), 0, maxDepth);
+    }
+
+    Node refresh(RegistryKey registryKey, Handle handle, Node previous, int maxDepth) {
+        Node result = refreshKey(registryKey, handle, previous, previous.name, 0, maxDepth);
+        return result != previous
+                ? compact(result)
+                : result;
+    }
+
+    String[] names() {
+        if (addedNames.isEmpty()) {
+            return previousNames;
+        }
+        String[] result = Arrays.copyOf(previousNames, previousNames.length + addedNames.size());
+        for (int i = 0; i < addedNames.size(); i++) {
+            result[previousNames.length + i] = addedNames.get(i);
+        }
+        return result;
+    }
+
+    private Node refreshKey(RegistryKey registryKey, Handle handle, Node previous, int name, int depth, int maxDepth) {
+        queryInfo(registryKey, handle);
+        long lastWriteTime = lastWriteTime();
+
+        if (previous != null && isUnchanged(previous, lastWriteTime, depth, maxDepth)) {
+            Node result = refreshSubKeys(registryKey, handle, previous, depth, maxDepth);
+            // The registry key may have been renamed to a name that only differs in case
+            return result.name == name
+                    ? result
+                    : new Node(name, result.lastWriteTime, result.subKeys, result.valueNames, result.valueTypes, result.dataOffsets, result.data);
+        }
+
+        return captureKey(registryKey, handle, previous, name, lastWriteTime, depth, maxDepth);
+    }
+
+    private boolean isUnchanged(Node previous, long lastWriteTime, int depth, int maxDepth) {
+        return previous.lastWriteTime == lastWriteTime
+                && previous.valueCount() == lpcValues.get(ValueLayout.JAVA_INT, 0)
+                // Registry keys at the maximum depth have no sub keys
+                && (depth >= maxDepth || previous.subKeys.length == lpcSubKeys.get(ValueLayout.JAVA_INT, 0));
+    }
+
+    private Node refreshSubKeys(RegistryKey registryKey, Handle handle, Node previous, int depth, int maxDepth) {
+        if (depth >= maxDepth) {
+            return previous;
+        }
+
+        List<Node> subKeys = new ArrayList<>(previous.subKeys.length);
+        boolean changed = false;
+        for (Node previousSubKey : previous.subKeys) {
+            Node subKey = refreshSubKey(registryKey, handle, previousSubKey, name(previousSubKey.name), depth, maxDepth);
+            if (subKey != null) {
+                subKeys.add(subKey);
+            }
+            changed |= subKey != previousSubKey;
+        }
+        return changed
+                // The order of the sub keys has not changed, so there is no need to sort them again
+                ? new Node(previous.name, previous.lastWriteTime, subKeys.toArray(Node[]::new),
+                        previous.valueNames, previous.valueTypes, previous.dataOffsets, previous.data)
+                : previous;
+    }
+
+    private Node captureKey(RegistryKey registryKey, Handle handle, Node previous, int name, long lastWriteTime, int depth, int maxDepth) {
+
+        // Values must be captured before sub keys, as the buffer only has one set of value buffers, and sub keys reuse the scratch buffer
+        List<Integer> valueNames = new ArrayList<>();
+        List<Integer> valueTypes = new ArrayList<>();
+        List<Integer> dataOffsets = new ArrayList<>();
+        int dataLength = 0;
+        for (int index = 0; buffer.value(registryKey, handle, index); index++) {
+            valueNames.add(nameIndex(WString.getString(buffer.lpValueName(), buffer.valueNameLength())));
+            valueTypes.add(buffer.type());
+            dataOffsets.add(dataLength);
+            dataLength = appendData(dataLength);
+        }
+        dataOffsets.add(dataLength);
+        byte[] keyData = Arrays.copyOf(data, dataLength);
+
+        Node[] subKeys = depth < maxDepth
+                ? captureSubKeys(registryKey, handle, previous, depth, maxDepth)
+                : new Node[0];
+
+        return new Node(
+                name,
+                lastWriteTime,
+                subKeys,
+                toArray(valueNames),
+                toArray(valueTypes),
+                toArray(dataOffsets),
+                keyData);
+    }
+
+    private Node[] captureSubKeys(RegistryKey registryKey, Handle handle, Node previous, int depth, int maxDepth) {
+        List<Node> subKeys = new ArrayList<>();
+        for (int index = 0; ; index++) {
+            String subKeyName = buffer.subKey(registryKey, handle, index, depth);
+            if (subKeyName == null) {
+                break;
+            }
+            Node previousSubKey = previous != null ? previous.findSubKey(subKeyName, this::name) : null;
+            Node subKey = refreshSubKey(registryKey, handle, previousSubKey, subKeyName, depth, maxDepth);
+            if (subKey != null) {
+                subKeys.add(subKey);
+            }
+        }
+        return sortSubKeys(subKeys);
+    }
+
+    private Node refreshSubKey(RegistryKey registryKey, Handle handle, Node previous, String subKeyName, int depth, int maxDepth) {
+        SubKey subKey = registryKey.resolveChild(subKeyName);
+        Handle subKeyHandle;
+        try {
+            subKeyHandle = subKey.handle(handle.hKey, KEY_READ, false);
+        } catch (NoSuchRegistryKeyException e) {
+            // The registry key was removed after it was enumerated
+            return null;
+        }
+        try (subKeyHandle) {
+            int name = previous != null && name(previous.name).equals(subKeyName) ? previous.name : nameIndex(subKeyName);
+            return refreshKey(subKey, subKeyHandle, previous, name, depth + 1, maxDepth);
+        }
+    }
+
+    private Node[] sortSubKeys(List<Node> subKeys) {
+        Node[] result = subKeys.toArray(Node[]::new);
+        // Snapshots find sub keys using a binary search
+        Arrays.sort(result, Comparator.comparing(subKey -> name(subKey.name), String.CASE_INSENSITIVE_ORDER));
+        return result;
+    }
+
+    private void queryInfo(RegistryKey registryKey, Handle handle) {
+        // This is the same query as Handle.attributes(), but with reused buffers and without converting the last write time
+        int code = registryKey.backend().queryInfoKey(
+                handle.hKey,
+                lpcSubKeys,
+                MemorySegment.NULL,
+                lpcValues,
+                MemorySegment.NULL,
+                MemorySegment.NULL,
+                lpftLastWriteTime);
+        if (code != ERROR_SUCCESS) {
+            throw RegistryException.forKey(code, registryKey.path(), registryKey.machineName());
+        }
+    }
+
+    private long lastWriteTime() {
+        return Integer.toUnsignedLong(FILETIME.dwLowDateTime(lpftLastWriteTime))
+                | (long) FILETIME.dwHighDateTime(lpftLastWriteTime) << 32;
+    }
+
+    private int appendData(int offset) {
+        int length = buffer.dataLength();
+        if (offset + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, offset + length));
+        }
+        MemorySegment.copy(buffer.lpData(), ValueLayout.JAVA_BYTE, 0, data, offset, length);
+        return offset + length;
+    }
+
+    // string table
+
+    private String name(int index) {
+        return index < previousNames.length
+                ? previousNames[index]
+                : addedNames.get(index - previousNames.length);
+    }
+
+    private int nameIndex(String name) {
+        if (nameIndexes == null) {
+            nameIndexes = new HashMap<>();
+            for (int i = 0; i < previousNames.length; i++) {
+                nameIndexes.put(previousNames[i], i);
+            }
+        }
+        return nameIndexes.computeIfAbsent(name, n -> {
+            addedNames.add(n);
+            return previousNames.length + addedNames.size() - 1;
+        });
+    }
+
+    private Node compact(Node root) {
+        int nameCount = previousNames.length + addedNames.size();
+        BitSet used = new BitSet(nameCount);
+        markUsedNames(root, used);
+        int usedCount = used.cardinality();
+        if (usedCount * 2 >= nameCount) {
+            return root;
+        }
+
+        String[] compactedNames = new String[usedCount];
+        int[] newIndexes = new int[nameCount];
+        int newIndex = 0;
+        for (int i = used.nextSetBit(0); i >= 0; i = used.nextSetBit(i + 1)) {
+            compactedNames[newIndex] = name(i);
+            newIndexes[i] = newIndex;
+            newIndex++;
+        }
+
+        previousNames = compactedNames;
+        addedNames.clear();
+        nameIndexes = null;
+
+        return renameNodes(root, newIndexes);
+    }
+
+    private static void markUsedNames(Node node, BitSet used) {
+        used.set(node.name);
+        for (int valueName : node.valueNames) {
+            used.set(valueName);
+        }
+        for (Node subKey : node.subKeys) {
+            markUsedNames(subKey, used);
+        }
+    }
+
+    private static Node renameNodes(Node node, int[] newIndexes) {
+        Node[] subKeys = new Node[node.subKeys.length];
+        for (int i = 0; i < subKeys.length; i++) {
+            subKeys[i] = renameNodes(node.subKeys[i], newIndexes);
+        }
+        int[] valueNames = new int[node.valueNames.length];
+        for (int i = 0; i < valueNames.length; i++) {
+            valueNames[i] = newIndexes[node.valueNames[i]];
+        }
+        // The order of names does not change, so sub keys remain sorted; value types and data can be shared
+        return new Node(newIndexes[node.name], node.lastWriteTime, subKeys, valueNames, node.valueTypes, node.dataOffsets, node.data);
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream()
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * SnapshotRegistryBackend.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.InMemoryRegistryBackend.copyName;
+import static com.github.robtimus.os.windows.registry.InMemoryRegistryBackend.pathParts;
+import static com.github.robtimus.os.windows.registry.InMemoryRegistryBackend.setInt;
+import static com.github.robtimus.os.windows.registry.InMemoryRegistryBackend.valueName;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_MORE_DATA;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NO_MORE_ITEMS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.function.IntFunction;
+import com.github.robtimus.os.windows.registry.RegistrySnapshot.Node;
+import com.github.robtimus.os.windows.registry.WindowsTypes.FILETIME;
+import com.github.robtimus.os.windows.registry.WindowsTypes.HKEY;
+import com.github.robtimus.os.windows.registry.WindowsTypes.VALENT;
+
+/*
+ * A read-only registry backend for the nodes of a registry snapshot. Handles are mapped to nodes.
+ *
+ * Names are stored as indexes in a string table. Sub keys are sorted by name, so they can be found using a binary search.
+ */
+final class SnapshotRegistryBackend extends ReadOnlyRegistryBackend<Node> {
+
+    private final String[] names;
+    private final IntFunction<String> nameLookup;
+
+    SnapshotRegistryBackend(String[] names, Node root) {
+        super(root);
+        this.names = names;
+        this.nameLookup = index -> names[index];
+    }
+
+    @Override
+    public int enumKey(
+            MemorySegment hKey,
+            int dwIndex,
+            MemorySegment lpName,
+            MemorySegment lpcchName) {
+
+        return read(hKey, node -> dwIndex >= 0 && dwIndex < node.subKeys.length
+                ? copyName(names[node.subKeys[dwIndex].name], lpName, lpcchName)
+                : ERROR_NO_MORE_ITEMS);
+    }
+
+    @Override
+    public int enumValue(
+            MemorySegment hKey,
+            int dwIndex,
+            MemorySegment lpValueName,
+            MemorySegment lpcchValueName,
+            MemorySegment lpType,
+            MemorySegment lpData,
+            MemorySegment lpcbData) {
+
+        return read(hKey, node -> {
+            if (dwIndex < 0 || dwIndex >= node.valueCount()) {
+                return ERROR_NO_MORE_ITEMS;
+            }
+            int code = copyName(names[node.valueNames[dwIndex]], lpValueName, lpcchValueName);
+            return code == ERROR_SUCCESS
+                    ? copyData(node, dwIndex, lpType, lpData, lpcbData)
+                    : code;
+        });
+    }
+
+    @Override
+    public int openKey(
+            MemorySegment hKey,
+            MemorySegment lpSubKey,
+            int ulOptions,
+            int samDesired,
+            MemorySegment phkResult) {
+
+        return read(hKey, node -> {
+            Node result = node;
+            for (String name : pathParts(lpSubKey)) {
+                result = result.findSubKey(name, nameLookup);
+                if (result == null) {
+                    return ERROR_FILE_NOT_FOUND;
+                }
+            }
+            HKEY.target(phkResult, open(result));
+            return ERROR_SUCCESS;
+        });
+    }
+
+    @Override
+    public int queryInfoKey(
+            MemorySegment hKey,
+            MemorySegment lpcSubKeys,
+            MemorySegment lpcbMaxSubKeyLen,
+            MemorySegment lpcValues,
+            MemorySegment lpcbMaxValueNameLen,
+            MemorySegment lpcbMaxValueLen,
+            MemorySegment lpftLastWriteTime) {
+
+        return read(hKey, node -> {
+            int maxSubKeyLen = 0;
+            for (Node subKey : node.subKeys) {
+                maxSubKeyLen = Math.max(maxSubKeyLen, names[subKey.name].length());
+            }
+            int maxValueNameLen = 0;
+            int maxValueLen = 0;
+            for (int i = 0; i < node.valueCount(); i++) {
+                maxValueNameLen = Math.max(maxValueNameLen, names[node.valueNames[i]].length());
+                maxValueLen = Math.max(maxValueLen, node.dataLength(i));
+            }
+
+            setInt(lpcSubKeys, node.subKeys.length);
+            setInt(lpcbMaxSubKeyLen, maxSubKeyLen);
+            setInt(lpcValues, node.valueCount());
+            setInt(lpcbMaxValueNameLen, maxValueNameLen);
+            setInt(lpcbMaxValueLen, maxValueLen);
+            if (!MemorySegment.NULL.equals(lpftLastWriteTime)) {
+                FILETIME.dwLowDateTime(lpftLastWriteTime, (int) node.lastWriteTime);
+                FILETIME.dwHighDateTime(lpftLastWriteTime, (int) (node.lastWriteTime >>> 32));
+            }
+            return ERROR_SUCCESS;
+        });
+    }
+
+    @Override
+    public int queryMultipleValues(
+            MemorySegment hKey,
+            MemorySegment valList,
+            int numVals,
+            MemorySegment lpValueBuf,
+            MemorySegment ldwTotsize) {
+
+        return read(hKey, node -> {
+            int[] indexes = new int[numVals];
+            long totalSize = 0;
+            for (int i = 0; i < numVals; i++) {
+                indexes[i] = findValue(node, valueName(VALENT.ve_valuename(VALENT.element(valList, i))));
+                if (indexes[i] == -1) {
+                    return ERROR_FILE_NOT_FOUND;
+                }
+                totalSize += node.dataLength(indexes[i]);
+            }
+
+            int availableSize = ldwTotsize.get(ValueLayout.JAVA_INT, 0);
+            ldwTotsize.set(ValueLayout.JAVA_INT, 0, Math.toIntExact(totalSize));
+            if (MemorySegment.NULL.equals(lpValueBuf)) {
+                return ERROR_SUCCESS;
+            }
+            if (Integer.toUnsignedLong(availableSize) < totalSize) {
+                return ERROR_MORE_DATA;
+            }
+
+            long offset = 0;
+            for (int i = 0; i < numVals; i++) {
+                MemorySegment valent = VALENT.element(valList, i);
+                int index = indexes[i];
+                int dataLength = node.dataLength(index);
+                MemorySegment.copy(node.data, node.dataOffsets[index], lpValueBuf, ValueLayout.JAVA_BYTE, offset, dataLength);
+                VALENT.ve_valuelen(valent, dataLength);
+                VALENT.ve_valueptr(valent, lpValueBuf.asSlice(offset));
+                VALENT.ve_type(valent, node.valueTypes[index]);
+                offset += dataLength;
+            }
+            return ERROR_SUCCESS;
+        });
+    }
+
+    @Override
+    public int queryValue(
+            MemorySegment hKey,
+            MemorySegment lpValueName,
+            MemorySegment lpType,
+            MemorySegment lpData,
+            MemorySegment lpcbData) {
+
+        return read(hKey, node -> {
+            int index = findValue(node, valueName(lpValueName));
+            return index != -1
+                    ? copyData(node, index, lpType, lpData, lpcbData)
+                    : ERROR_FILE_NOT_FOUND;
+        });
+    }
+
+    private int findValue(Node node, String name) {
+        for (int i = 0; i < node.valueCount(); i++) {
+            if (names[node.valueNames[i]].equalsIgnoreCase(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int copyData(Node node, int index, MemorySegment lpType, MemorySegment lpData, MemorySegment lpcbData) {
+        setInt(lpType, node.valueTypes[index]);
+        if (MemorySegment.NULL.equals(lpcbData)) {
+            return ERROR_SUCCESS;
+        }
+        int dataLength = node.dataLength(index);
+        int available = lpcbData.get(ValueLayout.JAVA_INT, 0);
+        lpcbData.set(ValueLayout.JAVA_INT, 0, dataLength);
+        if (MemorySegment.NULL.equals(lpData)) {
+            return ERROR_SUCCESS;
+        }
+        if (Integer.toUnsignedLong(available) < dataLength) {
+            return ERROR_MORE_DATA;
+        }
+        MemorySegment.copy(node.data, node.dataOffsets[index], lpData, ValueLayout.JAVA_BYTE, 0, dataLength);
+        return ERROR_SUCCESS;
+    }
+}
@@ -138,6 +138,12 @@ public final class StringValue extends SettableRegistryValue {
         return expandableOf(name(), value);
     }
 
+    @Override
+    long dataSize() {
+        // Include the terminating null character
+        return (value.length() + 1L) * WString.CHAR_SIZE;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
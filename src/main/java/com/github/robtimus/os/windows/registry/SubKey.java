@@ -1,6 +1,6 @@
 /*
- * LookaheadIterator.java
- * Copyright 2020 Rob Spoor
+ * SubKey.java
+ * Copyright 2026 Rob Spoor
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,30 +17,19 @@
 
 package com.github.robtimus.os.windows.registry;
 
-import java.util.Iterator;
-import java.util.NoSuchElementException;
+import java.lang.foreign.MemorySegment;
 
-abstract class LookaheadIterator<T> implements Iterator<T> {
-
-    private T next = null;
-
-    @Override
-    public boolean hasNext() {
-        if (next == null) {
-            next = nextElement();
-        }
-        return next != null;
-    }
+/*
+ * A registry key that is not a root key. Only these registry keys are returned by RegistryKey.resolveChild(String), and only these can be opened
+ * relative to the handle of their parent key.
+ */
+abstract sealed class SubKey extends RegistryKey permits LocalSubKey, RemoteSubKey {
 
-    @Override
-    public T next() {
-        if (!hasNext()) {
-            throw new NoSuchElementException();
-        }
-        T result = next;
-        next = null;
-        return result;
+    SubKey() {
     }
 
-    protected abstract T nextElement();
+    /*
+     * Creates a handle relative to the handle of this registry key's parent.
+     */
+    abstract Handle handle(MemorySegment parentHKey, int samDesired, boolean create);
 }
@@ -0,0 +1,231 @@
+/*
+ * ValueBatch.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static java.lang.Math.toIntExact;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.SegmentAllocator;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import com.github.robtimus.os.windows.registry.RegistryKey.Handle;
+
+/**
+ * A batch of changes to the registry values of a single registry key.
+ * Instances are provided by {@link RegistryKey#updateValues(java.util.function.Consumer)} and
+ * {@link Handle#updateValues(java.util.function.Consumer)}.
+ * <p>
+ * Changes are not applied immediately but collected, and applied in the order they were added once the action that was given the batch
+ * has finished. All changes are applied using the same handle, and the data of all registry values is encoded into the same reusable memory.
+ * A change that fails does not prevent any of the other changes from being applied; instead, all failures are collected in the
+ * {@link Result result} of the batch.
+ * <p>
+ * Instances of this class are not thread safe, and should not be used after the action that was given the batch has finished.
+ *
+ * @author Rob Spoor
+ * @since 2.1
+ */
+public final class ValueBatch {
+
+    private static final long INITIAL_BUFFER_SIZE = 1024;
+
+    private final List<Change> changes;
+
+    ValueBatch() {
+        changes = new ArrayList<>();
+    }
+
+    /**
+     * Adds a registry value to set.
+     *
+     * @param value The registry value to set.
+     * @return This batch.
+     * @throws NullPointerException If the given registry value is {@code null}.
+     */
+    public ValueBatch setValue(SettableRegistryValue value) {
+        Objects.requireNonNull(value);
+        changes.add(new Change(value.name(), value, false));
+        return this;
+    }
+
+    /**
+     * Adds a registry value to delete. If the registry value does not exist, the result of the batch will contain a
+     * {@link NoSuchRegistryValueException} for it.
+     *
+     * @param name The name of the registry value to delete.
+     * @return This batch.
+     * @throws NullPointerException If the given name is {@code null}.
+     */
+    public ValueBatch deleteValue(String name) {
+        Objects.requireNonNull(name);
+        changes.add(new Change(name, null, false));
+        return this;
+    }
+
+    /**
+     * Adds a registry value to delete if it exists.
+     *
+     * @param name The name of the registry value to delete.
+     * @return This batch.
+     * @throws NullPointerException If the given name is {@code null}.
+     */
+    public ValueBatch deleteValueIfExists(String name) {
+        Objects.requireNonNull(name);
+        changes.add(new Change(name, null, true));
+        return this;
+    }
+
+    boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    Result apply(RegistryKey registryKey, Handle handle) {
+        List<RegistryException> failures = new ArrayList<>();
+        BitSet failedChanges = new BitSet(changes.size());
+        ReusableAllocator allocator = new ReusableAllocator();
+        for (int i = 0; i < changes.size(); i++) {
+            Change change = changes.get(i);
+            allocator.reset();
+
+            int code = change.apply(registryKey.backend(), handle.hKey, allocator);
+            if (code != ERROR_SUCCESS) {
+                failures.add(RegistryException.forValue(code, registryKey.path(), registryKey.machineName(), change.name()));
+                failedChanges.set(i);
+            }
+        }
+        return new Result(changes.size(), failures, failedChanges);
+    }
+
+    /**
+     * The result of applying a batch of changes.
+     *
+     * @author Rob Spoor
+     * @since 2.1
+     */
+    public static final class Result {
+
+        private final int changeCount;
+        private final List<RegistryException> failures;
+        private final BitSet failedChanges;
+
+        private Result(int changeCount, List<RegistryException> failures, BitSet failedChanges) {
+            this.changeCount = changeCount;
+            this.failures = Collections.unmodifiableList(failures);
+            this.failedChanges = failedChanges;
+        }
+
+        /**
+         * Returns the number of changes that were applied, including those that failed.
+         *
+         * @return The number of changes that were applied.
+         */
+        public int changeCount() {
+            return changeCount;
+        }
+
+        /**
+         * Returns the failures of the changes that could not be applied, in the order the changes were added.
+         * Failures for registry values that do not exist are reported as {@link NoSuchRegistryValueException}.
+         *
+         * @return An unmodifiable list with the failures of the changes that could not be applied.
+         */
+        public List<RegistryException> failures() {
+            return failures;
+        }
+
+        /**
+         * Returns whether or not all changes were applied successfully.
+         *
+         * @return {@code true} if all changes were applied successfully, or {@code false} otherwise.
+         */
+        public boolean isSuccessful() {
+            return failures.isEmpty();
+        }
+
+        // index is the index of the change in the order the changes were added
+        boolean isFailed(int index) {
+            return failedChanges.get(index);
+        }
+
+        @Override
+        @SuppressWarnings("nls")
+        public String toString() {
+            return "ValueBatch.Result[changeCount=" + changeCount + ",failures=" + failures + "]";
+        }
+    }
+
+    // value is null for deletions
+    private record Change(String name, SettableRegistryValue value, boolean ignoreMissing) {
+
+        private int apply(RegistryBackend backend, MemorySegment hKey, SegmentAllocator allocator) {
+            MemorySegment lpValueName = WString.allocate(allocator, name);
+            if (value != null) {
+                MemorySegment lpData = value.rawData(allocator);
+                return backend.setValue(hKey, lpValueName, value.type(), lpData, toIntExact(lpData.byteSize()));
+            }
+            int code = backend.deleteValue(hKey, lpValueName);
+            return code == ERROR_FILE_NOT_FOUND && ignoreMissing ? ERROR_SUCCESS : code;
+        }
+    }
+
+    /*
+     * An allocator that hands out slices of a single buffer, which is reused for each change. If a change needs more memory than the buffer has
+     * left, it is replaced by a larger one; slices of the previous buffer remain valid because each buffer has its own automatic arena.
+     * Slices are zeroed, as WString and the registry value types expect allocated memory to be zero-initialized like memory allocated by an arena.
+     */
+    private static final class ReusableAllocator implements SegmentAllocator {
+
+        private MemorySegment buffer;
+        private long offset;
+
+        private ReusableAllocator() {
+            buffer = Arena.ofAuto().allocate(INITIAL_BUFFER_SIZE, Long.BYTES);
+            offset = 0;
+        }
+
+        private void reset() {
+            offset = 0;
+        }
+
+        @Override
+        public MemorySegment allocate(long byteSize, long byteAlignment) {
+            long start = alignedOffset(byteAlignment);
+            if (start + byteSize > buffer.byteSize()) {
+                long newSize = Math.max(buffer.byteSize() * 2, byteSize + byteAlignment);
+                buffer = Arena.ofAuto().allocate(newSize, Long.BYTES);
+                offset = 0;
+                start = alignedOffset(byteAlignment);
+            }
+            MemorySegment segment = buffer.asSlice(start, byteSize, byteAlignment);
+            segment.fill((byte) 0);
+            offset = start + byteSize;
+            return segment;
+        }
+
+        private long alignedOffset(long byteAlignment) {
+            long address = buffer.address() + offset;
+            long alignedAddress = (address + byteAlignment - 1) & -byteAlignment;
+            return alignedAddress - buffer.address();
+        }
+    }
+}
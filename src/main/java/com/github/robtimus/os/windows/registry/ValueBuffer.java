@@ -0,0 +1,132 @@
+/*
+ * ValueBuffer.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+// A reusable buffer for reading registry values with a single call to RegQueryValueEx. It is not thread safe.
+// Each thread has its own buffer. Handles are often only used for a single read, so a buffer per handle would hardly ever be reused.
+final class ValueBuffer {
+
+    static final int INITIAL_DATA_SIZE = 256;
+    static final int INITIAL_NAME_LENGTH = 32;
+
+    // Data buffers that have grown beyond this size are not kept after use, so a single large value does not keep memory in use for each thread
+    static final int MAX_RETAINED_DATA_SIZE = 64 * 1024;
+
+    // Calls that keep returning ERROR_MORE_DATA are not retried indefinitely; values that keep changing or backends that do not report
+    // the required size would otherwise cause an endless loop
+    static final int MAX_ATTEMPTS = 8;
+
+    // Extra zeroed bytes after the data, so strings are always null-terminated (for REG_MULTI_SZ twice),
+    // and DWORD and QWORD values that were stored with too little data can still be read
+    private static final long PADDING = ValueLayout.JAVA_LONG.byteSize();
+
+    private static final ThreadLocal<ValueBuffer> BUFFER = ThreadLocal.withInitial(ValueBuffer::new);
+
+    private final MemorySegment lpType;
+    private final MemorySegment lpcbData;
+
+    private MemorySegment lpValueName;
+    private MemorySegment lpData;
+
+    private boolean inUse;
+
+    private ValueBuffer() {
+        // Use a separate automatic arena for each segment, so segments that are replaced can be freed independently
+        lpType = Arena.ofAuto().allocate(ValueLayout.JAVA_INT);
+        lpcbData = Arena.ofAuto().allocate(ValueLayout.JAVA_INT);
+
+        lpValueName = WString.allocate(Arena.ofAuto(), INITIAL_NAME_LENGTH);
+        lpData = Arena.ofAuto().allocate(INITIAL_DATA_SIZE + PADDING);
+
+        inUse = false;
+    }
+
+    static ValueBuffer acquire() {
+        ValueBuffer buffer = BUFFER.get();
+        if (buffer.inUse) {
+            // Guard against reentrant use; no other code should run while a buffer is in use
+            return new ValueBuffer();
+        }
+        buffer.inUse = true;
+        return buffer;
+    }
+
+    void release() {
+        inUse = false;
+        if (lpData.byteSize() > MAX_RETAINED_DATA_SIZE) {
+            lpData = Arena.ofAuto().allocate(INITIAL_DATA_SIZE + PADDING);
+        }
+    }
+
+    MemorySegment valueName(String name) {
+        long size = (name.length() + 1L) * WString.CHAR_SIZE;
+        if (lpValueName.byteSize() < size) {
+            lpValueName = WString.allocate(Arena.ofAuto(), name.length());
+        }
+        // Copy the characters one by one instead of using WString.copy, which creates a char array for each call
+        for (int i = 0; i < name.length(); i++) {
+            lpValueName.set(ValueLayout.JAVA_CHAR, i * WString.CHAR_SIZE, name.charAt(i));
+        }
+        lpValueName.set(ValueLayout.JAVA_CHAR, size - WString.CHAR_SIZE, '\0');
+        return lpValueName;
+    }
+
+    MemorySegment lpType() {
+        return lpType;
+    }
+
+    int type() {
+        return lpType.get(ValueLayout.JAVA_INT, 0);
+    }
+
+    MemorySegment lpcbData() {
+        // Let the call fill the entire buffer except for the padding
+        lpcbData.set(ValueLayout.JAVA_INT, 0, Math.toIntExact(lpData.byteSize() - PADDING));
+        return lpcbData;
+    }
+
+    int dataLength() {
+        return lpcbData.get(ValueLayout.JAVA_INT, 0);
+    }
+
+    MemorySegment lpData() {
+        return lpData;
+    }
+
+    // Grows the data buffer so it can contain the number of bytes that were reported by the last call.
+    // If that is not more than the buffer can already contain, the buffer is doubled instead so the next call can make progress.
+    void grow() {
+        long size = Integer.toUnsignedLong(dataLength()) + PADDING;
+        if (lpData.byteSize() >= size) {
+            size = (lpData.byteSize() - PADDING) * 2 + PADDING;
+        }
+        lpData = Arena.ofAuto().allocate(size);
+    }
+
+    // The returned segment is only valid until the next call
+    MemorySegment data() {
+        long dataLength = Integer.toUnsignedLong(dataLength());
+        // The padding is exactly one long; setting it directly does not need a slice
+        lpData.set(ValueLayout.JAVA_LONG_UNALIGNED, dataLength, 0L);
+        return lpData;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * ValueReconciler.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import com.github.robtimus.os.windows.registry.RegistryKey.Handle;
+
+/*
+ * Reconciles the values of a registry key with a collection of desired values.
+ *
+ * The current values are enumerated once into an EnumerationBuffer, and compared to the desired values by type and raw data, without converting
+ * them into RegistryValue objects. Only the differences are then applied using a ValueBatch, so values that are already up-to-date are not written.
+ * Values to delete are collected first, because deleting values while they are being enumerated changes their indexes.
+ */
+final class ValueReconciler {
+
+    private ValueReconciler() {
+    }
+
+    static ReconcileResult reconcile(RegistryKey registryKey, Handle handle, Collection<? extends SettableRegistryValue> values, boolean deleteOthers) {
+        // Registry value names are case insensitive; later values replace earlier values with the same name
+        Map<String, SettableRegistryValue> remaining = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (SettableRegistryValue value : values) {
+            remaining.put(value.name(), value);
+        }
+
+        List<SettableRegistryValue> changed = new ArrayList<>();
+        List<String> others = new ArrayList<>();
+
+        EnumerationBuffer buffer = new EnumerationBuffer();
+        for (int index = 0; buffer.value(registryKey, handle, index); index++) {
+            String name = WString.getString(buffer.lpValueName(), buffer.valueNameLength());
+            SettableRegistryValue value = remaining.remove(name);
+            if (value != null) {
+                if (!hasSameData(value, buffer)) {
+                    changed.add(value);
+                }
+            } else if (deleteOthers) {
+                others.add(name);
+            }
+        }
+        // Any desired values that were not enumerated do not exist yet
+        List<SettableRegistryValue> added = new ArrayList<>(remaining.values());
+
+        ValueBatch batch = new ValueBatch();
+        added.forEach(batch::setValue);
+        changed.forEach(batch::setValue);
+        // The registry values may have been deleted since they were enumerated
+        others.forEach(batch::deleteValueIfExists);
+
+        if (batch.isEmpty()) {
+            return new ReconcileResult(List.of(), List.of(), List.of(), List.of());
+        }
+
+        ValueBatch.Result result = batch.apply(registryKey, handle);
+
+        int index = 0;
+        List<String> addedNames = new ArrayList<>(added.size());
+        for (SettableRegistryValue value : added) {
+            if (!result.isFailed(index++)) {
+                addedNames.add(value.name());
+            }
+        }
+        List<String> changedNames = new ArrayList<>(changed.size());
+        for (SettableRegistryValue value : changed) {
+            if (!result.isFailed(index++)) {
+                changedNames.add(value.name());
+            }
+        }
+        List<String> deletedNames = new ArrayList<>(others.size());
+        for (String name : others) {
+            if (!result.isFailed(index++)) {
+                deletedNames.add(name);
+            }
+        }
+        return new ReconcileResult(addedNames, changedNames, deletedNames, result.failures());
+    }
+
+    private static boolean hasSameData(SettableRegistryValue value, EnumerationBuffer buffer) {
+        if (value.type() != buffer.type()) {
+            return false;
+        }
+        try (Arena allocator = Arena.ofConfined()) {
+            MemorySegment data = value.rawData(allocator);
+            return MemorySegment.mismatch(buffer.lpData(), 0, buffer.dataLength(), data, 0, data.byteSize()) == -1;
+        }
+    }
+}
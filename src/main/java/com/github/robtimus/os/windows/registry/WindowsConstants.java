@@ -25,11 +25,17 @@ final class WindowsConstants {
     static final int ERROR_FILE_NOT_FOUND = 2;
     static final int ERROR_ACCESS_DENIED = 5;
     static final int ERROR_INVALID_HANDLE = 6;
+    static final int ERROR_NOT_SUPPORTED = 50;
     static final int ERROR_BAD_NETPATH = 53;
     static final int ERROR_ALREADY_EXISTS = 183;
+    static final int ERROR_TRANSFER_TOO_LONG = 222;
     static final int ERROR_MORE_DATA = 234;
     static final int ERROR_NO_MORE_ITEMS = 259;
+    static final int ERROR_BADDB = 1009;
     static final int ERROR_KEY_DELETED = 1018;
+    static final int RPC_S_SERVER_UNAVAILABLE = 1722;
+    static final int RPC_S_CALL_FAILED = 1726;
+    static final int RPC_S_CALL_FAILED_DNE = 1727;
 
     static final int READ_CONTROL = 0x00020000;
     static final int SYNCHRONIZE = 0x00100000;
@@ -51,6 +57,12 @@ final class WindowsConstants {
     static final int REG_CREATED_NEW_KEY = 0x00000001;
     static final int REG_OPENED_EXISTING_KEY = 0x00000002;
 
+    static final int REG_NOTIFY_CHANGE_NAME = 0x00000001;
+    static final int REG_NOTIFY_CHANGE_ATTRIBUTES = 0x00000002;
+    static final int REG_NOTIFY_CHANGE_LAST_SET = 0x00000004;
+    static final int REG_NOTIFY_CHANGE_SECURITY = 0x00000008;
+    static final int REG_NOTIFY_THREAD_AGNOSTIC = 0x10000000;
+
     static final int REG_NONE = 0;
     static final int REG_SZ = 1;
     static final int REG_EXPAND_SZ = 2;
@@ -74,6 +86,13 @@ final class WindowsConstants {
 
     static final int TRANSACTION_DO_NOT_PROMOTE = 0x00000001;
 
+    static final int MAXIMUM_WAIT_OBJECTS = 64;
+    static final int WAIT_OBJECT_0 = 0x00000000;
+    static final int WAIT_ABANDONED_0 = 0x00000080;
+    static final int WAIT_TIMEOUT = 0x00000102;
+    static final int WAIT_FAILED = 0xFFFFFFFF;
+    static final int INFINITE = 0xFFFFFFFF;
+
     private WindowsConstants() {
     }
 
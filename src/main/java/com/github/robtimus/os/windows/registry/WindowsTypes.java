@@ -57,6 +57,10 @@ final class WindowsTypes {
         static MemorySegment target(MemorySegment ref) {
             return ref.get(LAYOUT, 0);
         }
+
+        static void target(MemorySegment ref, MemorySegment hKey) {
+            ref.set(LAYOUT, 0, hKey);
+        }
     }
 
     /*
@@ -100,6 +104,79 @@ final class WindowsTypes {
         }
     }
 
+    /*
+     * typedef struct value_entW:
+     *   LPWSTR    ve_valuename
+     *   DWORD     ve_valuelen
+     *   DWORD_PTR ve_valueptr
+     *   DWORD     ve_type
+     */
+    @SuppressWarnings({ "checkstyle:MethodName", "squid:S100" })
+    static final class VALENT {
+
+        private static final String VE_VALUENAME_NAME = "ve_valuename"; //$NON-NLS-1$
+        private static final String VE_VALUELEN_NAME = "ve_valuelen"; //$NON-NLS-1$
+        private static final String VE_VALUEPTR_NAME = "ve_valueptr"; //$NON-NLS-1$
+        private static final String VE_TYPE_NAME = "ve_type"; //$NON-NLS-1$
+
+        // DWORD_PTR is pointer sized and pointer aligned, so both DWORD fields are followed by padding
+        private static final StructLayout LAYOUT = MemoryLayout.structLayout(
+                ValueLayout.ADDRESS.withName(VE_VALUENAME_NAME),
+                ValueLayout.JAVA_INT.withName(VE_VALUELEN_NAME),
+                MemoryLayout.paddingLayout(ValueLayout.ADDRESS.byteSize() - ValueLayout.JAVA_INT.byteSize()),
+                ValueLayout.ADDRESS.withName(VE_VALUEPTR_NAME),
+                ValueLayout.JAVA_INT.withName(VE_TYPE_NAME),
+                MemoryLayout.paddingLayout(ValueLayout.ADDRESS.byteSize() - ValueLayout.JAVA_INT.byteSize()));
+
+        private static final VarHandle VE_VALUENAME = insertCoordinates(LAYOUT.varHandle(groupElement(VE_VALUENAME_NAME)), 1, 0L);
+        private static final VarHandle VE_VALUELEN = insertCoordinates(LAYOUT.varHandle(groupElement(VE_VALUELEN_NAME)), 1, 0L);
+        private static final VarHandle VE_VALUEPTR = insertCoordinates(LAYOUT.varHandle(groupElement(VE_VALUEPTR_NAME)), 1, 0L);
+        private static final VarHandle VE_TYPE = insertCoordinates(LAYOUT.varHandle(groupElement(VE_TYPE_NAME)), 1, 0L);
+
+        private VALENT() {
+        }
+
+        static MemorySegment allocateArray(SegmentAllocator allocator, int count) {
+            return allocator.allocate(LAYOUT, count);
+        }
+
+        static MemorySegment element(MemorySegment array, int index) {
+            return array.asSlice(index * LAYOUT.byteSize(), LAYOUT);
+        }
+
+        static MemorySegment ve_valuename(MemorySegment segment) {
+            return (MemorySegment) VE_VALUENAME.get(segment);
+        }
+
+        static void ve_valuename(MemorySegment segment, MemorySegment value) {
+            VE_VALUENAME.set(segment, value);
+        }
+
+        static int ve_valuelen(MemorySegment segment) {
+            return (int) VE_VALUELEN.get(segment);
+        }
+
+        static void ve_valuelen(MemorySegment segment, int value) {
+            VE_VALUELEN.set(segment, value);
+        }
+
+        static MemorySegment ve_valueptr(MemorySegment segment) {
+            return (MemorySegment) VE_VALUEPTR.get(segment);
+        }
+
+        static void ve_valueptr(MemorySegment segment, MemorySegment value) {
+            VE_VALUEPTR.set(segment, value);
+        }
+
+        static int ve_type(MemorySegment segment) {
+            return (int) VE_TYPE.get(segment);
+        }
+
+        static void ve_type(MemorySegment segment, int value) {
+            VE_TYPE.set(segment, value);
+        }
+    }
+
     /*
      * typedef enum _TRANSACTION_OUTCOME:
      *   TransactionOutcomeUndetermined = 1,
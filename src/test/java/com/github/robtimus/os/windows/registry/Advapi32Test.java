@@ -21,6 +21,7 @@ import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_INV
 import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_READ;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_BINARY;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_DWORD_LITTLE_ENDIAN;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_NOTIFY_CHANGE_LAST_SET;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_OPTION_NON_VOLATILE;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -33,6 +34,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import com.github.robtimus.os.windows.registry.WindowsTypes.FILETIME;
 import com.github.robtimus.os.windows.registry.WindowsTypes.HKEY;
+import com.github.robtimus.os.windows.registry.WindowsTypes.VALENT;
 
 @SuppressWarnings("nls")
 class Advapi32Test {
@@ -80,6 +82,37 @@ class Advapi32Test {
         }
     }
 
+    @Nested
+    @DisplayName("RegCopyTree")
+    class RegCopyTree {
+
+        @Test
+        @DisplayName("minimal arguments")
+        void testMinimalArguments() {
+            int code = Advapi32.RegCopyTree(
+                    INVALID_HKEY,
+                    MemorySegment.NULL,
+                    INVALID_HKEY);
+
+            assertInvalidHandle(code);
+        }
+
+        @Test
+        @DisplayName("all arguments")
+        void testAllArguments() {
+            try (Arena arena = Arena.ofConfined()) {
+                MemorySegment lpSubKey = WString.allocate(arena, "sub");
+
+                int code = Advapi32.RegCopyTree(
+                        INVALID_HKEY,
+                        lpSubKey,
+                        INVALID_HKEY);
+
+                assertInvalidHandle(code);
+            }
+        }
+    }
+
     @Nested
     @DisplayName("RegCreateKeyEx")
     class RegCreateKeyEx {
@@ -146,6 +179,31 @@ class Advapi32Test {
         }
     }
 
+    @Nested
+    @DisplayName("RegDeleteTree")
+    class RegDeleteTree {
+
+        @Test
+        @DisplayName("minimal arguments")
+        void testMinimalArguments() {
+            int code = Advapi32.RegDeleteTree(INVALID_HKEY, MemorySegment.NULL);
+
+            assertInvalidHandle(code);
+        }
+
+        @Test
+        @DisplayName("all arguments")
+        void testAllArguments() {
+            try (Arena arena = Arena.ofConfined()) {
+                MemorySegment lpSubKey = WString.allocate(arena, "sub");
+
+                int code = Advapi32.RegDeleteTree(INVALID_HKEY, lpSubKey);
+
+                assertInvalidHandle(code);
+            }
+        }
+    }
+
     @Nested
     @DisplayName("RegDeleteValue")
     class RegDeleteValue {
@@ -287,6 +345,19 @@ class Advapi32Test {
         }
     }
 
+    @Test
+    @DisplayName("RegNotifyChangeKeyValue")
+    void testRegNotifyChangeKeyValue() {
+        int code = Advapi32.RegNotifyChangeKeyValue(
+                INVALID_HKEY,
+                0,
+                REG_NOTIFY_CHANGE_LAST_SET,
+                MemorySegment.NULL,
+                0);
+
+        assertInvalidHandle(code);
+    }
+
     @Test
     @DisplayName("RegOpenKeyEx")
     void testRegOpenKeyEx() {
@@ -373,6 +444,28 @@ class Advapi32Test {
         }
     }
 
+    @Test
+    @DisplayName("RegQueryMultipleValues")
+    void testRegQueryMultipleValues() {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment valList = VALENT.allocateArray(arena, 1);
+            VALENT.ve_valuename(VALENT.element(valList, 0), WString.allocate(arena, "val"));
+            MemorySegment lpValueBuf = arena.allocate(ValueLayout.JAVA_BYTE, 100);
+            MemorySegment ldwTotsize = arena.allocateFrom(ValueLayout.JAVA_INT, 100);
+
+            int code = Advapi32.RegQueryMultipleValues(
+                    INVALID_HKEY,
+                    valList,
+                    1,
+                    lpValueBuf,
+                    ldwTotsize);
+
+            assertInvalidHandle(code);
+            assertUninitializedBytes(lpValueBuf);
+            assertEquals(100, ldwTotsize.get(ValueLayout.JAVA_INT, 0));
+        }
+    }
+
     @Nested
     @DisplayName("RegQueryValueEx")
     class RegQueryValueEx {
@@ -0,0 +1,191 @@
+/*
+ * AsyncRegistryKeyTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.TransactionMocks.createTransaction;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("nls")
+class AsyncRegistryKeyTest extends RegistryTestBase {
+
+    private final InMemoryRegistry registry = Registry.inMemory();
+
+    @Nested
+    @DisplayName("operations")
+    class Operations {
+
+        @Test
+        @DisplayName("keys")
+        void testKeys() {
+            AsyncRegistryKey key = registry.HKEY_CURRENT_USER.resolve("path\\key").async();
+
+            assertFalse(key.existsAsync().join());
+            assertTrue(key.createIfNotExistsAsync().join());
+            assertTrue(key.existsAsync().join());
+
+            assertEquals(List.of(key.key()), registry.HKEY_CURRENT_USER.resolve("path").async().subKeysAsync().join());
+
+            key.deleteAsync().join();
+            assertFalse(key.existsAsync().join());
+            assertFalse(key.deleteIfExistsAsync().join());
+        }
+
+        @Test
+        @DisplayName("values")
+        void testValues() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path");
+            registryKey.create();
+
+            AsyncRegistryKey key = registryKey.async();
+
+            StringValue value = StringValue.of("string", "value");
+            DWordValue otherValue = DWordValue.of("dword", 13);
+
+            key.setValueAsync(value).join();
+            key.setValueAsync(otherValue).join();
+
+            assertEquals(value, key.getValueAsync("string", StringValue.class).join());
+            assertEquals(Optional.empty(), key.findValueAsync("missing", StringValue.class).join());
+            assertEquals(Map.of("string", value), key.getValuesAsync("string", "missing").join());
+            assertEquals(Set.of(value, otherValue), Set.copyOf(key.valuesAsync().join()));
+            assertEquals(List.of(otherValue), key.valuesAsync(RegistryValue.filter().words()).join());
+
+            key.deleteValueAsync("string").join();
+            assertFalse(key.deleteValueIfExistsAsync("string").join());
+            assertEquals(List.of(otherValue), registryKey.values().toList());
+        }
+
+        @Test
+        @DisplayName("failure")
+        void testFailure() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path");
+            registryKey.create();
+
+            AsyncRegistryKey key = registryKey.async();
+
+            CompletionException exception = assertThrows(CompletionException.class, () -> key.getValueAsync("missing", StringValue.class).join());
+            NoSuchRegistryValueException cause = assertInstanceOf(NoSuchRegistryValueException.class, exception.getCause());
+            assertEquals("missing", cause.name());
+        }
+    }
+
+    @Nested
+    @DisplayName("executor")
+    class ExecutorTests {
+
+        @Test
+        @DisplayName("default executor uses virtual threads")
+        void testDefaultExecutor() {
+            AsyncRegistryKey key = registry.HKEY_CURRENT_USER.async();
+
+            assertTrue(key.callAsync(_ -> Thread.currentThread().isVirtual()).join());
+        }
+
+        @Test
+        @DisplayName("custom executor")
+        void testCustomExecutor() {
+            try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+                AsyncRegistryKey key = registry.HKEY_CURRENT_USER.async(executor);
+
+                Thread thread = key.callAsync(_ -> Thread.currentThread()).join();
+                assertNotSame(Thread.currentThread(), thread);
+                assertFalse(thread.isVirtual());
+            }
+        }
+
+        @Test
+        @DisplayName("null executor")
+        void testNullExecutor() {
+            RegistryKey key = registry.HKEY_CURRENT_USER;
+
+            assertThrows(NullPointerException.class, () -> key.async(null));
+        }
+    }
+
+    @Nested
+    @DisplayName("transactional context")
+    class TransactionalContext {
+
+        @Test
+        @DisplayName("transaction is carried into tasks")
+        void testTransactionIsCarried() {
+            Transaction transaction = createTransaction();
+            AsyncRegistryKey key = registry.HKEY_CURRENT_USER.async();
+
+            Registry.Context context = Registry.callWithTransaction(transaction, () -> key.callAsync(_ -> Registry.currentContext()))
+                    .join();
+
+            Registry.Context.Transactional transactional = assertInstanceOf(Registry.Context.Transactional.class, context);
+            assertSame(transaction, transactional.transaction());
+        }
+
+        @Test
+        @DisplayName("no transaction")
+        void testNoTransaction() {
+            AsyncRegistryKey key = registry.HKEY_CURRENT_USER.async();
+
+            Registry.Context context = key.callAsync(_ -> Registry.currentContext()).join();
+
+            assertInstanceOf(Registry.Context.NonTransactional.class, context);
+        }
+    }
+
+    @Nested
+    @DisplayName("handle cache")
+    class HandleCacheContext {
+
+        @Test
+        @DisplayName("handle cache is carried into tasks")
+        void testHandleCacheIsCarried() {
+            AsyncRegistryKey key = registry.HKEY_CURRENT_USER.async();
+
+            try (HandleCache cache = HandleCache.create(10, Duration.ofMinutes(1))) {
+                Optional<HandleCache> handleCache = cache.call(() -> key.callAsync(_ -> HandleCache.current())).join();
+
+                assertEquals(Optional.of(cache), handleCache);
+            }
+        }
+
+        @Test
+        @DisplayName("no handle cache")
+        void testNoHandleCache() {
+            AsyncRegistryKey key = registry.HKEY_CURRENT_USER.async();
+
+            Optional<HandleCache> handleCache = key.callAsync(_ -> HandleCache.current()).join();
+
+            assertEquals(Optional.empty(), handleCache);
+        }
+    }
+}
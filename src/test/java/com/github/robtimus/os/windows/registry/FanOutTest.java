@@ -0,0 +1,232 @@
+/*
+ * FanOutTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("nls")
+class FanOutTest {
+
+    @Nested
+    @DisplayName("results")
+    class Results {
+
+        @Test
+        @DisplayName("success")
+        void testSuccess() {
+            List<String> machineNames = List.of("machine1", "machine2", "machine3");
+
+            try (Stream<HostResult<String>> stream = fanOut(machineNames, _ -> null, FanOutOptions.defaults())) {
+                Map<String, HostResult<String>> results = stream.collect(Collectors.toMap(HostResult::machineName, Function.identity()));
+
+                assertEquals(machineNames.size(), results.size());
+                for (String machineName : machineNames) {
+                    HostResult<String> result = results.get(machineName);
+                    assertEquals(HostResult.Status.SUCCESS, result.status());
+                    assertEquals("result", result.result());
+                    assertNull(result.failure());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("failure")
+        void testFailure() {
+            RegistryException exception = new RegistryAccessDeniedException("HKEY_LOCAL_MACHINE", "machine");
+
+            try (Stream<HostResult<String>> stream = fanOut(List.of("machine"), _ -> {
+                throw exception;
+            }, FanOutOptions.defaults())) {
+
+                List<HostResult<String>> results = stream.toList();
+
+                assertEquals(1, results.size());
+                HostResult<String> result = results.getFirst();
+                assertEquals(HostResult.Status.FAILURE, result.status());
+                assertNull(result.result());
+                assertEquals(exception, result.failure());
+            }
+        }
+
+        @Test
+        @DisplayName("timeout")
+        void testTimeout() {
+            CountDownLatch latch = new CountDownLatch(1);
+            FanOutOptions options = FanOutOptions.defaults().timeout(Duration.ofMillis(50));
+
+            try (Stream<HostResult<String>> stream = fanOut(List.of("machine"), _ -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }, options)) {
+
+                List<HostResult<String>> results = stream.toList();
+
+                assertEquals(1, results.size());
+                HostResult<String> result = results.getFirst();
+                assertEquals(HostResult.Status.TIMEOUT, result.status());
+                assertNull(result.result());
+                assertNull(result.failure());
+            } finally {
+                latch.countDown();
+            }
+        }
+
+        @Test
+        @DisplayName("worker cannot be started")
+        void testWorkerCannotBeStarted() {
+            List<String> machineNames = List.of("machine1", "machine2", "machine3");
+            OutOfMemoryError error = new OutOfMemoryError("unable to create native thread");
+            AtomicInteger created = new AtomicInteger();
+            ThreadFactory workerFactory = runnable -> {
+                if (created.incrementAndGet() > 1) {
+                    throw error;
+                }
+                return Thread.ofPlatform().unstarted(runnable);
+            };
+
+            try (Stream<HostResult<String>> stream = new FanOut<String>(machineNames, _ -> null, _ -> "result", FanOutOptions.defaults(),
+                    workerFactory).start()) {
+
+                Map<String, HostResult<String>> results = stream.collect(Collectors.toMap(HostResult::machineName, Function.identity()));
+
+                assertEquals(machineNames.size(), results.size());
+                assertEquals(HostResult.Status.SUCCESS, results.get("machine1").status());
+                for (String machineName : List.of("machine2", "machine3")) {
+                    HostResult<String> result = results.get(machineName);
+                    assertEquals(HostResult.Status.FAILURE, result.status());
+                    assertNull(result.result());
+                    assertEquals(error, result.failure());
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("max concurrency")
+    void testMaxConcurrency() {
+        List<String> machineNames = IntStream.range(0, 10)
+                .mapToObj(i -> "machine" + i)
+                .toList();
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        FanOutOptions options = FanOutOptions.defaults().maxConcurrency(2);
+
+        try (Stream<HostResult<String>> stream = fanOut(machineNames, _ -> {
+            maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException _) {
+                Thread.currentThread().interrupt();
+            } finally {
+                active.decrementAndGet();
+            }
+            return null;
+        }, options)) {
+
+            assertEquals(machineNames.size(), stream.filter(HostResult::isSuccess).count());
+        }
+
+        assertTrue(maxActive.get() <= 2);
+    }
+
+    @Test
+    @DisplayName("closing the stream skips remaining machines")
+    void testCloseSkipsRemainingMachines() {
+        List<String> machineNames = IntStream.range(0, 10)
+                .mapToObj(i -> "machine" + i)
+                .toList();
+        AtomicInteger connected = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        FanOutOptions options = FanOutOptions.defaults().maxConcurrency(1);
+
+        try (Stream<HostResult<String>> stream = fanOut(machineNames, _ -> {
+            if (connected.incrementAndGet() > 1) {
+                try {
+                    latch.await();
+                } catch (InterruptedException _) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return null;
+        }, options)) {
+
+            assertEquals(1, stream.limit(1).count());
+        } finally {
+            latch.countDown();
+        }
+
+        assertTrue(connected.get() <= 2);
+    }
+
+    @Nested
+    @DisplayName("FanOutOptions")
+    class Options {
+
+        @Test
+        @DisplayName("non-positive max concurrency")
+        void testNonPositiveMaxConcurrency() {
+            FanOutOptions options = FanOutOptions.defaults();
+
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> options.maxConcurrency(0));
+            assertEquals("0 <= 0", exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("negative timeout")
+        void testNegativeTimeout() {
+            FanOutOptions options = FanOutOptions.defaults();
+            Duration timeout = Duration.ofSeconds(-1);
+
+            assertThrows(IllegalArgumentException.class, () -> options.timeout(timeout));
+        }
+
+        @Test
+        @DisplayName("null timeout")
+        void testNullTimeout() {
+            FanOutOptions options = FanOutOptions.defaults();
+
+            assertThrows(NullPointerException.class, () -> options.timeout(null));
+        }
+    }
+
+    private static Stream<HostResult<String>> fanOut(List<String> machineNames, Function<String, RemoteRegistry> connector,
+            FanOutOptions options) {
+
+        return new FanOut<String>(machineNames, connector, _ -> "result", options).start();
+    }
+}
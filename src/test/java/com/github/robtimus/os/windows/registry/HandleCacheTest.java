@@ -0,0 +1,331 @@
+/*
+ * HandleCacheTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteKeyEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegOpenKeyEx;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpen;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.HKEY_CURRENT_USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import java.lang.foreign.MemorySegment;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("nls")
+class HandleCacheTest extends RegistryTestBase {
+
+    private static final LocalRegistry REGISTRY = Registry.local();
+
+    @Test
+    @DisplayName("handles are reused")
+    void testHandlesAreReused() {
+        MemorySegment hKey = mockOpen(HKEY_CURRENT_USER, "path\\cached");
+
+        RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached");
+        try (HandleCache cache = HandleCache.create(10, Duration.ofMinutes(1))) {
+            cache.run(() -> {
+                try (var _ = registryKey.handle()) {
+                    // Do nothing
+                }
+                try (var _ = registryKey.handle()) {
+                    // Do nothing
+                }
+            });
+
+            assertEquals(1, cache.size());
+
+            HandleCache.Statistics statistics = cache.statistics();
+            assertEquals(1, statistics.hitCount());
+            assertEquals(1, statistics.missCount());
+            assertEquals(0, statistics.evictionCount());
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\cached"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegCloseKey(notNull()), never());
+        }
+
+        advapi32.verify(() -> RegCloseKey(hKey));
+    }
+
+    @Test
+    @DisplayName("handles are cached per samDesired")
+    void testHandlesAreCachedPerSamDesired() {
+        MemorySegment hKey = mockOpen(HKEY_CURRENT_USER, "path\\cached");
+
+        RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached");
+        try (HandleCache cache = HandleCache.create(10, Duration.ofMinutes(1))) {
+            cache.run(() -> {
+                try (var _ = registryKey.handle()) {
+                    // Do nothing
+                }
+                try (var _ = registryKey.handle(RegistryKey.HandleOption.MANAGE_VALUES)) {
+                    // Do nothing
+                }
+            });
+
+            assertEquals(2, cache.size());
+            assertEquals(0, cache.statistics().hitCount());
+            assertEquals(2, cache.statistics().missCount());
+        }
+
+        advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\cached"), anyInt(), anyInt(), notNull()), times(2));
+        advapi32.verify(() -> RegCloseKey(hKey), times(2));
+    }
+
+    @Test
+    @DisplayName("handles are not cached outside of run or call")
+    void testNotActive() {
+        MemorySegment hKey = mockOpen(HKEY_CURRENT_USER, "path\\cached");
+
+        RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached");
+        try (HandleCache cache = HandleCache.create(10, Duration.ofMinutes(1))) {
+            try (var _ = registryKey.handle()) {
+                // Do nothing
+            }
+            try (var _ = registryKey.handle()) {
+                // Do nothing
+            }
+
+            assertEquals(0, cache.size());
+            assertEquals(0, cache.statistics().missCount());
+        }
+
+        advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\cached"), anyInt(), anyInt(), notNull()), times(2));
+        advapi32.verify(() -> RegCloseKey(hKey), times(2));
+    }
+
+    @Test
+    @DisplayName("non-existing keys are not cached")
+    void testNonExisting() {
+        advapi32.when(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\non-existing"), anyInt(), anyInt(), notNull()))
+                .thenReturn(ERROR_FILE_NOT_FOUND);
+
+        RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\non-existing");
+        try (HandleCache cache = HandleCache.create(10, Duration.ofMinutes(1))) {
+            cache.run(() -> assertFalse(registryKey.ifExists(RegistryKey.Handle::attributes).isPresent()));
+
+            assertEquals(0, cache.size());
+            assertEquals(1, cache.statistics().missCount());
+        }
+
+        advapi32.verify(() -> RegCloseKey(notNull()), never());
+    }
+
+    @Nested
+    @DisplayName("eviction")
+    class Eviction {
+
+        @Test
+        @DisplayName("max size")
+        void testMaxSize() {
+            MemorySegment hKey1 = mockOpen(HKEY_CURRENT_USER, "path\\cached1");
+            MemorySegment hKey2 = mockOpen(HKEY_CURRENT_USER, "path\\cached2");
+
+            RegistryKey registryKey1 = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached1");
+            RegistryKey registryKey2 = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached2");
+            try (HandleCache cache = HandleCache.create(1, Duration.ofMinutes(1))) {
+                cache.run(() -> {
+                    try (var _ = registryKey1.handle()) {
+                        // Do nothing
+                    }
+                    try (var _ = registryKey2.handle()) {
+                        // Do nothing
+                    }
+                });
+
+                assertEquals(1, cache.size());
+                assertEquals(1, cache.statistics().evictionCount());
+
+                advapi32.verify(() -> RegCloseKey(hKey1));
+                advapi32.verify(() -> RegCloseKey(hKey2), never());
+            }
+
+            advapi32.verify(() -> RegCloseKey(hKey2));
+        }
+
+        @Test
+        @DisplayName("max size with handle in use")
+        void testMaxSizeWithHandleInUse() {
+            MemorySegment hKey1 = mockOpen(HKEY_CURRENT_USER, "path\\cached1");
+            MemorySegment hKey2 = mockOpen(HKEY_CURRENT_USER, "path\\cached2");
+
+            RegistryKey registryKey1 = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached1");
+            RegistryKey registryKey2 = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached2");
+            try (HandleCache cache = HandleCache.create(1, Duration.ofMinutes(1))) {
+                cache.run(() -> {
+                    try (var _ = registryKey1.handle()) {
+                        try (var _ = registryKey2.handle()) {
+                            // Do nothing
+                        }
+                        // hKey1 has been evicted but is still in use
+                        advapi32.verify(() -> RegCloseKey(hKey1), never());
+                    }
+                });
+
+                advapi32.verify(() -> RegCloseKey(hKey1));
+                advapi32.verify(() -> RegCloseKey(hKey2), never());
+            }
+        }
+
+        @Test
+        @DisplayName("max idle time")
+        void testMaxIdleTime() throws InterruptedException {
+            MemorySegment hKey1 = mockOpen(HKEY_CURRENT_USER, "path\\cached1");
+            MemorySegment hKey2 = mockOpen(HKEY_CURRENT_USER, "path\\cached2");
+
+            RegistryKey registryKey1 = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached1");
+            RegistryKey registryKey2 = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached2");
+            try (HandleCache cache = HandleCache.create(10, Duration.ofMillis(10))) {
+                cache.run(() -> {
+                    try (var _ = registryKey1.handle()) {
+                        // Do nothing
+                    }
+                    Thread.sleep(50);
+                    try (var _ = registryKey2.handle()) {
+                        // Do nothing
+                    }
+                });
+
+                assertEquals(1, cache.size());
+                assertEquals(1, cache.statistics().evictionCount());
+
+                advapi32.verify(() -> RegCloseKey(hKey1));
+                advapi32.verify(() -> RegCloseKey(hKey2), never());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("invalidation")
+    class Invalidation {
+
+        @Test
+        @DisplayName("delete")
+        void testDelete() {
+            MemorySegment hKey = mockOpen(HKEY_CURRENT_USER, "path\\cached");
+            MemorySegment nestedHKey = mockOpen(HKEY_CURRENT_USER, "path\\cached\\nested");
+            MemorySegment otherHKey = mockOpen(HKEY_CURRENT_USER, "path\\cached2");
+
+            advapi32.when(() -> RegDeleteKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\cached"), eq(0), eq(0)))
+                    .thenReturn(ERROR_SUCCESS);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached");
+            RegistryKey nestedRegistryKey = registryKey.resolve("nested");
+            RegistryKey otherRegistryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached2");
+            try (HandleCache cache = HandleCache.create(10, Duration.ofMinutes(1))) {
+                cache.run(() -> {
+                    try (var _ = registryKey.handle()) {
+                        // Do nothing
+                    }
+                    try (var _ = nestedRegistryKey.handle()) {
+                        // Do nothing
+                    }
+                    try (var _ = otherRegistryKey.handle()) {
+                        // Do nothing
+                    }
+
+                    registryKey.delete();
+                });
+
+                assertEquals(1, cache.size());
+                assertEquals(0, cache.statistics().evictionCount());
+
+                advapi32.verify(() -> RegCloseKey(hKey));
+                advapi32.verify(() -> RegCloseKey(nestedHKey));
+                advapi32.verify(() -> RegCloseKey(otherHKey), never());
+            }
+        }
+
+        @Test
+        @DisplayName("handle cached during delete")
+        void testHandleCachedDuringDelete() {
+            MemorySegment nestedHKey = mockOpen(HKEY_CURRENT_USER, "path\\cached\\nested");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached");
+            RegistryKey nestedRegistryKey = registryKey.resolve("nested");
+
+            advapi32.when(() -> RegDeleteKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\cached"), eq(0), eq(0))).thenAnswer(_ -> {
+                // Simulate another use of the registry key while it's being deleted
+                try (var _ = nestedRegistryKey.handle()) {
+                    // Do nothing
+                }
+                return ERROR_SUCCESS;
+            });
+
+            try (HandleCache cache = HandleCache.create(10, Duration.ofMinutes(1))) {
+                cache.run(registryKey::delete);
+
+                assertEquals(0, cache.size());
+
+                advapi32.verify(() -> RegCloseKey(nestedHKey));
+            }
+        }
+
+        @Test
+        @DisplayName("invalidateAll")
+        void testInvalidateAll() {
+            MemorySegment hKey = mockOpen(HKEY_CURRENT_USER, "path\\cached");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\cached");
+            try (HandleCache cache = HandleCache.create(10, Duration.ofMinutes(1))) {
+                cache.run(() -> {
+                    try (var _ = registryKey.handle()) {
+                        // Do nothing
+                    }
+                });
+
+                cache.invalidateAll();
+
+                assertEquals(0, cache.size());
+
+                advapi32.verify(() -> RegCloseKey(hKey));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("create")
+    class Create {
+
+        @Test
+        @DisplayName("non-positive maxSize")
+        void testNonPositiveMaxSize() {
+            Duration maxIdleTime = Duration.ofMinutes(1);
+            assertThrows(IllegalArgumentException.class, () -> HandleCache.create(0, maxIdleTime));
+        }
+
+        @Test
+        @DisplayName("negative maxIdleTime")
+        void testNegativeMaxIdleTime() {
+            Duration maxIdleTime = Duration.ofMinutes(-1);
+            assertThrows(IllegalArgumentException.class, () -> HandleCache.create(1, maxIdleTime));
+        }
+    }
+}
@@ -0,0 +1,334 @@
+/*
+ * HiveFileBuilder.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+// Writes minimal but valid registry hive files, with the same structure as hive files written by Windows
+@SuppressWarnings("nls")
+final class HiveFileBuilder {
+
+    private static final int BASE_BLOCK_SIZE = 4096;
+    private static final int HBIN_HEADER_SIZE = 32;
+    private static final int HBIN_ALIGNMENT = 4096;
+    private static final int CELL_ALIGNMENT = 8;
+    private static final int DB_SEGMENT_SIZE = 16344;
+
+    private static final int NO_CELL = -1;
+
+    private final Key root;
+    private final long lastWriteTime;
+    private int maxLeafSize;
+
+    private ByteBuffer bins;
+
+    HiveFileBuilder(String rootName) {
+        root = new Key(rootName);
+        // 2026-01-01T00:00:00Z
+        lastWriteTime = 134_118_144_000_000_000L;
+        maxLeafSize = Integer.MAX_VALUE;
+    }
+
+    Key root() {
+        return root;
+    }
+
+    long lastWriteTime() {
+        return lastWriteTime;
+    }
+
+    // If a key has more sub keys than this, an index root (ri) with several hash leaves (lh) is written
+    HiveFileBuilder maxLeafSize(int maxLeafSize) {
+        this.maxLeafSize = maxLeafSize;
+        return this;
+    }
+
+    byte[] build() {
+        bins = ByteBuffer.allocate(HBIN_ALIGNMENT).order(ByteOrder.LITTLE_ENDIAN);
+        bins.position(HBIN_HEADER_SIZE);
+
+        int rootCell = writeKey(root, NO_CELL);
+
+        int binsSize = align(bins.position(), HBIN_ALIGNMENT);
+
+        ByteBuffer hive = ByteBuffer.allocate(BASE_BLOCK_SIZE + binsSize).order(ByteOrder.LITTLE_ENDIAN);
+
+        // base block
+        hive.put(0, "regf".getBytes(StandardCharsets.US_ASCII));
+        hive.putInt(4, 1);
+        hive.putInt(8, 1);
+        hive.putLong(12, lastWriteTime);
+        hive.putInt(20, 1);
+        hive.putInt(24, 5);
+        hive.putInt(28, 0);
+        hive.putInt(32, 1);
+        hive.putInt(36, rootCell);
+        hive.putInt(40, binsSize);
+        hive.putInt(44, 1);
+
+        // hive bin
+        hive.put(BASE_BLOCK_SIZE, bins.array(), 0, bins.position());
+        hive.put(BASE_BLOCK_SIZE, "hbin".getBytes(StandardCharsets.US_ASCII));
+        hive.putInt(BASE_BLOCK_SIZE + 4, 0);
+        hive.putInt(BASE_BLOCK_SIZE + 8, binsSize);
+        // The remainder of the hive bin is one free cell
+        int free = BASE_BLOCK_SIZE + bins.position();
+        if (free < hive.capacity()) {
+            hive.putInt(free, hive.capacity() - free);
+        }
+
+        return hive.array();
+    }
+
+    Path write(Path file) throws IOException {
+        return Files.write(file, build());
+    }
+
+    private int writeKey(Key key, int parent) {
+        boolean compressedName = isLatin1(key.name);
+        byte[] name = encode(key.name, compressedName);
+
+        int nk = allocate(76 + name.length);
+        int position = position(nk);
+
+        List<Key> subKeys = new ArrayList<>(key.subKeys);
+        // Windows sorts sub keys by their upper case names
+        subKeys.sort(Comparator.comparing(k -> k.name.toUpperCase(Locale.ROOT)));
+
+        int[] subKeyCells = new int[subKeys.size()];
+        int maxSubKeyNameLength = 0;
+        for (int i = 0; i < subKeyCells.length; i++) {
+            subKeyCells[i] = writeKey(subKeys.get(i), nk);
+            maxSubKeyNameLength = Math.max(maxSubKeyNameLength, subKeys.get(i).name.length() * 2);
+        }
+        int subKeyList = subKeyCells.length == 0 ? NO_CELL : writeSubKeyList(subKeys, subKeyCells);
+
+        int[] valueCells = new int[key.values.size()];
+        int maxValueNameLength = 0;
+        int maxValueDataLength = 0;
+        for (int i = 0; i < valueCells.length; i++) {
+            Value value = key.values.get(i);
+            valueCells[i] = writeValue(value);
+            maxValueNameLength = Math.max(maxValueNameLength, value.name.length() * 2);
+            maxValueDataLength = Math.max(maxValueDataLength, value.data.length);
+        }
+        int valueList = valueCells.length == 0 ? NO_CELL : writeOffsets(valueCells);
+
+        bins.put(position, "nk".getBytes(StandardCharsets.US_ASCII));
+        // KEY_HIVE_ENTRY | KEY_NO_DELETE for the root key, KEY_COMP_NAME for Latin-1 names
+        bins.putShort(position + 2, (short) ((parent == NO_CELL ? 0x0C : 0) | (compressedName ? 0x20 : 0)));
+        bins.putLong(position + 4, lastWriteTime);
+        bins.putInt(position + 16, parent);
+        bins.putInt(position + 20, subKeyCells.length);
+        bins.putInt(position + 28, subKeyList);
+        bins.putInt(position + 32, NO_CELL);
+        bins.putInt(position + 36, valueCells.length);
+        bins.putInt(position + 40, valueList);
+        bins.putInt(position + 44, NO_CELL);
+        bins.putInt(position + 48, NO_CELL);
+        bins.putInt(position + 52, maxSubKeyNameLength);
+        bins.putInt(position + 60, maxValueNameLength);
+        bins.putInt(position + 64, maxValueDataLength);
+        bins.putShort(position + 72, (short) name.length);
+        bins.put(position + 76, name);
+
+        return nk;
+    }
+
+    private int writeSubKeyList(List<Key> subKeys, int[] subKeyCells) {
+        if (subKeyCells.length <= maxLeafSize) {
+            return writeHashLeaf(subKeys, subKeyCells, 0, subKeyCells.length);
+        }
+        int[] leaves = new int[(subKeyCells.length + maxLeafSize - 1) / maxLeafSize];
+        for (int i = 0; i < leaves.length; i++) {
+            int from = i * maxLeafSize;
+            leaves[i] = writeHashLeaf(subKeys, subKeyCells, from, Math.min(from + maxLeafSize, subKeyCells.length));
+        }
+        return writeList("ri", leaves);
+    }
+
+    private int writeHashLeaf(List<Key> subKeys, int[] subKeyCells, int from, int to) {
+        int lh = allocate(4 + (to - from) * 8);
+        int position = position(lh);
+        bins.put(position, "lh".getBytes(StandardCharsets.US_ASCII));
+        bins.putShort(position + 2, (short) (to - from));
+        for (int i = from; i < to; i++) {
+            bins.putInt(position + 4 + (i - from) * 8, subKeyCells[i]);
+            bins.putInt(position + 8 + (i - from) * 8, hash(subKeys.get(i).name));
+        }
+        return lh;
+    }
+
+    private int writeList(String signature, int[] elements) {
+        int list = allocate(4 + elements.length * 4);
+        int position = position(list);
+        bins.put(position, signature.getBytes(StandardCharsets.US_ASCII));
+        bins.putShort(position + 2, (short) elements.length);
+        for (int i = 0; i < elements.length; i++) {
+            bins.putInt(position + 4 + i * 4, elements[i]);
+        }
+        return list;
+    }
+
+    private int writeOffsets(int[] offsets) {
+        int list = allocate(offsets.length * 4);
+        int position = position(list);
+        for (int i = 0; i < offsets.length; i++) {
+            bins.putInt(position + i * 4, offsets[i]);
+        }
+        return list;
+    }
+
+    private int writeValue(Value value) {
+        boolean compressedName = isLatin1(value.name);
+        byte[] name = encode(value.name, compressedName);
+
+        int dataSize = value.data.length;
+        int dataOffset = 0;
+        if (dataSize <= 4) {
+            // The data is stored in the data offset field
+            byte[] inline = Arrays.copyOf(value.data, 4);
+            dataOffset = ByteBuffer.wrap(inline).order(ByteOrder.LITTLE_ENDIAN).getInt();
+            dataSize |= 0x8000_0000;
+        } else if (dataSize > DB_SEGMENT_SIZE) {
+            dataOffset = writeBigData(value.data);
+        } else {
+            dataOffset = writeData(value.data, 0, dataSize);
+        }
+
+        int vk = allocate(20 + name.length);
+        int position = position(vk);
+        bins.put(position, "vk".getBytes(StandardCharsets.US_ASCII));
+        bins.putShort(position + 2, (short) name.length);
+        bins.putInt(position + 4, dataSize);
+        bins.putInt(position + 8, dataOffset);
+        bins.putInt(position + 12, value.type);
+        bins.putShort(position + 16, (short) (compressedName ? 0x01 : 0));
+        bins.put(position + 20, name);
+        return vk;
+    }
+
+    private int writeBigData(byte[] data) {
+        int[] segments = new int[(data.length + DB_SEGMENT_SIZE - 1) / DB_SEGMENT_SIZE];
+        for (int i = 0; i < segments.length; i++) {
+            int from = i * DB_SEGMENT_SIZE;
+            segments[i] = writeData(data, from, Math.min(from + DB_SEGMENT_SIZE, data.length));
+        }
+        int segmentList = writeOffsets(segments);
+
+        int db = allocate(8);
+        int position = position(db);
+        bins.put(position, "db".getBytes(StandardCharsets.US_ASCII));
+        bins.putShort(position + 2, (short) segments.length);
+        bins.putInt(position + 4, segmentList);
+        return db;
+    }
+
+    private int writeData(byte[] data, int from, int to) {
+        int cell = allocate(to - from);
+        bins.put(position(cell), data, from, to - from);
+        return cell;
+    }
+
+    private int allocate(int dataSize) {
+        int cellSize = align(4 + dataSize, CELL_ALIGNMENT);
+        int start = bins.position();
+        if (start + cellSize > bins.capacity()) {
+            ByteBuffer newBins = ByteBuffer.allocate(align(Math.max(bins.capacity() * 2, start + cellSize), HBIN_ALIGNMENT))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            newBins.put(0, bins.array(), 0, start);
+            newBins.position(start);
+            bins = newBins;
+        }
+        // Allocated cells have a negative size
+        bins.putInt(start, -cellSize);
+        bins.position(start + cellSize);
+        // Offsets are relative to the start of the hive bins, and point to the cell size
+        return start;
+    }
+
+    private static int position(int cell) {
+        // Skip the cell size
+        return cell + 4;
+    }
+
+    private static int align(int size, int alignment) {
+        return (size + alignment - 1) / alignment * alignment;
+    }
+
+    private static boolean isLatin1(String name) {
+        return name.chars().allMatch(c -> c < 0x100);
+    }
+
+    private static byte[] encode(String name, boolean compressed) {
+        return name.getBytes(compressed ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_16LE);
+    }
+
+    private static int hash(String name) {
+        int hash = 0;
+        for (char c : name.toUpperCase(Locale.ROOT).toCharArray()) {
+            hash = hash * 37 + c;
+        }
+        return hash;
+    }
+
+    static final class Key {
+
+        private final String name;
+        private final List<Key> subKeys;
+        private final List<Value> values;
+
+        private Key(String name) {
+            this.name = name;
+            this.subKeys = new ArrayList<>();
+            this.values = new ArrayList<>();
+        }
+
+        Key addSubKey(String subKeyName) {
+            Key subKey = new Key(subKeyName);
+            subKeys.add(subKey);
+            return subKey;
+        }
+
+        Key addValue(SettableRegistryValue value) {
+            try (Arena arena = Arena.ofConfined()) {
+                return addValue(value.name(), value.type(), value.rawData(arena).toArray(ValueLayout.JAVA_BYTE));
+            }
+        }
+
+        Key addValue(String valueName, int type, byte[] data) {
+            values.add(new Value(valueName, type, data));
+            return this;
+        }
+    }
+
+    private record Value(String name, int type, byte[] data) {
+    }
+}
@@ -0,0 +1,392 @@
+/*
+ * HiveRegistryTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_BADDB;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_BINARY;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Extend RegistryTestBase to verify that hive registries do not call any of the Windows API classes
+@SuppressWarnings("nls")
+class HiveRegistryTest extends RegistryTestBase {
+
+    @TempDir
+    private Path tempDir;
+
+    @AfterEach
+    void verifyNoNativeCalls() {
+        advapi32.verifyNoInteractions();
+        ktmW32.verifyNoInteractions();
+    }
+
+    private HiveRegistry openHive(HiveFileBuilder builder) throws IOException {
+        return Registry.openHive(builder.write(tempDir.resolve("test.hiv")));
+    }
+
+    @Nested
+    @DisplayName("openHive")
+    class OpenHive {
+
+        @Test
+        @DisplayName("not a hive file")
+        void testNotAHiveFile() throws IOException {
+            Path file = Files.write(tempDir.resolve("test.txt"), new byte[8192]);
+
+            IOException exception = assertThrows(IOException.class, () -> Registry.openHive(file));
+            assertEquals(Messages.HiveRegistry.notAHive(file), exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("non-existing file")
+        void testNonExistingFile() {
+            Path file = tempDir.resolve("non-existing.hiv");
+
+            assertThrows(NoSuchFileException.class, () -> Registry.openHive(file));
+        }
+
+        @Test
+        @DisplayName("close twice")
+        void testCloseTwice() throws IOException {
+            HiveRegistry registry = openHive(new HiveFileBuilder("ROOT"));
+
+            registry.close();
+            assertDoesNotThrow(registry::close);
+        }
+    }
+
+    @Nested
+    @DisplayName("keys")
+    class Keys {
+
+        @Test
+        @DisplayName("root key")
+        void testRootKey() throws IOException {
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT");
+            builder.root().addSubKey("subKey");
+
+            try (HiveRegistry registry = openHive(builder)) {
+                RegistryKey rootKey = registry.rootKey();
+
+                assertEquals("test.hiv", rootKey.name());
+                assertEquals("test.hiv", rootKey.path());
+                assertTrue(rootKey.isRoot());
+                assertTrue(rootKey.exists());
+
+                RegistryKey.Attributes attributes = rootKey.attributes();
+                assertEquals(1, attributes.subKeyCount());
+                assertEquals(0, attributes.valueCount());
+                assertEquals(RegistryKey.FILETIME_BASE.plusSeconds(builder.lastWriteTime() / 10_000_000L), attributes.lastWriteTime());
+            }
+        }
+
+        @Test
+        @DisplayName("subKeys")
+        void testSubKeys() throws IOException {
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT");
+            builder.root().addSubKey("subKey2");
+            builder.root().addSubKey("subKey1").addSubKey("nested");
+            builder.root().addSubKey("subKey3");
+
+            try (HiveRegistry registry = openHive(builder)) {
+                RegistryKey rootKey = registry.rootKey();
+
+                try (Stream<RegistryKey> stream = rootKey.subKeys()) {
+                    List<RegistryKey> expected = List.of(
+                            rootKey.resolve("subKey1"),
+                            rootKey.resolve("subKey2"),
+                            rootKey.resolve("subKey3")
+                    );
+
+                    assertEquals(expected, stream.toList());
+                }
+
+                try (Stream<RegistryKey> stream = rootKey.traverse()) {
+                    assertEquals(5, stream.count());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("resolve")
+        void testResolve() throws IOException {
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT");
+            builder.root().addSubKey("Path").addSubKey("To").addSubKey("Key");
+            builder.root().addSubKey("Ünïcödé 中文").addSubKey("nested");
+
+            try (HiveRegistry registry = openHive(builder)) {
+                RegistryKey rootKey = registry.rootKey();
+
+                assertTrue(rootKey.resolve("Path\\To\\Key").exists());
+                // Registry keys are case insensitive
+                assertTrue(rootKey.resolve("path\\to\\key").exists());
+                assertTrue(rootKey.resolve("PATH\\TO").exists());
+                assertFalse(rootKey.resolve("Path\\To\\Other").exists());
+                assertFalse(rootKey.resolve("Other").exists());
+
+                // Names that are not Latin-1 are stored as UTF-16
+                assertTrue(rootKey.resolve("Ünïcödé 中文\\nested").exists());
+                assertTrue(rootKey.resolve("üNÏCÖDÉ 中文").exists());
+
+                assertThrows(NoSuchRegistryKeyException.class, () -> rootKey.resolve("Other").subKeys());
+            }
+        }
+
+        @Test
+        @DisplayName("index roots")
+        void testIndexRoots() throws IOException {
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT").maxLeafSize(3);
+            for (int i = 0; i < 10; i++) {
+                builder.root().addSubKey("subKey" + i);
+            }
+
+            try (HiveRegistry registry = openHive(builder)) {
+                RegistryKey rootKey = registry.rootKey();
+
+                try (Stream<RegistryKey> stream = rootKey.subKeys()) {
+                    List<String> names = stream.map(RegistryKey::name).toList();
+
+                    assertEquals(List.of("subKey0", "subKey1", "subKey2", "subKey3", "subKey4", "subKey5", "subKey6", "subKey7", "subKey8",
+                            "subKey9"), names);
+                }
+
+                for (int i = 0; i < 10; i++) {
+                    assertTrue(rootKey.resolve("SUBKEY" + i).exists());
+                }
+                assertFalse(rootKey.resolve("subKey10").exists());
+            }
+        }
+
+        @Test
+        @DisplayName("read-only")
+        void testReadOnly() throws IOException {
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT");
+            builder.root().addSubKey("subKey").addValue(StringValue.of("string", "value"));
+
+            try (HiveRegistry registry = openHive(builder)) {
+                RegistryKey registryKey = registry.rootKey().resolve("subKey");
+                RegistryKey newKey = registry.rootKey().resolve("new");
+                StringValue value = StringValue.of("string", "new value");
+
+                assertThrows(RegistryAccessDeniedException.class, newKey::create);
+                assertThrows(RegistryAccessDeniedException.class, registryKey::delete);
+                assertThrows(RegistryAccessDeniedException.class, () -> registryKey.renameTo("renamed"));
+                assertThrows(RegistryAccessDeniedException.class, () -> registryKey.setValue(value));
+                assertThrows(RegistryAccessDeniedException.class, () -> registryKey.deleteValue("string"));
+
+                assertEquals("value", registryKey.getStringValue("string"));
+            }
+        }
+
+        @Test
+        @DisplayName("corrupt hive")
+        void testCorruptHive() throws IOException {
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT");
+            builder.root().addSubKey("subKey");
+
+            byte[] hive = builder.build();
+            // The first cell is the root key's key node; the hash leaf with its sub key follows the sub key's key node
+            int subKeyList = indexOf(hive, "lh");
+            hive[subKeyList] = 'x';
+            Path file = Files.write(tempDir.resolve("corrupt.hiv"), hive);
+
+            try (HiveRegistry registry = Registry.openHive(file)) {
+                RegistryKey rootKey = registry.rootKey();
+
+                RegistryException exception = assertThrows(RegistryException.class, () -> rootKey.resolve("subKey").exists());
+                assertEquals(ERROR_BADDB, exception.errorCode());
+            }
+        }
+
+        @Test
+        @DisplayName("nested index root")
+        void testNestedIndexRoot() throws IOException {
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT").maxLeafSize(3);
+            for (int i = 0; i < 10; i++) {
+                builder.root().addSubKey("subKey" + i);
+            }
+
+            byte[] hive = builder.build();
+            // Let the index root's first element point to the index root itself; cell offsets exclude the base block and the cell size
+            int indexRoot = indexOf(hive, "ri");
+            ByteBuffer.wrap(hive).order(ByteOrder.LITTLE_ENDIAN).putInt(indexRoot + 4, indexRoot - 4096 - 4);
+            Path file = Files.write(tempDir.resolve("corrupt.hiv"), hive);
+
+            try (HiveRegistry registry = Registry.openHive(file)) {
+                RegistryKey rootKey = registry.rootKey();
+
+                RegistryException exception = assertThrows(RegistryException.class, () -> rootKey.resolve("subKey0").exists());
+                assertEquals(ERROR_BADDB, exception.errorCode());
+
+                exception = assertThrows(RegistryException.class, () -> {
+                    try (Stream<RegistryKey> stream = rootKey.subKeys()) {
+                        return stream.toList();
+                    }
+                });
+                assertEquals(ERROR_BADDB, exception.errorCode());
+            }
+        }
+
+        private int indexOf(byte[] hive, String signature) {
+            for (int i = 4096; i < hive.length - 1; i++) {
+                if (hive[i] == signature.charAt(0) && hive[i + 1] == signature.charAt(1)) {
+                    return i;
+                }
+            }
+            throw new IllegalStateException(signature + " not found");
+        }
+    }
+
+    @Nested
+    @DisplayName("values")
+    class Values {
+
+        @Test
+        @DisplayName("get")
+        void testGet() throws IOException {
+            byte[] smallData = { 1, 2, 3 };
+            byte[] data = new byte[1024];
+            Arrays.fill(data, (byte) 13);
+
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT");
+            builder.root().addSubKey("subKey")
+                    .addValue(StringValue.of(RegistryValue.DEFAULT, "default"))
+                    .addValue(StringValue.of("string", "value"))
+                    .addValue(StringValue.expandableOf("expandable", "%PATH%"))
+                    .addValue(MultiStringValue.of("multi", "value1", "value2"))
+                    .addValue(DWordValue.of("dword", 13))
+                    .addValue(DWordValue.bigEndianOf("dword-be", 13))
+                    .addValue(QWordValue.of("qword", 481))
+                    .addValue(BinaryValue.of("small", smallData))
+                    .addValue(BinaryValue.of("binary", data))
+                    .addValue(BinaryValue.of("empty", new byte[0]))
+                    .addValue("Ünïcödé 中文", REG_BINARY, smallData);
+
+            try (HiveRegistry registry = openHive(builder)) {
+                RegistryKey registryKey = registry.rootKey().resolve("subKey");
+
+                assertEquals("default", registryKey.getStringValue(RegistryValue.DEFAULT));
+                assertEquals("value", registryKey.getStringValue("string"));
+                assertEquals(StringValue.expandableOf("expandable", "%PATH%"), registryKey.getValue("expandable", StringValue.class));
+                assertEquals(MultiStringValue.of("multi", "value1", "value2"), registryKey.getValue("multi", MultiStringValue.class));
+                assertEquals(13, registryKey.getDWordValue("dword"));
+                assertEquals(DWordValue.bigEndianOf("dword-be", 13), registryKey.getValue("dword-be", DWordValue.class));
+                assertEquals(481, registryKey.getQWordValue("qword"));
+                assertArrayEquals(smallData, registryKey.getValue("small", BinaryValue.class).data());
+                assertArrayEquals(data, registryKey.getValue("binary", BinaryValue.class).data());
+                assertArrayEquals(new byte[0], registryKey.getValue("empty", BinaryValue.class).data());
+                assertArrayEquals(smallData, registryKey.getValue("ünïcödé 中文", BinaryValue.class).data());
+
+                // Registry values are case insensitive
+                assertEquals(Optional.of("value"), registryKey.findStringValue("STRING"));
+                assertEquals(Optional.empty(), registryKey.findStringValue("non-existing"));
+                assertThrows(NoSuchRegistryValueException.class, () -> registryKey.getStringValue("non-existing"));
+
+                assertEquals(11, registryKey.attributes().valueCount());
+            }
+        }
+
+        @Test
+        @DisplayName("big data")
+        void testBigData() throws IOException {
+            byte[] data = new byte[40_000];
+            for (int i = 0; i < data.length; i++) {
+                data[i] = (byte) i;
+            }
+
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT");
+            builder.root().addValue(BinaryValue.of("big", data));
+
+            try (HiveRegistry registry = openHive(builder)) {
+                RegistryKey rootKey = registry.rootKey();
+
+                assertArrayEquals(data, rootKey.getValue("big", BinaryValue.class).data());
+
+                try (Stream<RegistryValue> stream = rootKey.values()) {
+                    assertEquals(List.of(BinaryValue.of("big", data)), stream.toList());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("values stream")
+        void testValuesStream() throws IOException {
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT");
+            builder.root()
+                    .addValue(StringValue.of("string", "value"))
+                    .addValue(DWordValue.of("dword", 13));
+
+            try (HiveRegistry registry = openHive(builder)) {
+                RegistryKey rootKey = registry.rootKey();
+
+                try (Stream<RegistryValue> stream = rootKey.values()) {
+                    List<RegistryValue> expected = List.of(
+                            StringValue.of("string", "value"),
+                            DWordValue.of("dword", 13)
+                    );
+
+                    assertEquals(expected, stream.toList());
+                }
+
+                try (Stream<RegistryValue> stream = rootKey.values(RegistryValue.filter().words())) {
+                    assertEquals(List.of(DWordValue.of("dword", 13)), stream.toList());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("getValues")
+        void testGetValues() throws IOException {
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT");
+            builder.root()
+                    .addValue(StringValue.of("string", "value"))
+                    .addValue(DWordValue.of("dword", 13))
+                    .addValue(BinaryValue.of("binary", new byte[1024]));
+
+            try (HiveRegistry registry = openHive(builder)) {
+                RegistryKey rootKey = registry.rootKey();
+
+                Map<String, RegistryValue> expected = Map.of(
+                        "dword", DWordValue.of("dword", 13),
+                        "string", StringValue.of("string", "value"));
+
+                assertEquals(expected, rootKey.getValues("dword", "non-existing", "string"));
+            }
+        }
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * InMemoryRegistryTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+// Extend RegistryTestBase to verify that the in-memory registry does not call any of the Windows API classes
+@SuppressWarnings("nls")
+class InMemoryRegistryTest extends RegistryTestBase {
+
+    private final InMemoryRegistry registry = Registry.inMemory();
+
+    @AfterEach
+    void verifyNoNativeCalls() {
+        advapi32.verifyNoInteractions();
+        ktmW32.verifyNoInteractions();
+    }
+
+    @Test
+    @DisplayName("new registries are empty and independent")
+    void testNewRegistriesAreEmptyAndIndependent() {
+        InMemoryRegistry other = Registry.inMemory();
+        assertNotSame(registry, other);
+
+        registry.HKEY_CURRENT_USER.resolve("path").create();
+
+        assertTrue(registry.HKEY_CURRENT_USER.resolve("path").exists());
+        assertFalse(other.HKEY_CURRENT_USER.resolve("path").exists());
+
+        try (Stream<RegistryKey> stream = other.HKEY_CURRENT_USER.subKeys()) {
+            assertEquals(0, stream.count());
+        }
+    }
+
+    @Nested
+    @DisplayName("keys")
+    class Keys {
+
+        @Test
+        @DisplayName("create")
+        void testCreate() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path\\to\\key");
+
+            assertFalse(registryKey.exists());
+
+            registryKey.create();
+
+            assertTrue(registryKey.exists());
+            assertTrue(registryKey.isAccessible());
+            assertTrue(registry.HKEY_CURRENT_USER.resolve("path\\to").exists());
+
+            assertThrows(RegistryKeyAlreadyExistsException.class, registryKey::create);
+            assertFalse(registryKey.createIfNotExists());
+        }
+
+        @Test
+        @DisplayName("case insensitive")
+        void testCaseInsensitive() {
+            registry.HKEY_CURRENT_USER.resolve("Path\\To\\Key").create();
+
+            assertTrue(registry.HKEY_CURRENT_USER.resolve("path\\to\\key").exists());
+            assertFalse(registry.HKEY_CURRENT_USER.resolve("PATH\\TO\\KEY").createIfNotExists());
+        }
+
+        @Test
+        @DisplayName("subKeys")
+        void testSubKeys() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path");
+            registryKey.resolve("subKey2").create();
+            registryKey.resolve("subKey1").create();
+            registryKey.resolve("subKey3\\nested").create();
+
+            try (Stream<RegistryKey> stream = registryKey.subKeys()) {
+                List<RegistryKey> subKeys = stream.sorted().toList();
+
+                List<RegistryKey> expected = List.of(
+                        registryKey.resolve("subKey1"),
+                        registryKey.resolve("subKey2"),
+                        registryKey.resolve("subKey3")
+                );
+
+                assertEquals(expected, subKeys);
+            }
+
+            try (Stream<RegistryKey> stream = registryKey.traverse()) {
+                assertEquals(5, stream.count());
+            }
+
+            assertEquals(3, registryKey.attributes().subKeyCount());
+        }
+
+        @Test
+        @DisplayName("subKeys in parallel")
+        void testSubKeysInParallel() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path");
+            for (int i = 0; i < 100; i++) {
+                registryKey.resolve("subKey" + i).create();
+            }
+
+            try (RegistryKey.Handle handle = registryKey.handle();
+                    Stream<RegistryKey> stream = handle.subKeys()) {
+
+                Spliterator<RegistryKey> spliterator = stream.parallel().spliterator();
+                Spliterator<RegistryKey> split = spliterator.trySplit();
+
+                List<RegistryKey> subKeys = Stream.concat(
+                        toStream(split),
+                        toStream(spliterator))
+                        .toList();
+
+                assertEquals(100, subKeys.size());
+                assertEquals(100, subKeys.stream().distinct().count());
+            }
+        }
+
+        private Stream<RegistryKey> toStream(Spliterator<RegistryKey> spliterator) {
+            Stream.Builder<RegistryKey> builder = Stream.builder();
+            spliterator.forEachRemaining(builder);
+            return builder.build();
+        }
+
+        @Test
+        @DisplayName("renameTo")
+        void testRenameTo() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path\\key");
+            registryKey.resolve("nested").create();
+            registryKey.setValue(StringValue.of("string", "value"));
+
+            RegistryKey renamed = registryKey.renameTo("renamed");
+
+            assertEquals(registry.HKEY_CURRENT_USER.resolve("path\\renamed"), renamed);
+            assertFalse(registryKey.exists());
+            assertTrue(renamed.exists());
+            assertTrue(renamed.resolve("nested").exists());
+            assertEquals("value", renamed.getStringValue("string"));
+        }
+
+        @Test
+        @DisplayName("renameTo existing key")
+        void testRenameToExisting() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path\\key");
+            registryKey.create();
+            registry.HKEY_CURRENT_USER.resolve("path\\existing").create();
+
+            assertThrows(RegistryKeyAlreadyExistsException.class, () -> registryKey.renameTo("existing"));
+            assertTrue(registryKey.exists());
+        }
+
+        @Test
+        @DisplayName("delete")
+        void testDelete() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path\\key");
+            registryKey.create();
+
+            registryKey.delete();
+
+            assertFalse(registryKey.exists());
+            assertTrue(registryKey.parent().orElseThrow().exists());
+
+            assertThrows(NoSuchRegistryKeyException.class, registryKey::delete);
+            assertFalse(registryKey.deleteIfExists());
+        }
+
+        @Test
+        @DisplayName("delete with sub keys")
+        void testDeleteWithSubKeys() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path\\key");
+            registryKey.resolve("nested").create();
+
+            assertThrows(RegistryAccessDeniedException.class, registryKey::delete);
+            assertTrue(registryKey.exists());
+        }
+
+        @Test
+        @DisplayName("deleteTree")
+        void testDeleteTree() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path\\key");
+            registryKey.resolve("nested\\deeper").create();
+            registryKey.resolve("other").create();
+
+            registryKey.deleteTree();
+
+            assertFalse(registryKey.exists());
+            assertTrue(registryKey.parent().orElseThrow().exists());
+
+            assertThrows(NoSuchRegistryKeyException.class, registryKey::deleteTree);
+            assertFalse(registryKey.deleteTreeIfExists());
+        }
+
+        @Test
+        @DisplayName("handle of deleted key")
+        void testHandleOfDeletedKey() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path\\key");
+            registryKey.create();
+
+            try (RegistryKey.Handle handle = registryKey.handle()) {
+                registryKey.delete();
+
+                assertThrows(NoSuchRegistryKeyException.class, handle::subKeys);
+                assertThrows(NoSuchRegistryKeyException.class, () -> handle.findValue("string", StringValue.class));
+            }
+        }
+
+        @Test
+        @DisplayName("non-existing key")
+        void testNonExisting() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path\\non-existing");
+
+            assertThrows(NoSuchRegistryKeyException.class, registryKey::subKeys);
+            assertThrows(NoSuchRegistryKeyException.class, registryKey::handle);
+        }
+    }
+
+    @Nested
+    @DisplayName("values")
+    class Values {
+
+        @Test
+        @DisplayName("set and get")
+        void testSetAndGet() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path");
+            registryKey.create();
+
+            registryKey.setValue(StringValue.of("string", "value"));
+            registryKey.setValue(DWordValue.of("dword", 13));
+            registryKey.setValue(QWordValue.of("qword", 481));
+            registryKey.setValue(MultiStringValue.of("multi", "value1", "value2"));
+            registryKey.setValue(BinaryValue.of("binary", new byte[1024]));
+
+            assertEquals("value", registryKey.getStringValue("string"));
+            assertEquals(13, registryKey.getDWordValue("dword"));
+            assertEquals(481, registryKey.getQWordValue("qword"));
+            assertEquals(MultiStringValue.of("multi", "value1", "value2"), registryKey.getValue("multi", MultiStringValue.class));
+            assertEquals(BinaryValue.of("binary", new byte[1024]), registryKey.getValue("binary", BinaryValue.class));
+
+            assertEquals(Optional.of("value"), registryKey.findStringValue("STRING"));
+            assertEquals(Optional.empty(), registryKey.findStringValue("non-existing"));
+            assertThrows(NoSuchRegistryValueException.class, () -> registryKey.getStringValue("non-existing"));
+
+            assertEquals(5, registryKey.attributes().valueCount());
+        }
+
+        @Test
+        @DisplayName("values stream")
+        void testValuesStream() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path");
+            registryKey.create();
+
+            registryKey.setValue(StringValue.of("string", "value"));
+            registryKey.setValue(DWordValue.of("dword", 13));
+
+            try (Stream<RegistryValue> stream = registryKey.values()) {
+                List<RegistryValue> values = stream
+                        .sorted(Comparator.comparing(RegistryValue::name))
+                        .toList();
+
+                List<RegistryValue> expected = List.of(
+                        DWordValue.of("dword", 13),
+                        StringValue.of("string", "value")
+                );
+
+                assertEquals(expected, values);
+            }
+
+            try (Stream<RegistryValue> stream = registryKey.values(RegistryValue.filter().strings())) {
+                assertEquals(List.of(StringValue.of("string", "value")), stream.toList());
+            }
+        }
+
+        @Test
+        @DisplayName("getValues")
+        void testGetValues() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path");
+            registryKey.create();
+
+            registryKey.setValue(StringValue.of("string", "value"));
+            registryKey.setValue(DWordValue.of("dword", 13));
+            registryKey.setValue(BinaryValue.of("binary", new byte[1024]));
+
+            Map<String, RegistryValue> expected = new LinkedHashMap<>();
+            expected.put("dword", DWordValue.of("dword", 13));
+            expected.put("binary", BinaryValue.of("binary", new byte[1024]));
+            expected.put("string", StringValue.of("string", "value"));
+
+            assertEquals(expected, registryKey.getValues("dword", "binary", "string"));
+
+            expected.remove("binary");
+
+            assertEquals(expected, registryKey.getValues("dword", "non-existing", "string"));
+        }
+
+        @Test
+        @DisplayName("delete")
+        void testDelete() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path");
+            registryKey.create();
+
+            registryKey.setValue(StringValue.of("string", "value"));
+
+            registryKey.deleteValue("string");
+
+            assertEquals(Optional.empty(), registryKey.findStringValue("string"));
+            assertThrows(NoSuchRegistryValueException.class, () -> registryKey.deleteValue("string"));
+            assertFalse(registryKey.deleteValueIfExists("string"));
+        }
+
+        @Test
+        @DisplayName("set without access")
+        void testSetWithoutAccess() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path");
+            registryKey.create();
+
+            try (RegistryKey.Handle handle = registryKey.handle()) {
+                StringValue value = StringValue.of("string", "value");
+                assertThrows(RegistryAccessDeniedException.class, () -> handle.setValue(value));
+            }
+
+            try (RegistryKey.Handle handle = registryKey.handle(RegistryKey.HandleOption.MANAGE_VALUES)) {
+                handle.setValue(StringValue.of("string", "value"));
+            }
+
+            assertEquals("value", registryKey.getStringValue("string"));
+        }
+    }
+}
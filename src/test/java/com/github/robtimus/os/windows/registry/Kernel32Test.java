@@ -20,8 +20,15 @@ package com.github.robtimus.os.windows.registry;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ALREADY_EXISTS;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.WAIT_OBJECT_0;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.WAIT_TIMEOUT;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
@@ -67,4 +74,29 @@ class Kernel32Test {
             assertEquals(Messages.Kernel32.formatMessageError(-1, 317), exception.getMessage());
         }
     }
+
+    @Test
+    @DisplayName("events")
+    void testEvents() {
+        try (Arena arena = Arena.ofConfined()) {
+            MemorySegment captureState = CaptureState.allocate(arena);
+
+            MemorySegment hEvent = Kernel32.CreateEvent(MemorySegment.NULL, 0, 0, MemorySegment.NULL, captureState);
+            assertNotEquals(MemorySegment.NULL, hEvent);
+
+            try {
+                MemorySegment lpHandles = arena.allocateFrom(ValueLayout.ADDRESS, hEvent);
+
+                assertEquals(WAIT_TIMEOUT, Kernel32.WaitForMultipleObjects(1, lpHandles, 0, 0, captureState));
+
+                assertTrue(Kernel32.SetEvent(hEvent, captureState));
+
+                assertEquals(WAIT_OBJECT_0, Kernel32.WaitForMultipleObjects(1, lpHandles, 0, 0, captureState));
+                // The event is reset automatically
+                assertEquals(WAIT_TIMEOUT, Kernel32.WaitForMultipleObjects(1, lpHandles, 0, 0, captureState));
+            } finally {
+                assertTrue(Kernel32.CloseHandle(hEvent, captureState));
+            }
+        }
+    }
 }
@@ -29,7 +29,6 @@ import static com.github.robtimus.os.windows.registry.Advapi32.RegSetValueEx;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqBytes;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqSize;
-import static com.github.robtimus.os.windows.registry.ForeignTestUtils.isNULL;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockSubKeys;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockValue;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockValues;
@@ -53,6 +52,7 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Consumer;
@@ -171,7 +171,10 @@ class LocalRootKeyTest extends RegistryTestBase {
         void testEnumFailure() {
             advapi32.when(() -> RegQueryInfoKey(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
                     notNull(), notNull(), notNull(), notNull(), notNull()))
-                    .thenReturn(ERROR_SUCCESS);
+                    .thenAnswer(i -> {
+                        i.getArgument(4, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 1);
+                        return ERROR_SUCCESS;
+                    });
 
             advapi32.when(() -> RegEnumKeyEx(eq(HKEY_CURRENT_USER), eq(0), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
@@ -344,7 +347,10 @@ class LocalRootKeyTest extends RegistryTestBase {
         void testEnumFailure() {
             advapi32.when(() -> RegQueryInfoKey(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
                     notNull(), notNull(), notNull(), notNull(), notNull()))
-                    .thenReturn(ERROR_SUCCESS);
+                    .thenAnswer(i -> {
+                        i.getArgument(7, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 1);
+                        return ERROR_SUCCESS;
+                    });
 
             advapi32.when(() -> RegEnumValue(eq(HKEY_CURRENT_USER), eq(0), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
@@ -376,7 +382,7 @@ class LocalRootKeyTest extends RegistryTestBase {
         @Test
         @DisplayName("non-existing value")
         void testNonExistingValue() {
-            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -428,7 +434,7 @@ class LocalRootKeyTest extends RegistryTestBase {
         @Test
         @DisplayName("non-existing value")
         void testNonExistingValue() {
-            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -681,6 +687,18 @@ class LocalRootKeyTest extends RegistryTestBase {
         assertThrows(UnsupportedOperationException.class, REGISTRY.HKEY_CURRENT_USER::deleteIfExists);
     }
 
+    @Test
+    @DisplayName("deleteTree")
+    void testDeleteTree() {
+        assertThrows(UnsupportedOperationException.class, REGISTRY.HKEY_CURRENT_USER::deleteTree);
+    }
+
+    @Test
+    @DisplayName("deleteTreeIfExists")
+    void testDeleteTreeIfExists() {
+        assertThrows(UnsupportedOperationException.class, REGISTRY.HKEY_CURRENT_USER::deleteTreeIfExists);
+    }
+
     @Nested
     @DisplayName("handle")
     class Handle {
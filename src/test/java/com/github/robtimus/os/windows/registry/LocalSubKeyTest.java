@@ -20,31 +20,35 @@ package com.github.robtimus.os.windows.registry;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegCreateKeyEx;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteKeyEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteTree;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteValue;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumKeyEx;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumValue;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegOpenKeyEx;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryInfoKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryMultipleValues;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryValueEx;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegRenameKey;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegSetValueEx;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqBytes;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqSize;
-import static com.github.robtimus.os.windows.registry.ForeignTestUtils.isNULL;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.newHKEY;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.setHKEY;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockClose;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockMultipleValues;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpen;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenAndClose;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenFailure;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockSubKeys;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockSubKeysUntilDeleted;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockValue;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockValues;
 import static com.github.robtimus.os.windows.registry.RegistryValueTest.randomData;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_INVALID_HANDLE;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_MORE_DATA;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.HKEY_CURRENT_USER;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.KEY_READ;
@@ -57,6 +61,7 @@ import static org.hamcrest.Matchers.arrayContaining;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -72,9 +77,12 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Spliterator;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Stream;
@@ -270,6 +278,107 @@ class LocalSubKeyTest extends RegistryTestBase {
             advapi32.verify(() -> RegCloseKey(hKey));
         }
 
+        @Test
+        @DisplayName("split")
+        void testSplit() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+            mockSubKeys(hKey, "child1", "child2", "child3", "child4");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            try (Stream<RegistryKey> stream = registryKey.subKeys()) {
+                // Only parallel streams return splittable spliterators; the spliterators are still used from the current thread
+                Spliterator<RegistryKey> spliterator = stream.parallel().spliterator();
+                // Sub keys can be added or removed while streaming, so the number of sub keys is only an estimate
+                assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+                assertEquals(4, spliterator.estimateSize());
+
+                Spliterator<RegistryKey> prefix = spliterator.trySplit();
+                assertNotNull(prefix);
+                assertEquals(2, prefix.estimateSize());
+                assertEquals(2, spliterator.estimateSize());
+
+                List<RegistryKey> subKeys = new ArrayList<>();
+                prefix.forEachRemaining(subKeys::add);
+                spliterator.forEachRemaining(subKeys::add);
+
+                List<RegistryKey> expected = List.of(
+                        registryKey.resolve("child1"),
+                        registryKey.resolve("child2"),
+                        registryKey.resolve("child3"),
+                        registryKey.resolve("child4")
+                );
+
+                assertEquals(expected, subKeys);
+            }
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("Software\\JavaSoft\\Prefs"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("sub keys removed while streaming")
+        void testSubKeysRemoved() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+            mockSubKeys(hKey, "child1", "child2");
+
+            advapi32.when(() -> RegQueryInfoKey(eq(hKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
+                    notNull(), notNull(), notNull()))
+                    .thenAnswer(i -> {
+                        i.getArgument(4, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 3);
+                        i.getArgument(5, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 6);
+                        return ERROR_SUCCESS;
+                    });
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            try (Stream<RegistryKey> stream = registryKey.subKeys()) {
+                List<RegistryKey> subKeys = stream.toList();
+
+                List<RegistryKey> expected = List.of(
+                        registryKey.resolve("child1"),
+                        registryKey.resolve("child2")
+                );
+
+                assertEquals(expected, subKeys);
+            }
+
+            advapi32.verify(() -> RegEnumKeyEx(eq(hKey), anyInt(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()), times(3));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("sub keys added while streaming")
+        void testSubKeysAdded() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+            mockSubKeys(hKey, "child1", "child2", "child3");
+
+            advapi32.when(() -> RegQueryInfoKey(eq(hKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
+                    notNull(), notNull(), notNull()))
+                    .thenAnswer(i -> {
+                        i.getArgument(4, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 1);
+                        i.getArgument(5, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 6);
+                        return ERROR_SUCCESS;
+                    });
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            try (Stream<RegistryKey> stream = registryKey.subKeys()) {
+                List<RegistryKey> subKeys = stream.toList();
+
+                List<RegistryKey> expected = List.of(
+                        registryKey.resolve("child1"),
+                        registryKey.resolve("child2"),
+                        registryKey.resolve("child3")
+                );
+
+                assertEquals(expected, subKeys);
+            }
+
+            advapi32.verify(() -> RegEnumKeyEx(eq(hKey), anyInt(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()), times(4));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
         @Test
         @DisplayName("non-existing key")
         void testNonExistingKey() {
@@ -332,7 +441,10 @@ class LocalSubKeyTest extends RegistryTestBase {
 
             advapi32.when(() -> RegQueryInfoKey(eq(hKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
                     notNull(), notNull(), notNull()))
-                    .thenReturn(ERROR_SUCCESS);
+                    .thenAnswer(i -> {
+                        i.getArgument(4, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 1);
+                        return ERROR_SUCCESS;
+                    });
 
             advapi32.when(() -> RegEnumKeyEx(eq(hKey), eq(0), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
@@ -436,18 +548,18 @@ class LocalSubKeyTest extends RegistryTestBase {
             @SuppressWarnings("squid:S5961")
             void testSubKeysFirst() {
                 MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path");
-                MemorySegment subKey1 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey1");
-                MemorySegment subKey2 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey2");
-                MemorySegment subKey3 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey3");
-                MemorySegment subKey11 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey1\\subKey11");
-                MemorySegment subKey12 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey1\\subKey12");
-                MemorySegment subKey13 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey1\\subKey13");
-                MemorySegment subKey21 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey2\\subKey21");
-                MemorySegment subKey22 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey2\\subKey22");
-                MemorySegment subKey23 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey2\\subKey23");
-                MemorySegment subKey31 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey3\\subKey31");
-                MemorySegment subKey32 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey3\\subKey32");
-                MemorySegment subKey33 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey3\\subKey33");
+                MemorySegment subKey1 = mockOpenAndClose(hKey, "subKey1");
+                MemorySegment subKey2 = mockOpenAndClose(hKey, "subKey2");
+                MemorySegment subKey3 = mockOpenAndClose(hKey, "subKey3");
+                MemorySegment subKey11 = mockOpenAndClose(subKey1, "subKey11");
+                MemorySegment subKey12 = mockOpenAndClose(subKey1, "subKey12");
+                MemorySegment subKey13 = mockOpenAndClose(subKey1, "subKey13");
+                MemorySegment subKey21 = mockOpenAndClose(subKey2, "subKey21");
+                MemorySegment subKey22 = mockOpenAndClose(subKey2, "subKey22");
+                MemorySegment subKey23 = mockOpenAndClose(subKey2, "subKey23");
+                MemorySegment subKey31 = mockOpenAndClose(subKey3, "subKey31");
+                MemorySegment subKey32 = mockOpenAndClose(subKey3, "subKey32");
+                MemorySegment subKey33 = mockOpenAndClose(subKey3, "subKey33");
 
                 mockSubKeys(hKey, "subKey1", "subKey2", "subKey3");
                 mockSubKeys(subKey1, "subKey11", "subKey12", "subKey13");
@@ -487,18 +599,18 @@ class LocalSubKeyTest extends RegistryTestBase {
                 }
 
                 advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey1"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey2"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey3"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey1\\subKey11"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey1\\subKey12"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey1\\subKey13"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey2\\subKey21"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey2\\subKey22"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey2\\subKey23"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey3\\subKey31"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey3\\subKey32"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey3\\subKey33"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey1"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey2"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey3"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey11"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey12"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey13"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey21"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey22"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey23"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey31"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey32"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey33"), anyInt(), anyInt(), notNull()));
                 advapi32.verify(() -> RegOpenKeyEx(notNull(), notNull(), anyInt(), anyInt(), notNull()), times(13));
                 advapi32.verify(() -> RegCloseKey(hKey));
                 advapi32.verify(() -> RegCloseKey(subKey1));
@@ -521,18 +633,18 @@ class LocalSubKeyTest extends RegistryTestBase {
             @SuppressWarnings("squid:S5961")
             void testSubKeysNotFirst() {
                 MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path");
-                MemorySegment subKey1 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey1");
-                MemorySegment subKey2 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey2");
-                MemorySegment subKey3 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey3");
-                MemorySegment subKey11 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey1\\subKey11");
-                MemorySegment subKey12 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey1\\subKey12");
-                MemorySegment subKey13 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey1\\subKey13");
-                MemorySegment subKey21 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey2\\subKey21");
-                MemorySegment subKey22 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey2\\subKey22");
-                MemorySegment subKey23 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey2\\subKey23");
-                MemorySegment subKey31 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey3\\subKey31");
-                MemorySegment subKey32 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey3\\subKey32");
-                MemorySegment subKey33 = mockOpenAndClose(HKEY_CURRENT_USER, "path\\subKey3\\subKey33");
+                MemorySegment subKey1 = mockOpenAndClose(hKey, "subKey1");
+                MemorySegment subKey2 = mockOpenAndClose(hKey, "subKey2");
+                MemorySegment subKey3 = mockOpenAndClose(hKey, "subKey3");
+                MemorySegment subKey11 = mockOpenAndClose(subKey1, "subKey11");
+                MemorySegment subKey12 = mockOpenAndClose(subKey1, "subKey12");
+                MemorySegment subKey13 = mockOpenAndClose(subKey1, "subKey13");
+                MemorySegment subKey21 = mockOpenAndClose(subKey2, "subKey21");
+                MemorySegment subKey22 = mockOpenAndClose(subKey2, "subKey22");
+                MemorySegment subKey23 = mockOpenAndClose(subKey2, "subKey23");
+                MemorySegment subKey31 = mockOpenAndClose(subKey3, "subKey31");
+                MemorySegment subKey32 = mockOpenAndClose(subKey3, "subKey32");
+                MemorySegment subKey33 = mockOpenAndClose(subKey3, "subKey33");
 
                 mockSubKeys(hKey, "subKey1", "subKey2", "subKey3");
                 mockSubKeys(subKey1, "subKey11", "subKey12", "subKey13");
@@ -572,18 +684,18 @@ class LocalSubKeyTest extends RegistryTestBase {
                 }
 
                 advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey1"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey2"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey3"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey1\\subKey11"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey1\\subKey12"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey1\\subKey13"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey2\\subKey21"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey2\\subKey22"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey2\\subKey23"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey3\\subKey31"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey3\\subKey32"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\subKey3\\subKey33"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey1"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey2"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey3"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey11"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey12"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey13"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey21"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey22"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey23"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey31"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey32"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey33"), anyInt(), anyInt(), notNull()));
                 advapi32.verify(() -> RegOpenKeyEx(notNull(), notNull(), anyInt(), anyInt(), notNull()), times(13));
                 advapi32.verify(() -> RegCloseKey(hKey));
                 advapi32.verify(() -> RegCloseKey(subKey1));
@@ -693,6 +805,81 @@ class LocalSubKeyTest extends RegistryTestBase {
             }
         }
 
+        @Nested
+        @DisplayName("split")
+        class Split {
+
+            @Test
+            @DisplayName("without filter")
+            void testWithoutFilter() {
+                StringValue stringValue = StringValue.of("string", "value");
+                BinaryValue binaryValue = BinaryValue.of("binary", randomData());
+                DWordValue wordValue = DWordValue.of("dword", 13);
+
+                MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+                mockValues(hKey, stringValue, binaryValue, wordValue);
+
+                RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+                try (Stream<RegistryValue> stream = registryKey.values()) {
+                    Spliterator<RegistryValue> spliterator = stream.parallel().spliterator();
+                    // Values can be added or removed while streaming, so the number of values is only an estimate
+                    assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+                    assertEquals(3, spliterator.estimateSize());
+
+                    Spliterator<RegistryValue> prefix = spliterator.trySplit();
+                    assertNotNull(prefix);
+                    assertEquals(1, prefix.estimateSize());
+                    assertEquals(2, spliterator.estimateSize());
+
+                    List<RegistryValue> values = new ArrayList<>();
+                    prefix.forEachRemaining(values::add);
+                    spliterator.forEachRemaining(values::add);
+
+                    List<RegistryValue> expected = List.of(stringValue, binaryValue, wordValue);
+
+                    assertEquals(expected, values);
+                }
+
+                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("Software\\JavaSoft\\Prefs"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegCloseKey(hKey));
+            }
+
+            @Test
+            @DisplayName("with filter")
+            void testWithFilter() {
+                StringValue stringValue = StringValue.of("string", "value");
+                BinaryValue binaryValue = BinaryValue.of("binary", randomData());
+                DWordValue wordValue = DWordValue.of("dword", 13);
+
+                MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+                mockValues(hKey, stringValue, binaryValue, wordValue);
+
+                RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+                RegistryValue.Filter filter = RegistryValue.filter().strings().words();
+                try (Stream<RegistryValue> stream = registryKey.values(filter)) {
+                    Spliterator<RegistryValue> spliterator = stream.parallel().spliterator();
+                    assertFalse(spliterator.hasCharacteristics(Spliterator.SIZED));
+                    assertEquals(3, spliterator.estimateSize());
+
+                    Spliterator<RegistryValue> prefix = spliterator.trySplit();
+                    assertNotNull(prefix);
+
+                    List<RegistryValue> values = new ArrayList<>();
+                    prefix.forEachRemaining(values::add);
+                    spliterator.forEachRemaining(values::add);
+
+                    List<RegistryValue> expected = List.of(stringValue, wordValue);
+
+                    assertEquals(expected, values);
+                }
+
+                advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("Software\\JavaSoft\\Prefs"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegCloseKey(hKey));
+            }
+        }
+
         @Test
         @DisplayName("non-existing key")
         void testNonExistingKey() {
@@ -804,7 +991,10 @@ class LocalSubKeyTest extends RegistryTestBase {
 
             advapi32.when(() -> RegQueryInfoKey(eq(hKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
                     notNull(), notNull(), notNull()))
-                    .thenReturn(ERROR_SUCCESS);
+                    .thenAnswer(i -> {
+                        i.getArgument(7, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 1);
+                        return ERROR_SUCCESS;
+                    });
 
             advapi32.when(() -> RegEnumValue(eq(hKey), eq(0), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
@@ -838,9 +1028,63 @@ class LocalSubKeyTest extends RegistryTestBase {
             assertEquals(stringValue, value);
 
             advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("Software\\JavaSoft\\Prefs"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegQueryValueEx(eq(hKey), any(), any(), any(), any(), any()), times(1));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("large value")
+        void testLargeValue() {
+            // Data that is larger than the retained buffer size always needs two calls, regardless of previous reads on the same thread
+            BinaryValue binaryValue = BinaryValue.of("binary", new byte[ValueBuffer.MAX_RETAINED_DATA_SIZE * 2]);
+
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+            mockValue(hKey, binaryValue);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            BinaryValue value = registryKey.getValue("binary", BinaryValue.class);
+            assertEquals(binaryValue, value);
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("Software\\JavaSoft\\Prefs"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegQueryValueEx(eq(hKey), any(), any(), any(), any(), any()), times(2));
             advapi32.verify(() -> RegCloseKey(hKey));
         }
 
+        @Test
+        @DisplayName("multiple values from the same handle")
+        void testMultipleValuesFromSameHandle() {
+            BinaryValue largeValue = BinaryValue.of("large", new byte[ValueBuffer.MAX_RETAINED_DATA_SIZE * 2]);
+            BinaryValue binaryValue = BinaryValue.of("binary", new byte[ValueBuffer.INITIAL_DATA_SIZE * 4]);
+            StringValue stringValue = StringValue.of("string", "value");
+            DWordValue dwordValue = DWordValue.of("dword", 13);
+
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+            mockValue(hKey, largeValue);
+            mockValue(hKey, binaryValue);
+            mockValue(hKey, stringValue);
+            mockValue(hKey, dwordValue);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            try (RegistryKey.Handle handle = registryKey.handle()) {
+                // the large buffer is not retained, so the next read starts with the initial buffer size
+                assertEquals(largeValue, handle.getValue("large", BinaryValue.class));
+                assertEquals(binaryValue, handle.getValue("binary", BinaryValue.class));
+                assertEquals(stringValue, handle.getValue("string", StringValue.class));
+                assertEquals(dwordValue, handle.getValue("dword", DWordValue.class));
+            }
+            // the grown buffer is reused, even for another handle
+            assertEquals(binaryValue, registryKey.getValue("binary", BinaryValue.class));
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("Software\\JavaSoft\\Prefs"), anyInt(), anyInt(), notNull()),
+                    times(2));
+            advapi32.verify(() -> RegQueryValueEx(eq(hKey), eqPointer("large"), any(), any(), any(), any()), times(2));
+            advapi32.verify(() -> RegQueryValueEx(eq(hKey), eqPointer("binary"), any(), any(), any(), any()), times(3));
+            advapi32.verify(() -> RegQueryValueEx(eq(hKey), any(), any(), any(), any(), any()), times(7));
+            advapi32.verify(() -> RegCloseKey(hKey), times(2));
+        }
+
         @Test
         @DisplayName("non-existing key")
         void testNonExistingKey() {
@@ -860,7 +1104,7 @@ class LocalSubKeyTest extends RegistryTestBase {
         void testNonExistingValue() {
             MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\non-existing");
 
-            advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer("string"), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer("string"), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\non-existing");
@@ -873,6 +1117,24 @@ class LocalSubKeyTest extends RegistryTestBase {
             advapi32.verify(() -> RegCloseKey(hKey));
         }
 
+        @Test
+        @DisplayName("more data without larger size")
+        void testMoreDataWithoutLargerSize() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+            // lpcbData is left as-is, so it never reports a size that is larger than the buffer
+            advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer("binary"), notNull(), notNull(), notNull(), notNull()))
+                    .thenReturn(ERROR_MORE_DATA);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            RegistryException exception = assertThrows(RegistryException.class, () -> registryKey.getValue("binary", BinaryValue.class));
+            assertEquals(ERROR_MORE_DATA, exception.errorCode());
+            assertEquals("HKEY_CURRENT_USER\\Software\\JavaSoft\\Prefs", exception.path());
+
+            advapi32.verify(() -> RegQueryValueEx(eq(hKey), eqPointer("binary"), any(), any(), any(), any()), times(ValueBuffer.MAX_ATTEMPTS));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
         @Test
         @DisplayName("failure")
         void testFailure() {
@@ -946,7 +1208,7 @@ class LocalSubKeyTest extends RegistryTestBase {
         void testNonExistingValue() {
             MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\non-existing");
 
-            advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer("string"), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer("string"), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\non-existing");
@@ -990,6 +1252,138 @@ class LocalSubKeyTest extends RegistryTestBase {
         }
     }
 
+    @Nested
+    @DisplayName("getValues")
+    class GetValues {
+
+        @Test
+        @DisplayName("success")
+        void testSuccess() {
+            StringValue stringValue = StringValue.of("string", "value");
+            DWordValue dwordValue = DWordValue.of("dword", 13);
+
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+            mockMultipleValues(hKey, stringValue, dwordValue);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            Map<String, RegistryValue> values = registryKey.getValues("dword", "string");
+            assertEquals(List.of("dword", "string"), List.copyOf(values.keySet()));
+            assertEquals(dwordValue, values.get("dword"));
+            assertEquals(stringValue, values.get("string"));
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("Software\\JavaSoft\\Prefs"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegQueryMultipleValues(eq(hKey), notNull(), eq(2), notNull(), notNull()));
+            advapi32.verify(() -> RegQueryValueEx(any(), any(), any(), any(), any(), any()), never());
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("more data")
+        void testMoreData() {
+            BinaryValue binaryValue = BinaryValue.of("binary", randomData());
+
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+            mockMultipleValues(hKey, binaryValue);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            Map<String, RegistryValue> values = registryKey.getValues("binary");
+            assertEquals(Map.of("binary", binaryValue), values);
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("Software\\JavaSoft\\Prefs"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegQueryMultipleValues(eq(hKey), notNull(), eq(1), notNull(), notNull()), times(2));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("more data without larger size")
+        void testMoreDataWithoutLargerSize() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+            // ldwTotsize is left as-is, so it never reports a size that is larger than the buffer
+            advapi32.when(() -> RegQueryMultipleValues(eq(hKey), notNull(), anyInt(), notNull(), notNull())).thenReturn(ERROR_MORE_DATA);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            RegistryException exception = assertThrows(RegistryException.class, () -> registryKey.getValues("binary"));
+            assertEquals(ERROR_MORE_DATA, exception.errorCode());
+
+            advapi32.verify(() -> RegQueryMultipleValues(eq(hKey), notNull(), eq(1), notNull(), notNull()), times(ValueBuffer.MAX_ATTEMPTS));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("non-existing value")
+        void testNonExistingValue() {
+            StringValue stringValue = StringValue.of("string", "value");
+
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+            mockMultipleValues(hKey, stringValue);
+            mockValue(hKey, stringValue);
+            advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer("missing"), notNull(), notNull(), notNull(), notNull()))
+                    .thenReturn(ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            Map<String, RegistryValue> values = registryKey.getValues("string", "missing");
+            assertEquals(Map.of("string", stringValue), values);
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("Software\\JavaSoft\\Prefs"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegQueryMultipleValues(eq(hKey), notNull(), eq(2), notNull(), notNull()));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("no names")
+        void testNoNames() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft\\Prefs");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            Map<String, RegistryValue> values = registryKey.getValues();
+            assertEquals(Map.of(), values);
+
+            advapi32.verify(() -> RegQueryMultipleValues(any(), any(), anyInt(), any(), any()), never());
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("non-existing key")
+        void testNonExistingKey() {
+            mockOpenFailure(HKEY_CURRENT_USER, "path\\non-existing", ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\non-existing");
+            NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class, () -> registryKey.getValues("string"));
+            assertEquals("HKEY_CURRENT_USER\\path\\non-existing", exception.path());
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\non-existing"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegCloseKey(notNull()), never());
+        }
+
+        @Test
+        @DisplayName("failure")
+        void testFailure() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\failure");
+
+            advapi32.when(() -> RegQueryMultipleValues(eq(hKey), notNull(), anyInt(), notNull(), notNull())).thenReturn(ERROR_INVALID_HANDLE);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\failure");
+            InvalidRegistryHandleException exception = assertThrows(InvalidRegistryHandleException.class, () -> registryKey.getValues("string"));
+            assertEquals("HKEY_CURRENT_USER\\path\\failure", exception.path());
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\failure"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("null name")
+        void testNullName() {
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft\\Prefs");
+            assertThrows(NullPointerException.class, () -> registryKey.getValues("string", null));
+
+            advapi32.verify(() -> RegOpenKeyEx(any(), any(), anyInt(), anyInt(), any()), never());
+        }
+    }
+
     @Nested
     @DisplayName("setValue")
     class SetValue {
@@ -1887,6 +2281,167 @@ class LocalSubKeyTest extends RegistryTestBase {
         }
     }
 
+    @Nested
+    @DisplayName("deleteTree")
+    class DeleteTree {
+
+        @Test
+        @DisplayName("existing")
+        void testDeleteExisting() {
+            advapi32.when(Advapi32::isRegDeleteTreeEnabled).thenReturn(true);
+            advapi32.when(() -> RegDeleteTree(eq(HKEY_CURRENT_USER), eqPointer("path\\existing"))).thenReturn(ERROR_SUCCESS);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\existing");
+            registryKey.deleteTree();
+
+            advapi32.verify(() -> RegDeleteTree(eq(HKEY_CURRENT_USER), eqPointer("path\\existing")));
+            advapi32.verify(() -> RegDeleteKeyEx(notNull(), notNull(), anyInt(), anyInt()), never());
+            advapi32.verify(() -> RegOpenKeyEx(notNull(), notNull(), anyInt(), anyInt(), notNull()), never());
+            advapi32.verify(() -> RegCloseKey(notNull()), never());
+        }
+
+        @Test
+        @DisplayName("non-existing")
+        void testDeleteNonExisting() {
+            advapi32.when(Advapi32::isRegDeleteTreeEnabled).thenReturn(true);
+            advapi32.when(() -> RegDeleteTree(eq(HKEY_CURRENT_USER), eqPointer("path\\non-existing"))).thenReturn(ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\non-existing");
+            NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class, registryKey::deleteTree);
+            assertEquals("HKEY_CURRENT_USER\\path\\non-existing", exception.path());
+
+            advapi32.verify(() -> RegOpenKeyEx(notNull(), notNull(), anyInt(), anyInt(), notNull()), never());
+            advapi32.verify(() -> RegCloseKey(notNull()), never());
+        }
+
+        @Test
+        @DisplayName("failure")
+        void testFailure() {
+            advapi32.when(Advapi32::isRegDeleteTreeEnabled).thenReturn(true);
+            advapi32.when(() -> RegDeleteTree(eq(HKEY_CURRENT_USER), eqPointer("path\\failure"))).thenReturn(ERROR_INVALID_HANDLE);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\failure");
+            InvalidRegistryHandleException exception = assertThrows(InvalidRegistryHandleException.class, registryKey::deleteTree);
+            assertEquals("HKEY_CURRENT_USER\\path\\failure", exception.path());
+        }
+
+        @Test
+        @DisplayName("without RegDeleteTree")
+        void testWithoutRegDeleteTree() {
+            MemorySegment hKey = mockOpen(HKEY_CURRENT_USER, "path\\existing");
+            MemorySegment childHKey = mockOpen(hKey, "child");
+            MemorySegment nestedHKey = mockOpen(childHKey, "nested");
+            MemorySegment siblingHKey = mockOpen(hKey, "sibling");
+            mockSubKeysUntilDeleted(hKey, "child", "sibling");
+            mockSubKeysUntilDeleted(childHKey, "nested");
+            mockSubKeysUntilDeleted(nestedHKey);
+            mockSubKeysUntilDeleted(siblingHKey);
+            mockClose(hKey);
+            mockClose(childHKey);
+            mockClose(nestedHKey);
+            mockClose(siblingHKey);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\existing");
+            registryKey.deleteTree();
+
+            advapi32.verify(() -> RegDeleteTree(notNull(), notNull()), never());
+            advapi32.verify(() -> RegDeleteKeyEx(eq(childHKey), eqPointer("nested"), eq(0), eq(0)));
+            advapi32.verify(() -> RegDeleteKeyEx(eq(hKey), eqPointer("child"), eq(0), eq(0)));
+            advapi32.verify(() -> RegDeleteKeyEx(eq(hKey), eqPointer("sibling"), eq(0), eq(0)));
+            advapi32.verify(() -> RegDeleteKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\existing"), eq(0), eq(0)));
+            advapi32.verify(() -> RegCloseKey(hKey));
+            advapi32.verify(() -> RegCloseKey(childHKey));
+            advapi32.verify(() -> RegCloseKey(nestedHKey));
+            advapi32.verify(() -> RegCloseKey(siblingHKey));
+        }
+
+        @Test
+        @DisplayName("without RegDeleteTree, non-existing")
+        void testWithoutRegDeleteTreeNonExisting() {
+            mockOpenFailure(HKEY_CURRENT_USER, "path\\non-existing", ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\non-existing");
+            NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class, registryKey::deleteTree);
+            assertEquals("HKEY_CURRENT_USER\\path\\non-existing", exception.path());
+
+            advapi32.verify(() -> RegDeleteKeyEx(notNull(), notNull(), anyInt(), anyInt()), never());
+        }
+
+        @Test
+        @DisplayName("without RegDeleteTree, nested failure")
+        void testWithoutRegDeleteTreeNestedFailure() {
+            MemorySegment hKey = mockOpen(HKEY_CURRENT_USER, "path\\existing");
+            MemorySegment childHKey = mockOpen(hKey, "child");
+            mockSubKeysUntilDeleted(hKey, "child");
+            mockSubKeysUntilDeleted(childHKey);
+            mockClose(hKey);
+            mockClose(childHKey);
+            advapi32.when(() -> RegDeleteKeyEx(eq(hKey), eqPointer("child"), eq(0), eq(0))).thenReturn(ERROR_ACCESS_DENIED);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\existing");
+            RegistryAccessDeniedException exception = assertThrows(RegistryAccessDeniedException.class, registryKey::deleteTree);
+            assertEquals("HKEY_CURRENT_USER\\path\\existing\\child", exception.path());
+
+            advapi32.verify(() -> RegDeleteKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\existing"), anyInt(), anyInt()), never());
+            advapi32.verify(() -> RegCloseKey(hKey));
+            advapi32.verify(() -> RegCloseKey(childHKey));
+        }
+    }
+
+    @Nested
+    @DisplayName("deleteTreeIfExists")
+    class DeleteTreeIfExists {
+
+        @Test
+        @DisplayName("existing")
+        void testDeleteExisting() {
+            advapi32.when(Advapi32::isRegDeleteTreeEnabled).thenReturn(true);
+            advapi32.when(() -> RegDeleteTree(eq(HKEY_CURRENT_USER), eqPointer("path\\existing"))).thenReturn(ERROR_SUCCESS);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\existing");
+            assertTrue(registryKey.deleteTreeIfExists());
+
+            advapi32.verify(() -> RegDeleteTree(eq(HKEY_CURRENT_USER), eqPointer("path\\existing")));
+            advapi32.verify(() -> RegOpenKeyEx(notNull(), notNull(), anyInt(), anyInt(), notNull()), never());
+            advapi32.verify(() -> RegCloseKey(notNull()), never());
+        }
+
+        @Test
+        @DisplayName("non-existing")
+        void testDeleteNonExisting() {
+            advapi32.when(Advapi32::isRegDeleteTreeEnabled).thenReturn(true);
+            advapi32.when(() -> RegDeleteTree(eq(HKEY_CURRENT_USER), eqPointer("path\\non-existing"))).thenReturn(ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\non-existing");
+            assertFalse(registryKey.deleteTreeIfExists());
+
+            advapi32.verify(() -> RegOpenKeyEx(notNull(), notNull(), anyInt(), anyInt(), notNull()), never());
+            advapi32.verify(() -> RegCloseKey(notNull()), never());
+        }
+
+        @Test
+        @DisplayName("failure")
+        void testFailure() {
+            advapi32.when(Advapi32::isRegDeleteTreeEnabled).thenReturn(true);
+            advapi32.when(() -> RegDeleteTree(eq(HKEY_CURRENT_USER), eqPointer("path\\failure"))).thenReturn(ERROR_INVALID_HANDLE);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\failure");
+            InvalidRegistryHandleException exception = assertThrows(InvalidRegistryHandleException.class, registryKey::deleteTreeIfExists);
+            assertEquals("HKEY_CURRENT_USER\\path\\failure", exception.path());
+        }
+
+        @Test
+        @DisplayName("without RegDeleteTree, non-existing")
+        void testWithoutRegDeleteTreeNonExisting() {
+            mockOpenFailure(HKEY_CURRENT_USER, "path\\non-existing", ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\non-existing");
+            assertFalse(registryKey.deleteTreeIfExists());
+
+            advapi32.verify(() -> RegDeleteKeyEx(notNull(), notNull(), anyInt(), anyInt()), never());
+        }
+    }
+
     @Nested
     @DisplayName("handle")
     class Handle {
@@ -2049,6 +2604,81 @@ class LocalSubKeyTest extends RegistryTestBase {
         }
     }
 
+    @Nested
+    @DisplayName("Handle.openSubKey")
+    class OpenSubKey {
+
+        @Test
+        @DisplayName("with no options")
+        void testNoOptions() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft");
+            MemorySegment subKey = mockOpenAndClose(hKey, "Prefs");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft");
+            try (RegistryKey.Handle handle = registryKey.handle();
+                    var _ = handle.openSubKey("Prefs")) {
+                // Do nothing
+            }
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("Software\\JavaSoft"), anyInt(), eq(KEY_READ), notNull()));
+            advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("Prefs"), anyInt(), eq(KEY_READ), notNull()));
+            advapi32.verify(() -> RegOpenKeyEx(notNull(), notNull(), anyInt(), anyInt(), notNull()), times(2));
+            advapi32.verify(() -> RegCloseKey(hKey));
+            advapi32.verify(() -> RegCloseKey(subKey));
+        }
+
+        @Test
+        @DisplayName("with CREATE and MANAGE_VALUES")
+        void testWithCreateAndManageValues() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft");
+            MemorySegment subKey = newHKEY(arena);
+
+            advapi32.when(() -> RegCreateKeyEx(eq(hKey), eqPointer("Prefs"), anyInt(), notNull(), anyInt(), anyInt(), notNull(), notNull(), notNull()))
+                    .thenAnswer(i -> {
+                        setHKEY(i.getArgument(7, MemorySegment.class), subKey);
+                        // disposition doesn't matter
+
+                        return ERROR_SUCCESS;
+                    });
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft");
+            try (RegistryKey.Handle handle = registryKey.handle();
+                    var _ = handle.openSubKey("Prefs", RegistryKey.HandleOption.CREATE, RegistryKey.HandleOption.MANAGE_VALUES)) {
+                // Do nothing
+            }
+
+            advapi32.verify(() -> RegCreateKeyEx(eq(hKey), eqPointer("Prefs"),
+                    anyInt(), notNull(), anyInt(), eq(KEY_READ | KEY_SET_VALUE), notNull(), notNull(), notNull()));
+            advapi32.verify(() -> RegCloseKey(subKey));
+        }
+
+        @Test
+        @DisplayName("sub key path is correct")
+        void testSubKeyPath() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft");
+            mockOpenFailure(hKey, "Prefs", ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft");
+            try (RegistryKey.Handle handle = registryKey.handle()) {
+                NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class, () -> handle.openSubKey("Prefs"));
+                assertEquals("HKEY_CURRENT_USER\\Software\\JavaSoft\\Prefs", exception.path());
+            }
+        }
+
+        @Test
+        @DisplayName("name with backslash")
+        void testNameWithBackslash() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "Software\\JavaSoft");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("Software\\JavaSoft");
+            try (RegistryKey.Handle handle = registryKey.handle()) {
+                assertThrows(IllegalArgumentException.class, () -> handle.openSubKey("Prefs\\test"));
+            }
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(hKey), notNull(), anyInt(), anyInt(), notNull()), never());
+        }
+    }
+
     @Test
     @DisplayName("compareTo")
     void testCompareTo() {
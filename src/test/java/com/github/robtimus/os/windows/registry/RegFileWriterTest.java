@@ -0,0 +1,218 @@
+/*
+ * RegFileWriterTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+@SuppressWarnings("nls")
+class RegFileWriterTest {
+
+    private final InMemoryRegistry registry = Registry.inMemory();
+
+    @Nested
+    @DisplayName("exportTo(Writer)")
+    class ExportToWriter {
+
+        @Test
+        @DisplayName("values")
+        void testValues() throws IOException {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            registryKey.create();
+            registryKey.setValue(StringValue.of(RegistryValue.DEFAULT, "default"));
+            registryKey.setValue(StringValue.of("string", "a \"quoted\" C:\\path"));
+            registryKey.setValue(StringValue.of("empty", ""));
+            registryKey.setValue(StringValue.of("multi-line", "line1\r\nline2"));
+            registryKey.setValue(StringValue.expandableOf("expandable", "%PATH%"));
+            registryKey.setValue(MultiStringValue.of("multi", "a", "b"));
+            registryKey.setValue(DWordValue.of("dword", 13));
+            registryKey.setValue(DWordValue.bigEndianOf("dword-be", 13));
+            registryKey.setValue(QWordValue.of("qword", 481));
+            registryKey.setValue(BinaryValue.of("binary", new byte[] { 1, 2, (byte) 255 }));
+            registryKey.setValue(StringValue.of("quoted \"name\"", "value"));
+
+            StringWriter writer = new StringWriter();
+            registryKey.exportTo(writer);
+
+            String expected = """
+                    Windows Registry Editor Version 5.00
+
+                    [HKEY_CURRENT_USER\\Software\\Test]
+                    @="default"
+                    "binary"=hex:01,02,ff
+                    "dword"=dword:0000000d
+                    "dword-be"=hex(5):00,00,00,0d
+                    "empty"=""
+                    "expandable"=hex(2):25,00,50,00,41,00,54,00,48,00,25,00,00,00
+                    "multi"=hex(7):61,00,00,00,62,00,00,00,00,00
+                    "multi-line"=hex(1):6c,00,69,00,6e,00,65,00,31,00,0d,00,0a,00,6c,00,69,00,6e,\\
+                      00,65,00,32,00,00,00
+                    "quoted \\"name\\""="value"
+                    "qword"=hex(b):e1,01,00,00,00,00,00,00
+                    "string"="a \\"quoted\\" C:\\\\path"
+
+                    """.replace("\n", "\r\n");
+
+            assertEquals(expected, writer.toString());
+        }
+
+        @Test
+        @DisplayName("long hexadecimal data")
+        void testLongHexadecimalData() throws IOException {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            registryKey.create();
+            registryKey.setValue(BinaryValue.of("binary", new byte[60]));
+
+            StringWriter writer = new StringWriter();
+            registryKey.exportTo(writer);
+
+            String expected = """
+                    Windows Registry Editor Version 5.00
+
+                    [HKEY_CURRENT_USER\\Software\\Test]
+                    "binary"=hex:00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,\\
+                      00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,00,\\
+                      00,00,00,00,00,00,00,00,00,00,00,00,00
+
+                    """.replace("\n", "\r\n");
+
+            assertEquals(expected, writer.toString());
+            writer.toString().lines().forEach(line -> assertFalse(line.length() > 80, line));
+        }
+
+        @Test
+        @DisplayName("sub keys")
+        void testSubKeys() throws IOException {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            registryKey.resolve("subKey2").create();
+            registryKey.resolve("subKey1\\nested\\deeper").create();
+            registryKey.resolve("subKey1\\other").create();
+            registryKey.resolve("subKey1").setValue(StringValue.of("string", "value"));
+            registryKey.resolve("subKey1\\nested\\deeper").setValue(DWordValue.of("dword", 1));
+
+            StringWriter writer = new StringWriter();
+            registryKey.exportTo(writer);
+
+            String expected = """
+                    Windows Registry Editor Version 5.00
+
+                    [HKEY_CURRENT_USER\\Software\\Test]
+
+                    [HKEY_CURRENT_USER\\Software\\Test\\subKey1]
+                    "string"="value"
+
+                    [HKEY_CURRENT_USER\\Software\\Test\\subKey1\\nested]
+
+                    [HKEY_CURRENT_USER\\Software\\Test\\subKey1\\nested\\deeper]
+                    "dword"=dword:00000001
+
+                    [HKEY_CURRENT_USER\\Software\\Test\\subKey1\\other]
+
+                    [HKEY_CURRENT_USER\\Software\\Test\\subKey2]
+
+                    """.replace("\n", "\r\n");
+
+            assertEquals(expected, writer.toString());
+        }
+
+        @Test
+        @DisplayName("value name with line break")
+        void testValueNameWithLineBreak() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            registryKey.create();
+            registryKey.setValue(StringValue.of("line1\nline2", "value"));
+
+            StringWriter writer = new StringWriter();
+
+            IOException exception = assertThrows(IOException.class, () -> registryKey.exportTo(writer));
+            assertEquals(Messages.RegistryKey.valueNameContainsLineBreak(registryKey.path(), "line1\nline2"), exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("key name with line break")
+        void testKeyNameWithLineBreak() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            RegistryKey subKey = registryKey.resolve("line1\rline2");
+            subKey.create();
+
+            StringWriter writer = new StringWriter();
+
+            IOException exception = assertThrows(IOException.class, () -> registryKey.exportTo(writer));
+            assertEquals(Messages.RegistryKey.keyNameContainsLineBreak(subKey.path()), exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("non-existing key")
+        void testNonExistingKey() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            StringWriter writer = new StringWriter();
+
+            assertThrows(NoSuchRegistryKeyException.class, () -> registryKey.exportTo(writer));
+            assertEquals("", writer.toString());
+        }
+    }
+
+    @Nested
+    @DisplayName("exportTo(Path)")
+    class ExportToPath {
+
+        @TempDir
+        private Path tempDir;
+
+        @Test
+        @DisplayName("existing key")
+        void testExistingKey() throws IOException {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            registryKey.create();
+            registryKey.setValue(StringValue.of("string", "value"));
+
+            Path file = tempDir.resolve("test.reg");
+            registryKey.exportTo(file);
+
+            String expected = """
+                    \uFEFFWindows Registry Editor Version 5.00
+
+                    [HKEY_CURRENT_USER\\Software\\Test]
+                    "string"="value"
+
+                    """.replace("\n", "\r\n");
+
+            assertEquals(expected, Files.readString(file, StandardCharsets.UTF_16LE));
+        }
+
+        @Test
+        @DisplayName("non-existing key")
+        void testNonExistingKey() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            Path file = tempDir.resolve("test.reg");
+
+            assertThrows(NoSuchRegistryKeyException.class, () -> registryKey.exportTo(file));
+            assertFalse(Files.exists(file));
+        }
+    }
+}
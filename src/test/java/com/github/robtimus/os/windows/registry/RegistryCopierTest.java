@@ -0,0 +1,361 @@
+/*
+ * RegistryCopierTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCopyTree;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCreateKeyEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCreateKeyTransacted;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumKeyEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegOpenKeyTransacted;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryInfoKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegSetValueEx;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.isNULL;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.newHKEY;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.notNULL;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.setHKEY;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpen;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenAndClose;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockSubKeys;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockValues;
+import static com.github.robtimus.os.windows.registry.TransactionMocks.mockCloseHandle;
+import static com.github.robtimus.os.windows.registry.TransactionMocks.mockCommitTransaction;
+import static com.github.robtimus.os.windows.registry.TransactionMocks.mockCreateTransaction;
+import static com.github.robtimus.os.windows.registry.TransactionMocks.mockGetTransactionStatus;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.HKEY_CURRENT_USER;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_DWORD;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_SZ;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.file.Path;
+import java.time.Duration;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import com.github.robtimus.os.windows.registry.RegistryKey.CopyOption;
+import com.github.robtimus.os.windows.registry.WindowsTypes.TRANSACTION_OUTCOME;
+
+@SuppressWarnings("nls")
+class RegistryCopierTest extends RegistryTestBase {
+
+    private static final LocalRegistry REGISTRY = Registry.local();
+
+    @Nested
+    @DisplayName("in-memory")
+    class InMemory {
+
+        private final InMemoryRegistry registry = Registry.inMemory();
+
+        @TempDir
+        private Path tempDir;
+
+        @Test
+        @DisplayName("values and sub keys")
+        void testValuesAndSubKeys() throws IOException {
+            RegistryKey source = registry.HKEY_CURRENT_USER.resolve("Software\\Source");
+            source.resolve("subKey1\\nested").create();
+            source.resolve("subKey2").create();
+            source.setValue(StringValue.of(RegistryValue.DEFAULT, "default"));
+            source.setValue(StringValue.of("string", "value"));
+            source.setValue(BinaryValue.of("binary", new byte[1000]));
+            source.resolve("subKey1").setValue(DWordValue.of("dword", 13));
+            source.resolve("subKey1\\nested").setValue(MultiStringValue.of("multi", "a", "b"));
+
+            RegistryKey target = registry.HKEY_CURRENT_USER.resolve("Software\\Target");
+            source.copyTo(target);
+
+            assertEquals(export(source).replace("\\Source", "\\Target"), export(target));
+            // The source is not affected
+            assertEquals(4, source.traverse().count());
+        }
+
+        @Test
+        @DisplayName("to other registry")
+        void testToOtherRegistry() throws IOException {
+            RegistryKey source = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            source.resolve("subKey").create();
+            source.resolve("subKey").setValue(StringValue.of("string", "value"));
+
+            InMemoryRegistry otherRegistry = Registry.inMemory();
+            RegistryKey target = otherRegistry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            source.copyTo(target);
+
+            assertEquals(export(source), export(target));
+        }
+
+        @Test
+        @DisplayName("to sibling of nested key")
+        void testToSiblingOfNestedKey() {
+            RegistryKey source = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            source.resolve("subKey").create();
+
+            RegistryKey target = registry.HKEY_CURRENT_USER.resolve("Software\\Test2");
+            source.copyTo(target);
+
+            assertEquals(1, target.subKeys().count());
+        }
+
+        @Test
+        @DisplayName("existing target")
+        void testExistingTarget() {
+            RegistryKey source = registry.HKEY_CURRENT_USER.resolve("Software\\Source");
+            source.create();
+            source.setValue(StringValue.of("string", "value"));
+
+            RegistryKey target = registry.HKEY_CURRENT_USER.resolve("Software\\Target");
+            target.create();
+
+            RegistryKeyAlreadyExistsException exception = assertThrows(RegistryKeyAlreadyExistsException.class, () -> source.copyTo(target));
+            assertEquals(target.path(), exception.path());
+
+            assertFalse(target.findStringValue("string").isPresent());
+        }
+
+        @Test
+        @DisplayName("existing target with MERGE")
+        void testExistingTargetWithMerge() {
+            RegistryKey source = registry.HKEY_CURRENT_USER.resolve("Software\\Source");
+            source.resolve("subKey").create();
+            source.setValue(StringValue.of("string", "new"));
+            source.resolve("subKey").setValue(DWordValue.of("dword", 1));
+
+            RegistryKey target = registry.HKEY_CURRENT_USER.resolve("Software\\Target");
+            target.resolve("subKey").create();
+            target.resolve("other").create();
+            target.setValue(StringValue.of("string", "old"));
+            target.setValue(StringValue.of("other", "other"));
+            target.resolve("subKey").setValue(DWordValue.of("dword", 0));
+
+            source.copyTo(target, CopyOption.MERGE);
+
+            assertEquals("new", target.getStringValue("string"));
+            assertEquals("other", target.getStringValue("other"));
+            assertEquals(1, target.resolve("subKey").getDWordValue("dword"));
+            assertEquals(2, target.subKeys().count());
+        }
+
+        @Test
+        @DisplayName("non-existing source")
+        void testNonExistingSource() {
+            RegistryKey source = registry.HKEY_CURRENT_USER.resolve("Software\\Source");
+            RegistryKey target = registry.HKEY_CURRENT_USER.resolve("Software\\Target");
+
+            NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class, () -> source.copyTo(target));
+            assertEquals(source.path(), exception.path());
+
+            assertFalse(target.exists());
+        }
+
+        @ParameterizedTest(name = "{0}")
+        @ValueSource(strings = { "Software\\Test", "software\\test", "Software\\Test\\subKey", "SOFTWARE\\TEST\\subKey\\nested" })
+        @DisplayName("to itself or nested key")
+        void testToItselfOrNestedKey(String targetPath) {
+            RegistryKey source = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            source.resolve("subKey").create();
+
+            RegistryKey target = registry.HKEY_CURRENT_USER.resolve(targetPath);
+
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> source.copyTo(target, CopyOption.MERGE));
+            assertEquals(Messages.RegistryKey.copyToNested(source, target), exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("from hive")
+        void testFromHive() throws IOException {
+            HiveFileBuilder builder = new HiveFileBuilder("ROOT");
+            builder.root()
+                    .addValue(StringValue.of("string", "value"))
+                    .addSubKey("subKey")
+                    .addValue(DWordValue.of("dword", 13));
+
+            try (HiveRegistry hiveRegistry = Registry.openHive(builder.write(tempDir.resolve("test.hiv")))) {
+                RegistryKey source = hiveRegistry.rootKey();
+                RegistryKey target = registry.HKEY_CURRENT_USER.resolve("Software\Test");
+                source.copyTo(target);
+
+                assertEquals("value", target.getStringValue("string"));
+                assertEquals(13, target.resolve("subKey").getDWordValue("dword"));
+            }
+        }
+
+        @Test
+        @DisplayName("to hive")
+        void testToHive() throws IOException {
+            RegistryKey source = registry.HKEY_CURRENT_USER.resolve("Software\Test");
+            source.create();
+
+            try (HiveRegistry hiveRegistry = Registry.openHive(new HiveFileBuilder("ROOT").write(tempDir.resolve("test.hiv")))) {
+                RegistryKey target = hiveRegistry.rootKey();
+
+                // Hive files are read-only
+                assertThrows(RegistryAccessDeniedException.class, () -> source.copyTo(target, CopyOption.MERGE));
+            }
+        }
+
+        private String export(RegistryKey registryKey) throws IOException {
+            StringWriter writer = new StringWriter();
+            registryKey.exportTo(writer);
+            return writer.toString();
+        }
+    }
+
+    @Nested
+    @DisplayName("native")
+    class Native {
+
+        @Test
+        @DisplayName("using RegCopyTree")
+        void testUsingRegCopyTree() {
+            advapi32.when(Advapi32::isRegCopyTreeEnabled).thenReturn(true);
+
+            MemorySegment sourceHKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\source");
+            MemorySegment targetHKey = mockCreate(HKEY_CURRENT_USER, "path\\target");
+
+            advapi32.when(() -> RegCopyTree(eq(sourceHKey), isNULL(), eq(targetHKey))).thenReturn(ERROR_SUCCESS);
+
+            RegistryKey source = REGISTRY.HKEY_CURRENT_USER.resolve("path\\source");
+            RegistryKey target = REGISTRY.HKEY_CURRENT_USER.resolve("path\\target");
+            source.copyTo(target, CopyOption.MERGE);
+
+            advapi32.verify(() -> RegCopyTree(eq(sourceHKey), isNULL(), eq(targetHKey)));
+            advapi32.verify(() -> RegEnumKeyEx(notNull(), anyInt(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()), never());
+        }
+
+        @Test
+        @DisplayName("RegCopyTree failure")
+        void testRegCopyTreeFailure() {
+            advapi32.when(Advapi32::isRegCopyTreeEnabled).thenReturn(true);
+
+            MemorySegment sourceHKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\source");
+            MemorySegment targetHKey = mockCreate(HKEY_CURRENT_USER, "path\\target");
+
+            advapi32.when(() -> RegCopyTree(eq(sourceHKey), isNULL(), eq(targetHKey))).thenReturn(ERROR_ACCESS_DENIED);
+
+            RegistryKey source = REGISTRY.HKEY_CURRENT_USER.resolve("path\\source");
+            RegistryKey target = REGISTRY.HKEY_CURRENT_USER.resolve("path\\target");
+
+            RegistryAccessDeniedException exception = assertThrows(RegistryAccessDeniedException.class,
+                    () -> source.copyTo(target, CopyOption.MERGE));
+            assertEquals(source.path(), exception.path());
+        }
+
+        @Test
+        @DisplayName("without RegCopyTree")
+        void testWithoutRegCopyTree() {
+            advapi32.when(Advapi32::isRegCopyTreeEnabled).thenReturn(false);
+
+            MemorySegment sourceHKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\source");
+            MemorySegment targetHKey = mockCreate(HKEY_CURRENT_USER, "path\\target");
+            mockSourceKey(sourceHKey, StringValue.of("string", "value"), "subKey");
+
+            MemorySegment sourceSubKeyHKey = mockOpen(sourceHKey, "subKey");
+            MemorySegment targetSubKeyHKey = mockCreate(targetHKey, "subKey");
+            mockSourceKey(sourceSubKeyHKey, DWordValue.of("dword", 13));
+
+            RegistryKey source = REGISTRY.HKEY_CURRENT_USER.resolve("path\\source");
+            RegistryKey target = REGISTRY.HKEY_CURRENT_USER.resolve("path\\target");
+            source.copyTo(target, CopyOption.MERGE);
+
+            advapi32.verify(() -> RegCopyTree(notNull(), notNull(), notNull()), never());
+            advapi32.verify(() -> RegSetValueEx(eq(targetHKey), eqPointer("string"), eq(0), eq(REG_SZ), notNull(), eq(12)));
+            advapi32.verify(() -> RegSetValueEx(eq(targetSubKeyHKey), eqPointer("dword"), eq(0), eq(REG_DWORD), notNull(), eq(4)));
+        }
+
+        @Test
+        @DisplayName("with transaction")
+        void testWithTransaction() {
+            advapi32.when(Advapi32::isRegCopyTreeEnabled).thenReturn(true);
+
+            MemorySegment transaction = mockCreateTransaction(Duration.ofMillis(0), null);
+            mockGetTransactionStatus(transaction, TRANSACTION_OUTCOME.TransactionOutcomeUndetermined);
+            mockCommitTransaction(transaction);
+            mockCloseHandle(transaction);
+
+            MemorySegment sourceHKey = newHKEY(arena);
+            MemorySegment targetHKey = newHKEY(arena);
+
+            advapi32.when(() -> RegOpenKeyTransacted(eq(HKEY_CURRENT_USER), eqPointer("path\\source"), eq(0), anyInt(), notNull(),
+                    eq(transaction), isNULL()))
+                    .thenAnswer(i -> {
+                        setHKEY(i.getArgument(4, MemorySegment.class), sourceHKey);
+
+                        return ERROR_SUCCESS;
+                    });
+            advapi32.when(() -> RegCreateKeyTransacted(eq(HKEY_CURRENT_USER), eqPointer("path\\target"), eq(0), isNULL(), anyInt(), anyInt(),
+                    isNULL(), notNull(), isNULL(), eq(transaction), isNULL()))
+                    .thenAnswer(i -> {
+                        setHKEY(i.getArgument(7, MemorySegment.class), targetHKey);
+
+                        return ERROR_SUCCESS;
+                    });
+            mockSourceKey(sourceHKey, StringValue.of("string", "value"));
+
+            RegistryKey source = REGISTRY.HKEY_CURRENT_USER.resolve("path\\source");
+            RegistryKey target = REGISTRY.HKEY_CURRENT_USER.resolve("path\\target");
+
+            TransactionalState.requiresNew().run(() -> source.copyTo(target, CopyOption.MERGE));
+
+            // RegCopyTree cannot be part of a transaction
+            advapi32.verify(() -> RegCopyTree(notNull(), notNull(), notNull()), never());
+            advapi32.verify(() -> RegSetValueEx(eq(targetHKey), eqPointer("string"), eq(0), eq(REG_SZ), notNull(), eq(12)));
+        }
+
+        private MemorySegment mockCreate(MemorySegment hKey, String path) {
+            MemorySegment result = newHKEY(arena);
+
+            advapi32.when(() -> RegCreateKeyEx(eq(hKey), eqPointer(path), anyInt(), notNull(), anyInt(), anyInt(), notNull(), notNull(), notNull()))
+                    .thenAnswer(i -> {
+                        setHKEY(i.getArgument(7, MemorySegment.class), result);
+
+                        return ERROR_SUCCESS;
+                    });
+
+            return result;
+        }
+
+        private void mockSourceKey(MemorySegment hKey, SettableRegistryValue value, String... subKeys) {
+            mockValues(hKey, value);
+            mockSubKeys(hKey, subKeys);
+
+            // Only the maximum value name and data lengths are queried
+            int maxNameLength = value.name().length();
+            int maxValueLength = Math.toIntExact(value.rawData(arena).byteSize());
+            advapi32.when(() -> RegQueryInfoKey(eq(hKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNULL(),
+                    notNULL(), notNull(), notNull()))
+                    .thenAnswer(i -> {
+                        i.getArgument(8, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, maxNameLength);
+                        i.getArgument(9, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, maxValueLength);
+                        return ERROR_SUCCESS;
+                    });
+        }
+    }
+}
@@ -23,15 +23,19 @@ import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FIL
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_INVALID_HANDLE;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_KEY_DELETED;
 import static com.sun.jna.platform.win32.WinError.ERROR_REGISTRY_CORRUPT;
+import static com.sun.jna.platform.win32.WinError.ERROR_REGISTRY_IO_FAILED;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.times;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.MockedStatic;
 
 @SuppressWarnings("nls")
 class RegistryExceptionTest {
@@ -48,6 +52,35 @@ class RegistryExceptionTest {
         assertNull(exception.machineName());
     }
 
+    @Nested
+    @DisplayName("getMessage")
+    class GetMessage {
+
+        // Use an error code that other tests don't use, as formatted messages are cached
+        private static final int ERROR_CODE = ERROR_REGISTRY_IO_FAILED;
+
+        @Test
+        @DisplayName("lazy and cached")
+        void testLazyAndCached() {
+            try (MockedStatic<Kernel32> kernel32 = mockStatic()) {
+                kernel32.when(() -> Kernel32.formatMessage(ERROR_CODE)).thenReturn("I/O failed");
+
+                RegistryException exception = new RegistryException(ERROR_CODE, "path", "machine");
+
+                kernel32.verifyNoInteractions();
+
+                assertEquals("path@machine: I/O failed", exception.getMessage());
+                assertEquals("path@machine: I/O failed", exception.getMessage());
+
+                RegistryException otherException = RegistryException.forKey(ERROR_CODE, "other", null);
+
+                assertEquals("other: I/O failed", otherException.getMessage());
+
+                kernel32.verify(() -> Kernel32.formatMessage(ERROR_CODE), times(1));
+            }
+        }
+    }
+
     @Nested
     @DisplayName("forKey")
     class ForKey {
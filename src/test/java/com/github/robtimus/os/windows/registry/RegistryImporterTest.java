@@ -0,0 +1,340 @@
+/*
+ * RegistryImporterTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.KtmW32.CommitTransaction;
+import static com.github.robtimus.os.windows.registry.KtmW32.CreateTransaction;
+import static com.github.robtimus.os.windows.registry.TransactionMocks.mockCloseHandle;
+import static com.github.robtimus.os.windows.registry.TransactionMocks.mockCreateTransaction;
+import static com.github.robtimus.os.windows.registry.TransactionMocks.mockGetTransactionStatus;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NOT_SUPPORTED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_NONE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.foreign.MemorySegment;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import com.github.robtimus.os.windows.registry.WindowsTypes.TRANSACTION_OUTCOME;
+
+@SuppressWarnings("nls")
+class RegistryImporterTest extends RegistryTestBase {
+
+    private final InMemoryRegistry registry = Registry.inMemory();
+
+    private static String regFile(String content) {
+        return ("Windows Registry Editor Version 5.00\n\n" + content).replace("\n", "\r\n");
+    }
+
+    private void importFrom(String content) throws IOException {
+        RegistryImporter.create().importFrom(new StringReader(regFile(content)), registry.HKEY_CURRENT_USER.resolve("Software"));
+    }
+
+    @Test
+    @DisplayName("keysPerTransaction with negative value")
+    void testKeysPerTransactionWithNegativeValue() {
+        RegistryImporter importer = RegistryImporter.create();
+
+        assertThrows(IllegalArgumentException.class, () -> importer.keysPerTransaction(-1));
+    }
+
+    @Nested
+    @DisplayName("importFrom(Reader, RegistryKey)")
+    class ImportFromReader {
+
+        @Test
+        @DisplayName("values")
+        void testValues() throws IOException {
+            importFrom("""
+                    ; A comment
+                    [HKEY_CURRENT_USER\\Software\\Test]
+                    @="default"
+                    "binary"=hex:01,02,ff
+                    "dword"=dword:0000000d
+                    "dword-be"=hex(5):00,00,00,0d
+                    "empty"=""
+                    "expandable"=hex(2):25,00,50,00,41,00,54,00,48,00,25,00,00,00
+                    "multi"=hex(7):61,00,00,00,62,00,00,00,00,00
+                    "multi-line"=hex(1):6c,00,69,00,6e,00,65,00,31,00,0d,00,0a,00,6c,00,69,00,6e,\\
+                      00,65,00,32,00,00,00
+                    "none"=hex(0):
+                    "qword"=hex(b):e1,01,00,00,00,00,00,00
+                    "quoted \\"name\\""="value"
+                    "string"="a \\"quoted\\" C:\\\\path"
+                    """);
+
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+
+            assertEquals("default", registryKey.getStringValue(RegistryValue.DEFAULT));
+            assertArrayEquals(new byte[] { 1, 2, (byte) 255 }, registryKey.getValue("binary", BinaryValue.class).data());
+            assertEquals(13, registryKey.getDWordValue("dword"));
+            assertEquals(DWordValue.bigEndianOf("dword-be", 13), registryKey.getValue("dword-be", DWordValue.class));
+            assertEquals("", registryKey.getStringValue("empty"));
+            assertEquals(StringValue.expandableOf("expandable", "%PATH%"), registryKey.getValue("expandable", StringValue.class));
+            assertEquals(MultiStringValue.of("multi", "a", "b"), registryKey.getValue("multi", MultiStringValue.class));
+            assertEquals("line1\r\nline2", registryKey.getStringValue("multi-line"));
+            assertEquals(REG_NONE, registryKey.getValue("none", NoneValue.class).type());
+            assertEquals(481, registryKey.getQWordValue("qword"));
+            assertEquals("value", registryKey.getStringValue("quoted \"name\""));
+            assertEquals("a \"quoted\" C:\\path", registryKey.getStringValue("string"));
+        }
+
+        @Test
+        @DisplayName("round trip")
+        void testRoundTrip() throws IOException {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            registryKey.resolve("subKey1\\nested").create();
+            registryKey.resolve("subKey2").create();
+            registryKey.setValue(StringValue.of("string", "value\nwith line break"));
+            registryKey.setValue(BinaryValue.of("binary", new byte[1024]));
+            registryKey.resolve("subKey1").setValue(MultiStringValue.of("multi", "a", "b", "c"));
+            registryKey.resolve("subKey1\\nested").setValue(QWordValue.of("qword", Long.MAX_VALUE));
+
+            StringWriter writer = new StringWriter();
+            registryKey.exportTo(writer);
+
+            InMemoryRegistry other = Registry.inMemory();
+            RegistryImporter.create().importFrom(new StringReader(writer.toString()), other.HKEY_CURRENT_USER);
+
+            StringWriter otherWriter = new StringWriter();
+            other.HKEY_CURRENT_USER.resolve("Software\\Test").exportTo(otherWriter);
+
+            assertEquals(writer.toString(), otherWriter.toString());
+        }
+
+        @Test
+        @DisplayName("delete keys and values")
+        void testDeleteKeysAndValues() throws IOException {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            registryKey.resolve("subKey1\\nested\\deeper").create();
+            registryKey.resolve("subKey2").create();
+            registryKey.setValue(StringValue.of("string1", "value1"));
+            registryKey.setValue(StringValue.of("string2", "value2"));
+
+            importFrom("""
+                    [-HKEY_CURRENT_USER\\Software\\Test\\subKey1]
+
+                    [-HKEY_CURRENT_USER\\Software\\Test\\non-existing]
+
+                    [HKEY_CURRENT_USER\\Software\\Test]
+                    "string1"=-
+                    "non-existing"=-
+                    """);
+
+            assertFalse(registryKey.resolve("subKey1").exists());
+            assertTrue(registryKey.resolve("subKey2").exists());
+            try (Stream<RegistryValue> stream = registryKey.values()) {
+                assertEquals(List.of(StringValue.of("string2", "value2")), stream.toList());
+            }
+        }
+
+        @Test
+        @DisplayName("case insensitive key paths")
+        void testCaseInsensitiveKeyPaths() throws IOException {
+            importFrom("""
+                    [hkey_current_user\\SOFTWARE\\Test]
+                    "string"="value"
+                    """);
+
+            assertEquals("value", registry.HKEY_CURRENT_USER.resolve("Software\\Test").getStringValue("string"));
+        }
+
+        @Test
+        @DisplayName("invalid header")
+        void testInvalidHeader() {
+            RegistryImporter importer = RegistryImporter.create();
+            StringReader reader = new StringReader("REGEDIT4\r\n");
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER;
+
+            IOException exception = assertThrows(IOException.class, () -> importer.importFrom(reader, registryKey));
+            assertEquals(Messages.RegistryImporter.invalidHeader("REGEDIT4"), exception.getMessage());
+        }
+
+        @ParameterizedTest(name = "{0}")
+        @ValueSource(strings = {
+                "[HKEY_CURRENT_USER\\Software\\Test",
+                "\"string\"",
+                "\"string=\"value\"",
+                "\"string\"=\"value",
+                "string=\"value\"",
+                "\"dword\"=dword:",
+                "\"dword\"=dword:123456789",
+                "\"dword\"=dword:xyz",
+                "\"binary\"=hex:1,,2",
+                "\"binary\"=hex:123",
+                "\"binary\"=hex(x):12",
+                "\"binary\"=hex(:12",
+                "\"binary\"=hex:1,2,\\",
+                "\"unknown\"=unknown:1",
+        })
+        @DisplayName("invalid line")
+        void testInvalidLine(String line) {
+            String content = regFile("""
+                    [HKEY_CURRENT_USER\\Software\\Test]
+                    """ + line + "\n");
+            RegistryImporter importer = RegistryImporter.create();
+            StringReader reader = new StringReader(content);
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software");
+
+            IOException exception = assertThrows(IOException.class, () -> importer.importFrom(reader, registryKey));
+            assertEquals(Messages.RegistryImporter.invalidLine(4, line), exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("key not nested")
+        void testKeyNotNested() {
+            String content = regFile("""
+                    [HKEY_CURRENT_USER\\SoftwareOther\\Test]
+                    """);
+            RegistryImporter importer = RegistryImporter.create();
+            StringReader reader = new StringReader(content);
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software");
+
+            IOException exception = assertThrows(IOException.class, () -> importer.importFrom(reader, registryKey));
+            assertEquals(Messages.RegistryImporter.keyNotNested("HKEY_CURRENT_USER\\SoftwareOther\\Test", 3, "HKEY_CURRENT_USER\\Software"),
+                    exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("value without key")
+        void testValueWithoutKey() {
+            String content = regFile("""
+                    "string"="value"
+                    """);
+            RegistryImporter importer = RegistryImporter.create();
+            StringReader reader = new StringReader(content);
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER;
+
+            IOException exception = assertThrows(IOException.class, () -> importer.importFrom(reader, registryKey));
+            assertEquals(Messages.RegistryImporter.valueWithoutKey(3), exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("value after deleted key")
+        void testValueAfterDeletedKey() {
+            String content = regFile("""
+                    [-HKEY_CURRENT_USER\\Test]
+                    "string"="value"
+                    """);
+            RegistryImporter importer = RegistryImporter.create();
+            StringReader reader = new StringReader(content);
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER;
+
+            IOException exception = assertThrows(IOException.class, () -> importer.importFrom(reader, registryKey));
+            assertEquals(Messages.RegistryImporter.valueWithoutKey(4), exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("with transactions")
+        void testWithTransactions() {
+            MemorySegment handle = mockCreateTransaction(Duration.ZERO, null);
+            mockGetTransactionStatus(handle, TRANSACTION_OUTCOME.TransactionOutcomeUndetermined);
+            mockCloseHandle(handle);
+
+            String content = regFile("""
+                    [HKEY_CURRENT_USER\\Software\\Test1]
+                    "string"="value1"
+
+                    [HKEY_CURRENT_USER\\Software\\Test2]
+                    "string"="value2"
+                    """);
+
+            RegistryImporter importer = RegistryImporter.create().keysPerTransaction(2);
+            StringReader reader = new StringReader(content);
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER;
+
+            // In-memory registries do not support transactions; changes must not be applied without them
+            RegistryException exception = assertThrows(RegistryException.class, () -> importer.importFrom(reader, registryKey));
+            assertEquals(ERROR_NOT_SUPPORTED, exception.errorCode());
+
+            assertFalse(registry.HKEY_CURRENT_USER.resolve("Software").exists());
+
+            ktmW32.verify(() -> CreateTransaction(any(), any(), anyInt(), anyInt(), anyInt(), anyInt(), any(), notNull()));
+            ktmW32.verify(() -> CommitTransaction(any(), notNull()), never());
+        }
+    }
+
+    @Nested
+    @DisplayName("importFrom(Path, RegistryKey)")
+    class ImportFromPath {
+
+        @TempDir
+        private Path tempDir;
+
+        @Test
+        @DisplayName("exported file")
+        void testExportedFile() throws IOException {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("Software\\Test");
+            registryKey.create();
+            registryKey.setValue(StringValue.of("string", "välüé"));
+
+            Path file = tempDir.resolve("test.reg");
+            registryKey.exportTo(file);
+
+            InMemoryRegistry other = Registry.inMemory();
+            RegistryImporter.create().importFrom(file, other.HKEY_CURRENT_USER);
+
+            assertEquals("välüé", other.HKEY_CURRENT_USER.resolve("Software\\Test").getStringValue("string"));
+        }
+
+        @Test
+        @DisplayName("UTF-8 file")
+        void testUTF8File() throws IOException {
+            Path file = Files.writeString(tempDir.resolve("test.reg"), regFile("""
+                    [HKEY_CURRENT_USER\\Software\\Test]
+                    "string"="välüé"
+                    """), StandardCharsets.UTF_8);
+
+            RegistryImporter.create().importFrom(file, registry.HKEY_CURRENT_USER);
+
+            assertEquals("välüé", registry.HKEY_CURRENT_USER.resolve("Software\\Test").getStringValue("string"));
+        }
+
+        @Test
+        @DisplayName("UTF-8 file with byte order mark")
+        void testUTF8FileWithByteOrderMark() throws IOException {
+            Path file = Files.writeString(tempDir.resolve("test.reg"), "\uFEFF" + regFile("""
+                    [HKEY_CURRENT_USER\\Software\\Test]
+                    "string"="välüé"
+                    """), StandardCharsets.UTF_8);
+
+            RegistryImporter.create().importFrom(file, registry.HKEY_CURRENT_USER);
+
+            assertEquals("välüé", registry.HKEY_CURRENT_USER.resolve("Software\\Test").getStringValue("string"));
+        }
+    }
+}
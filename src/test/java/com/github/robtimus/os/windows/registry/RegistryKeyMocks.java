@@ -23,15 +23,16 @@ import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumKeyEx;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumValue;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegOpenKeyEx;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryInfoKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryMultipleValues;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryValueEx;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.copyData;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
-import static com.github.robtimus.os.windows.registry.ForeignTestUtils.isNULL;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.newHKEY;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.notNULL;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.setHKEY;
 import static com.github.robtimus.os.windows.registry.RegistryTestBase.advapi32;
 import static com.github.robtimus.os.windows.registry.RegistryTestBase.arena;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_MORE_DATA;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NO_MORE_ITEMS;
 import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
@@ -41,7 +42,12 @@ import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.notNull;
 import java.lang.foreign.MemorySegment;
 import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import com.github.robtimus.os.windows.registry.WindowsTypes.VALENT;
 
 final class RegistryKeyMocks {
 
@@ -105,6 +111,7 @@ final class RegistryKeyMocks {
         advapi32.when(() -> RegQueryInfoKey(eq(hKey), notNull(), notNull(), notNull(), notNull(), notNULL(), notNull(), notNull(), notNull(),
                 notNull(), notNull(), notNull()))
                 .thenAnswer(i -> {
+                    i.getArgument(4, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, names.length);
                     i.getArgument(5, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, maxLength);
                     return ERROR_SUCCESS;
                 });
@@ -123,6 +130,23 @@ final class RegistryKeyMocks {
         });
     }
 
+    static void mockSubKeysUntilDeleted(MemorySegment hKey, String... names) {
+        // Deleted sub keys are no longer enumerated, so each sub key is returned for index 0 until all have been returned
+        Iterator<String> iterator = Arrays.asList(names).iterator();
+        advapi32.when(() -> RegEnumKeyEx(eq(hKey), eq(0), notNull(), notNull(), notNull(), notNull(), notNull(), notNull())).thenAnswer(i -> {
+            if (!iterator.hasNext()) {
+                return ERROR_NO_MORE_ITEMS;
+            }
+            String name = iterator.next();
+
+            MemorySegment lpName = i.getArgument(2, MemorySegment.class);
+            WString.copy(name, lpName, 0);
+            i.getArgument(3, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, name.length());
+
+            return ERROR_SUCCESS;
+        });
+    }
+
     static void mockValues(MemorySegment hKey, SettableRegistryValue... values) {
         int maxNameLength = Arrays.stream(values)
                 .map(RegistryValue::name)
@@ -141,6 +165,7 @@ final class RegistryKeyMocks {
         advapi32.when(() -> RegQueryInfoKey(eq(hKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNULL(),
                 notNULL(), notNull(), notNull()))
                 .thenAnswer(i -> {
+                    i.getArgument(7, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, values.length);
                     i.getArgument(8, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, maxNameLength);
                     i.getArgument(9, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, maxValueLength);
                     return ERROR_SUCCESS;
@@ -172,17 +197,67 @@ final class RegistryKeyMocks {
     static void mockValue(MemorySegment hKey, SettableRegistryValue value, int returnCode) {
         MemorySegment data = value.rawData(arena);
 
-        advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer(value.name()), notNull(), notNull(), isNULL(), notNull())).thenAnswer(i -> {
-            i.getArgument(3, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, value.type());
-            i.getArgument(5, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, toIntExact(data.byteSize()));
+        advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer(value.name()), notNull(), notNull(), notNull(), notNull())).thenAnswer(i -> {
+            MemorySegment lpcbData = i.getArgument(5, MemorySegment.class);
+            int size = toIntExact(data.byteSize());
 
-            return ERROR_MORE_DATA;
-        });
-        advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer(value.name()), notNull(), isNULL(), notNull(), notNull())).thenAnswer(i -> {
+            i.getArgument(3, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, value.type());
+            if (lpcbData.get(ValueLayout.JAVA_INT, 0) < size) {
+                lpcbData.set(ValueLayout.JAVA_INT, 0, size);
+                return ERROR_MORE_DATA;
+            }
             copyData(data, i.getArgument(4, MemorySegment.class));
-            i.getArgument(5, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, toIntExact(data.byteSize()));
+            lpcbData.set(ValueLayout.JAVA_INT, 0, size);
 
             return returnCode;
         });
     }
+
+    static void mockMultipleValues(MemorySegment hKey, SettableRegistryValue... values) {
+        Map<String, SettableRegistryValue> valuesByName = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (SettableRegistryValue value : values) {
+            valuesByName.put(value.name(), value);
+        }
+
+        advapi32.when(() -> RegQueryMultipleValues(eq(hKey), notNull(), anyInt(), notNull(), notNull())).thenAnswer(i -> {
+            MemorySegment valList = i.getArgument(1, MemorySegment.class);
+            int numVals = i.getArgument(2, Integer.class);
+            MemorySegment lpValueBuf = i.getArgument(3, MemorySegment.class);
+            MemorySegment ldwTotsize = i.getArgument(4, MemorySegment.class);
+
+            SettableRegistryValue[] requestedValues = new SettableRegistryValue[numVals];
+            MemorySegment[] datas = new MemorySegment[numVals];
+            int totalSize = 0;
+            for (int index = 0; index < numVals; index++) {
+                MemorySegment valent = VALENT.element(valList, index);
+                String name = VALENT.ve_valuename(valent).reinterpret(Long.MAX_VALUE).getString(0, StandardCharsets.UTF_16LE);
+                SettableRegistryValue value = valuesByName.get(name);
+                if (value == null) {
+                    return ERROR_FILE_NOT_FOUND;
+                }
+                requestedValues[index] = value;
+                datas[index] = value.rawData(arena);
+                totalSize += toIntExact(datas[index].byteSize());
+            }
+
+            if (totalSize > ldwTotsize.get(ValueLayout.JAVA_INT, 0)) {
+                ldwTotsize.set(ValueLayout.JAVA_INT, 0, totalSize);
+                return ERROR_MORE_DATA;
+            }
+
+            long offset = 0;
+            for (int index = 0; index < numVals; index++) {
+                MemorySegment valent = VALENT.element(valList, index);
+                MemorySegment data = datas[index];
+                MemorySegment.copy(data, 0, lpValueBuf, offset, data.byteSize());
+                VALENT.ve_valuelen(valent, toIntExact(data.byteSize()));
+                VALENT.ve_valueptr(valent, lpValueBuf.asSlice(offset));
+                VALENT.ve_type(valent, requestedValues[index].type());
+                offset += data.byteSize();
+            }
+            ldwTotsize.set(ValueLayout.JAVA_INT, 0, totalSize);
+
+            return ERROR_SUCCESS;
+        });
+    }
 }
@@ -201,7 +201,7 @@ class RegistryKeyTest extends RegistryTestBase {
         @Test
         @DisplayName("non-existing value")
         void testNonExistingValue() {
-            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -251,7 +251,7 @@ class RegistryKeyTest extends RegistryTestBase {
         @Test
         @DisplayName("non-existing value")
         void testNonExistingValue() {
-            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -301,7 +301,7 @@ class RegistryKeyTest extends RegistryTestBase {
         @Test
         @DisplayName("non-existing value")
         void testNonExistingValue() {
-            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -351,7 +351,7 @@ class RegistryKeyTest extends RegistryTestBase {
         @Test
         @DisplayName("non-existing value")
         void testNonExistingValue() {
-            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -381,6 +381,68 @@ class RegistryKeyTest extends RegistryTestBase {
         }
     }
 
+    @Nested
+    @DisplayName("getDWordValue with default")
+    class GetDWordValueWithDefault {
+
+        @Test
+        @DisplayName("success")
+        void testSuccess() {
+            DWordValue dwordValue = DWordValue.of("dword", 13);
+
+            mockValue(HKEY_CURRENT_USER, dwordValue);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+            int value = registryKey.getDWordValue("dword", -1);
+            assertEquals(dwordValue.value(), value);
+        }
+
+        @Test
+        @DisplayName("big-endian")
+        void testBigEndian() {
+            DWordValue dwordValue = DWordValue.bigEndianOf("dword", 13);
+
+            mockValue(HKEY_CURRENT_USER, dwordValue);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+            int value = registryKey.getDWordValue("dword", -1);
+            assertEquals(dwordValue.value(), value);
+        }
+
+        @Test
+        @DisplayName("non-existing value")
+        void testNonExistingValue() {
+            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
+                    .thenReturn(ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+            int value = registryKey.getDWordValue("dword", -1);
+            assertEquals(-1, value);
+        }
+
+        @Test
+        @DisplayName("failure")
+        void testFailure() {
+            mockValue(HKEY_CURRENT_USER, DWordValue.of("dword", 13), ERROR_INVALID_HANDLE);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+            InvalidRegistryHandleException exception = assertThrows(InvalidRegistryHandleException.class,
+                    () -> registryKey.getDWordValue("dword", -1));
+            assertEquals("HKEY_CURRENT_USER", exception.path());
+        }
+
+        @Test
+        @DisplayName("wrong value type")
+        void testWrongValueType() {
+            StringValue stringValue = StringValue.of("string", "test");
+
+            mockValue(HKEY_CURRENT_USER, stringValue);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+            assertThrows(ClassCastException.class, () -> registryKey.getDWordValue("string", -1));
+        }
+    }
+
     @Nested
     @DisplayName("getQWordValue")
     class GetQWordValue {
@@ -400,7 +462,7 @@ class RegistryKeyTest extends RegistryTestBase {
         @Test
         @DisplayName("non-existing value")
         void testNonExistingValue() {
-            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -450,7 +512,7 @@ class RegistryKeyTest extends RegistryTestBase {
         @Test
         @DisplayName("non-existing value")
         void testNonExistingValue() {
-            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -480,6 +542,56 @@ class RegistryKeyTest extends RegistryTestBase {
         }
     }
 
+    @Nested
+    @DisplayName("getQWordValue with default")
+    class GetQWordValueWithDefault {
+
+        @Test
+        @DisplayName("success")
+        void testSuccess() {
+            QWordValue qwordValue = QWordValue.of("qword", 13L);
+
+            mockValue(HKEY_CURRENT_USER, qwordValue);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+            long value = registryKey.getQWordValue("qword", -1L);
+            assertEquals(qwordValue.value(), value);
+        }
+
+        @Test
+        @DisplayName("non-existing value")
+        void testNonExistingValue() {
+            advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
+                    .thenReturn(ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+            long value = registryKey.getQWordValue("qword", -1L);
+            assertEquals(-1L, value);
+        }
+
+        @Test
+        @DisplayName("failure")
+        void testFailure() {
+            mockValue(HKEY_CURRENT_USER, QWordValue.of("qword", 13L), ERROR_INVALID_HANDLE);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+            InvalidRegistryHandleException exception = assertThrows(InvalidRegistryHandleException.class,
+                    () -> registryKey.getQWordValue("qword", -1L));
+            assertEquals("HKEY_CURRENT_USER", exception.path());
+        }
+
+        @Test
+        @DisplayName("wrong value type")
+        void testWrongValueType() {
+            StringValue stringValue = StringValue.of("string", "test");
+
+            mockValue(HKEY_CURRENT_USER, stringValue);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+            assertThrows(ClassCastException.class, () -> registryKey.getQWordValue("string", -1L));
+        }
+    }
+
     @Nested
     @DisplayName("Handle")
     class Handle {
@@ -611,7 +723,7 @@ class RegistryKeyTest extends RegistryTestBase {
             @Test
             @DisplayName("non-existing value")
             void testNonExistingValue() {
-                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                         .thenReturn(ERROR_FILE_NOT_FOUND);
 
                 RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -670,7 +782,7 @@ class RegistryKeyTest extends RegistryTestBase {
             @Test
             @DisplayName("non-existing value")
             void testNonExistingValue() {
-                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                         .thenReturn(ERROR_FILE_NOT_FOUND);
 
                 RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -728,7 +840,7 @@ class RegistryKeyTest extends RegistryTestBase {
             @Test
             @DisplayName("non-existing value")
             void testNonExistingValue() {
-                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                         .thenReturn(ERROR_FILE_NOT_FOUND);
 
                 RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -787,7 +899,7 @@ class RegistryKeyTest extends RegistryTestBase {
             @Test
             @DisplayName("non-existing value")
             void testNonExistingValue() {
-                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                         .thenReturn(ERROR_FILE_NOT_FOUND);
 
                 RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -824,6 +936,78 @@ class RegistryKeyTest extends RegistryTestBase {
             }
         }
 
+        @Nested
+        @DisplayName("getDWordValue with default")
+        class GetDWordValueWithDefault {
+
+            @Test
+            @DisplayName("success")
+            void testSuccess() {
+                DWordValue dwordValue = DWordValue.of("dword", 13);
+
+                mockValue(HKEY_CURRENT_USER, dwordValue);
+
+                RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+                try (RegistryKey.Handle handle = registryKey.handle()) {
+                    int value = handle.getDWordValue("dword", -1);
+                    assertEquals(dwordValue.value(), value);
+                }
+            }
+
+            @Test
+            @DisplayName("big-endian")
+            void testBigEndian() {
+                DWordValue dwordValue = DWordValue.bigEndianOf("dword", 13);
+
+                mockValue(HKEY_CURRENT_USER, dwordValue);
+
+                RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+                try (RegistryKey.Handle handle = registryKey.handle()) {
+                    int value = handle.getDWordValue("dword", -1);
+                    assertEquals(dwordValue.value(), value);
+                }
+            }
+
+            @Test
+            @DisplayName("non-existing value")
+            void testNonExistingValue() {
+                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
+                        .thenReturn(ERROR_FILE_NOT_FOUND);
+
+                RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+                try (RegistryKey.Handle handle = registryKey.handle()) {
+                    int value = handle.getDWordValue("dword", -1);
+                    assertEquals(-1, value);
+                }
+            }
+
+            @Test
+            @DisplayName("failure")
+            void testFailure() {
+                mockValue(HKEY_CURRENT_USER, DWordValue.of("dword", 13), ERROR_INVALID_HANDLE);
+
+                RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+                try (RegistryKey.Handle handle = registryKey.handle()) {
+                    InvalidRegistryHandleException exception = assertThrows(InvalidRegistryHandleException.class,
+                            () -> handle.getDWordValue("dword", -1));
+                    assertEquals("HKEY_CURRENT_USER", exception.path());
+                }
+            }
+
+            @Test
+            @DisplayName("wrong value type")
+            void testWrongValueType() {
+                StringValue stringValue = StringValue.of("string", "test");
+
+                mockValue(HKEY_CURRENT_USER, stringValue);
+
+                RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+                try (RegistryKey.Handle handle = registryKey.handle()) {
+                    assertThrows(ClassCastException.class, () -> handle.getDWordValue("string", -1));
+                }
+            }
+        }
+
         @Nested
         @DisplayName("getQWordValue")
         class GetQWordValue {
@@ -845,7 +1029,7 @@ class RegistryKeyTest extends RegistryTestBase {
             @Test
             @DisplayName("non-existing value")
             void testNonExistingValue() {
-                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                         .thenReturn(ERROR_FILE_NOT_FOUND);
 
                 RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -904,7 +1088,7 @@ class RegistryKeyTest extends RegistryTestBase {
             @Test
             @DisplayName("non-existing value")
             void testNonExistingValue() {
-                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), isNULL(), notNull()))
+                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
                         .thenReturn(ERROR_FILE_NOT_FOUND);
 
                 RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
@@ -940,6 +1124,64 @@ class RegistryKeyTest extends RegistryTestBase {
                 }
             }
         }
+
+        @Nested
+        @DisplayName("getQWordValue with default")
+        class GetQWordValueWithDefault {
+
+            @Test
+            @DisplayName("success")
+            void testSuccess() {
+                QWordValue qwordValue = QWordValue.of("qword", 13L);
+
+                mockValue(HKEY_CURRENT_USER, qwordValue);
+
+                RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+                try (RegistryKey.Handle handle = registryKey.handle()) {
+                    long value = handle.getQWordValue("qword", -1L);
+                    assertEquals(qwordValue.value(), value);
+                }
+            }
+
+            @Test
+            @DisplayName("non-existing value")
+            void testNonExistingValue() {
+                advapi32.when(() -> RegQueryValueEx(eq(HKEY_CURRENT_USER), notNull(), notNull(), notNull(), notNull(), notNull()))
+                        .thenReturn(ERROR_FILE_NOT_FOUND);
+
+                RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+                try (RegistryKey.Handle handle = registryKey.handle()) {
+                    long value = handle.getQWordValue("qword", -1L);
+                    assertEquals(-1L, value);
+                }
+            }
+
+            @Test
+            @DisplayName("failure")
+            void testFailure() {
+                mockValue(HKEY_CURRENT_USER, QWordValue.of("qword", 13L), ERROR_INVALID_HANDLE);
+
+                RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+                try (RegistryKey.Handle handle = registryKey.handle()) {
+                    InvalidRegistryHandleException exception = assertThrows(InvalidRegistryHandleException.class,
+                            () -> handle.getQWordValue("qword", -1L));
+                    assertEquals("HKEY_CURRENT_USER", exception.path());
+                }
+            }
+
+            @Test
+            @DisplayName("wrong value type")
+            void testWrongValueType() {
+                StringValue stringValue = StringValue.of("string", "test");
+
+                mockValue(HKEY_CURRENT_USER, stringValue);
+
+                RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER;
+                try (RegistryKey.Handle handle = registryKey.handle()) {
+                    assertThrows(ClassCastException.class, () -> handle.getQWordValue("string", -1L));
+                }
+            }
+        }
     }
 
     @Nested
@@ -0,0 +1,271 @@
+/*
+ * RegistryPublisherTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumKeyEx;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpen;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenAndClose;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenFailure;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockSubKeys;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockValues;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.HKEY_CURRENT_USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import java.lang.foreign.MemorySegment;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("nls")
+class RegistryPublisherTest extends RegistryTestBase {
+
+    private static final LocalRegistry REGISTRY = Registry.local();
+
+    // Mocks are bound to the current thread, so tasks must run on the current thread
+    private static final Executor CURRENT_THREAD = Runnable::run;
+
+    @Nested
+    @DisplayName("subKeyPublisher")
+    class SubKeyPublisher {
+
+        @Test
+        @DisplayName("only requested sub keys are enumerated")
+        void testOnlyRequestedSubKeysAreEnumerated() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\key");
+            mockSubKeys(hKey, "child1", "child2", "child3", "child4");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\key");
+            CollectingSubscriber<RegistryKey> subscriber = new CollectingSubscriber<>();
+            registryKey.subKeyPublisher(10, CURRENT_THREAD).subscribe(subscriber);
+
+            subscriber.subscription.request(2);
+
+            assertEquals(List.of(registryKey.resolve("child1"), registryKey.resolve("child2")), subscriber.items);
+            assertFalse(subscriber.completed);
+
+            advapi32.verify(() -> RegEnumKeyEx(eq(hKey), eq(2), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()), never());
+            advapi32.verify(() -> RegCloseKey(hKey), never());
+
+            subscriber.subscription.cancel();
+
+            advapi32.verify(() -> RegCloseKey(hKey));
+            assertFalse(subscriber.completed);
+            assertNull(subscriber.error);
+        }
+
+        @Test
+        @DisplayName("all sub keys")
+        void testAllSubKeys() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\key");
+            mockSubKeys(hKey, "child1", "child2", "child3", "child4", "child5");
+
+            AtomicInteger tasks = new AtomicInteger();
+            Executor executor = command -> {
+                tasks.incrementAndGet();
+                command.run();
+            };
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\key");
+            CollectingSubscriber<RegistryKey> subscriber = new CollectingSubscriber<>();
+            registryKey.subKeyPublisher(2, executor).subscribe(subscriber);
+
+            subscriber.subscription.request(Long.MAX_VALUE);
+
+            assertEquals(5, subscriber.items.size());
+            assertTrue(subscriber.completed);
+            // One task for each batch of 2 sub keys
+            assertEquals(3, tasks.get());
+
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("failing subscriber")
+        void testFailingSubscriber() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\key");
+            mockSubKeys(hKey, "child1", "child2", "child3");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\key");
+            CollectingSubscriber<RegistryKey> subscriber = new CollectingSubscriber<>();
+            subscriber.onNextFailure = new IllegalStateException("subscriber failure");
+            registryKey.subKeyPublisher(10, CURRENT_THREAD).subscribe(subscriber);
+
+            subscriber.subscription.request(Long.MAX_VALUE);
+            subscriber.subscription.request(1);
+
+            // The subscription is cancelled, and the subscriber receives no more signals
+            assertEquals(List.of(registryKey.resolve("child1")), subscriber.items);
+            assertFalse(subscriber.completed);
+            assertNull(subscriber.error);
+
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("handle cache")
+        void testHandleCache() {
+            MemorySegment hKey = mockOpen(HKEY_CURRENT_USER, "path\\key");
+            mockSubKeys(hKey, "child1", "child2");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\key");
+            CollectingSubscriber<RegistryKey> subscriber = new CollectingSubscriber<>();
+
+            try (HandleCache cache = HandleCache.create(10, Duration.ofMinutes(1))) {
+                // The handle cache is captured when the publisher is created, not when sub keys are requested
+                Flow.Publisher<RegistryKey> publisher = cache.call(() -> registryKey.subKeyPublisher(10, CURRENT_THREAD));
+                publisher.subscribe(subscriber);
+
+                subscriber.subscription.request(Long.MAX_VALUE);
+
+                assertEquals(2, subscriber.items.size());
+                assertTrue(subscriber.completed);
+
+                // The handle is returned to the handle cache instead of being closed
+                assertEquals(1, cache.size());
+                advapi32.verify(() -> RegCloseKey(hKey), never());
+            }
+
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("non-existing key")
+        void testNonExistingKey() {
+            mockOpenFailure(HKEY_CURRENT_USER, "path\\key", ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\key");
+            CollectingSubscriber<RegistryKey> subscriber = new CollectingSubscriber<>();
+            registryKey.subKeyPublisher(10, CURRENT_THREAD).subscribe(subscriber);
+
+            subscriber.subscription.request(1);
+
+            NoSuchRegistryKeyException exception = assertInstanceOf(NoSuchRegistryKeyException.class, subscriber.error);
+            assertEquals("HKEY_CURRENT_USER\\path\\key", exception.path());
+            assertEquals(List.of(), subscriber.items);
+        }
+
+        @Test
+        @DisplayName("non-positive request")
+        void testNonPositiveRequest() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\key");
+            mockSubKeys(hKey, "child1", "child2");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\key");
+            CollectingSubscriber<RegistryKey> subscriber = new CollectingSubscriber<>();
+            registryKey.subKeyPublisher(10, CURRENT_THREAD).subscribe(subscriber);
+
+            subscriber.subscription.request(1);
+            subscriber.subscription.request(0);
+
+            IllegalArgumentException exception = assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+            assertEquals("0 <= 0", exception.getMessage());
+
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("non-positive batch size")
+        void testNonPositiveBatchSize() {
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\key");
+
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> registryKey.subKeyPublisher(0, CURRENT_THREAD));
+            assertEquals("0 <= 0", exception.getMessage());
+        }
+    }
+
+    @Nested
+    @DisplayName("valuePublisher")
+    class ValuePublisher {
+
+        @Test
+        @DisplayName("filtered values")
+        void testFilteredValues() {
+            StringValue stringValue = StringValue.of("string", "value");
+            DWordValue dwordValue = DWordValue.of("dword", 13);
+
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\key");
+            mockValues(hKey, stringValue, dwordValue, StringValue.of("other", "value"));
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\key");
+            CollectingSubscriber<RegistryValue> subscriber = new CollectingSubscriber<>();
+            registryKey.valuePublisher(RegistryValue.filter().name("string"::equals), 10, CURRENT_THREAD).subscribe(subscriber);
+
+            subscriber.subscription.request(Long.MAX_VALUE);
+
+            assertEquals(List.of(stringValue), subscriber.items);
+            assertTrue(subscriber.completed);
+
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("null filter")
+        void testNullFilter() {
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\key");
+
+            assertThrows(NullPointerException.class, () -> registryKey.valuePublisher(null));
+        }
+    }
+
+    private static final class CollectingSubscriber<T> implements Flow.Subscriber<T> {
+
+        private final List<T> items = new ArrayList<>();
+        private Flow.Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+        private RuntimeException onNextFailure;
+
+        @Override
+        public void onSubscribe(Flow.Subscription s) {
+            this.subscription = s;
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+            if (onNextFailure != null) {
+                throw onNextFailure;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            this.completed = true;
+        }
+    }
+}
@@ -0,0 +1,360 @@
+/*
+ * RegistrySnapshotTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+// Extend RegistryTestBase to verify that snapshots of in-memory registries do not call any of the Windows API classes
+@SuppressWarnings("nls")
+class RegistrySnapshotTest extends RegistryTestBase {
+
+    private RegistryKey source;
+
+    @BeforeEach
+    void createSource() {
+        InMemoryRegistry registry = Registry.inMemory();
+
+        source = registry.HKEY_CURRENT_USER.resolve("path\\source");
+        source.resolve("subKey2").create();
+        source.resolve("subKey1\\nested\\deeper").create();
+        source.resolve("SubKey3").create();
+
+        source.setValue(StringValue.of(RegistryValue.DEFAULT, "default"));
+        source.setValue(StringValue.of("string", "value"));
+        source.setValue(DWordValue.of("dword", 13));
+        source.resolve("subKey1").setValue(BinaryValue.of("binary", new byte[] { 1, 2, 3 }));
+        source.resolve("subKey1\\nested").setValue(MultiStringValue.of("multi", "value1", "value2"));
+    }
+
+    @AfterEach
+    void verifyNoNativeCalls() {
+        advapi32.verifyNoInteractions();
+        ktmW32.verifyNoInteractions();
+    }
+
+    @Nested
+    @DisplayName("snapshot")
+    class Snapshot {
+
+        @Test
+        @DisplayName("root key")
+        void testRootKey() {
+            RegistrySnapshot snapshot = source.snapshot();
+            RegistryKey rootKey = snapshot.rootKey();
+
+            assertSame(source, snapshot.source());
+            assertEquals("HKEY_CURRENT_USER\\path\\source", rootKey.name());
+            assertEquals("HKEY_CURRENT_USER\\path\\source", rootKey.path());
+            assertTrue(rootKey.isRoot());
+            assertTrue(rootKey.exists());
+
+            RegistryKey.Attributes attributes = rootKey.attributes();
+            assertEquals(3, attributes.subKeyCount());
+            assertEquals(3, attributes.valueCount());
+            assertEquals(source.lastWriteTime(), attributes.lastWriteTime());
+        }
+
+        @Test
+        @DisplayName("maxDepth")
+        void testMaxDepth() {
+            RegistryKey rootKey = source.snapshot(1).rootKey();
+
+            assertTrue(rootKey.resolve("subKey1").exists());
+            assertFalse(rootKey.resolve("subKey1\\nested").exists());
+            // Values of registry keys at the maximum depth are still included
+            assertArrayEquals(new byte[] { 1, 2, 3 }, rootKey.resolve("subKey1").getValue("binary", BinaryValue.class).data());
+
+            rootKey = source.snapshot(0).rootKey();
+
+            assertEquals(0, rootKey.attributes().subKeyCount());
+            assertEquals("value", rootKey.getStringValue("string"));
+        }
+
+        @Test
+        @DisplayName("negative maxDepth")
+        void testNegativeMaxDepth() {
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> source.snapshot(-1));
+            assertEquals("-1 < 0", exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("non-existing key")
+        void testNonExistingKey() {
+            RegistryKey registryKey = source.resolve("non-existing");
+
+            NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class, registryKey::snapshot);
+            assertEquals("HKEY_CURRENT_USER\\path\\source\\non-existing", exception.path());
+        }
+
+        @Test
+        @DisplayName("later changes are not visible")
+        void testLaterChangesAreNotVisible() {
+            RegistrySnapshot snapshot = source.snapshot();
+
+            source.setValue(StringValue.of("string", "new value"));
+            source.resolve("subKey2").delete();
+            source.resolve("subKey4").create();
+
+            RegistryKey rootKey = snapshot.rootKey();
+
+            assertEquals("value", rootKey.getStringValue("string"));
+            assertTrue(rootKey.resolve("subKey2").exists());
+            assertFalse(rootKey.resolve("subKey4").exists());
+        }
+    }
+
+    @Nested
+    @DisplayName("keys")
+    class Keys {
+
+        @Test
+        @DisplayName("subKeys")
+        void testSubKeys() {
+            RegistryKey rootKey = source.snapshot().rootKey();
+
+            try (Stream<RegistryKey> stream = rootKey.subKeys()) {
+                // Sub keys are sorted case insensitively
+                assertEquals(List.of("subKey1", "subKey2", "SubKey3"), stream.map(RegistryKey::name).toList());
+            }
+
+            try (Stream<RegistryKey> stream = rootKey.traverse()) {
+                assertEquals(6, stream.count());
+            }
+        }
+
+        @Test
+        @DisplayName("resolve")
+        void testResolve() {
+            RegistryKey rootKey = source.snapshot().rootKey();
+
+            RegistryKey nested = rootKey.resolve("subKey1\\nested");
+            assertTrue(nested.exists());
+            assertEquals("HKEY_CURRENT_USER\\path\\source\\subKey1\\nested", nested.path());
+            // Registry keys are case insensitive
+            assertTrue(rootKey.resolve("SUBKEY1\\NESTED\\Deeper").exists());
+            assertTrue(rootKey.resolve("subkey3").exists());
+            assertFalse(rootKey.resolve("subKey1\\other").exists());
+            assertFalse(rootKey.resolve("other").exists());
+
+            assertThrows(NoSuchRegistryKeyException.class, () -> rootKey.resolve("other").subKeys());
+        }
+
+        @Test
+        @DisplayName("read-only")
+        void testReadOnly() {
+            RegistryKey rootKey = source.snapshot().rootKey();
+            RegistryKey registryKey = rootKey.resolve("subKey1");
+            RegistryKey newKey = rootKey.resolve("new");
+            StringValue value = StringValue.of("string", "new value");
+
+            assertThrows(RegistryAccessDeniedException.class, newKey::create);
+            assertThrows(RegistryAccessDeniedException.class, registryKey::delete);
+            assertThrows(RegistryAccessDeniedException.class, () -> registryKey.renameTo("renamed"));
+            assertThrows(RegistryAccessDeniedException.class, () -> rootKey.setValue(value));
+            assertThrows(RegistryAccessDeniedException.class, () -> rootKey.deleteValue("string"));
+
+            assertEquals("value", rootKey.getStringValue("string"));
+        }
+    }
+
+    @Nested
+    @DisplayName("values")
+    class Values {
+
+        @Test
+        @DisplayName("get")
+        void testGet() {
+            RegistryKey rootKey = source.snapshot().rootKey();
+
+            assertEquals("default", rootKey.getStringValue(RegistryValue.DEFAULT));
+            assertEquals("value", rootKey.getStringValue("string"));
+            assertEquals(13, rootKey.getDWordValue("dword"));
+            assertArrayEquals(new byte[] { 1, 2, 3 }, rootKey.resolve("subKey1").getValue("binary", BinaryValue.class).data());
+            assertEquals(MultiStringValue.of("multi", "value1", "value2"),
+                    rootKey.resolve("subKey1\\nested").getValue("multi", MultiStringValue.class));
+
+            // Registry values are case insensitive
+            assertEquals(Optional.of("value"), rootKey.findStringValue("STRING"));
+            assertEquals(Optional.empty(), rootKey.findStringValue("non-existing"));
+            assertThrows(NoSuchRegistryValueException.class, () -> rootKey.getStringValue("non-existing"));
+        }
+
+        @Test
+        @DisplayName("values stream")
+        void testValuesStream() {
+            RegistryKey rootKey = source.snapshot().rootKey();
+
+            try (Stream<RegistryValue> stream = rootKey.values(); Stream<RegistryValue> expected = source.values()) {
+                assertEquals(expected.toList(), stream.toList());
+            }
+
+            try (Stream<RegistryValue> stream = rootKey.values(RegistryValue.filter().words())) {
+                assertEquals(List.of(DWordValue.of("dword", 13)), stream.toList());
+            }
+        }
+
+        @Test
+        @DisplayName("getValues")
+        void testGetValues() {
+            RegistryKey rootKey = source.snapshot().rootKey();
+
+            Map<String, RegistryValue> expected = Map.of(
+                    "dword", DWordValue.of("dword", 13),
+                    "string", StringValue.of("string", "value"));
+
+            assertEquals(expected, rootKey.getValues("dword", "non-existing", "string"));
+        }
+    }
+
+    @Nested
+    @DisplayName("refresh")
+    class Refresh {
+
+        // Changes in these tests also change the number of sub keys or values, as the last write time may not change quickly enough
+
+        @Test
+        @DisplayName("no changes")
+        void testNoChanges() {
+            RegistrySnapshot snapshot = source.snapshot();
+
+            assertSame(snapshot, snapshot.refresh());
+        }
+
+        @Test
+        @DisplayName("changed values")
+        void testChangedValues() {
+            RegistrySnapshot snapshot = source.snapshot();
+
+            source.resolve("subKey1\\nested").setValue(StringValue.of("string", "value"));
+
+            RegistrySnapshot refreshed = snapshot.refresh();
+
+            assertEquals("value", refreshed.rootKey().resolve("subKey1\\nested").getStringValue("string"));
+            assertEquals(Optional.empty(), snapshot.rootKey().resolve("subKey1\\nested").findStringValue("string"));
+
+            // Sub keys are sorted: subKey1, subKey2, SubKey3
+            RegistrySnapshot.Node root = snapshot.root();
+            RegistrySnapshot.Node refreshedRoot = refreshed.root();
+
+            assertNotSame(root, refreshedRoot);
+            assertSame(root.data, refreshedRoot.data);
+            assertNotSame(root.subKeys[0], refreshedRoot.subKeys[0]);
+            assertSame(root.subKeys[0].data, refreshedRoot.subKeys[0].data);
+            assertSame(root.subKeys[0].subKeys[0].subKeys[0], refreshedRoot.subKeys[0].subKeys[0].subKeys[0]);
+            assertSame(root.subKeys[1], refreshedRoot.subKeys[1]);
+            assertSame(root.subKeys[2], refreshedRoot.subKeys[2]);
+        }
+
+        @Test
+        @DisplayName("added and deleted sub keys")
+        void testAddedAndDeletedSubKeys() {
+            RegistrySnapshot snapshot = source.snapshot();
+
+            source.resolve("subKey2").delete();
+            source.resolve("subKey0\\nested").create();
+
+            RegistrySnapshot refreshed = snapshot.refresh();
+
+            try (Stream<RegistryKey> stream = refreshed.rootKey().subKeys()) {
+                assertEquals(List.of("subKey0", "subKey1", "SubKey3"), stream.map(RegistryKey::name).toList());
+            }
+            assertTrue(refreshed.rootKey().resolve("subKey0\\nested").exists());
+            assertTrue(snapshot.rootKey().resolve("subKey2").exists());
+
+            assertSame(snapshot.root().subKeys[0], refreshed.root().subKeys[1]);
+            assertSame(snapshot.root().subKeys[2], refreshed.root().subKeys[2]);
+
+            // The string table is extended, so names of the previous snapshot keep their index
+            String[] names = snapshot.names();
+            assertArrayEquals(names, Arrays.copyOf(refreshed.names(), names.length));
+        }
+
+        @Test
+        @DisplayName("unused names are removed")
+        void testUnusedNamesAreRemoved() {
+            RegistryKey removed = source.resolve("removed");
+            for (int i = 0; i < 20; i++) {
+                RegistryKey subKey = removed.resolve("subKey" + i);
+                subKey.create();
+                subKey.setValue(StringValue.of("value" + i, "value"));
+            }
+
+            RegistrySnapshot snapshot = source.snapshot();
+
+            removed.deleteTree();
+
+            RegistrySnapshot refreshed = snapshot.refresh();
+
+            assertEquals(List.of("", "SubKey3", "binary", "deeper", "dword", "multi", "nested", "source", "string", "subKey1", "subKey2"),
+                    Arrays.stream(refreshed.names()).sorted().toList());
+
+            try (Stream<RegistryKey> stream = refreshed.rootKey().subKeys()) {
+                assertEquals(List.of("subKey1", "subKey2", "SubKey3"), stream.map(RegistryKey::name).toList());
+            }
+            assertEquals("value", refreshed.rootKey().getStringValue("string"));
+            assertEquals(List.of("value1", "value2"),
+                    refreshed.rootKey().resolve("subKey1\\nested").getValue("multi", MultiStringValue.class).values());
+            assertTrue(refreshed.rootKey().resolve("subKey1\\nested\\deeper").exists());
+            assertTrue(snapshot.rootKey().resolve("removed\\subKey0").exists());
+        }
+
+        @Test
+        @DisplayName("maxDepth")
+        void testMaxDepth() {
+            RegistrySnapshot snapshot = source.snapshot(1);
+
+            source.resolve("subKey1\\nested").setValue(StringValue.of("string", "value"));
+
+            assertSame(snapshot, snapshot.refresh());
+
+            source.resolve("subKey1").setValue(StringValue.of("string", "value"));
+
+            RegistrySnapshot refreshed = snapshot.refresh();
+
+            assertEquals("value", refreshed.rootKey().resolve("subKey1").getStringValue("string"));
+            assertFalse(refreshed.rootKey().resolve("subKey1\\nested").exists());
+        }
+
+        @Test
+        @DisplayName("deleted source")
+        void testDeletedSource() {
+            RegistrySnapshot snapshot = source.snapshot();
+
+            source.deleteTree();
+
+            NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class, snapshot::refresh);
+            assertEquals("HKEY_CURRENT_USER\\path\\source", exception.path());
+        }
+    }
+}
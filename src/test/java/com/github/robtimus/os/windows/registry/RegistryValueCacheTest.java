@@ -0,0 +1,438 @@
+/*
+ * RegistryValueCacheTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegNotifyChangeKeyValue;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryValueEx;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.isNULL;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.newHKEY;
+import static com.github.robtimus.os.windows.registry.Kernel32.CloseHandle;
+import static com.github.robtimus.os.windows.registry.Kernel32.CreateEvent;
+import static com.github.robtimus.os.windows.registry.Kernel32.SetEvent;
+import static com.github.robtimus.os.windows.registry.Kernel32.WaitForMultipleObjects;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenAndClose;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenFailure;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockValue;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_NOT_SUPPORTED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.HKEY_CURRENT_USER;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.WAIT_OBJECT_0;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import java.lang.foreign.MemorySegment;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import com.github.robtimus.os.windows.registry.RegistryValueCache.Statistics;
+import com.github.robtimus.os.windows.registry.RegistryWatchService.Worker;
+
+// Static mocks are only available in the current thread, so watch service workers are not started but called directly
+@SuppressWarnings("nls")
+class RegistryValueCacheTest extends RegistryTestBase {
+
+    private static final LocalRegistry REGISTRY = Registry.local();
+
+    private List<Worker> workers;
+    private RegistryWatchService watchService;
+
+    @BeforeEach
+    void setupWatchService() {
+        workers = new ArrayList<>();
+
+        kernel32.when(() -> CreateEvent(isNULL(), eq(0), eq(0), isNULL(), notNull())).thenAnswer(_ -> newHKEY(arena));
+        kernel32.when(() -> SetEvent(notNull(), notNull())).thenReturn(true);
+        kernel32.when(() -> CloseHandle(notNull(), notNull())).thenReturn(true);
+
+        watchService = new RegistryWatchService(runnable -> {
+            workers.add((Worker) runnable);
+            return Thread.ofPlatform().unstarted(() -> {
+                // Do nothing
+            });
+        });
+    }
+
+    @AfterEach
+    void closeWatchService() {
+        watchService.close();
+    }
+
+    private RegistryValueCache createCache(int maxSize, long maxWeight, Duration timeToLive) {
+        return new RegistryValueCache(maxSize, maxWeight, timeToLive, watchService);
+    }
+
+    private MemorySegment mockWatchedKey(String path) {
+        MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, path);
+        advapi32.when(() -> RegNotifyChangeKeyValue(eq(hKey), anyInt(), anyInt(), notNull(), eq(1))).thenReturn(ERROR_SUCCESS);
+        return hKey;
+    }
+
+    private void notifyChange() {
+        kernel32.when(() -> WaitForMultipleObjects(anyInt(), notNull(), eq(0), anyInt(), notNull())).thenReturn(WAIT_OBJECT_0 + 1);
+        assertTrue(workers.getFirst().processEvents(0));
+    }
+
+    private static void verifyQueryCount(MemorySegment hKey, String name, int count) {
+        advapi32.verify(() -> RegQueryValueEx(eq(hKey), eqPointer(name), notNull(), notNull(), notNull(), notNull()), times(count));
+    }
+
+    private static void assertStatistics(RegistryValueCache cache, long hitCount, long missCount, long evictionCount, long invalidationCount) {
+        Statistics statistics = cache.statistics();
+        assertEquals(hitCount, statistics.hitCount());
+        assertEquals(missCount, statistics.missCount());
+        assertEquals(evictionCount, statistics.evictionCount());
+        assertEquals(invalidationCount, statistics.invalidationCount());
+    }
+
+    @Test
+    @DisplayName("create with invalid arguments")
+    void testCreateWithInvalidArguments() {
+        Duration timeToLive = Duration.ofMinutes(1);
+        Duration negative = Duration.ofMinutes(-1);
+
+        assertThrows(IllegalArgumentException.class, () -> RegistryValueCache.create(0, 1024, timeToLive));
+        assertThrows(IllegalArgumentException.class, () -> RegistryValueCache.create(10, 0, timeToLive));
+        assertThrows(IllegalArgumentException.class, () -> RegistryValueCache.create(10, 1024, negative));
+        assertThrows(NullPointerException.class, () -> RegistryValueCache.create(10, 1024, null));
+    }
+
+    @Nested
+    @DisplayName("getValue and findValue")
+    class GetValue {
+
+        @Test
+        @DisplayName("values are cached")
+        void testValuesAreCached() {
+            MemorySegment hKey = mockWatchedKey("path");
+            mockValue(hKey, StringValue.of("string", "value"));
+            mockValue(hKey, DWordValue.of("dword", 13));
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            try (RegistryValueCache cache = createCache(10, 1024, Duration.ofHours(1))) {
+                assertEquals(StringValue.of("string", "value"), cache.getValue(registryKey, "string", StringValue.class));
+                assertEquals(StringValue.of("string", "value"), cache.getValue(registryKey, "string", StringValue.class));
+                assertEquals(Optional.of(DWordValue.of("dword", 13)), cache.findValue(registryKey, "dword", DWordValue.class));
+                assertEquals(Optional.of(DWordValue.of("dword", 13)), cache.findValue(registryKey, "dword", DWordValue.class));
+
+                assertEquals(2, cache.size());
+                // "value" plus terminating null character, and 4 bytes
+                assertEquals(12 + 4, cache.weight());
+                assertStatistics(cache, 2, 2, 0, 0);
+                assertEquals(0.5, cache.statistics().hitRatio());
+
+                verifyQueryCount(hKey, "string", 1);
+                verifyQueryCount(hKey, "dword", 1);
+
+                // The registry key is watched only once
+                assertEquals(1, workers.size());
+                advapi32.verify(() -> RegNotifyChangeKeyValue(eq(hKey), anyInt(), anyInt(), notNull(), eq(1)));
+            }
+        }
+
+        @Test
+        @DisplayName("missing values are cached")
+        void testMissingValuesAreCached() {
+            MemorySegment hKey = mockWatchedKey("path");
+            mockValue(hKey, StringValue.of("missing", ""), ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            try (RegistryValueCache cache = createCache(10, 1024, Duration.ofHours(1))) {
+                assertEquals(Optional.empty(), cache.findValue(registryKey, "missing", StringValue.class));
+
+                NoSuchRegistryValueException exception = assertThrows(NoSuchRegistryValueException.class,
+                        () -> cache.getValue(registryKey, "missing", StringValue.class));
+                assertEquals("HKEY_CURRENT_USER\\path", exception.path());
+                assertEquals("missing", exception.name());
+
+                assertEquals(1, cache.size());
+                assertEquals(0, cache.weight());
+                assertStatistics(cache, 1, 1, 0, 0);
+
+                verifyQueryCount(hKey, "missing", 1);
+            }
+        }
+
+        @Test
+        @DisplayName("wrong value type")
+        void testWrongValueType() {
+            MemorySegment hKey = mockWatchedKey("path");
+            mockValue(hKey, StringValue.of("string", "value"));
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            try (RegistryValueCache cache = createCache(10, 1024, Duration.ofHours(1))) {
+                assertThrows(ClassCastException.class, () -> cache.getValue(registryKey, "string", DWordValue.class));
+                assertThrows(ClassCastException.class, () -> cache.findValue(registryKey, "string", DWordValue.class));
+
+                // The value is cached even if it has the wrong type
+                assertEquals("value", cache.getValue(registryKey, "string", StringValue.class).value());
+                assertStatistics(cache, 2, 1, 0, 0);
+            }
+        }
+
+        @Test
+        @DisplayName("non-existing key")
+        void testNonExistingKey() {
+            mockOpenFailure(HKEY_CURRENT_USER, "path", ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            try (RegistryValueCache cache = createCache(10, 1024, Duration.ofHours(1))) {
+                NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class,
+                        () -> cache.findValue(registryKey, "string", StringValue.class));
+                assertEquals("HKEY_CURRENT_USER\\path", exception.path());
+
+                assertEquals(0, cache.size());
+                assertStatistics(cache, 0, 1, 0, 0);
+            }
+        }
+
+        @Test
+        @DisplayName("key cannot be watched")
+        void testKeyCannotBeWatched() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path");
+            advapi32.when(() -> RegNotifyChangeKeyValue(eq(hKey), anyInt(), anyInt(), notNull(), eq(1))).thenReturn(ERROR_NOT_SUPPORTED);
+            mockValue(hKey, StringValue.of("string", "value"));
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            try (RegistryValueCache cache = createCache(10, 1024, Duration.ofHours(1))) {
+                assertEquals("value", cache.getValue(registryKey, "string", StringValue.class).value());
+                assertEquals("value", cache.getValue(registryKey, "string", StringValue.class).value());
+
+                assertEquals(0, cache.size());
+                assertStatistics(cache, 0, 2, 0, 0);
+
+                verifyQueryCount(hKey, "string", 2);
+            }
+        }
+
+        @Test
+        @DisplayName("in-memory registry")
+        void testInMemoryRegistry() {
+            InMemoryRegistry registry = Registry.inMemory();
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path");
+            registryKey.create();
+            registryKey.setValue(StringValue.of("string", "value"));
+
+            try (RegistryValueCache cache = createCache(10, 1024, Duration.ofHours(1))) {
+                assertEquals("value", cache.getValue(registryKey, "string", StringValue.class).value());
+                assertEquals(Optional.empty(), cache.findValue(registryKey, "missing", StringValue.class));
+
+                assertEquals(0, cache.size());
+                assertStatistics(cache, 0, 2, 0, 0);
+
+                // Registry keys of in-memory registries cannot be watched, so no events should be created for them
+                kernel32.verify(() -> CreateEvent(isNULL(), eq(0), eq(0), isNULL(), notNull()), never());
+            }
+        }
+
+        @Test
+        @DisplayName("value cannot be read")
+        void testValueCannotBeRead() {
+            MemorySegment hKey = mockWatchedKey("path");
+            mockValue(hKey, StringValue.of("string", "value"), ERROR_ACCESS_DENIED);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            try (RegistryValueCache cache = createCache(10, 1024, Duration.ofHours(1))) {
+                assertThrows(RegistryAccessDeniedException.class, () -> cache.getValue(registryKey, "string", StringValue.class));
+
+                assertEquals(0, cache.size());
+                assertStatistics(cache, 0, 1, 0, 0);
+
+                // Both the handle used for reading and the handle used for watching are closed
+                advapi32.verify(() -> RegCloseKey(hKey), times(2));
+
+                mockValue(hKey, StringValue.of("string", "value"));
+
+                assertEquals("value", cache.getValue(registryKey, "string", StringValue.class).value());
+
+                // The registry key is watched again
+                advapi32.verify(() -> RegNotifyChangeKeyValue(eq(hKey), anyInt(), anyInt(), notNull(), eq(1)), times(2));
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("invalidation")
+    class Invalidation {
+
+        @Test
+        @DisplayName("change notification")
+        void testChangeNotification() {
+            MemorySegment hKey = mockWatchedKey("path");
+            mockValue(hKey, StringValue.of("string", "value"));
+            mockValue(hKey, DWordValue.of("dword", 13));
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            try (RegistryValueCache cache = createCache(10, 1024, Duration.ofHours(1))) {
+                cache.getValue(registryKey, "string", StringValue.class);
+                cache.getValue(registryKey, "dword", DWordValue.class);
+
+                mockValue(hKey, StringValue.of("string", "changed"));
+                notifyChange();
+
+                assertEquals("changed", cache.getValue(registryKey, "string", StringValue.class).value());
+                assertEquals("changed", cache.getValue(registryKey, "string", StringValue.class).value());
+
+                assertEquals(1, cache.size());
+                assertStatistics(cache, 1, 3, 0, 2);
+
+                // The registry key is watched again after the invalidation
+                advapi32.verify(() -> RegNotifyChangeKeyValue(eq(hKey), anyInt(), anyInt(), notNull(), eq(1)), times(3));
+            }
+        }
+
+        @Test
+        @DisplayName("invalidate")
+        void testInvalidate() {
+            MemorySegment hKey1 = mockWatchedKey("path1");
+            MemorySegment hKey2 = mockWatchedKey("path2");
+            mockValue(hKey1, StringValue.of("string", "value"));
+            mockValue(hKey2, StringValue.of("string", "value"));
+
+            RegistryKey registryKey1 = REGISTRY.HKEY_CURRENT_USER.resolve("path1");
+            RegistryKey registryKey2 = REGISTRY.HKEY_CURRENT_USER.resolve("path2");
+
+            try (RegistryValueCache cache = createCache(10, 1024, Duration.ofHours(1))) {
+                cache.getValue(registryKey1, "string", StringValue.class);
+                cache.getValue(registryKey2, "string", StringValue.class);
+
+                cache.invalidate(registryKey1);
+
+                assertEquals(1, cache.size());
+
+                cache.invalidateAll();
+
+                assertEquals(0, cache.size());
+                assertEquals(0, cache.weight());
+                assertStatistics(cache, 0, 2, 0, 0);
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("eviction")
+    class Eviction {
+
+        @Test
+        @DisplayName("max size")
+        void testMaxSize() {
+            MemorySegment hKey = mockWatchedKey("path");
+            for (int i = 0; i < 4; i++) {
+                mockValue(hKey, DWordValue.of("dword" + i, i));
+            }
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            try (RegistryValueCache cache = createCache(3, 1024, Duration.ofHours(1))) {
+                for (int i = 0; i < 4; i++) {
+                    cache.getValue(registryKey, "dword" + i, DWordValue.class);
+                }
+
+                assertEquals(3, cache.size());
+                assertStatistics(cache, 0, 4, 1, 0);
+
+                // dword0 was least recently used
+                cache.getValue(registryKey, "dword0", DWordValue.class);
+                verifyQueryCount(hKey, "dword0", 2);
+            }
+        }
+
+        @Test
+        @DisplayName("max weight")
+        void testMaxWeight() {
+            MemorySegment hKey = mockWatchedKey("path");
+            mockValue(hKey, BinaryValue.of("binary", new byte[2048]));
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            try (RegistryValueCache cache = createCache(10, 1024, Duration.ofHours(1))) {
+                cache.getValue(registryKey, "binary", BinaryValue.class);
+
+                assertEquals(0, cache.size());
+                assertEquals(0, cache.weight());
+                assertStatistics(cache, 0, 1, 1, 0);
+            }
+        }
+
+        @Test
+        @DisplayName("time to live")
+        void testTimeToLive() throws InterruptedException {
+            MemorySegment hKey = mockWatchedKey("path");
+            mockValue(hKey, StringValue.of("string", "value"));
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            try (RegistryValueCache cache = createCache(10, 1024, Duration.ofNanos(1))) {
+                cache.getValue(registryKey, "string", StringValue.class);
+
+                Thread.sleep(1);
+
+                cache.getValue(registryKey, "string", StringValue.class);
+
+                assertStatistics(cache, 0, 2, 1, 0);
+                verifyQueryCount(hKey, "string", 2);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("close")
+    void testClose() {
+        MemorySegment hKey = mockWatchedKey("path");
+        mockValue(hKey, StringValue.of("string", "value"));
+
+        RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+        RegistryValueCache cache = createCache(10, 1024, Duration.ofHours(1));
+        cache.getValue(registryKey, "string", StringValue.class);
+
+        cache.close();
+
+        assertEquals(0, cache.size());
+        assertFalse(workers.getFirst().processEvents(0));
+
+        // The cache can still be used, but values are no longer cached
+        cache.getValue(registryKey, "string", StringValue.class);
+        cache.getValue(registryKey, "string", StringValue.class);
+
+        assertEquals(0, cache.size());
+        assertStatistics(cache, 0, 3, 0, 0);
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * RegistryWalkerTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegOpenKeyEx;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenAndClose;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenFailure;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockSubKeys;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.HKEY_CURRENT_USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+// Static mocks are only available in the current thread, so all walks use a parallelism of 1
+@SuppressWarnings("nls")
+class RegistryWalkerTest extends RegistryTestBase {
+
+    private static final LocalRegistry REGISTRY = Registry.local();
+
+    @Nested
+    @DisplayName("walk")
+    class Walk {
+
+        @Test
+        @DisplayName("subKeys not first")
+        void testSubKeysNotFirst() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path");
+            MemorySegment subKey1 = mockOpenAndClose(hKey, "subKey1");
+            MemorySegment subKey2 = mockOpenAndClose(hKey, "subKey2");
+
+            mockSubKeys(hKey, "subKey1", "subKey2");
+            mockSubKeys(subKey1, "subKey11", "subKey12");
+            mockSubKeys(subKey2);
+
+            mockOpenAndClose(subKey1, "subKey11");
+            mockOpenAndClose(subKey1, "subKey12");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            List<RegistryKey> registryKeys = new ArrayList<>();
+            RegistryWalker.create()
+                    .parallelism(1)
+                    .walk(registryKey, (k, _) -> registryKeys.add(k));
+
+            List<RegistryKey> expected = List.of(
+                    registryKey,
+                    registryKey.resolve("subKey1"),
+                    registryKey.resolve("subKey1\\subKey11"),
+                    registryKey.resolve("subKey1\\subKey12"),
+                    registryKey.resolve("subKey2")
+            );
+
+            assertEquals(expected, registryKeys);
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey1"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey2"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey11"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey12"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegCloseKey(notNull()), times(5));
+        }
+
+        @Test
+        @DisplayName("subKeys first")
+        void testSubKeysFirst() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path");
+            MemorySegment subKey1 = mockOpenAndClose(hKey, "subKey1");
+            MemorySegment subKey2 = mockOpenAndClose(hKey, "subKey2");
+
+            mockSubKeys(hKey, "subKey1", "subKey2");
+            mockSubKeys(subKey1, "subKey11", "subKey12");
+            mockSubKeys(subKey2);
+
+            mockOpenAndClose(subKey1, "subKey11");
+            mockOpenAndClose(subKey1, "subKey12");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            List<RegistryKey> registryKeys = new ArrayList<>();
+            RegistryWalker.create()
+                    .parallelism(1)
+                    .options(RegistryKey.TraverseOption.SUB_KEYS_FIRST)
+                    .walk(registryKey, (k, _) -> registryKeys.add(k));
+
+            List<RegistryKey> expected = List.of(
+                    registryKey.resolve("subKey1\\subKey11"),
+                    registryKey.resolve("subKey1\\subKey12"),
+                    registryKey.resolve("subKey1"),
+                    registryKey.resolve("subKey2"),
+                    registryKey
+            );
+
+            assertEquals(expected, registryKeys);
+        }
+
+        @Test
+        @DisplayName("maxDepth == 0")
+        void testMaxDepthIsZero() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path");
+
+            mockSubKeys(hKey, "subKey1", "subKey2");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            List<RegistryKey> registryKeys = new ArrayList<>();
+            RegistryWalker.create()
+                    .parallelism(1)
+                    .maxDepth(0)
+                    .walk(registryKey, (k, _) -> registryKeys.add(k));
+
+            assertEquals(List.of(registryKey), registryKeys);
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(hKey), notNull(), anyInt(), anyInt(), notNull()), never());
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("maxDepth == 1")
+        void testMaxDepthIsOne() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path");
+            MemorySegment subKey1 = mockOpenAndClose(hKey, "subKey1");
+
+            mockSubKeys(hKey, "subKey1");
+            mockSubKeys(subKey1, "subKey11");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            List<RegistryKey> registryKeys = new ArrayList<>();
+            RegistryWalker.create()
+                    .parallelism(1)
+                    .maxDepth(1)
+                    .walk(registryKey, (k, _) -> registryKeys.add(k));
+
+            assertEquals(List.of(registryKey, registryKey.resolve("subKey1")), registryKeys);
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), notNull(), anyInt(), anyInt(), notNull()), never());
+        }
+
+        @Test
+        @DisplayName("sub key removed")
+        void testSubKeyRemoved() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path");
+            mockOpenAndClose(hKey, "subKey1");
+            mockOpenFailure(hKey, "subKey2", ERROR_FILE_NOT_FOUND);
+            mockOpenAndClose(hKey, "subKey3");
+
+            mockSubKeys(hKey, "subKey1", "subKey2", "subKey3");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            List<RegistryKey> registryKeys = new ArrayList<>();
+            RegistryWalker.create()
+                    .parallelism(1)
+                    .walk(registryKey, (k, _) -> registryKeys.add(k));
+
+            List<RegistryKey> expected = List.of(
+                    registryKey,
+                    registryKey.resolve("subKey1"),
+                    registryKey.resolve("subKey3")
+            );
+
+            assertEquals(expected, registryKeys);
+        }
+
+        @Test
+        @DisplayName("handles can be used")
+        void testHandlesCanBeUsed() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path");
+            MemorySegment subKey1 = mockOpenAndClose(hKey, "subKey1");
+
+            mockSubKeys(hKey, "subKey1");
+            mockSubKeys(subKey1, "subKey11", "subKey12");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+
+            List<String> subKeyNames = new ArrayList<>();
+            RegistryWalker.create()
+                    .parallelism(1)
+                    .maxDepth(1)
+                    .walk(registryKey, (_, handle) -> {
+                        try (Stream<RegistryKey> stream = handle.subKeys()) {
+                            stream.forEach(k -> subKeyNames.add(k.name()));
+                        }
+                    });
+
+            assertEquals(List.of("subKey1", "subKey11", "subKey12"), subKeyNames);
+        }
+
+        @Test
+        @DisplayName("non-existing key")
+        void testNonExisting() {
+            mockOpenFailure(HKEY_CURRENT_USER, "path\\non-existing", ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\non-existing");
+            RegistryWalker walker = RegistryWalker.create().parallelism(1);
+
+            List<RegistryKey> registryKeys = new ArrayList<>();
+            NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class,
+                    () -> walker.walk(registryKey, (k, _) -> registryKeys.add(k)));
+            assertEquals("HKEY_CURRENT_USER\\path\\non-existing", exception.path());
+
+            assertEquals(List.of(), registryKeys);
+
+            advapi32.verify(() -> RegCloseKey(notNull()), never());
+        }
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @ValueSource(ints = { 0, -1 })
+    @DisplayName("invalid parallelism")
+    void testInvalidParallelism(int parallelism) {
+        RegistryWalker walker = RegistryWalker.create();
+
+        assertThrows(IllegalArgumentException.class, () -> walker.parallelism(parallelism));
+    }
+
+    @Test
+    @DisplayName("invalid maxDepth")
+    void testInvalidMaxDepth() {
+        RegistryWalker walker = RegistryWalker.create();
+
+        assertThrows(IllegalArgumentException.class, () -> walker.maxDepth(-1));
+    }
+}
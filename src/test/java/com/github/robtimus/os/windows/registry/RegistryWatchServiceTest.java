@@ -0,0 +1,413 @@
+/*
+ * RegistryWatchServiceTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegNotifyChangeKeyValue;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.isNULL;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.newHKEY;
+import static com.github.robtimus.os.windows.registry.Kernel32.CloseHandle;
+import static com.github.robtimus.os.windows.registry.Kernel32.CreateEvent;
+import static com.github.robtimus.os.windows.registry.Kernel32.SetEvent;
+import static com.github.robtimus.os.windows.registry.Kernel32.WaitForMultipleObjects;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenAndClose;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenFailure;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_KEY_DELETED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.HKEY_CURRENT_USER;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_NOTIFY_CHANGE_LAST_SET;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_NOTIFY_CHANGE_NAME;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_NOTIFY_THREAD_AGNOSTIC;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.WAIT_FAILED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.WAIT_OBJECT_0;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.WAIT_TIMEOUT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import java.lang.foreign.MemorySegment;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import com.github.robtimus.os.windows.registry.RegistryWatchService.Kind;
+import com.github.robtimus.os.windows.registry.RegistryWatchService.Registration;
+import com.github.robtimus.os.windows.registry.RegistryWatchService.WatchEvent;
+import com.github.robtimus.os.windows.registry.RegistryWatchService.WatchOption;
+import com.github.robtimus.os.windows.registry.RegistryWatchService.Worker;
+
+// Static mocks are only available in the current thread, so workers are not started but called directly
+@SuppressWarnings("nls")
+class RegistryWatchServiceTest extends RegistryTestBase {
+
+    private static final LocalRegistry REGISTRY = Registry.local();
+
+    private List<Worker> workers;
+    private List<MemorySegment> events;
+    private RegistryWatchService watchService;
+
+    @BeforeEach
+    void setupWatchService() {
+        workers = new ArrayList<>();
+        events = new ArrayList<>();
+
+        kernel32.when(() -> CreateEvent(isNULL(), eq(0), eq(0), isNULL(), notNull())).thenAnswer(_ -> {
+            MemorySegment hEvent = newHKEY(arena);
+            events.add(hEvent);
+            return hEvent;
+        });
+        kernel32.when(() -> SetEvent(notNull(), notNull())).thenReturn(true);
+        kernel32.when(() -> CloseHandle(notNull(), notNull())).thenReturn(true);
+
+        watchService = new RegistryWatchService(runnable -> {
+            workers.add((Worker) runnable);
+            return Thread.ofPlatform().unstarted(() -> {
+                // Do nothing
+            });
+        });
+    }
+
+    @AfterEach
+    void closeWatchService() {
+        watchService.close();
+    }
+
+    private MemorySegment mockWatchedKey(String path) {
+        MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, path);
+        advapi32.when(() -> RegNotifyChangeKeyValue(eq(hKey), anyInt(), anyInt(), notNull(), eq(1))).thenReturn(ERROR_SUCCESS);
+        return hKey;
+    }
+
+    private void mockWait(int result, int... additionalResults) {
+        Integer[] additional = new Integer[additionalResults.length];
+        for (int i = 0; i < additionalResults.length; i++) {
+            additional[i] = additionalResults[i];
+        }
+        kernel32.when(() -> WaitForMultipleObjects(anyInt(), notNull(), eq(0), anyInt(), notNull())).thenReturn(result, (Object[]) additional);
+    }
+
+    @Nested
+    @DisplayName("register")
+    class Register {
+
+        @Test
+        @DisplayName("single kind")
+        void testSingleKind() {
+            MemorySegment hKey = mockWatchedKey("path");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            Registration registration = watchService.register(registryKey, EnumSet.of(Kind.VALUES));
+
+            assertEquals(registryKey, registration.registryKey());
+            assertEquals(Set.of(Kind.VALUES), registration.kinds());
+            assertTrue(registration.isValid());
+
+            assertEquals(1, workers.size());
+            // One event to wake up the worker, one for the registration
+            assertEquals(2, events.size());
+
+            advapi32.verify(() -> RegNotifyChangeKeyValue(hKey, 0, REG_NOTIFY_CHANGE_LAST_SET | REG_NOTIFY_THREAD_AGNOSTIC, events.get(1), 1));
+        }
+
+        @Test
+        @DisplayName("multiple kinds with subtree")
+        void testMultipleKindsWithSubtree() {
+            MemorySegment hKey = mockWatchedKey("path");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            watchService.register(registryKey, EnumSet.of(Kind.SUB_KEYS, Kind.VALUES), WatchOption.WATCH_SUBTREE);
+
+            assertEquals(1, workers.size());
+            assertEquals(3, events.size());
+
+            advapi32.verify(() -> RegNotifyChangeKeyValue(eq(hKey), eq(1), eq(REG_NOTIFY_CHANGE_NAME | REG_NOTIFY_THREAD_AGNOSTIC), notNull(), eq(1)));
+            advapi32.verify(() -> RegNotifyChangeKeyValue(eq(hKey), eq(1), eq(REG_NOTIFY_CHANGE_LAST_SET | REG_NOTIFY_THREAD_AGNOSTIC), notNull(),
+                    eq(1)));
+        }
+
+        @Test
+        @DisplayName("more watches than fit in one worker")
+        void testMoreWatchesThanFitInOneWorker() {
+            for (int i = 0; i <= RegistryWatchService.MAX_WATCHES_PER_WORKER; i++) {
+                mockWatchedKey("path" + i);
+
+                watchService.register(REGISTRY.HKEY_CURRENT_USER.resolve("path" + i), EnumSet.of(Kind.VALUES));
+            }
+
+            assertEquals(2, workers.size());
+        }
+
+        @Test
+        @DisplayName("non-existing key")
+        void testNonExisting() {
+            mockOpenFailure(HKEY_CURRENT_USER, "path", ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            Set<Kind> kinds = EnumSet.of(Kind.VALUES);
+
+            NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class, () -> watchService.register(registryKey, kinds));
+            assertEquals("HKEY_CURRENT_USER\\path", exception.path());
+
+            assertEquals(List.of(), workers);
+            assertEquals(List.of(), events);
+        }
+
+        @Test
+        @DisplayName("notification failure")
+        void testNotificationFailure() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path");
+            advapi32.when(() -> RegNotifyChangeKeyValue(eq(hKey), anyInt(), anyInt(), notNull(), eq(1))).thenReturn(ERROR_ACCESS_DENIED);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            Set<Kind> kinds = EnumSet.of(Kind.VALUES);
+
+            assertThrows(RegistryAccessDeniedException.class, () -> watchService.register(registryKey, kinds));
+
+            advapi32.verify(() -> RegCloseKey(hKey));
+            kernel32.verify(() -> CloseHandle(eq(events.getFirst()), notNull()));
+            assertEquals(List.of(), workers);
+        }
+
+        @Test
+        @DisplayName("no kinds")
+        void testNoKinds() {
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            Set<Kind> kinds = Set.of();
+
+            assertThrows(IllegalArgumentException.class, () -> watchService.register(registryKey, kinds));
+        }
+    }
+
+    @Nested
+    @DisplayName("processEvents")
+    class ProcessEvents {
+
+        @Test
+        @DisplayName("change is reported")
+        void testChangeIsReported() {
+            MemorySegment hKey = mockWatchedKey("path");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            Registration registration = watchService.register(registryKey, EnumSet.of(Kind.VALUES));
+
+            mockWait(WAIT_OBJECT_0 + 1);
+
+            assertTrue(workers.getFirst().processEvents(0));
+
+            WatchEvent event = watchService.poll();
+            assertNotNull(event);
+            assertEquals(registration, event.registration());
+            assertEquals(registryKey, event.registryKey());
+            assertEquals(Kind.VALUES, event.kind());
+
+            assertNull(watchService.poll());
+
+            // Once for registering, once after the notification
+            advapi32.verify(() -> RegNotifyChangeKeyValue(eq(hKey), anyInt(), anyInt(), notNull(), eq(1)), times(2));
+        }
+
+        @Test
+        @DisplayName("changes are combined until retrieved")
+        void testChangesAreCombinedUntilRetrieved() throws InterruptedException {
+            mockWatchedKey("path");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            watchService.register(registryKey, EnumSet.of(Kind.VALUES));
+
+            mockWait(WAIT_OBJECT_0 + 1);
+
+            Worker worker = workers.getFirst();
+            assertTrue(worker.processEvents(0));
+            assertTrue(worker.processEvents(0));
+
+            assertNotNull(watchService.poll(0, TimeUnit.MILLISECONDS));
+            assertNull(watchService.poll());
+
+            assertTrue(worker.processEvents(0));
+
+            assertNotNull(watchService.take());
+            assertNull(watchService.poll());
+        }
+
+        @Test
+        @DisplayName("wake up and timeout")
+        void testWakeUpAndTimeout() {
+            mockWatchedKey("path");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            watchService.register(registryKey, EnumSet.of(Kind.VALUES));
+
+            mockWait(WAIT_OBJECT_0, WAIT_TIMEOUT);
+
+            Worker worker = workers.getFirst();
+            assertTrue(worker.processEvents(0));
+            assertTrue(worker.processEvents(0));
+
+            assertNull(watchService.poll());
+        }
+
+        @Test
+        @DisplayName("registry key deleted")
+        void testRegistryKeyDeleted() {
+            MemorySegment hKey = mockWatchedKey("path");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            Registration registration = watchService.register(registryKey, EnumSet.of(Kind.VALUES));
+
+            advapi32.when(() -> RegNotifyChangeKeyValue(eq(hKey), anyInt(), anyInt(), notNull(), eq(1))).thenReturn(ERROR_KEY_DELETED);
+            mockWait(WAIT_OBJECT_0 + 1);
+
+            Worker worker = workers.getFirst();
+            assertTrue(worker.processEvents(0));
+
+            assertNotNull(watchService.poll());
+            assertFalse(registration.isValid());
+            advapi32.verify(() -> RegCloseKey(hKey));
+
+            // The next call removes the watch
+            assertTrue(worker.processEvents(0));
+            kernel32.verify(() -> CloseHandle(eq(events.get(1)), notNull()));
+        }
+
+        @Test
+        @DisplayName("cancelled registration")
+        void testCancelledRegistration() {
+            MemorySegment hKey = mockWatchedKey("path");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            Registration registration = watchService.register(registryKey, EnumSet.of(Kind.VALUES));
+
+            Worker worker = workers.getFirst();
+
+            mockWait(WAIT_OBJECT_0 + 1);
+            // Let the worker pick up the watch
+            assertTrue(worker.processEvents(0));
+            assertNotNull(watchService.poll());
+
+            registration.cancel();
+
+            assertFalse(registration.isValid());
+            advapi32.verify(() -> RegCloseKey(hKey));
+
+            mockWait(WAIT_OBJECT_0);
+            assertTrue(worker.processEvents(0));
+
+            assertNull(watchService.poll());
+            kernel32.verify(() -> CloseHandle(eq(events.get(1)), notNull()));
+            kernel32.verify(() -> CloseHandle(eq(events.getFirst()), notNull()), never());
+            // Only wait for the wake event
+            kernel32.verify(() -> WaitForMultipleObjects(eq(1), notNull(), eq(0), anyInt(), notNull()));
+        }
+
+        @Test
+        @DisplayName("wait failure")
+        void testWaitFailure() {
+            mockWatchedKey("path");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            Registration registration = watchService.register(registryKey, EnumSet.of(Kind.VALUES));
+
+            mockWait(WAIT_FAILED);
+
+            Worker worker = workers.getFirst();
+            assertThrows(IllegalStateException.class, () -> worker.processEvents(0));
+
+            // run stops the worker and cancels the registrations
+            worker.run();
+
+            assertFalse(registration.isValid());
+            kernel32.verify(() -> CloseHandle(eq(events.getFirst()), notNull()));
+            kernel32.verify(() -> CloseHandle(eq(events.get(1)), notNull()));
+        }
+    }
+
+    @Nested
+    @DisplayName("close")
+    class Close {
+
+        @Test
+        @DisplayName("registrations are cancelled and workers are stopped")
+        void testRegistrationsAreCancelledAndWorkersAreStopped() {
+            MemorySegment hKey = mockWatchedKey("path");
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            Registration registration = watchService.register(registryKey, EnumSet.of(Kind.VALUES));
+
+            watchService.close();
+
+            assertFalse(registration.isValid());
+            advapi32.verify(() -> RegCloseKey(hKey));
+
+            assertFalse(workers.getFirst().processEvents(0));
+            kernel32.verify(() -> CloseHandle(eq(events.getFirst()), notNull()));
+            kernel32.verify(() -> CloseHandle(eq(events.get(1)), notNull()));
+            kernel32.verify(() -> WaitForMultipleObjects(anyInt(), notNull(), anyInt(), anyInt(), notNull()), never());
+        }
+
+        @Test
+        @DisplayName("operations after close")
+        void testOperationsAfterClose() {
+            watchService.close();
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path");
+            Set<Kind> kinds = EnumSet.of(Kind.VALUES);
+
+            assertThrows(IllegalStateException.class, () -> watchService.register(registryKey, kinds));
+            assertThrows(IllegalStateException.class, watchService::poll);
+            assertThrows(IllegalStateException.class, () -> watchService.poll(1, TimeUnit.SECONDS));
+            assertThrows(IllegalStateException.class, watchService::take);
+
+            // Closing again has no effect
+            watchService.close();
+        }
+
+        @Test
+        @DisplayName("waiting threads are woken up")
+        void testWaitingThreadsAreWokenUp() throws InterruptedException {
+            List<Throwable> errors = new ArrayList<>();
+            Thread thread = Thread.ofPlatform().start(() -> {
+                try {
+                    watchService.take();
+                } catch (IllegalStateException | InterruptedException e) {
+                    errors.add(e);
+                }
+            });
+
+            watchService.close();
+            thread.join();
+
+            assertEquals(1, errors.size());
+            assertEquals(IllegalStateException.class, errors.getFirst().getClass());
+        }
+    }
+}
@@ -0,0 +1,297 @@
+/*
+ * RemoteRegistryPoolTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegConnectRegistry;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryInfoKey;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockConnectAndClose;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_BAD_NETPATH;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.HKEY_LOCAL_MACHINE;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.HKEY_USERS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.RPC_S_SERVER_UNAVAILABLE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import java.lang.foreign.MemorySegment;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import com.github.robtimus.os.windows.registry.RemoteRegistryPool.Lease;
+
+@SuppressWarnings("nls")
+class RemoteRegistryPoolTest extends RegistryTestBase {
+
+    private static final Duration MAX_IDLE_TIME = Duration.ofMinutes(1);
+
+    @Nested
+    @DisplayName("create")
+    class Create {
+
+        @Test
+        @DisplayName("non-positive max connections per host")
+        void testNonPositiveMaxConnectionsPerHost() {
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> RemoteRegistryPool.create(0, MAX_IDLE_TIME));
+            assertEquals("0 <= 0", exception.getMessage());
+        }
+
+        @Test
+        @DisplayName("negative max idle time")
+        void testNegativeMaxIdleTime() {
+            Duration maxIdleTime = Duration.ofSeconds(-1);
+
+            assertThrows(IllegalArgumentException.class, () -> RemoteRegistryPool.create(1, maxIdleTime));
+        }
+
+        @Test
+        @DisplayName("null max idle time")
+        void testNullMaxIdleTime() {
+            assertThrows(NullPointerException.class, () -> RemoteRegistryPool.create(1, null));
+        }
+    }
+
+    @Nested
+    @DisplayName("lease")
+    class LeaseConnection {
+
+        @Test
+        @DisplayName("idle connections are reused")
+        void testIdleConnectionsAreReused() throws InterruptedException {
+            MemorySegment hklmKey = mockConnectAndClose(HKEY_LOCAL_MACHINE, "test-machine");
+            mockConnectAndClose(HKEY_USERS, "test-machine");
+
+            try (RemoteRegistryPool pool = RemoteRegistryPool.create(2, MAX_IDLE_TIME)) {
+                RemoteRegistry registry;
+                try (Lease lease = pool.lease("test-machine")) {
+                    assertEquals("test-machine", lease.machineName());
+                    registry = lease.registry();
+                }
+
+                assertEquals(1, pool.size());
+                assertEquals(1, pool.idleCount());
+
+                // Machine names are case insensitive
+                try (Lease lease = pool.lease("TEST-MACHINE")) {
+                    assertSame(registry, lease.registry());
+
+                    assertEquals(1, pool.size());
+                    assertEquals(0, pool.idleCount());
+                }
+            }
+
+            advapi32.verify(() -> RegConnectRegistry(eqPointer("test-machine"), eq(HKEY_LOCAL_MACHINE), notNull()));
+            // The idle connection is checked before it's reused
+            advapi32.verify(() -> RegQueryInfoKey(eq(hklmKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
+                    notNull(), notNull(), notNull(), notNull()));
+            advapi32.verify(() -> RegCloseKey(hklmKey));
+        }
+
+        @Test
+        @DisplayName("broken idle connections are replaced")
+        void testBrokenIdleConnectionsAreReplaced() throws InterruptedException {
+            MemorySegment hklmKey = mockConnectAndClose(HKEY_LOCAL_MACHINE, "test-machine");
+            mockConnectAndClose(HKEY_USERS, "test-machine");
+
+            try (RemoteRegistryPool pool = RemoteRegistryPool.create(1, MAX_IDLE_TIME)) {
+                RemoteRegistry registry;
+                try (Lease lease = pool.lease("test-machine")) {
+                    registry = lease.registry();
+                }
+
+                advapi32.when(() -> RegQueryInfoKey(eq(hklmKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
+                        notNull(), notNull(), notNull(), notNull()))
+                        .thenReturn(RPC_S_SERVER_UNAVAILABLE);
+
+                try (Lease lease = pool.lease("test-machine")) {
+                    assertNotSame(registry, lease.registry());
+
+                    assertEquals(1, pool.size());
+                }
+            }
+
+            advapi32.verify(() -> RegConnectRegistry(eqPointer("test-machine"), eq(HKEY_LOCAL_MACHINE), notNull()), times(2));
+            advapi32.verify(() -> RegCloseKey(hklmKey), times(2));
+        }
+
+        @Test
+        @DisplayName("idle connections are evicted")
+        void testIdleConnectionsAreEvicted() throws InterruptedException {
+            MemorySegment hklmKey = mockConnectAndClose(HKEY_LOCAL_MACHINE, "test-machine");
+            mockConnectAndClose(HKEY_USERS, "test-machine");
+            mockConnectAndClose(HKEY_LOCAL_MACHINE, "other-machine");
+            mockConnectAndClose(HKEY_USERS, "other-machine");
+
+            try (RemoteRegistryPool pool = RemoteRegistryPool.create(1, Duration.ZERO)) {
+                try (var _ = pool.lease("test-machine")) {
+                    // No need to do anything
+                }
+
+                assertEquals(1, pool.idleCount());
+
+                try (var _ = pool.lease("other-machine")) {
+                    advapi32.verify(() -> RegCloseKey(hklmKey));
+
+                    assertEquals(1, pool.size());
+                }
+            }
+        }
+
+        @Test
+        @DisplayName("connection failure")
+        void testConnectionFailure() {
+            advapi32.when(() -> RegConnectRegistry(eqPointer("test-machine"), eq(HKEY_LOCAL_MACHINE), notNull()))
+                    .thenReturn(ERROR_BAD_NETPATH);
+
+            try (RemoteRegistryPool pool = RemoteRegistryPool.create(1, MAX_IDLE_TIME)) {
+                RegistryException exception = assertThrows(RegistryException.class, () -> pool.lease("test-machine"));
+                assertEquals(ERROR_BAD_NETPATH, exception.errorCode());
+
+                assertEquals(0, pool.size());
+            }
+        }
+
+        @Test
+        @DisplayName("closed pool")
+        void testClosedPool() throws InterruptedException {
+            MemorySegment hklmKey = mockConnectAndClose(HKEY_LOCAL_MACHINE, "test-machine");
+            mockConnectAndClose(HKEY_USERS, "test-machine");
+
+            RemoteRegistryPool pool = RemoteRegistryPool.create(1, MAX_IDLE_TIME);
+            try (var _ = pool.lease("test-machine")) {
+                pool.close();
+
+                assertThrows(IllegalStateException.class, () -> pool.lease("test-machine"));
+
+                advapi32.verify(() -> RegCloseKey(hklmKey), never());
+            }
+
+            // Connections that were in use are closed when they are returned
+            advapi32.verify(() -> RegCloseKey(hklmKey));
+            assertEquals(0, pool.size());
+        }
+    }
+
+    @Nested
+    @DisplayName("Lease")
+    class LeaseMethods {
+
+        @Test
+        @DisplayName("call reconnects on connection failures")
+        void testCallReconnects() throws InterruptedException {
+            MemorySegment hklmKey = mockConnectAndClose(HKEY_LOCAL_MACHINE, "test-machine");
+            mockConnectAndClose(HKEY_USERS, "test-machine");
+
+            AtomicInteger attempts = new AtomicInteger();
+
+            try (RemoteRegistryPool pool = RemoteRegistryPool.create(1, MAX_IDLE_TIME);
+                    Lease lease = pool.lease("test-machine")) {
+
+                RemoteRegistry registry = lease.registry();
+
+                String result = lease.call(r -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        throw new InvalidRegistryHandleException("HKEY_LOCAL_MACHINE", "test-machine");
+                    }
+                    return "success";
+                });
+
+                assertEquals("success", result);
+                assertEquals(2, attempts.get());
+                assertNotSame(registry, lease.registry());
+            }
+
+            advapi32.verify(() -> RegConnectRegistry(eqPointer("test-machine"), eq(HKEY_LOCAL_MACHINE), notNull()), times(2));
+            advapi32.verify(() -> RegCloseKey(hklmKey), times(2));
+        }
+
+        @Test
+        @DisplayName("call fails to reconnect")
+        void testCallFailsToReconnect() throws InterruptedException {
+            MemorySegment hklmKey = mockConnectAndClose(HKEY_LOCAL_MACHINE, "test-machine");
+            mockConnectAndClose(HKEY_USERS, "test-machine");
+
+            try (RemoteRegistryPool pool = RemoteRegistryPool.create(1, MAX_IDLE_TIME);
+                    Lease lease = pool.lease("test-machine")) {
+
+                IllegalStateException reconnectFailure = new IllegalStateException("reconnect failed");
+                advapi32.when(() -> RegConnectRegistry(eqPointer("test-machine"), eq(HKEY_LOCAL_MACHINE), notNull())).thenThrow(reconnectFailure);
+
+                InvalidRegistryHandleException failure = new InvalidRegistryHandleException("HKEY_LOCAL_MACHINE", "test-machine");
+                IllegalStateException exception = assertThrows(IllegalStateException.class, () -> lease.call(_ -> {
+                    throw failure;
+                }));
+                assertSame(reconnectFailure, exception);
+                assertArrayEquals(new Throwable[] { failure }, exception.getSuppressed());
+
+                // The lease no longer has a connection, and its slot has been released
+                assertThrows(IllegalStateException.class, lease::registry);
+                assertEquals(0, pool.size());
+            }
+
+            advapi32.verify(() -> RegCloseKey(hklmKey));
+        }
+
+        @Test
+        @DisplayName("call does not reconnect on other failures")
+        void testCallDoesNotReconnectOnOtherFailures() throws InterruptedException {
+            mockConnectAndClose(HKEY_LOCAL_MACHINE, "test-machine");
+            mockConnectAndClose(HKEY_USERS, "test-machine");
+
+            try (RemoteRegistryPool pool = RemoteRegistryPool.create(1, MAX_IDLE_TIME);
+                    Lease lease = pool.lease("test-machine")) {
+
+                RegistryException exception = assertThrows(RegistryException.class, () -> lease.call(_ -> {
+                    throw RegistryException.forKey(ERROR_ACCESS_DENIED, "HKEY_LOCAL_MACHINE", "test-machine");
+                }));
+                assertEquals(ERROR_ACCESS_DENIED, exception.errorCode());
+            }
+
+            advapi32.verify(() -> RegConnectRegistry(eqPointer("test-machine"), eq(HKEY_LOCAL_MACHINE), notNull()));
+        }
+
+        @Test
+        @DisplayName("invalidate")
+        void testInvalidate() throws InterruptedException {
+            MemorySegment hklmKey = mockConnectAndClose(HKEY_LOCAL_MACHINE, "test-machine");
+            mockConnectAndClose(HKEY_USERS, "test-machine");
+
+            try (RemoteRegistryPool pool = RemoteRegistryPool.create(1, MAX_IDLE_TIME)) {
+                try (Lease lease = pool.lease("test-machine")) {
+                    lease.invalidate();
+
+                    advapi32.verify(() -> RegCloseKey(hklmKey));
+                    assertEquals(0, pool.size());
+
+                    assertThrows(IllegalStateException.class, lease::registry);
+                }
+
+                assertEquals(0, pool.size());
+            }
+        }
+    }
+}
@@ -30,7 +30,6 @@ import static com.github.robtimus.os.windows.registry.Advapi32.RegSetValueEx;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqBytes;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqSize;
-import static com.github.robtimus.os.windows.registry.ForeignTestUtils.isNULL;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.notNULL;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockConnectAndClose;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockSubKeys;
@@ -60,6 +59,7 @@ import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -216,7 +216,10 @@ class RemoteRootKeyTest extends RegistryTestBase {
         void testEnumFailure() {
             advapi32.when(() -> RegQueryInfoKey(eq(rootHKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
                     notNull(), notNull(), notNull()))
-                    .thenReturn(ERROR_SUCCESS);
+                    .thenAnswer(i -> {
+                        i.getArgument(4, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 1);
+                        return ERROR_SUCCESS;
+                    });
 
             advapi32.when(() -> RegEnumKeyEx(eq(rootHKey), eq(0), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
@@ -391,7 +394,10 @@ class RemoteRootKeyTest extends RegistryTestBase {
         void testEnumFailure() {
             advapi32.when(() -> RegQueryInfoKey(eq(rootHKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
                     notNull(), notNull(), notNull()))
-                    .thenReturn(ERROR_SUCCESS);
+                    .thenAnswer(i -> {
+                        i.getArgument(7, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 1);
+                        return ERROR_SUCCESS;
+                    });
 
             advapi32.when(() -> RegEnumValue(eq(rootHKey), eq(0), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
@@ -424,7 +430,7 @@ class RemoteRootKeyTest extends RegistryTestBase {
         @Test
         @DisplayName("non-existing value")
         void testNonExistingValue() {
-            advapi32.when(() -> RegQueryValueEx(eq(rootHKey), notNull(), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(rootHKey), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = remoteRoot;
@@ -478,7 +484,7 @@ class RemoteRootKeyTest extends RegistryTestBase {
         @Test
         @DisplayName("non-existing value")
         void testNonExistingValue() {
-            advapi32.when(() -> RegQueryValueEx(eq(rootHKey), notNull(), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(rootHKey), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = remoteRoot;
@@ -1109,6 +1115,18 @@ class RemoteRootKeyTest extends RegistryTestBase {
         assertThrows(UnsupportedOperationException.class, remoteRoot::deleteIfExists);
     }
 
+    @Test
+    @DisplayName("deleteTree")
+    void testDeleteTree() {
+        assertThrows(UnsupportedOperationException.class, remoteRoot::deleteTree);
+    }
+
+    @Test
+    @DisplayName("deleteTreeIfExists")
+    void testDeleteTreeIfExists() {
+        assertThrows(UnsupportedOperationException.class, remoteRoot::deleteTreeIfExists);
+    }
+
     @Nested
     @DisplayName("handle")
     class Handle {
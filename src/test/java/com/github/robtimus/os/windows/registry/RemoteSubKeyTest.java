@@ -21,6 +21,7 @@ import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegConnectRegistry;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegCreateKeyEx;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteKeyEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteTree;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteValue;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumKeyEx;
 import static com.github.robtimus.os.windows.registry.Advapi32.RegEnumValue;
@@ -32,7 +33,6 @@ import static com.github.robtimus.os.windows.registry.Advapi32.RegSetValueEx;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqBytes;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqSize;
-import static com.github.robtimus.os.windows.registry.ForeignTestUtils.isNULL;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.newHKEY;
 import static com.github.robtimus.os.windows.registry.ForeignTestUtils.setHKEY;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockClose;
@@ -41,6 +41,7 @@ import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpen;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenAndClose;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenFailure;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockSubKeys;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockSubKeysUntilDeleted;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockValue;
 import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockValues;
 import static com.github.robtimus.os.windows.registry.RegistryValueTest.randomData;
@@ -283,7 +284,10 @@ class RemoteSubKeyTest extends RegistryTestBase {
 
             advapi32.when(() -> RegQueryInfoKey(eq(hKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
                     notNull(), notNull(), notNull()))
-                    .thenReturn(ERROR_SUCCESS);
+                    .thenAnswer(i -> {
+                        i.getArgument(4, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 1);
+                        return ERROR_SUCCESS;
+                    });
 
             advapi32.when(() -> RegEnumKeyEx(eq(hKey), eq(0), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
@@ -388,18 +392,18 @@ class RemoteSubKeyTest extends RegistryTestBase {
             @SuppressWarnings("squid:S5961")
             void testSubKeysFirst() {
                 MemorySegment hKey = mockOpenAndClose(rootHKey, "path");
-                MemorySegment subKey1 = mockOpenAndClose(rootHKey, "path\\subKey1");
-                MemorySegment subKey2 = mockOpenAndClose(rootHKey, "path\\subKey2");
-                MemorySegment subKey3 = mockOpenAndClose(rootHKey, "path\\subKey3");
-                MemorySegment subKey11 = mockOpenAndClose(rootHKey, "path\\subKey1\\subKey11");
-                MemorySegment subKey12 = mockOpenAndClose(rootHKey, "path\\subKey1\\subKey12");
-                MemorySegment subKey13 = mockOpenAndClose(rootHKey, "path\\subKey1\\subKey13");
-                MemorySegment subKey21 = mockOpenAndClose(rootHKey, "path\\subKey2\\subKey21");
-                MemorySegment subKey22 = mockOpenAndClose(rootHKey, "path\\subKey2\\subKey22");
-                MemorySegment subKey23 = mockOpenAndClose(rootHKey, "path\\subKey2\\subKey23");
-                MemorySegment subKey31 = mockOpenAndClose(rootHKey, "path\\subKey3\\subKey31");
-                MemorySegment subKey32 = mockOpenAndClose(rootHKey, "path\\subKey3\\subKey32");
-                MemorySegment subKey33 = mockOpenAndClose(rootHKey, "path\\subKey3\\subKey33");
+                MemorySegment subKey1 = mockOpenAndClose(hKey, "subKey1");
+                MemorySegment subKey2 = mockOpenAndClose(hKey, "subKey2");
+                MemorySegment subKey3 = mockOpenAndClose(hKey, "subKey3");
+                MemorySegment subKey11 = mockOpenAndClose(subKey1, "subKey11");
+                MemorySegment subKey12 = mockOpenAndClose(subKey1, "subKey12");
+                MemorySegment subKey13 = mockOpenAndClose(subKey1, "subKey13");
+                MemorySegment subKey21 = mockOpenAndClose(subKey2, "subKey21");
+                MemorySegment subKey22 = mockOpenAndClose(subKey2, "subKey22");
+                MemorySegment subKey23 = mockOpenAndClose(subKey2, "subKey23");
+                MemorySegment subKey31 = mockOpenAndClose(subKey3, "subKey31");
+                MemorySegment subKey32 = mockOpenAndClose(subKey3, "subKey32");
+                MemorySegment subKey33 = mockOpenAndClose(subKey3, "subKey33");
 
                 mockSubKeys(hKey, "subKey1", "subKey2", "subKey3");
                 mockSubKeys(subKey1, "subKey11", "subKey12", "subKey13");
@@ -439,18 +443,18 @@ class RemoteSubKeyTest extends RegistryTestBase {
                 }
 
                 advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey1"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey2"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey3"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey1\\subKey11"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey1\\subKey12"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey1\\subKey13"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey2\\subKey21"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey2\\subKey22"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey2\\subKey23"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey3\\subKey31"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey3\\subKey32"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey3\\subKey33"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey1"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey2"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey3"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey11"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey12"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey13"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey21"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey22"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey23"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey31"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey32"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey33"), anyInt(), anyInt(), notNull()));
                 advapi32.verify(() -> RegOpenKeyEx(notNull(), notNull(), anyInt(), anyInt(), notNull()), times(13));
                 advapi32.verify(() -> RegCloseKey(hKey));
                 advapi32.verify(() -> RegCloseKey(subKey1));
@@ -473,18 +477,18 @@ class RemoteSubKeyTest extends RegistryTestBase {
             @SuppressWarnings("squid:S5961")
             void testSubKeysNotFirst() {
                 MemorySegment hKey = mockOpenAndClose(rootHKey, "path");
-                MemorySegment subKey1 = mockOpenAndClose(rootHKey, "path\\subKey1");
-                MemorySegment subKey2 = mockOpenAndClose(rootHKey, "path\\subKey2");
-                MemorySegment subKey3 = mockOpenAndClose(rootHKey, "path\\subKey3");
-                MemorySegment subKey11 = mockOpenAndClose(rootHKey, "path\\subKey1\\subKey11");
-                MemorySegment subKey12 = mockOpenAndClose(rootHKey, "path\\subKey1\\subKey12");
-                MemorySegment subKey13 = mockOpenAndClose(rootHKey, "path\\subKey1\\subKey13");
-                MemorySegment subKey21 = mockOpenAndClose(rootHKey, "path\\subKey2\\subKey21");
-                MemorySegment subKey22 = mockOpenAndClose(rootHKey, "path\\subKey2\\subKey22");
-                MemorySegment subKey23 = mockOpenAndClose(rootHKey, "path\\subKey2\\subKey23");
-                MemorySegment subKey31 = mockOpenAndClose(rootHKey, "path\\subKey3\\subKey31");
-                MemorySegment subKey32 = mockOpenAndClose(rootHKey, "path\\subKey3\\subKey32");
-                MemorySegment subKey33 = mockOpenAndClose(rootHKey, "path\\subKey3\\subKey33");
+                MemorySegment subKey1 = mockOpenAndClose(hKey, "subKey1");
+                MemorySegment subKey2 = mockOpenAndClose(hKey, "subKey2");
+                MemorySegment subKey3 = mockOpenAndClose(hKey, "subKey3");
+                MemorySegment subKey11 = mockOpenAndClose(subKey1, "subKey11");
+                MemorySegment subKey12 = mockOpenAndClose(subKey1, "subKey12");
+                MemorySegment subKey13 = mockOpenAndClose(subKey1, "subKey13");
+                MemorySegment subKey21 = mockOpenAndClose(subKey2, "subKey21");
+                MemorySegment subKey22 = mockOpenAndClose(subKey2, "subKey22");
+                MemorySegment subKey23 = mockOpenAndClose(subKey2, "subKey23");
+                MemorySegment subKey31 = mockOpenAndClose(subKey3, "subKey31");
+                MemorySegment subKey32 = mockOpenAndClose(subKey3, "subKey32");
+                MemorySegment subKey33 = mockOpenAndClose(subKey3, "subKey33");
 
                 mockSubKeys(hKey, "subKey1", "subKey2", "subKey3");
                 mockSubKeys(subKey1, "subKey11", "subKey12", "subKey13");
@@ -524,18 +528,18 @@ class RemoteSubKeyTest extends RegistryTestBase {
                 }
 
                 advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey1"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey2"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey3"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey1\\subKey11"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey1\\subKey12"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey1\\subKey13"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey2\\subKey21"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey2\\subKey22"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey2\\subKey23"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey3\\subKey31"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey3\\subKey32"), anyInt(), anyInt(), notNull()));
-                advapi32.verify(() -> RegOpenKeyEx(eq(rootHKey), eqPointer("path\\subKey3\\subKey33"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey1"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey2"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(hKey), eqPointer("subKey3"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey11"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey12"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey1), eqPointer("subKey13"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey21"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey22"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey2), eqPointer("subKey23"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey31"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey32"), anyInt(), anyInt(), notNull()));
+                advapi32.verify(() -> RegOpenKeyEx(eq(subKey3), eqPointer("subKey33"), anyInt(), anyInt(), notNull()));
                 advapi32.verify(() -> RegOpenKeyEx(notNull(), notNull(), anyInt(), anyInt(), notNull()), times(13));
                 advapi32.verify(() -> RegCloseKey(hKey));
                 advapi32.verify(() -> RegCloseKey(subKey1));
@@ -761,7 +765,10 @@ class RemoteSubKeyTest extends RegistryTestBase {
 
             advapi32.when(() -> RegQueryInfoKey(eq(hKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(),
                     notNull(), notNull(), notNull()))
-                    .thenReturn(ERROR_SUCCESS);
+                    .thenAnswer(i -> {
+                        i.getArgument(7, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, 1);
+                        return ERROR_SUCCESS;
+                    });
 
             advapi32.when(() -> RegEnumValue(eq(hKey), eq(0), notNull(), notNull(), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
@@ -819,7 +826,7 @@ class RemoteSubKeyTest extends RegistryTestBase {
         void testNonExistingValue() {
             MemorySegment hKey = mockOpenAndClose(rootHKey, "path\\non-existing");
 
-            advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer("string"), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer("string"), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = remoteRoot.resolve("path\\non-existing");
@@ -908,7 +915,7 @@ class RemoteSubKeyTest extends RegistryTestBase {
         void testNonExistingValue() {
             MemorySegment hKey = mockOpenAndClose(rootHKey, "path\\non-existing");
 
-            advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer("string"), notNull(), notNull(), isNULL(), notNull()))
+            advapi32.when(() -> RegQueryValueEx(eq(hKey), eqPointer("string"), notNull(), notNull(), notNull(), notNull()))
                     .thenReturn(ERROR_FILE_NOT_FOUND);
 
             RegistryKey registryKey = remoteRoot.resolve("path\\non-existing");
@@ -1871,6 +1878,95 @@ class RemoteSubKeyTest extends RegistryTestBase {
         }
     }
 
+    @Nested
+    @DisplayName("deleteTree")
+    class DeleteTree {
+
+        @Test
+        @DisplayName("existing")
+        void testDeleteExisting() {
+            advapi32.when(Advapi32::isRegDeleteTreeEnabled).thenReturn(true);
+            advapi32.when(() -> RegDeleteTree(eq(rootHKey), eqPointer("path\\existing"))).thenReturn(ERROR_SUCCESS);
+
+            RegistryKey registryKey = remoteRoot.resolve("path\\existing");
+            registryKey.deleteTree();
+
+            advapi32.verify(() -> RegDeleteTree(eq(rootHKey), eqPointer("path\\existing")));
+            advapi32.verify(() -> RegOpenKeyEx(notNull(), notNull(), anyInt(), anyInt(), notNull()), never());
+            advapi32.verify(() -> RegCloseKey(notNull()), never());
+        }
+
+        @Test
+        @DisplayName("non-existing")
+        void testDeleteNonExisting() {
+            advapi32.when(Advapi32::isRegDeleteTreeEnabled).thenReturn(true);
+            advapi32.when(() -> RegDeleteTree(eq(rootHKey), eqPointer("path\\non-existing"))).thenReturn(ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = remoteRoot.resolve("path\\non-existing");
+            NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class, registryKey::deleteTree);
+            assertEquals("HKEY_LOCAL_MACHINE\\path\\non-existing", exception.path());
+            assertEquals("test-machine", exception.machineName());
+        }
+
+        @Test
+        @DisplayName("without RegDeleteTree")
+        void testWithoutRegDeleteTree() {
+            MemorySegment hKey = mockOpen(rootHKey, "path\\existing");
+            MemorySegment childHKey = mockOpen(hKey, "child");
+            mockSubKeysUntilDeleted(hKey, "child");
+            mockSubKeysUntilDeleted(childHKey);
+            mockClose(hKey);
+            mockClose(childHKey);
+
+            RegistryKey registryKey = remoteRoot.resolve("path\\existing");
+            registryKey.deleteTree();
+
+            advapi32.verify(() -> RegDeleteKeyEx(eq(hKey), eqPointer("child"), eq(0), eq(0)));
+            advapi32.verify(() -> RegDeleteKeyEx(eq(rootHKey), eqPointer("path\\existing"), eq(0), eq(0)));
+            advapi32.verify(() -> RegCloseKey(hKey));
+            advapi32.verify(() -> RegCloseKey(childHKey));
+        }
+    }
+
+    @Nested
+    @DisplayName("deleteTreeIfExists")
+    class DeleteTreeIfExists {
+
+        @Test
+        @DisplayName("existing")
+        void testDeleteExisting() {
+            advapi32.when(Advapi32::isRegDeleteTreeEnabled).thenReturn(true);
+            advapi32.when(() -> RegDeleteTree(eq(rootHKey), eqPointer("path\\existing"))).thenReturn(ERROR_SUCCESS);
+
+            RegistryKey registryKey = remoteRoot.resolve("path\\existing");
+            assertTrue(registryKey.deleteTreeIfExists());
+
+            advapi32.verify(() -> RegDeleteTree(eq(rootHKey), eqPointer("path\\existing")));
+        }
+
+        @Test
+        @DisplayName("non-existing")
+        void testDeleteNonExisting() {
+            advapi32.when(Advapi32::isRegDeleteTreeEnabled).thenReturn(true);
+            advapi32.when(() -> RegDeleteTree(eq(rootHKey), eqPointer("path\\non-existing"))).thenReturn(ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = remoteRoot.resolve("path\\non-existing");
+            assertFalse(registryKey.deleteTreeIfExists());
+        }
+
+        @Test
+        @DisplayName("failure")
+        void testFailure() {
+            advapi32.when(Advapi32::isRegDeleteTreeEnabled).thenReturn(true);
+            advapi32.when(() -> RegDeleteTree(eq(rootHKey), eqPointer("path\\failure"))).thenReturn(ERROR_INVALID_HANDLE);
+
+            RegistryKey registryKey = remoteRoot.resolve("path\\failure");
+            InvalidRegistryHandleException exception = assertThrows(InvalidRegistryHandleException.class, registryKey::deleteTreeIfExists);
+            assertEquals("HKEY_LOCAL_MACHINE\\path\\failure", exception.path());
+            assertEquals("test-machine", exception.machineName());
+        }
+    }
+
     @Nested
     @DisplayName("handle")
     class Handle {
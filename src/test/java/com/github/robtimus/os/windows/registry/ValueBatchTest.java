@@ -0,0 +1,214 @@
+/*
+ * ValueBatchTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteValue;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegOpenKeyEx;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegSetValueEx;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqBytes;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqSize;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenAndClose;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenFailure;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.HKEY_CURRENT_USER;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_DWORD;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_SZ;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import java.lang.foreign.MemorySegment;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+@SuppressWarnings("nls")
+class ValueBatchTest extends RegistryTestBase {
+
+    private static final LocalRegistry REGISTRY = Registry.local();
+
+    @Nested
+    @DisplayName("native")
+    class Native {
+
+        @Test
+        @DisplayName("success")
+        void testSuccess() {
+            StringValue stringValue = StringValue.of("string", "value");
+            DWordValue dwordValue = DWordValue.of("dword", 13);
+            MemorySegment stringData = stringValue.rawData(arena);
+            MemorySegment dwordData = dwordValue.rawData(arena);
+
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\existing");
+
+            advapi32.when(() -> RegSetValueEx(eq(hKey), eqPointer("string"), anyInt(), eq(REG_SZ), eqBytes(stringData), eqSize(stringData)))
+                    .thenReturn(ERROR_SUCCESS);
+            advapi32.when(() -> RegSetValueEx(eq(hKey), eqPointer("dword"), anyInt(), eq(REG_DWORD), eqBytes(dwordData), eqSize(dwordData)))
+                    .thenReturn(ERROR_SUCCESS);
+            advapi32.when(() -> RegDeleteValue(eq(hKey), eqPointer("deleted"))).thenReturn(ERROR_SUCCESS);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\existing");
+            ValueBatch.Result result = registryKey.updateValues(batch -> batch
+                    .setValue(stringValue)
+                    .setValue(dwordValue)
+                    .deleteValue("deleted"));
+
+            assertTrue(result.isSuccessful());
+            assertEquals(3, result.changeCount());
+            assertEquals(List.of(), result.failures());
+
+            advapi32.verify(() -> RegSetValueEx(eq(hKey), eqPointer("string"), anyInt(), eq(REG_SZ), eqBytes(stringData), eqSize(stringData)));
+            advapi32.verify(() -> RegSetValueEx(eq(hKey), eqPointer("dword"), anyInt(), eq(REG_DWORD), eqBytes(dwordData), eqSize(dwordData)));
+            advapi32.verify(() -> RegDeleteValue(eq(hKey), eqPointer("deleted")));
+
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\existing"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("failures")
+        void testFailures() {
+            StringValue deniedValue = StringValue.of("denied", "value");
+            StringValue stringValue = StringValue.of("string", "value");
+
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\existing");
+
+            advapi32.when(() -> RegSetValueEx(eq(hKey), eqPointer("denied"), anyInt(), eq(REG_SZ), notNull(), anyInt()))
+                    .thenReturn(ERROR_ACCESS_DENIED);
+            advapi32.when(() -> RegSetValueEx(eq(hKey), eqPointer("string"), anyInt(), eq(REG_SZ), notNull(), anyInt()))
+                    .thenReturn(ERROR_SUCCESS);
+            advapi32.when(() -> RegDeleteValue(eq(hKey), eqPointer("missing"))).thenReturn(ERROR_FILE_NOT_FOUND);
+            advapi32.when(() -> RegDeleteValue(eq(hKey), eqPointer("optional"))).thenReturn(ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\existing");
+            ValueBatch.Result result = registryKey.updateValues(batch -> batch
+                    .setValue(deniedValue)
+                    .deleteValue("missing")
+                    .deleteValueIfExists("optional")
+                    .setValue(stringValue));
+
+            assertFalse(result.isSuccessful());
+            assertEquals(4, result.changeCount());
+
+            List<RegistryException> failures = result.failures();
+            assertEquals(2, failures.size());
+
+            assertInstanceOf(RegistryAccessDeniedException.class, failures.get(0));
+            assertEquals("HKEY_CURRENT_USER\\path\\existing", failures.get(0).path());
+
+            NoSuchRegistryValueException exception = assertInstanceOf(NoSuchRegistryValueException.class, failures.get(1));
+            assertEquals("HKEY_CURRENT_USER\\path\\existing", exception.path());
+            assertEquals("missing", exception.name());
+
+            // Failures do not prevent later changes from being applied
+            advapi32.verify(() -> RegSetValueEx(eq(hKey), eqPointer("string"), anyInt(), eq(REG_SZ), notNull(), anyInt()));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("non-existing key")
+        void testNonExistingKey() {
+            mockOpenFailure(HKEY_CURRENT_USER, "path\\non-existing", ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\non-existing");
+            NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class,
+                    () -> registryKey.updateValues(batch -> batch.setValue(StringValue.of("string", "value"))));
+            assertEquals("HKEY_CURRENT_USER\\path\\non-existing", exception.path());
+
+            advapi32.verify(() -> RegCloseKey(notNull()), never());
+            advapi32.verify(() -> RegSetValueEx(notNull(), notNull(), anyInt(), anyInt(), notNull(), anyInt()), never());
+        }
+
+        @Test
+        @DisplayName("using handle")
+        void testUsingHandle() {
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\existing");
+
+            advapi32.when(() -> RegDeleteValue(eq(hKey), eqPointer("deleted"))).thenReturn(ERROR_SUCCESS);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\existing");
+            try (RegistryKey.Handle handle = registryKey.handle(RegistryKey.HandleOption.MANAGE_VALUES)) {
+                ValueBatch.Result result = handle.updateValues(batch -> batch.deleteValue("deleted"));
+
+                assertTrue(result.isSuccessful());
+            }
+
+            advapi32.verify(() -> RegDeleteValue(eq(hKey), eqPointer("deleted")));
+            advapi32.verify(() -> RegOpenKeyEx(eq(HKEY_CURRENT_USER), eqPointer("path\\existing"), anyInt(), anyInt(), notNull()));
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+    }
+
+    @Nested
+    @DisplayName("in-memory")
+    class InMemory {
+
+        private final InMemoryRegistry registry = Registry.inMemory();
+
+        @Test
+        @DisplayName("values larger than the initial buffer")
+        void testLargeValues() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path\\key");
+            registryKey.create();
+
+            String large = "x".repeat(5000);
+
+            ValueBatch.Result result = registryKey.updateValues(batch -> batch
+                    .setValue(StringValue.of("small1", "value1"))
+                    .setValue(StringValue.of("large", large))
+                    .setValue(MultiStringValue.of("multi", "a", "bb", "ccc"))
+                    .setValue(StringValue.of("small2", "value2")));
+
+            assertTrue(result.isSuccessful());
+
+            assertEquals("value1", registryKey.getStringValue("small1"));
+            assertEquals(large, registryKey.getStringValue("large"));
+            assertEquals(List.of("a", "bb", "ccc"), registryKey.getValue("multi", MultiStringValue.class).values());
+            assertEquals("value2", registryKey.getStringValue("small2"));
+        }
+
+        @Test
+        @DisplayName("deletions")
+        void testDeletions() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path\\key");
+            registryKey.create();
+            registryKey.setValue(StringValue.of("existing", "value"));
+
+            ValueBatch.Result result = registryKey.updateValues(batch -> batch
+                    .deleteValue("existing")
+                    .deleteValue("missing")
+                    .deleteValueIfExists("optional"));
+
+            assertEquals(3, result.changeCount());
+            assertEquals(1, result.failures().size());
+            assertEquals("missing", assertInstanceOf(NoSuchRegistryValueException.class, result.failures().get(0)).name());
+
+            assertFalse(registryKey.findStringValue("existing").isPresent());
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * ValueReconcilerTest.java
+ * Copyright 2026 Rob Spoor
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.github.robtimus.os.windows.registry;
+
+import static com.github.robtimus.os.windows.registry.Advapi32.RegCloseKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegDeleteValue;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegQueryInfoKey;
+import static com.github.robtimus.os.windows.registry.Advapi32.RegSetValueEx;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqBytes;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqPointer;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.eqSize;
+import static com.github.robtimus.os.windows.registry.ForeignTestUtils.notNULL;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenAndClose;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockOpenFailure;
+import static com.github.robtimus.os.windows.registry.RegistryKeyMocks.mockValues;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_ACCESS_DENIED;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_FILE_NOT_FOUND;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.ERROR_SUCCESS;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.HKEY_CURRENT_USER;
+import static com.github.robtimus.os.windows.registry.WindowsConstants.REG_SZ;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
+import static org.mockito.Mockito.never;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import com.github.robtimus.os.windows.registry.RegistryKey.ReconcileOption;
+
+@SuppressWarnings("nls")
+class ValueReconcilerTest extends RegistryTestBase {
+
+    private static final LocalRegistry REGISTRY = Registry.local();
+
+    @Nested
+    @DisplayName("native")
+    class Native {
+
+        @Test
+        @DisplayName("only differences are written")
+        void testOnlyDifferencesAreWritten() {
+            StringValue sameValue = StringValue.of("same", "value");
+            StringValue changedValue = StringValue.of("changed", "new");
+            StringValue addedValue = StringValue.of("added", "value");
+            MemorySegment changedData = changedValue.rawData(arena);
+            MemorySegment addedData = addedValue.rawData(arena);
+
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\existing");
+            mockCurrentValues(hKey, sameValue, StringValue.of("changed", "old"), StringValue.of("other", "value"));
+
+            advapi32.when(() -> RegSetValueEx(eq(hKey), eqPointer("changed"), anyInt(), eq(REG_SZ), eqBytes(changedData), eqSize(changedData)))
+                    .thenReturn(ERROR_SUCCESS);
+            advapi32.when(() -> RegSetValueEx(eq(hKey), eqPointer("added"), anyInt(), eq(REG_SZ), eqBytes(addedData), eqSize(addedData)))
+                    .thenReturn(ERROR_SUCCESS);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\existing");
+            ReconcileResult result = registryKey.reconcile(List.of(sameValue, changedValue, addedValue));
+
+            assertEquals(List.of("added"), result.addedValues());
+            assertEquals(List.of("changed"), result.changedValues());
+            assertEquals(List.of(), result.deletedValues());
+            assertTrue(result.hasChanges());
+            assertTrue(result.isSuccessful());
+
+            advapi32.verify(() -> RegSetValueEx(eq(hKey), eqPointer("changed"), anyInt(), eq(REG_SZ), eqBytes(changedData), eqSize(changedData)));
+            advapi32.verify(() -> RegSetValueEx(eq(hKey), eqPointer("added"), anyInt(), eq(REG_SZ), eqBytes(addedData), eqSize(addedData)));
+            advapi32.verify(() -> RegSetValueEx(eq(hKey), eqPointer("same"), anyInt(), anyInt(), notNull(), anyInt()), never());
+            advapi32.verify(() -> RegDeleteValue(notNull(), notNull()), never());
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("delete others")
+        void testDeleteOthers() {
+            StringValue sameValue = StringValue.of("same", "value");
+
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\existing");
+            mockCurrentValues(hKey, sameValue, StringValue.of("other", "value"));
+
+            advapi32.when(() -> RegDeleteValue(eq(hKey), eqPointer("other"))).thenReturn(ERROR_SUCCESS);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\existing");
+            ReconcileResult result = registryKey.reconcile(List.of(sameValue), ReconcileOption.DELETE_OTHERS);
+
+            assertEquals(List.of(), result.addedValues());
+            assertEquals(List.of(), result.changedValues());
+            assertEquals(List.of("other"), result.deletedValues());
+
+            advapi32.verify(() -> RegDeleteValue(eq(hKey), eqPointer("other")));
+            advapi32.verify(() -> RegSetValueEx(notNull(), notNull(), anyInt(), anyInt(), notNull(), anyInt()), never());
+        }
+
+        @Test
+        @DisplayName("failure")
+        void testFailure() {
+            StringValue changedValue = StringValue.of("changed", "new");
+
+            MemorySegment hKey = mockOpenAndClose(HKEY_CURRENT_USER, "path\\existing");
+            mockCurrentValues(hKey, StringValue.of("changed", "old"));
+
+            advapi32.when(() -> RegSetValueEx(eq(hKey), eqPointer("changed"), anyInt(), eq(REG_SZ), notNull(), anyInt()))
+                    .thenReturn(ERROR_ACCESS_DENIED);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\existing");
+            ReconcileResult result = registryKey.reconcile(List.of(changedValue));
+
+            assertEquals(List.of(), result.changedValues());
+            assertFalse(result.hasChanges());
+            assertFalse(result.isSuccessful());
+            assertEquals(1, result.failures().size());
+            assertInstanceOf(RegistryAccessDeniedException.class, result.failures().get(0));
+
+            advapi32.verify(() -> RegCloseKey(hKey));
+        }
+
+        @Test
+        @DisplayName("non-existing key")
+        void testNonExistingKey() {
+            mockOpenFailure(HKEY_CURRENT_USER, "path\\non-existing", ERROR_FILE_NOT_FOUND);
+
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\non-existing");
+            List<SettableRegistryValue> values = List.of(StringValue.of("string", "value"));
+            NoSuchRegistryKeyException exception = assertThrows(NoSuchRegistryKeyException.class, () -> registryKey.reconcile(values));
+            assertEquals("HKEY_CURRENT_USER\\path\\non-existing", exception.path());
+
+            advapi32.verify(() -> RegSetValueEx(notNull(), notNull(), anyInt(), anyInt(), notNull(), anyInt()), never());
+        }
+
+        @Test
+        @DisplayName("null value")
+        void testNullValue() {
+            RegistryKey registryKey = REGISTRY.HKEY_CURRENT_USER.resolve("path\\existing");
+            List<SettableRegistryValue> values = Arrays.asList(StringValue.of("string", "value"), null);
+
+            assertThrows(NullPointerException.class, () -> registryKey.reconcile(values));
+
+            advapi32.verifyNoInteractions();
+        }
+
+        private void mockCurrentValues(MemorySegment hKey, SettableRegistryValue... values) {
+            mockValues(hKey, values);
+
+            // Only the maximum value name and data lengths are queried
+            int maxNameLength = Arrays.stream(values)
+                    .mapToInt(value -> value.name().length())
+                    .max()
+                    .orElseThrow();
+            int maxValueLength = Arrays.stream(values)
+                    .mapToInt(value -> Math.toIntExact(value.rawData(arena).byteSize()))
+                    .max()
+                    .orElseThrow();
+            advapi32.when(() -> RegQueryInfoKey(eq(hKey), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNull(), notNULL(),
+                    notNULL(), notNull(), notNull()))
+                    .thenAnswer(i -> {
+                        i.getArgument(8, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, maxNameLength);
+                        i.getArgument(9, MemorySegment.class).set(ValueLayout.JAVA_INT, 0, maxValueLength);
+                        return ERROR_SUCCESS;
+                    });
+        }
+    }
+
+    @Nested
+    @DisplayName("in-memory")
+    class InMemory {
+
+        private final InMemoryRegistry registry = Registry.inMemory();
+
+        @Test
+        @DisplayName("reconcile")
+        void testReconcile() {
+            RegistryKey registryKey = registry.HKEY_CURRENT_USER.resolve("path\\key");
+            registryKey.create();
+            registryKey.setValue(StringValue.of("Same", "value"));
+            registryKey.setValue(StringValue.of("changed", "old"));
+            registryKey.setValue(DWordValue.of("type", 1));
+            registryKey.setValue(StringValue.of("other", "value"));
+
+            List<SettableRegistryValue> values = List.of(
+                    StringValue.of("same", "value"),
+                    StringValue.of("changed", "new"),
+                    StringValue.of("type", "1"),
+                    QWordValue.of("added", 1));
+
+            ReconcileResult result = registryKey.reconcile(values);
+
+            assertEquals(List.of("added"), result.addedValues());
+            assertEquals(List.of("changed", "type"), result.changedValues());
+            assertEquals(List.of(), result.deletedValues());
+            assertTrue(result.isSuccessful());
+
+            assertEquals("new", registryKey.getStringValue("changed"));
+            assertEquals("1", registryKey.getStringValue("type"));
+            assertEquals(1L, registryKey.getQWordValue("added"));
+            assertEquals("value", registryKey.getStringValue("other"));
+
+            result = registryKey.reconcile(values, ReconcileOption.DELETE_OTHERS);
+
+            assertEquals(List.of(), result.addedValues());
+            assertEquals(List.of(), result.changedValues());
+            assertEquals(List.of("other"), result.deletedValues());
+
+            assertFalse(registryKey.findStringValue("other").isPresent());
+
+            result = registryKey.reconcile(values, ReconcileOption.DELETE_OTHERS);
+
+            assertFalse(result.hasChanges());
+        }
+    }
+}